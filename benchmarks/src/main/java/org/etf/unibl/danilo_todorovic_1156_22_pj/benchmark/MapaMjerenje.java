@@ -0,0 +1,106 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.benchmark;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.Mapa;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.PromjenaVozila;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Position updates published to the {@link Mapa} by simulation threads.
+ * A vehicle moves one tile per invocation, which removes it from the old tile and shows it on the new one.
+ * The grouped benchmark adds the frame that takes the published changes, as the renderer does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapaMjerenje {
+
+    /**
+     * A vehicle of one benchmark thread, moving along its own row of the map.
+     */
+    @State(Scope.Thread)
+    public static class Vozilo {
+        private static int brojac;   // Number of vehicles created
+        private String id;           // Vehicle ID
+        private int y;               // Row the vehicle moves along
+        private int x;               // Current column
+
+        /**
+         * Gives the vehicle its ID and row and shows it at the start of the row.
+         */
+        @Setup(Level.Trial)
+        public void pripremi() {
+            synchronized (Vozilo.class) {
+                id = SintetickiPodaci.idVozila(brojac);
+                y = brojac % Mapa.getVelicina();
+                brojac++;
+            }
+            Mapa.getInstance().azurirajPoziciju(x, y, "bicikl", id, 100);
+        }
+    }
+
+    /**
+     * The frame taking the published changes.
+     */
+    @State(Scope.Thread)
+    public static class Slika {
+        private final ArrayList<PromjenaVozila> vozila = new ArrayList<>(); // Taken vehicle changes
+        private final HashMap<Integer, Long> polja = new HashMap<>();       // Taken tile resets
+    }
+
+    /**
+     * Moves a vehicle one tile to the right, wrapping around at the edge of the map.
+     */
+    private static void pomjeri(Mapa mapa, Vozilo vozilo) {
+        mapa.resetujPoziciju(vozilo.x, vozilo.y, vozilo.id);
+        vozilo.x = (vozilo.x + 1) % Mapa.getVelicina();
+        mapa.azurirajPoziciju(vozilo.x, vozilo.y, "bicikl", vozilo.id, 100 - vozilo.x);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void pomjeranje(Vozilo vozilo) {
+        pomjeri(Mapa.getInstance(), vozilo);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void pomjeranjeCetiriNiti(Vozilo vozilo) {
+        pomjeri(Mapa.getInstance(), vozilo);
+    }
+
+    @Benchmark
+    @Group("sPreuzimanjem")
+    @GroupThreads(3)
+    public void pomjeranjeUzPreuzimanje(Vozilo vozilo) {
+        pomjeri(Mapa.getInstance(), vozilo);
+    }
+
+    @Benchmark
+    @Group("sPreuzimanjem")
+    @GroupThreads(1)
+    public int preuzimanje(Slika slika) {
+        slika.vozila.clear();
+        slika.polja.clear();
+        Mapa.getInstance().preuzmiPromjene(slika.vozila, slika.polja);
+        return slika.vozila.size() + slika.polja.size();
+    }
+}
@@ -0,0 +1,35 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results as JSON, so results of different releases can be compared.
+ *
+ * Accepts the usual JMH command line options, for example a benchmark name pattern or {@code -p brojRedova=10000}.
+ * Results go to {@code jmh-result.json} unless another file is given with {@code -rff}.
+ */
+public class PokretanjeMjerenja {
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args JMH command line options.
+     * @throws RunnerException If a benchmark fails.
+     * @throws CommandLineOptionException If the options cannot be parsed.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions komandnaLinija = new CommandLineOptions(args);
+        Options opcije = new OptionsBuilder()
+                .parent(komandnaLinija)
+                .resultFormat(komandnaLinija.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(komandnaLinija.getResult().orElse("jmh-result.json"))
+                .build();
+        new Runner(opcije).run();
+    }
+}
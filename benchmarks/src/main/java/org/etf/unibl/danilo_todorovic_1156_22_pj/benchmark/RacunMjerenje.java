@@ -0,0 +1,81 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.benchmark;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.rental.Iznajmljivanje;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Racun;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Utility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Billing: invoice construction and rendering, and the pricing steps of {@link Utility}.
+ * Every invocation takes the next rental of a generated log, so branches on vehicle type,
+ * part of the city, promotion and malfunction are all exercised.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RacunMjerenje {
+    private static final int BROJ_IZNAJMLJIVANJA = 4096; // Size of the generated log, a power of two
+    private static final int BROJ_VOZILA = 300;          // Size of the generated fleet
+
+    private Iznajmljivanje[] iznajmljivanja; // Generated rentals
+    private Racun[] racuni;                  // Invoices of the generated rentals
+    private Utility utility;                 // Pricing
+    private int sljedeci;                    // Index of the next rental
+
+    /**
+     * Generates the fleet, the rentals and their invoices.
+     */
+    @Setup(Level.Trial)
+    public void pripremi() {
+        SintetickiPodaci.registrujVozila(BROJ_VOZILA);
+        iznajmljivanja = SintetickiPodaci.iznajmljivanja(BROJ_IZNAJMLJIVANJA, BROJ_VOZILA);
+        racuni = new Racun[BROJ_IZNAJMLJIVANJA];
+        for (int i = 0; i < BROJ_IZNAJMLJIVANJA; i++) {
+            racuni[i] = new Racun(iznajmljivanja[i]);
+        }
+        utility = new Utility();
+    }
+
+    /**
+     * Returns the index of the next rental.
+     */
+    private int sljedeci() {
+        sljedeci = (sljedeci + 1) & (BROJ_IZNAJMLJIVANJA - 1);
+        return sljedeci;
+    }
+
+    @Benchmark
+    public Racun konstrukcijaRacuna() {
+        return new Racun(iznajmljivanja[sljedeci()]);
+    }
+
+    @Benchmark
+    public String ispisRacuna() {
+        return racuni[sljedeci()].toString();
+    }
+
+    @Benchmark
+    public double osnovnaCijena() {
+        return utility.getOsnovnaCijena(iznajmljivanja[sljedeci()]);
+    }
+
+    @Benchmark
+    public double udaljenost() {
+        return utility.getUdaljenost(iznajmljivanja[sljedeci()]);
+    }
+}
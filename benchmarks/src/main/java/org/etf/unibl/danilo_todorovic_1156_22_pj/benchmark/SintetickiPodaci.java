@@ -0,0 +1,96 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.benchmark;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.rental.Iznajmljivanje;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.Simulacija;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.Automobil;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.ElektricniBicikl;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.ElektricniTrotinet;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.PrevoznoSredstvo;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.RegistarVozila;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.GeneratorPodataka;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Synthetic fleet and rental log for the benchmarks. Vehicle and rental files and rows are produced by {@link GeneratorPodataka}.
+ * The same seed always produces the same data, so results of different releases are comparable.
+ */
+final class SintetickiPodaci {
+    static final long SEME = 1156;           // Seed of all generated data
+    static final int VELICINA_MAPE = 20;     // Coordinates are generated inside the default map
+
+    /**
+     * Prevents instantiation.
+     */
+    private SintetickiPodaci() {
+    }
+
+    /**
+     * Returns the ID of a generated vehicle; vehicles cycle through cars, bicycles and scooters.
+     *
+     * @param i Number of the vehicle.
+     * @return The vehicle ID.
+     */
+    static String idVozila(int i) {
+        return "ABT".charAt(i % 3) + Integer.toString(i + 1);
+    }
+
+    /**
+     * Creates the generated vehicles, puts them into the vehicle map of {@link Simulacija} and rebuilds
+     * the {@link RegistarVozila}, which is where invoices and receipts look up the vehicle type.
+     *
+     * @param brojVozila Number of vehicles.
+     */
+    static void registrujVozila(int brojVozila) {
+        for (int i = 0; i < brojVozila; i++) {
+            PrevoznoSredstvo vozilo;
+            switch (i % 3) {
+                case 0:
+                    vozilo = new Automobil(idVozila(i), "A", "M" + i, 40000, 100, LocalDate.of(2024, 1, 1), "opis", 5);
+                    break;
+                case 1:
+                    vozilo = new ElektricniBicikl(idVozila(i), "B", "BM" + i, 3000, 100, 80);
+                    break;
+                default:
+                    vozilo = new ElektricniTrotinet(idVozila(i), "T", "TM" + i, 1000, 100, 40);
+                    break;
+            }
+            Simulacija.getVozila().put(vozilo.getId(), vozilo);
+        }
+        RegistarVozila.getInstance().izgradi(Simulacija.getVozila());
+    }
+
+    /**
+     * Generates rentals of the given vehicles.
+     *
+     * @param broj Number of rentals.
+     * @param brojVozila Number of vehicles.
+     * @return The rentals.
+     */
+    static Iznajmljivanje[] iznajmljivanja(int broj, int brojVozila) {
+        Random random = new Random(SEME);
+        Iznajmljivanje[] iznajmljivanja = new Iznajmljivanje[broj];
+        LocalDateTime pocetak = LocalDateTime.of(2024, 6, 1, 8, 0);
+        for (int i = 0; i < broj; i++) {
+            iznajmljivanja[i] = new Iznajmljivanje(pocetak.plusMinutes(i), "K" + random.nextInt(1000), "D" + i, "V" + i,
+                    idVozila(random.nextInt(brojVozila)), random.nextInt(VELICINA_MAPE), random.nextInt(VELICINA_MAPE),
+                    random.nextInt(VELICINA_MAPE), random.nextInt(VELICINA_MAPE), 1 + random.nextInt(20),
+                    random.nextInt(20) == 0, random.nextInt(5) == 0, random.nextInt(10) == 0);
+        }
+        return iznajmljivanja;
+    }
+
+    /**
+     * Returns the generator of vehicle and rental files used by the benchmarks.
+     *
+     * @param brojVozila Number of vehicles.
+     * @param brojIznajmljivanja Number of rental rows.
+     * @return The generator, with one invalid rental row in ten.
+     */
+    static GeneratorPodataka generator(int brojVozila, long brojIznajmljivanja) {
+        return new GeneratorPodataka(SEME, brojVozila, 0.3, 0.3, brojIznajmljivanja, Math.min(10, brojVozila),
+                0.05, 0.2, 0.05, 0.1, VELICINA_MAPE);
+    }
+}
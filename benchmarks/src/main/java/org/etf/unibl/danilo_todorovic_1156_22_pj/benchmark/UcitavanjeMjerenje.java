@@ -0,0 +1,110 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.benchmark;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.CitacIznajmljivanja;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.CitacPrevoznihSredstava;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.GeneratorPodataka;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.ParalelniCitacIznajmljivanja;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading of the vehicle and rental files with the readers used by {@code Simulacija}.
+ * The files are generated once per trial and read from the page cache, so the results measure
+ * parsing and validation rather than the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UcitavanjeMjerenje {
+
+    @Param({"10000", "1000000"})
+    public int brojRedova; // Number of rentals and vehicles in the generated files
+
+    private Path folder;                // Folder of the generated files
+    private Path fajlVozila;            // Generated vehicle file
+    private Path fajlIznajmljivanja;    // Generated rental file
+
+    /**
+     * Generates the vehicle and rental files.
+     *
+     * @throws IOException If the files cannot be written.
+     */
+    @Setup(Level.Trial)
+    public void pripremi() throws IOException {
+        folder = Files.createTempDirectory("ucitavanje");
+        fajlVozila = folder.resolve(GeneratorPodataka.FAJL_VOZILA);
+        fajlIznajmljivanja = folder.resolve(GeneratorPodataka.FAJL_IZNAJMLJIVANJA);
+        SintetickiPodaci.generator(brojRedova, brojRedova).generisi(folder);
+    }
+
+    /**
+     * Deletes the generated files.
+     *
+     * @throws IOException If the files cannot be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void pocisti() throws IOException {
+        Files.deleteIfExists(fajlVozila);
+        Files.deleteIfExists(fajlIznajmljivanja);
+        Files.deleteIfExists(folder);
+    }
+
+    @Benchmark
+    public int ucitavanjeVozila(Blackhole bh) throws IOException {
+        int validnih = 0;
+        try (CitacPrevoznihSredstava citac = new CitacPrevoznihSredstava(fajlVozila)) {
+            while (citac.sljedeci()) {
+                if (citac.isValidan()) {
+                    bh.consume(citac.getId());
+                    validnih++;
+                }
+            }
+        }
+        return validnih;
+    }
+
+    @Benchmark
+    public int ucitavanjeIznajmljivanja(Blackhole bh) throws IOException {
+        int validnih = 0;
+        try (CitacIznajmljivanja citac = new CitacIznajmljivanja(fajlIznajmljivanja)) {
+            while (citac.sljedeci()) {
+                if (citac.isValidan()) {
+                    bh.consume(citac.getDatumVrijemeIznajmljivanja());
+                    bh.consume(citac.getIDPrevoznogSredstva());
+                    validnih++;
+                }
+            }
+        }
+        return validnih;
+    }
+
+    @Benchmark
+    public int paralelnoUcitavanjeIznajmljivanja(Blackhole bh) throws IOException {
+        int validnih = 0;
+        for (ParalelniCitacIznajmljivanja.Dio dio : new ParalelniCitacIznajmljivanja(fajlIznajmljivanja, 0).procitaj()) {
+            bh.consume(dio.getIznajmljivanja());
+            validnih += dio.getIznajmljivanja().size();
+        }
+        return validnih;
+    }
+}
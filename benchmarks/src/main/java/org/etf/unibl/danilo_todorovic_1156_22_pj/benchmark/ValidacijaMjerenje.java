@@ -0,0 +1,75 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.benchmark;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.CitacIznajmljivanja;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation and parsing of one rental row with {@link CitacIznajmljivanja}, the reader used by {@code Simulacija}.
+ * One row in ten of the generated rows is invalid, as in a log with occasional bad input. The small file is
+ * reopened when it has been read, which adds a negligible share per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacijaMjerenje {
+    private static final int BROJ_REDOVA = 4096; // Number of generated rows
+
+    private Path fajl;                  // Generated rental file
+    private CitacIznajmljivanja citac;  // Reader positioned at the next row
+
+    /**
+     * Generates the rental file and opens it.
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Setup(Level.Trial)
+    public void pripremi() throws IOException {
+        fajl = Files.createTempFile("validacija", ".csv");
+        try (Writer izlaz = Files.newBufferedWriter(fajl, StandardCharsets.UTF_8)) {
+            SintetickiPodaci.generator(300, BROJ_REDOVA).pisiIznajmljivanja(izlaz);
+        }
+        citac = new CitacIznajmljivanja(fajl);
+    }
+
+    /**
+     * Closes and deletes the rental file.
+     *
+     * @throws IOException If the file cannot be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void pocisti() throws IOException {
+        citac.close();
+        Files.deleteIfExists(fajl);
+    }
+
+    @Benchmark
+    public boolean validacijaReda() throws IOException {
+        if (!citac.sljedeci()) {
+            citac.close();
+            citac = new CitacIznajmljivanja(fajl);
+            citac.sljedeci();
+        }
+        return citac.isValidan();
+    }
+}
@@ -8,5 +8,7 @@ module org.etf.unibl.danilo_todorovic_1156_22_pj {
     exports org.etf.unibl.danilo_todorovic_1156_22_pj.rental;
     exports org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
     exports org.etf.unibl.danilo_todorovic_1156_22_pj.util;
+    exports org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje;
+    exports org.etf.unibl.danilo_todorovic_1156_22_pj.racuni;
     exports org.etf.unibl.danilo_todorovic_1156_22_pj;
 }
\ No newline at end of file
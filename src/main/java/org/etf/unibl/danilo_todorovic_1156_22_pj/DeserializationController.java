@@ -1,6 +1,6 @@
 package org.etf.unibl.danilo_todorovic_1156_22_pj;
 
-import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -8,10 +8,14 @@ import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.PrevoznoSredstvo;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.UcitavacPokvarenihVozila;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Utility;
 
-import java.io.*;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Controller class for handling deserialization and populating the TableView with vehicle data.
@@ -33,25 +37,54 @@ public class DeserializationController {
 
     private final ArrayList<PrevoznoSredstvo> prevoznaSredstva = new ArrayList<>();
     private ObservableList<PrevoznoSredstvo> observableVehicleList;
+    private final HashMap<Path, PrevoznoSredstvo> shownVehicles = new HashMap<>(); // Vehicle shown for each file
+    private UcitavacPokvarenihVozila loader; // Loads new and modified files in the background, or null when stopped
 
     /**
-     * Handles the deserialization of vehicle objects from files.
+     * Starts loading the vehicles saved in the malfunctions folder.
+     * The folder is watched on a background thread; only new or modified files are deserialized
+     * and the changes are applied to the table on the JavaFX application thread.
      */
-    public void handleDeserialize() {
-        observableVehicleList.clear();
+    public void startLoading() {
+        loader = new UcitavacPokvarenihVozila(Path.of(Utility.DATA_BASE_PATH, "kvarovi"),
+                changes -> Platform.runLater(() -> applyChanges(changes)));
         try {
-            File[] files = new File(Utility.DATA_BASE_PATH + File.separator + "kvarovi").listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-                        observableVehicleList.add((PrevoznoSredstvo) ois.readObject());
-                    } catch (IOException | ClassNotFoundException e) {
-                        throw new RuntimeException(e);
-                    }
+            loader.pokreni();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops loading the vehicles. Called when the window is closed.
+     */
+    public void stopLoading() {
+        if (loader != null) {
+            loader.close();
+            loader = null;
+        }
+    }
+
+    /**
+     * Applies loaded files to the table: new files are added, modified files replace their row and deleted files are removed.
+     *
+     * @param changes The changed files; deleted files map to {@code null}.
+     */
+    private void applyChanges(Map<Path, PrevoznoSredstvo> changes) {
+        for (Map.Entry<Path, PrevoznoSredstvo> change : changes.entrySet()) {
+            PrevoznoSredstvo old = change.getValue() == null
+                    ? shownVehicles.remove(change.getKey())
+                    : shownVehicles.put(change.getKey(), change.getValue());
+            int index = old == null ? -1 : observableVehicleList.indexOf(old);
+            if (change.getValue() == null) {
+                if (index >= 0) {
+                    observableVehicleList.remove(index);
                 }
+            } else if (index >= 0) {
+                observableVehicleList.set(index, change.getValue());
+            } else {
+                observableVehicleList.add(change.getValue());
             }
-        } catch (NullPointerException e) {
-            e.printStackTrace();
         }
     }
 
@@ -0,0 +1,168 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.racuni.BinarnaArhivaRacuna;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.racuni.PisacRacuna;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.racuni.ZapisRacuna;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.BezglaviPrikaz;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.IzvrsilacZadataka;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.Simulacija;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.GeneratorPodataka;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.DnevniRezultatPoslovanja;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.DnevnikKvarova;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Kvar;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Metrike;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.SumarniRezultatPoslovanja;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * Entry point for running the simulation without a graphical interface.
+ *
+ * The same rental, battery, malfunction and billing logic is executed as in {@link Main},
+ * but vehicle positions are discarded instead of being drawn, so no JavaFX classes are loaded.
+ * Daily and summary business results are printed to standard output when the simulation ends.
+ *
+ * The simulation runs as fast as possible unless a time scale is given as the first argument
+ * (1 for real time, N for N times real time).
+ *
+ * With {@code racun <yyyy-MM-ddTHH:mm> <vehicle ID>} or {@code racuni <yyyy-MM-dd>} as arguments, no simulation
+ * is run; the matching receipts are rendered from the binary receipt archive under {@code RECEIPT_PATH}.
+ * Likewise, {@code kvarovi [<yyyy-MM-ddTHH:mm> <yyyy-MM-ddTHH:mm> [<vehicle ID>]]} prints the journaled
+ * malfunctions in a time range, optionally of a single vehicle, and {@code generisi <folder> [KEY=value ...]} writes
+ * synthetic vehicle and rental files generated from the {@code GENERATOR_*} properties, which can be overridden.
+ */
+public class HeadlessMain {
+
+    /**
+     * Runs the simulation and prints the business results.
+     *
+     * @param args Command line arguments; the optional first argument is the time scale.
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 && (args[0].equals("racun") || args[0].equals("racuni"))) {
+            ispisRacuna(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("kvarovi")) {
+            ispisKvarova(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("generisi")) {
+            generisanjePodataka(args);
+            return;
+        }
+        double tempo = args.length > 0 ? Double.parseDouble(args[0]) : 0;
+
+        Simulacija sim = Simulacija.getInstance(new BezglaviPrikaz());
+        sim.pokretanjeNiti(tempo);
+
+        System.out.println("Dnevni rezultati poslovanja:");
+        for (DnevniRezultatPoslovanja rezultat : sim.getDnevniRezultati()) {
+            System.out.println(String.format("%s ukupno=%.2f popust=%.2f promocija=%.2f udaljenost=%.2f odrzavanje=%.2f popravke=%.2f",
+                    rezultat.getDatum(), rezultat.getUkupnaCijena(), rezultat.getCijenaPopusta(), rezultat.getCijenaPromocije(),
+                    rezultat.getCijenaUdaljenosti(), rezultat.getCijenaOdrzavanja(), rezultat.getCijenaPopravki()));
+        }
+
+        SumarniRezultatPoslovanja sumarni = sim.getSumarniRezultat();
+        System.out.println("Sumarni rezultat poslovanja:");
+        System.out.println(String.format("ukupno=%.2f popust=%.2f promocija=%.2f udaljenost=%.2f odrzavanje=%.2f popravke=%.2f trosak=%.2f porez=%.2f",
+                sumarni.getUkupnaCijena(), sumarni.getCijenaPopusta(), sumarni.getCijenaPromocije(), sumarni.getCijenaUdaljenosti(),
+                sumarni.getCijenaOdrzavanja(), sumarni.getCijenaPopravki(), sumarni.getUkupniTrosakKompanije(), sumarni.getUkupniPorez()));
+
+        IzvrsilacZadataka izvrsilac = sim.getIzvrsilac();
+        long brojZadataka = Math.max(1, izvrsilac.getBrojZadataka());
+        System.out.println(String.format("Izvrsilac %s: zadataka=%d neuspjelih=%d cekanje(prosj/maks)=%d/%d us izvrsavanje(prosj/maks)=%d/%d us",
+                izvrsilac.getOpis(), izvrsilac.getBrojZadataka(), izvrsilac.getBrojNeuspjelih(),
+                izvrsilac.getUkupnoCekanjeNano() / brojZadataka / 1000, izvrsilac.getMaksCekanjeNano() / 1000,
+                izvrsilac.getUkupnoIzvrsavanjeNano() / brojZadataka / 1000, izvrsilac.getMaksIzvrsavanjeNano() / 1000));
+
+        PisacRacuna pisacRacuna = sim.getPisacRacuna();
+        long brojPaketa = Math.max(1, pisacRacuna.getBrojPaketa());
+        System.out.println(String.format("Pisac racuna %s: racuna=%d neuspjelih=%d paketa=%d red(maks)=%d pisanje(prosj/maks)=%d/%d us",
+                pisacRacuna.getOpis(), pisacRacuna.getBrojRacuna(), pisacRacuna.getBrojNeuspjelih(), pisacRacuna.getBrojPaketa(), pisacRacuna.getMaksDubinaReda(),
+                pisacRacuna.getUkupnoPisanjeNano() / brojPaketa / 1000, pisacRacuna.getMaksPisanjeNano() / 1000));
+
+        System.out.println("Metrike:");
+        System.out.print(Metrike.getInstance().snimak());
+    }
+
+    /**
+     * Prints receipts from the binary receipt archive.
+     *
+     * @param args {@code racun} with a rental date and time and a vehicle ID, or {@code racuni} with a date.
+     */
+    private static void ispisRacuna(String[] args) {
+        Path folder = Path.of(Utility.getProperties().getProperty("RECEIPT_PATH").replace("/", File.separator));
+        try {
+            BinarnaArhivaRacuna arhiva = new BinarnaArhivaRacuna(folder);
+            if (args[0].equals("racun") && args.length == 3) {
+                ZapisRacuna racun = arhiva.pronadji(LocalDateTime.parse(args[1]), args[2]);
+                System.out.print(racun != null ? racun : "Racun ne postoji\n");
+            } else if (args[0].equals("racuni") && args.length == 2) {
+                for (ZapisRacuna racun : arhiva.zaDatum(LocalDate.parse(args[1]))) {
+                    System.out.println(racun);
+                }
+            } else {
+                System.out.println("Upotreba: racun <yyyy-MM-ddTHH:mm> <ID vozila> | racuni <yyyy-MM-dd>");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Prints malfunctions from the malfunction journal under {@code MALFUNCTION_JOURNAL_PATH}, opened only for queries.
+     *
+     * @param args {@code kvarovi}, optionally with the start and end of a time range and a vehicle ID.
+     */
+    private static void ispisKvarova(String[] args) {
+        if (args.length != 1 && args.length != 3 && args.length != 4) {
+            System.out.println("Upotreba: kvarovi [<yyyy-MM-ddTHH:mm> <yyyy-MM-ddTHH:mm> [<ID vozila>]]");
+            return;
+        }
+        LocalDateTime od = args.length > 1 ? LocalDateTime.parse(args[1]) : LocalDateTime.MIN;
+        LocalDateTime doIskljucivo = args.length > 1 ? LocalDateTime.parse(args[2]) : LocalDateTime.MAX;
+        try (DnevnikKvarova dnevnik = DnevnikKvarova.izKonfiguracijeZaCitanje(Utility.getProperties());
+             Stream<Kvar> kvarovi = args.length == 4 ? dnevnik.zaVozilo(args[3], od, doIskljucivo) : dnevnik.uIntervalu(od, doIskljucivo)) {
+            kvarovi.forEach(kvar -> System.out.println(kvar.getDateTime() + " " + kvar.getId() + " " + kvar.getType() + " " + kvar.getDescription()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes synthetic vehicle and rental files.
+     *
+     * @param args {@code generisi} with the output folder, optionally followed by {@code KEY=value} properties.
+     */
+    private static void generisanjePodataka(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Upotreba: generisi <folder> [KLJUC=vrijednost ...]");
+            return;
+        }
+        Properties appProps = Utility.getProperties();
+        for (int i = 2; i < args.length; i++) {
+            int jednako = args[i].indexOf('=');
+            if (jednako > 0) {
+                appProps.setProperty(args[i].substring(0, jednako), args[i].substring(jednako + 1));
+            }
+        }
+        GeneratorPodataka generator = GeneratorPodataka.izKonfiguracije(appProps);
+        long pocetak = System.nanoTime();
+        try {
+            generator.generisi(Path.of(args[1]));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        System.out.println(String.format("Generisano vozila=%d iznajmljivanja=%d za %d ms", generator.getBrojVozila(),
+                generator.getBrojIznajmljivanja(), (System.nanoTime() - pocetak) / 1_000_000));
+    }
+}
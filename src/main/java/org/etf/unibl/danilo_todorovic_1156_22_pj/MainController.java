@@ -1,17 +1,28 @@
 package org.etf.unibl.danilo_todorovic_1156_22_pj;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.control.Label;
+import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.RowConstraints;
 import javafx.stage.Stage;
-import javafx.util.Duration;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.IscrtavacMape;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.IscrtavacMreze;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.IscrtavacPlatna;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.Mapa;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.OsvjezavanjeMape;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.Simulacija;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Utility;
 
 /**
  * Controller class for the main application view.
@@ -21,20 +32,70 @@ import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.Simulacija;
  * and deserialization results. It uses JavaFX's FXML framework to load different scenes
  * and manage stage transitions.
  *
- * The class also sets up periodic updates for certain views using JavaFX's
- * {@link Timeline} and {@link KeyFrame}.
+ * Views that follow the simulation are stopped from updating when their stage is hidden.
  */
 public class MainController {
+    private static final double SIRINA_MAPE = 840; // Width of the map area in pixels
+    private static final double VISINA_MAPE = 700; // Height of the map area in pixels
 
     @FXML
     private GridPane gridPane; // Your GridPane from FXML
 
+    @FXML
+    private Label statistikaPrikaza; // Label showing the map update counts
+
+    private OsvjezavanjeMape osvjezavanjeMape; // Applies map changes once per frame
+
     /**
-     * Initializes the GridPane with the Mapa instance.
+     * Initializes the map renderer selected by MAP_RENDERER and starts drawing map changes once per frame.
+     * GRID draws labels in the cells of the GridPane; CANVAS replaces the GridPane with a single Canvas.
      */
     public void initialize() {
         Mapa mapa = Mapa.getInstance();
-        mapa.setGridPane(gridPane);
+        IscrtavacMape iscrtavac;
+        String renderer = Utility.getProperties().getProperty("MAP_RENDERER", "GRID").trim().toUpperCase();
+        if ("CANVAS".equals(renderer)) {
+            Canvas platno = new Canvas(SIRINA_MAPE, VISINA_MAPE);
+            platno.setLayoutX(gridPane.getLayoutX());
+            platno.setLayoutY(gridPane.getLayoutY());
+            Pane roditelj = (Pane) gridPane.getParent();
+            roditelj.getChildren().set(roditelj.getChildren().indexOf(gridPane), platno);
+            iscrtavac = new IscrtavacPlatna(platno, Mapa.getVelicina());
+        } else {
+            izgradiMrezu(Mapa.getVelicina());
+            mapa.setGridPane(gridPane);
+            iscrtavac = new IscrtavacMreze(gridPane);
+        }
+        osvjezavanjeMape = new OsvjezavanjeMape(mapa, iscrtavac, statistikaPrikaza);
+        osvjezavanjeMape.start();
+    }
+
+    /**
+     * Fills the GridPane with one cell per map tile, sized so the whole map fits the map area.
+     *
+     * @param velicina The number of tiles along each side of the map.
+     */
+    private void izgradiMrezu(int velicina) {
+        double sirina = SIRINA_MAPE / velicina;
+        double visina = VISINA_MAPE / velicina;
+        for (int i = 0; i < velicina; i++) {
+            ColumnConstraints kolona = new ColumnConstraints(sirina, sirina, sirina);
+            kolona.setHgrow(Priority.SOMETIMES);
+            gridPane.getColumnConstraints().add(kolona);
+            RowConstraints red = new RowConstraints(visina, visina, visina);
+            red.setVgrow(Priority.SOMETIMES);
+            gridPane.getRowConstraints().add(red);
+        }
+        for (int red = 0; red < velicina; red++) {
+            for (int kolona = 0; kolona < velicina; kolona++) {
+                HBox polje = new HBox();
+                polje.setPrefSize(200, 200);
+                polje.setAlignment(Pos.CENTER);
+                polje.setSpacing(1);
+                polje.setPadding(new Insets(0));
+                gridPane.add(polje, kolona, red);
+            }
+        }
     }
 
     /**
@@ -55,6 +116,7 @@ public class MainController {
             // Create a new stage
             Stage stage = new Stage();
             stage.setTitle("Vehicle List");
+            stage.setOnHidden(event -> controller.stopRefreshing());
 
             stage.setScene(new Scene(root));
             stage.show();
@@ -77,11 +139,12 @@ public class MainController {
 
             MalfunctionsController controller = loader.getController();
             Simulacija simulacija = Simulacija.getInstance();
-            controller.setMalfunctions(simulacija.getMalfunctions());
+            controller.setJournal(simulacija.getDnevnikKvarova());
 
             // Create a new stage
             Stage stage = new Stage();
             stage.setTitle("Malfunction List");
+            stage.setOnHidden(event -> controller.stopRefreshing());
 
             stage.setScene(new Scene(root));
             stage.show();
@@ -103,17 +166,12 @@ public class MainController {
             Parent root = loader.load();
 
             RezultatiController controller = loader.getController();
-            Simulacija simulacija = Simulacija.getInstance();
-
-            Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
-                controller.setResults(simulacija.getDnevniRezultati(), simulacija.getSumarniRezultat());
-            }));
-            timeline.setCycleCount(Timeline.INDEFINITE); // Repeat indefinitely
-            timeline.play();
+            controller.startListening(Simulacija.getInstance());
 
             // Create a new stage
             Stage stage = new Stage();
             stage.setTitle("Business Results");
+            stage.setOnHidden(event -> controller.stopListening());
 
             stage.setScene(new Scene(root));
             stage.show();
@@ -135,16 +193,12 @@ public class MainController {
             Parent root = loader.load();
 
             DeserializationController controller = loader.getController();
-
-            Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
-                controller.handleDeserialize();
-            }));
-            timeline.setCycleCount(Timeline.INDEFINITE); // Repeat indefinitely
-            timeline.play(); // Start the timeline
+            controller.startLoading();
 
             // Create a new stage
             Stage stage = new Stage();
             stage.setTitle("Deserialization");
+            stage.setOnHidden(event -> controller.stopLoading());
 
             stage.setScene(new Scene(root));
             stage.show();
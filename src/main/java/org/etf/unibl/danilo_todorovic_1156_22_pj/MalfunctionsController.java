@@ -2,24 +2,28 @@ package org.etf.unibl.danilo_todorovic_1156_22_pj;
 
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.util.Duration;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.DnevnikKvarova;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Kvar;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 
 /**
  * Controller class for managing the malfunctions view.
  *
- * This class is responsible for displaying a list of malfunctions in a table view and periodically refreshing
- * the data to ensure it stays up-to-date. It uses JavaFX's {@link Timeline} to automatically update the
- * table at regular intervals.
+ * This class displays the malfunction journal one page at a time, so only the malfunctions of the
+ * current page are read from disk. A {@link Timeline} checks the number of journaled malfunctions
+ * every second and reloads the current page only when it has changed.
  */
 public class MalfunctionsController {
+    private static final int PAGE_SIZE = 100; // Number of malfunctions per page
 
     @FXML
     private TableColumn<Kvar, String> kvaroviIdColumn;
@@ -36,7 +40,19 @@ public class MalfunctionsController {
     @FXML
     private TableView<Kvar> kvaroviTableView;
 
-    private ArrayList<Kvar> malfunctions;
+    @FXML
+    private Button previousPageButton;
+
+    @FXML
+    private Button nextPageButton;
+
+    @FXML
+    private Label pageLabel;
+
+    private DnevnikKvarova journal;  // Journal of malfunctions
+    private Timeline timeline;       // Checks the journal for new malfunctions
+    private int page;                // Index of the shown page
+    private int shownCount = -1;     // Number of journaled malfunctions when the page was loaded
 
     /**
      * Initializes the table columns and sets up periodic refresh for the malfunctions table.
@@ -54,43 +70,98 @@ public class MalfunctionsController {
 
         kvaroviVrstaColumn.setCellValueFactory(new PropertyValueFactory<>("type"));
 
-        // Populate the TableViews
         setupPeriodicRefresh();
     }
 
     /**
-     * Sets the list of malfunctions to be displayed in the table.
+     * Sets the journal of malfunctions to be displayed in the table and shows its first page.
      *
-     * @param malfunctions The list of {@link Kvar} objects representing malfunctions.
+     * @param journal The journal of malfunctions, or {@code null} if it could not be opened.
      */
-    public void setMalfunctions(ArrayList<Kvar> malfunctions) {
-        this.malfunctions = malfunctions;
+    public void setJournal(DnevnikKvarova journal) {
+        this.journal = journal;
+        page = 0;
+        shownCount = -1;
+        refreshPage();
     }
 
     /**
-     * Refreshes the table view to display the current list of malfunctions.
+     * Shows the previous page of malfunctions.
      *
-     * This method clears the current items in the table view and adds
-     * the malfunctions from the list to ensure the table is up-to-date.
+     * @param actionEvent The action event triggered by the button click.
+     */
+    @FXML
+    public void handlePreviousPage(ActionEvent actionEvent) {
+        if (page > 0) {
+            page--;
+            shownCount = -1;
+            refreshPage();
+        }
+    }
+
+    /**
+     * Shows the next page of malfunctions.
+     *
+     * @param actionEvent The action event triggered by the button click.
+     */
+    @FXML
+    public void handleNextPage(ActionEvent actionEvent) {
+        if (page < pageCount() - 1) {
+            page++;
+            shownCount = -1;
+            refreshPage();
+        }
+    }
+
+    /**
+     * Stops checking the journal for new malfunctions.
      */
-    private void refreshTables() {
-        // Clear current items in each TableView
-        kvaroviTableView.getItems().clear();
+    public void stopRefreshing() {
+        if (timeline != null) {
+            timeline.stop();
+        }
+    }
 
-        for (Kvar m : malfunctions) {
-            kvaroviTableView.getItems().add(m);
+    /**
+     * Reloads the current page if the number of journaled malfunctions has changed since it was loaded.
+     */
+    private void refreshPage() {
+        if (journal == null) {
+            pageLabel.setText("Dnevnik kvarova nije dostupan");
+            return;
         }
+        int count = journal.getBrojZapisa();
+        if (count == shownCount) {
+            return;
+        }
+        shownCount = count;
+        page = Math.min(page, pageCount() - 1);
+        kvaroviTableView.getItems().setAll(journal.stranica(page * PAGE_SIZE, PAGE_SIZE));
+
+        pageLabel.setText("Strana " + (page + 1) + "/" + pageCount() + " (" + count + " kvarova)");
+        previousPageButton.setDisable(page == 0);
+        nextPageButton.setDisable(page >= pageCount() - 1);
+    }
+
+    /**
+     * Returns the number of pages, which is at least one.
+     *
+     * @return The number of pages.
+     */
+    private int pageCount() {
+        int count = journal == null ? 0 : journal.getBrojZapisa();
+        return Math.max(1, (count + PAGE_SIZE - 1) / PAGE_SIZE);
     }
 
     /**
-     * Sets up a periodic refresh of the malfunctions table using a timeline.
+     * Sets up a periodic check of the journal using a timeline.
      *
-     * This method creates a {@link Timeline} that triggers the {@link #refreshTables()} method
-     * every second to refresh the table view. The timeline repeats indefinitely.
+     * This method creates a {@link Timeline} that triggers the {@link #refreshPage()} method
+     * every second. The timeline repeats until {@link #stopRefreshing()} is called.
      */
     private void setupPeriodicRefresh() {
-        Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
-            refreshTables();
+        timeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
+            refreshPage();
         }));
         timeline.setCycleCount(Timeline.INDEFINITE); // Repeat indefinitely
         timeline.play(); // Start the timeline
@@ -1,15 +1,17 @@
 package org.etf.unibl.danilo_todorovic_1156_22_pj;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.SlusalacRezultata;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.Simulacija;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.util.DnevniRezultatPoslovanja;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.util.SumarniRezultatPoslovanja;
 
 import java.time.LocalDate;
-import java.util.List;
 
 /**
  * Controller class for managing the display of daily and summary business results.
@@ -19,9 +21,9 @@ import java.util.List;
  * the company's total costs, taxes, and other financial metrics.
  * </p>
  * <p>
- * It provides methods to set the data to be displayed (`setResults`) and to
- * update the summary labels (`updateSummaryLabels`), ensuring that the
- * user interface reflects the most recent business performance data.
+ * Results are pushed by the simulation (`startListening`): every closed day appends one row and
+ * the summary labels are filled once the simulation finishes, so nothing is redrawn while the
+ * results do not change.
  * </p>
  */
 public class RezultatiController {
@@ -61,6 +63,22 @@ public class RezultatiController {
     private Label totalTaxLabel;
 
     private SumarniRezultatPoslovanja sumarniRezultat;
+    private Simulacija simulation;                 // Simulation publishing the results, or null when not listening
+
+    private final SlusalacRezultata resultsListener = new SlusalacRezultata() {
+        @Override
+        public void danZatvoren(DnevniRezultatPoslovanja rezultat) {
+            Platform.runLater(() -> dnevniRezultatiTableView.getItems().add(rezultat));
+        }
+
+        @Override
+        public void simulacijaZavrsena(SumarniRezultatPoslovanja rezultat) {
+            Platform.runLater(() -> {
+                sumarniRezultat = rezultat;
+                updateSummaryLabels();
+            });
+        }
+    };
 
     /**
      * Initializes the columns in the TableView.
@@ -76,20 +94,24 @@ public class RezultatiController {
     }
 
     /**
-     * Sets the results for the TableView and summary labels.
+     * Starts receiving results from the simulation. Days closed so far are added at once,
+     * later days as they are closed.
      *
-     * @param dnevniRezultati List of daily business results.
-     * @param sumarniRezultat Summary business result.
+     * @param simulation The simulation publishing the results.
      */
-    public void setResults(List<DnevniRezultatPoslovanja> dnevniRezultati, SumarniRezultatPoslovanja sumarniRezultat) {
-        // Populate TableView with daily results
-        dnevniRezultatiTableView.getItems().clear();
-        dnevniRezultatiTableView.getItems().addAll(dnevniRezultati);
+    public void startListening(Simulacija simulation) {
+        stopListening();
+        this.simulation = simulation;
+        simulation.dodajSlusaoca(resultsListener);
+    }
 
-        // Set labels for summary results
-        this.sumarniRezultat = sumarniRezultat;
-        if (sumarniRezultat != null){
-            updateSummaryLabels();
+    /**
+     * Stops receiving results from the simulation.
+     */
+    public void stopListening() {
+        if (simulation != null) {
+            simulation.ukloniSlusaoca(resultsListener);
+            simulation = null;
         }
     }
 
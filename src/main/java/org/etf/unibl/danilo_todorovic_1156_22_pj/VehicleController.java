@@ -1,20 +1,27 @@
 package org.etf.unibl.danilo_todorovic_1156_22_pj;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.util.Duration;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.*;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Metrike;
 
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
 
 /**
- * Controller class for managing the display and periodic refresh of vehicle data in JavaFX TableViews.
+ * Controller class for managing the display and refresh of vehicle data in JavaFX TableViews.
  * It handles the initialization and updating of TableViews for various types of vehicles.
+ * Rows are refreshed as battery and position changes are published by the vehicles, so the work
+ * per frame depends on the number of changes and not on the size of the fleet.
  */
 public class VehicleController {
 
@@ -87,8 +94,25 @@ public class VehicleController {
 
     private HashMap<String, PrevoznoSredstvo> vehicleMap;
 
+    private final HashMap<String, Integer> rowIndex = new HashMap<>(); // Row index of every vehicle in its TableView
+    private final Set<String> pendingIds = ConcurrentHashMap.newKeySet(); // IDs of vehicles changed since the last frame
+    private final ConcurrentLinkedQueue<PrevoznoSredstvo> changedVehicles = new ConcurrentLinkedQueue<>(); // Vehicles changed since the last frame
+    private final SlusalacVozila vehicleListener = vehicle -> {
+        if (pendingIds.add(vehicle.getId())) {
+            changedVehicles.offer(vehicle);
+        }
+    }; // Records vehicle changes made by the simulation threads
+    private final AnimationTimer refreshTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            applyChanges();
+        }
+    }; // Applies the recorded changes once per frame
+    private volatile long refreshedRows; // Number of rows refreshed
+    private final LongSupplier refreshedRowsGauge = this::getRefreshedRows; // Gauge registered while the tables are refreshed
+
     /**
-     * Initializes the TableViews and their columns, sets up the periodic refresh.
+     * Initializes the TableViews and their columns.
      * This method is automatically called after the FXML file is loaded.
      */
     public void initialize() {
@@ -117,31 +141,42 @@ public class VehicleController {
         trotinetCijenaNabavkeColumn.setCellValueFactory(new PropertyValueFactory<>("cijenaNabavke"));
         trotinetTrenutniNivoBaterijeColumn.setCellValueFactory(new PropertyValueFactory<>("trenutniNivoBaterije"));
         trotinetMaksimalnaBrzinaColumn.setCellValueFactory(new PropertyValueFactory<>("maksimalnaBrzina"));
-
-        // Populate the TableViews
-        setupPeriodicRefresh();
     }
 
     /**
      * Sets the vehicle map that will be used to populate the TableViews.
+     * The TableViews are filled once; afterwards only the rows of vehicles whose battery level or
+     * position changed are refreshed, at most once per frame.
      *
      * @param vehicleMap A HashMap containing vehicles with their identifiers as keys.
      */
     public void setVehicleMap(HashMap<String, PrevoznoSredstvo> vehicleMap) {
         this.vehicleMap = vehicleMap;
+        PrevoznoSredstvo.dodajSlusaoca(vehicleListener);
+        fillTables();
+        Metrike.getInstance().mjerac("vozila.osvjezeni_redovi", refreshedRowsGauge);
+        refreshTimer.start();
+    }
+
+    /**
+     * Stops refreshing the TableViews and removes the refreshed rows gauge. Called when the window is closed.
+     */
+    public void stopRefreshing() {
+        refreshTimer.stop();
+        PrevoznoSredstvo.ukloniSlusaoca(vehicleListener);
+        Metrike.getInstance().ukloniMjerac("vozila.osvjezeni_redovi", refreshedRowsGauge);
+        pendingIds.clear();
+        changedVehicles.clear();
     }
 
     /**
-     * Refreshes the data in the TableViews by clearing them and re-adding items
-     * based on the current state of the vehicle map.
+     * Fills the TableViews with all vehicles of the vehicle map.
      */
-    private void refreshTables() {
-        // Clear current items in each TableView
+    private void fillTables() {
         automobilTableView.getItems().clear();
         elektricniBiciklTableView.getItems().clear();
         elektricniTrotinetTableView.getItems().clear();
 
-        // Iterate over the HashMap and update each TableView
         for (PrevoznoSredstvo vehicle : vehicleMap.values()) {
             if (vehicle instanceof Automobil) {
                 automobilTableView.getItems().add((Automobil) vehicle);
@@ -151,17 +186,69 @@ public class VehicleController {
                 elektricniTrotinetTableView.getItems().add((ElektricniTrotinet) vehicle);
             }
         }
+        indexRows();
     }
 
     /**
-     * Sets up a periodic refresh using a JavaFX Timeline to refresh the TableViews
-     * every second.
+     * Refreshes the rows of the vehicles changed since the last frame.
+     */
+    private void applyChanges() {
+        PrevoznoSredstvo vehicle;
+        while ((vehicle = changedVehicles.poll()) != null) {
+            pendingIds.remove(vehicle.getId());
+            if (vehicle instanceof Automobil) {
+                refreshRow(automobilTableView, (Automobil) vehicle);
+            } else if (vehicle instanceof ElektricniBicikl) {
+                refreshRow(elektricniBiciklTableView, (ElektricniBicikl) vehicle);
+            } else if (vehicle instanceof ElektricniTrotinet) {
+                refreshRow(elektricniTrotinetTableView, (ElektricniTrotinet) vehicle);
+            }
+        }
+    }
+
+    /**
+     * Refreshes the row of a vehicle by replacing it with itself, which makes the TableView redraw only that row.
+     * The vehicle is added if it is not in the TableView yet. The row index is rebuilt if the rows were reordered,
+     * for example by sorting a column.
+     *
+     * @param tableView The TableView of the vehicle's type.
+     * @param vehicle The changed vehicle.
+     * @param <T> The type of vehicle.
+     */
+    private <T extends PrevoznoSredstvo> void refreshRow(TableView<T> tableView, T vehicle) {
+        ObservableList<T> items = tableView.getItems();
+        Integer index = rowIndex.get(vehicle.getId());
+        if (index == null || index >= items.size() || items.get(index) != vehicle) {
+            indexRows();
+            index = rowIndex.get(vehicle.getId());
+        }
+        if (index == null) {
+            items.add(vehicle);
+            rowIndex.put(vehicle.getId(), items.size() - 1);
+        } else {
+            items.set(index, vehicle);
+        }
+        refreshedRows++;
+    }
+
+    /**
+     * Indexes the rows of all TableViews by vehicle ID.
+     */
+    private void indexRows() {
+        rowIndex.clear();
+        for (TableView<? extends PrevoznoSredstvo> tableView : List.of(automobilTableView, elektricniBiciklTableView, elektricniTrotinetTableView)) {
+            for (int i = 0; i < tableView.getItems().size(); i++) {
+                rowIndex.put(tableView.getItems().get(i).getId(), i);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows refreshed since the TableViews were filled.
+     *
+     * @return The number of refreshed rows.
      */
-    private void setupPeriodicRefresh() {
-        Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
-            refreshTables();
-        }));
-        timeline.setCycleCount(Timeline.INDEFINITE); // Repeat indefinitely
-        timeline.play(); // Start the timeline
+    public long getRefreshedRows() {
+        return refreshedRows;
     }
 }
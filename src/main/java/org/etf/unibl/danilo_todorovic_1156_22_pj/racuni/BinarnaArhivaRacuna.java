@@ -0,0 +1,384 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.racuni;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Read access to the binary receipt archive.
+ *
+ * The archive consists of three files in the receipt folder:
+ * <ul>
+ *     <li>{@value #ZAPISI} - a header followed by fixed-width records of {@value #VELICINA_ZAPISA} bytes,
+ *     one per receipt, holding the rental keys, flags and cost fields;</li>
+ *     <li>{@value #TEKSTOVI} - a header followed by the strings the records refer to, each stored as its
+ *     UTF-8 length and bytes;</li>
+ *     <li>{@value #INDEKS} - a header followed by record numbers sorted by rental date and time and vehicle ID.</li>
+ * </ul>
+ * All files are memory-mapped, so a lookup only touches the records it visits. If the sorted index is
+ * missing or does not cover every record, it is rebuilt in memory. The writer keeps at most one receipt
+ * per rental date and time and vehicle ID, and cuts off a record left incomplete by an interrupted run.
+ * Strings are written before the records that refer to them; trailing records referring past the end of the
+ * strings file, left by a crash, are ignored here and cut off by the writer.
+ */
+public class BinarnaArhivaRacuna {
+    public static final String ZAPISI = "racuni.rec";   // File with the fixed-width records
+    public static final String TEKSTOVI = "racuni.str"; // File with the strings
+    public static final String INDEKS = "racuni.six";   // File with the sorted index
+
+    static final int MAGIC_ZAPISA = 0x52434E31;   // "RCN1"
+    static final int MAGIC_TEKSTOVA = 0x52535452; // "RSTR"
+    static final int MAGIC_INDEKSA = 0x52534958;  // "RSIX"
+    static final int VERZIJA = 1;                 // Version of the archive format
+    static final int ZAGLAVLJE_ZAPISA = 16;       // Magic, version, record size, reserved
+    static final int ZAGLAVLJE_TEKSTOVA = 8;      // Magic, version
+    static final int ZAGLAVLJE_INDEKSA = 16;      // Magic, version, number of records, reserved
+    static final int VELICINA_ZAPISA = 120;       // Size of one record in bytes
+
+    // Offsets of the fields within a record
+    static final int DATUM_VRIJEME = 0;           // long, epoch seconds of the rental date and time
+    static final int IME_KORISNIKA = 8;           // long, position of the string
+    static final int DOKUMENT = 16;               // long, position of the string
+    static final int VOZACKA_DOZVOLA = 24;        // long, position of the string
+    static final int ID_VOZILA = 32;              // long, position of the string
+    static final int[] POLJA_TEKSTOVA = {IME_KORISNIKA, DOKUMENT, VOZACKA_DOZVOLA, ID_VOZILA}; // Fields holding string positions
+    static final int TRAJANJE = 40;               // int
+    static final int X_PREUZIMANJA = 44;          // short
+    static final int Y_PREUZIMANJA = 46;          // short
+    static final int X_VRACANJA = 48;             // short
+    static final int Y_VRACANJA = 50;             // short
+    static final int ZASTAVICE = 52;              // byte, see the ZASTAVICA_ constants
+    static final int OSNOVNA_CIJENA = 56;         // double, followed by seven more cost fields
+
+    static final int ZASTAVICA_KVAR = 1;
+    static final int ZASTAVICA_PROMOCIJA = 2;
+    static final int ZASTAVICA_POPUST = 4;
+    static final int ZASTAVICA_DOKUMENTACIJA = 8;
+
+    private final MapiraniFajl zapisi;   // Mapped records
+    private final MapiraniFajl tekstovi; // Mapped strings
+    private final MapiraniFajl indeks;   // Mapped sorted index, or null if it is kept in memory
+    private final int[] indeksUMemoriji; // Sorted index rebuilt in memory, or null if it is mapped
+    private final int brojRacuna;        // Number of records
+
+    /**
+     * Opens the archive in the given folder.
+     *
+     * @param folder Folder holding the archive files.
+     * @throws IOException If the archive cannot be opened or is not a receipt archive.
+     */
+    public BinarnaArhivaRacuna(Path folder) throws IOException {
+        zapisi = new MapiraniFajl(folder.resolve(ZAPISI));
+        tekstovi = new MapiraniFajl(folder.resolve(TEKSTOVI));
+        if (zapisi.velicina() < ZAGLAVLJE_ZAPISA || zapisi.getInt(0) != MAGIC_ZAPISA || zapisi.getInt(4) != VERZIJA
+                || zapisi.getInt(8) != VELICINA_ZAPISA) {
+            throw new IOException("Neispravna arhiva racuna: " + folder.resolve(ZAPISI));
+        }
+        if (tekstovi.velicina() < ZAGLAVLJE_TEKSTOVA || tekstovi.getInt(0) != MAGIC_TEKSTOVA) {
+            throw new IOException("Neispravna arhiva racuna: " + folder.resolve(TEKSTOVI));
+        }
+        int broj = (int) ((zapisi.velicina() - ZAGLAVLJE_ZAPISA) / VELICINA_ZAPISA);
+        while (broj > 0 && !tekstoviPostoje(zapisi, tekstovi, pozicijaZapisa(broj - 1))) {
+            broj--; // Records written before their strings reached the disk are ignored
+        }
+        brojRacuna = broj;
+
+        Path putanjaIndeksa = folder.resolve(INDEKS);
+        MapiraniFajl mapiraniIndeks = null;
+        if (Files.exists(putanjaIndeksa)) {
+            mapiraniIndeks = new MapiraniFajl(putanjaIndeksa);
+            if (mapiraniIndeks.velicina() != ZAGLAVLJE_INDEKSA + 4L * brojRacuna || mapiraniIndeks.getInt(0) != MAGIC_INDEKSA
+                    || mapiraniIndeks.getInt(8) != brojRacuna) {
+                mapiraniIndeks = null;
+            }
+        }
+        indeks = mapiraniIndeks;
+        indeksUMemoriji = indeks == null ? sortiraj(zapisi, tekstovi, brojRacuna) : null;
+    }
+
+    /**
+     * Checks that every string a record refers to lies within the strings file.
+     *
+     * @param zapisi The mapped records.
+     * @param tekstovi The mapped strings.
+     * @param pozicija Position of the record.
+     * @return {@code true} if all strings of the record are in the strings file.
+     */
+    private static boolean tekstoviPostoje(MapiraniFajl zapisi, MapiraniFajl tekstovi, long pozicija) {
+        for (int polje : POLJA_TEKSTOVA) {
+            long p = zapisi.getLong(pozicija + polje);
+            if (p < ZAGLAVLJE_TEKSTOVA || p + 4 > tekstovi.velicina()) {
+                return false;
+            }
+            int duzina = tekstovi.getInt(p);
+            if (duzina < 0 || p + 4 + duzina > tekstovi.velicina()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the sorted index for this archive and the records appended after it was opened, replacing the
+     * existing index. The appended records are sorted on their own and merged into the sorted index of the
+     * opened records, so the existing records are neither re-sorted nor have their vehicle IDs decoded,
+     * except to order records with the same time.
+     *
+     * @param folder Folder holding the archive files.
+     * @param vremena Epoch seconds of the appended records, in the order they were written.
+     * @param idVozila Vehicle IDs of the appended records, in the order they were written.
+     * @param brojNovih Number of appended records; record {@code i} of them has record number {@code getBrojRacuna() + i}.
+     * @throws IOException If the index cannot be written.
+     */
+    void dopuniIndeks(Path folder, long[] vremena, String[] idVozila, int brojNovih) throws IOException {
+        if (brojNovih == 0 && indeks != null) {
+            return;
+        }
+        int[] novi = new int[brojNovih];
+        for (int i = 0; i < brojNovih; i++) {
+            novi[i] = i;
+        }
+        sortiraj(novi, (a, b) -> vremena[a] != vremena[b] ? Long.compare(vremena[a], vremena[b]) : idVozila[a].compareTo(idVozila[b]));
+
+        Path privremeni = folder.resolve(INDEKS + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(privremeni.toFile())))) {
+            out.writeInt(MAGIC_INDEKSA);
+            out.writeInt(VERZIJA);
+            out.writeInt(brojRacuna + brojNovih);
+            out.writeInt(0);
+            int i = 0;
+            int j = 0;
+            while (i < brojRacuna || j < brojNovih) {
+                boolean postojeci = j == brojNovih;
+                if (i < brojRacuna && j < brojNovih) {
+                    long p = pozicijaZapisa(zapisNaMjestu(i));
+                    long v = zapisi.getLong(p + DATUM_VRIJEME);
+                    long vNovog = vremena[novi[j]];
+                    postojeci = v != vNovog ? v < vNovog
+                            : tekstovi.getTekst(zapisi.getLong(p + ID_VOZILA)).compareTo(idVozila[novi[j]]) <= 0;
+                }
+                out.writeInt(postojeci ? zapisNaMjestu(i++) : brojRacuna + novi[j++]);
+            }
+        }
+        Files.move(privremeni, folder.resolve(INDEKS), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Sorts the record numbers by rental date and time, then vehicle ID, then record number.
+     * Vehicle IDs are only decoded for records whose time equals that of another record.
+     *
+     * @param zapisi Mapped records.
+     * @param tekstovi Mapped strings.
+     * @param broj Number of records.
+     * @return Record numbers in sorted order.
+     */
+    private static int[] sortiraj(MapiraniFajl zapisi, MapiraniFajl tekstovi, int broj) {
+        long[] vremena = new long[broj];
+        String[] idVozila = new String[broj];
+        int[] redoslijed = new int[broj];
+        for (int i = 0; i < broj; i++) {
+            vremena[i] = zapisi.getLong(pozicijaZapisa(i) + DATUM_VRIJEME);
+            redoslijed[i] = i;
+        }
+        sortiraj(redoslijed, (a, b) -> {
+            if (vremena[a] != vremena[b]) {
+                return Long.compare(vremena[a], vremena[b]);
+            }
+            if (idVozila[a] == null) {
+                idVozila[a] = tekstovi.getTekst(zapisi.getLong(pozicijaZapisa(a) + ID_VOZILA));
+            }
+            if (idVozila[b] == null) {
+                idVozila[b] = tekstovi.getTekst(zapisi.getLong(pozicijaZapisa(b) + ID_VOZILA));
+            }
+            return idVozila[a].compareTo(idVozila[b]);
+        });
+        return redoslijed;
+    }
+
+    /**
+     * Stable merge sort of record numbers. Records that compare equal keep their order,
+     * so an ascending array ends up ordered by record number among equal keys.
+     *
+     * @param niz Record numbers to sort.
+     * @param poredjenje Comparison of two record numbers.
+     */
+    private static void sortiraj(int[] niz, IntBinaryOperator poredjenje) {
+        int[] izvor = niz;
+        int[] odrediste = new int[niz.length];
+        for (int sirina = 1; sirina < niz.length; sirina *= 2) {
+            for (int lijevo = 0; lijevo < niz.length; lijevo += 2 * sirina) {
+                int sredina = Math.min(lijevo + sirina, niz.length);
+                int desno = Math.min(lijevo + 2 * sirina, niz.length);
+                int i = lijevo;
+                int j = sredina;
+                for (int k = lijevo; k < desno; k++) {
+                    if (i < sredina && (j >= desno || poredjenje.applyAsInt(izvor[i], izvor[j]) <= 0)) {
+                        odrediste[k] = izvor[i++];
+                    } else {
+                        odrediste[k] = izvor[j++];
+                    }
+                }
+            }
+            int[] t = izvor;
+            izvor = odrediste;
+            odrediste = t;
+        }
+        if (izvor != niz) {
+            System.arraycopy(izvor, 0, niz, 0, niz.length);
+        }
+    }
+
+    /**
+     * Gets the number of receipts in the archive.
+     *
+     * @return The number of receipts.
+     */
+    public int getBrojRacuna() {
+        return brojRacuna;
+    }
+
+    /**
+     * Reads the receipt with the given record number, in the order receipts were written.
+     *
+     * @param redniBroj The record number.
+     * @return The receipt.
+     */
+    public ZapisRacuna procitaj(int redniBroj) {
+        if (redniBroj < 0 || redniBroj >= brojRacuna) {
+            throw new IndexOutOfBoundsException("Racun ne postoji: " + redniBroj);
+        }
+        long p = pozicijaZapisa(redniBroj);
+        byte zastavice = zapisi.get(p + ZASTAVICE);
+        return new ZapisRacuna(
+                LocalDateTime.ofEpochSecond(zapisi.getLong(p + DATUM_VRIJEME), 0, ZoneOffset.UTC),
+                tekstovi.getTekst(zapisi.getLong(p + IME_KORISNIKA)),
+                tekstovi.getTekst(zapisi.getLong(p + DOKUMENT)),
+                tekstovi.getTekst(zapisi.getLong(p + VOZACKA_DOZVOLA)),
+                tekstovi.getTekst(zapisi.getLong(p + ID_VOZILA)),
+                zapisi.getInt(p + TRAJANJE),
+                zapisi.getShort(p + X_PREUZIMANJA), zapisi.getShort(p + Y_PREUZIMANJA),
+                zapisi.getShort(p + X_VRACANJA), zapisi.getShort(p + Y_VRACANJA),
+                (zastavice & ZASTAVICA_KVAR) != 0, (zastavice & ZASTAVICA_PROMOCIJA) != 0,
+                (zastavice & ZASTAVICA_POPUST) != 0, (zastavice & ZASTAVICA_DOKUMENTACIJA) != 0,
+                zapisi.getDouble(p + OSNOVNA_CIJENA), zapisi.getDouble(p + OSNOVNA_CIJENA + 8),
+                zapisi.getDouble(p + OSNOVNA_CIJENA + 16), zapisi.getDouble(p + OSNOVNA_CIJENA + 24),
+                zapisi.getDouble(p + OSNOVNA_CIJENA + 32), zapisi.getDouble(p + OSNOVNA_CIJENA + 40),
+                zapisi.getDouble(p + OSNOVNA_CIJENA + 48), zapisi.getDouble(p + OSNOVNA_CIJENA + 56));
+    }
+
+    /**
+     * Finds the receipt of a rental.
+     *
+     * @param datumVrijeme Date and time of the rental.
+     * @param idVozila ID of the rented vehicle.
+     * @return The first receipt written for the rental, or {@code null} if there is none.
+     */
+    public ZapisRacuna pronadji(LocalDateTime datumVrijeme, String idVozila) {
+        int redniBroj = redniBroj(datumVrijeme.toEpochSecond(ZoneOffset.UTC), idVozila);
+        return redniBroj >= 0 ? procitaj(redniBroj) : null;
+    }
+
+    /**
+     * Checks whether the archive holds a receipt of a rental, without reading the receipt.
+     *
+     * @param vrijeme Epoch seconds of the rental date and time.
+     * @param idVozila ID of the rented vehicle.
+     * @return {@code true} if a receipt of the rental is archived.
+     */
+    boolean sadrzi(long vrijeme, String idVozila) {
+        return redniBroj(vrijeme, idVozila) >= 0;
+    }
+
+    /**
+     * Finds the record number of the first receipt written for a rental.
+     *
+     * @param vrijeme Epoch seconds of the rental date and time.
+     * @param idVozila ID of the rented vehicle.
+     * @return The record number, or -1 if there is no receipt of the rental.
+     */
+    private int redniBroj(long vrijeme, String idVozila) {
+        int i = donjaGranica(vrijeme, idVozila);
+        if (i < brojRacuna) {
+            int redniBroj = zapisNaMjestu(i);
+            long p = pozicijaZapisa(redniBroj);
+            if (zapisi.getLong(p + DATUM_VRIJEME) == vrijeme && idVozila.equals(tekstovi.getTekst(zapisi.getLong(p + ID_VOZILA)))) {
+                return redniBroj;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds all receipts of rentals on a date, sorted by time and vehicle ID.
+     *
+     * @param datum The date.
+     * @return The receipts of the date.
+     */
+    public List<ZapisRacuna> zaDatum(LocalDate datum) {
+        long kraj = datum.plusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        List<ZapisRacuna> rezultat = new ArrayList<>();
+        for (int i = donjaGranica(datum.atStartOfDay().toEpochSecond(ZoneOffset.UTC), ""); i < brojRacuna; i++) {
+            int redniBroj = zapisNaMjestu(i);
+            if (zapisi.getLong(pozicijaZapisa(redniBroj) + DATUM_VRIJEME) >= kraj) {
+                break;
+            }
+            rezultat.add(procitaj(redniBroj));
+        }
+        return rezultat;
+    }
+
+    /**
+     * Finds the first place in the sorted index whose record is not before the given key.
+     *
+     * @param vrijeme Epoch seconds of the rental date and time.
+     * @param idVozila Vehicle ID.
+     * @return The place in the sorted index, or the number of records if every record is before the key.
+     */
+    private int donjaGranica(long vrijeme, String idVozila) {
+        int lijevo = 0;
+        int desno = brojRacuna;
+        while (lijevo < desno) {
+            int sredina = (lijevo + desno) >>> 1;
+            long p = pozicijaZapisa(zapisNaMjestu(sredina));
+            long v = zapisi.getLong(p + DATUM_VRIJEME);
+            int poredjenje = v != vrijeme ? Long.compare(v, vrijeme)
+                    : tekstovi.getTekst(zapisi.getLong(p + ID_VOZILA)).compareTo(idVozila);
+            if (poredjenje < 0) {
+                lijevo = sredina + 1;
+            } else {
+                desno = sredina;
+            }
+        }
+        return lijevo;
+    }
+
+    /**
+     * Returns the record number at a place in the sorted index.
+     *
+     * @param mjesto The place in the sorted index.
+     * @return The record number.
+     */
+    private int zapisNaMjestu(int mjesto) {
+        return indeks != null ? indeks.getInt(ZAGLAVLJE_INDEKSA + 4L * mjesto) : indeksUMemoriji[mjesto];
+    }
+
+    /**
+     * Returns the position of a record in the records file.
+     *
+     * @param redniBroj The record number.
+     * @return The position in bytes.
+     */
+    static long pozicijaZapisa(int redniBroj) {
+        return ZAGLAVLJE_ZAPISA + (long) redniBroj * VELICINA_ZAPISA;
+    }
+}
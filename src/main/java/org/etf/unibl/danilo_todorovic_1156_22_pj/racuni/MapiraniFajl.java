@@ -0,0 +1,123 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.racuni;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only memory mapping of a whole file, split into windows so files larger than 2 GB can be mapped.
+ *
+ * Neighbouring windows overlap by {@value #PREKLAPANJE} bytes, so every read of at most that many bytes
+ * is served by the single window containing its first byte.
+ */
+class MapiraniFajl {
+    static final int PREKLAPANJE = 1 << 17;   // Longest read in bytes
+    private static final int BITOVI_PROZORA = 30; // Windows start every 1 GB
+
+    private final MappedByteBuffer[] prozori; // Mapped windows of the file
+    private final long velicina;              // Size of the file in bytes
+
+    /**
+     * Maps the given file.
+     *
+     * @param putanja Path of the file.
+     * @throws IOException If the file cannot be mapped.
+     */
+    MapiraniFajl(Path putanja) throws IOException {
+        try (FileChannel kanal = FileChannel.open(putanja, StandardOpenOption.READ)) {
+            velicina = kanal.size();
+            int broj = (int) ((velicina + (1L << BITOVI_PROZORA) - 1) >>> BITOVI_PROZORA);
+            prozori = new MappedByteBuffer[Math.max(broj, 1)];
+            for (int i = 0; i < prozori.length; i++) {
+                long pocetak = (long) i << BITOVI_PROZORA;
+                long duzina = Math.min(velicina - pocetak, (1L << BITOVI_PROZORA) + PREKLAPANJE);
+                prozori[i] = kanal.map(FileChannel.MapMode.READ_ONLY, pocetak, Math.max(duzina, 0));
+            }
+        }
+    }
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return The size in bytes.
+     */
+    long velicina() {
+        return velicina;
+    }
+
+    /**
+     * Reads an int.
+     *
+     * @param pozicija Position in the file.
+     * @return The value at the position.
+     */
+    int getInt(long pozicija) {
+        return prozori[(int) (pozicija >>> BITOVI_PROZORA)].getInt(odmak(pozicija));
+    }
+
+    /**
+     * Reads a short.
+     *
+     * @param pozicija Position in the file.
+     * @return The value at the position.
+     */
+    short getShort(long pozicija) {
+        return prozori[(int) (pozicija >>> BITOVI_PROZORA)].getShort(odmak(pozicija));
+    }
+
+    /**
+     * Reads a long.
+     *
+     * @param pozicija Position in the file.
+     * @return The value at the position.
+     */
+    long getLong(long pozicija) {
+        return prozori[(int) (pozicija >>> BITOVI_PROZORA)].getLong(odmak(pozicija));
+    }
+
+    /**
+     * Reads a double.
+     *
+     * @param pozicija Position in the file.
+     * @return The value at the position.
+     */
+    double getDouble(long pozicija) {
+        return prozori[(int) (pozicija >>> BITOVI_PROZORA)].getDouble(odmak(pozicija));
+    }
+
+    /**
+     * Reads a byte.
+     *
+     * @param pozicija Position in the file.
+     * @return The value at the position.
+     */
+    byte get(long pozicija) {
+        return prozori[(int) (pozicija >>> BITOVI_PROZORA)].get(odmak(pozicija));
+    }
+
+    /**
+     * Reads a UTF-8 string stored as its length in bytes followed by the bytes.
+     *
+     * @param pozicija Position of the length in the file.
+     * @return The string.
+     */
+    String getTekst(long pozicija) {
+        int duzina = getInt(pozicija);
+        byte[] bajtovi = new byte[duzina];
+        prozori[(int) ((pozicija + 4) >>> BITOVI_PROZORA)].get(odmak(pozicija + 4), bajtovi);
+        return new String(bajtovi, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the position of a byte within its window.
+     *
+     * @param pozicija Position in the file.
+     * @return The position within the window.
+     */
+    private static int odmak(long pozicija) {
+        return (int) (pozicija & ((1L << BITOVI_PROZORA) - 1));
+    }
+}
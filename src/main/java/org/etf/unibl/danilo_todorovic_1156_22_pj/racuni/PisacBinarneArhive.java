@@ -0,0 +1,272 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.racuni;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.rental.Iznajmljivanje;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Racun;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Appends receipts to the binary receipt archive described in {@link BinarnaArhivaRacuna}.
+ *
+ * Strings repeated within one run, such as user names and vehicle IDs, are stored only once.
+ * A receipt with the same rental date and time and vehicle ID as an archived one is not appended again,
+ * so replaying the same simulation does not duplicate the archive. When the writer is closed, the receipts
+ * it appended are merged into the sorted index.
+ *
+ * Records are buffered by the writer itself and only written after the strings they refer to, so a crash
+ * never leaves a record pointing past the end of the strings file. Such records, written by earlier versions,
+ * are cut off when the archive is opened.
+ */
+class PisacBinarneArhive implements AutoCloseable {
+    private final Path folder;                // Folder holding the archive files
+    private static final int ZAPISA_U_BAFERU = 64; // Records buffered before they are written
+
+    private final OutputStream zapisi;        // Records file opened for appending, unbuffered
+    private final DataOutputStream tekstovi;  // Strings file opened for appending
+    private final ByteBuffer zapis = ByteBuffer.allocate(BinarnaArhivaRacuna.VELICINA_ZAPISA); // Record being written
+    private final ByteBuffer baferZapisa = ByteBuffer.allocate(BinarnaArhivaRacuna.VELICINA_ZAPISA * ZAPISA_U_BAFERU); // Records not yet written
+    private final HashMap<String, Long> upisaniTekstovi = new HashMap<>(); // Position of every string written in this run
+    private long velicinaTekstova;            // Size of the strings file
+    private final BinarnaArhivaRacuna postojeca; // Receipts archived before this writer was opened
+    private final HashSet<String> kljuceviNovih = new HashSet<>(); // Date, time and vehicle ID of every receipt appended in this run
+    private long[] vremenaNovih = new long[256];       // Epoch seconds of the receipts appended in this run
+    private String[] idVozilaNovih = new String[256];  // Vehicle IDs of the receipts appended in this run
+    private int brojNovih;                    // Number of receipts appended in this run
+    private long brojPreskocenih;             // Number of receipts not appended because they were already archived
+
+    /**
+     * Opens the archive in the given folder for appending, creating it if it does not exist.
+     * A record left incomplete at the end of the records file, and trailing records referring to strings
+     * that are not in the strings file, are cut off.
+     *
+     * @param folder Folder holding the archive files.
+     * @throws IOException If the archive cannot be opened or is not a receipt archive.
+     */
+    PisacBinarneArhive(Path folder) throws IOException {
+        this.folder = folder;
+        Path putanjaZapisa = folder.resolve(BinarnaArhivaRacuna.ZAPISI);
+        Path putanjaTekstova = folder.resolve(BinarnaArhivaRacuna.TEKSTOVI);
+        boolean nova = !Files.exists(putanjaZapisa) || Files.size(putanjaZapisa) < BinarnaArhivaRacuna.ZAGLAVLJE_ZAPISA;
+        if (!nova) {
+            odreziNepotpunZapis(putanjaZapisa, putanjaTekstova);
+        }
+
+        zapisi = new FileOutputStream(putanjaZapisa.toFile(), !nova);
+        tekstovi = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(putanjaTekstova.toFile(), !nova)));
+        if (nova) {
+            ByteBuffer zaglavlje = ByteBuffer.allocate(BinarnaArhivaRacuna.ZAGLAVLJE_ZAPISA);
+            zaglavlje.putInt(BinarnaArhivaRacuna.MAGIC_ZAPISA).putInt(BinarnaArhivaRacuna.VERZIJA)
+                    .putInt(BinarnaArhivaRacuna.VELICINA_ZAPISA).putInt(0);
+            zapisi.write(zaglavlje.array());
+            tekstovi.writeInt(BinarnaArhivaRacuna.MAGIC_TEKSTOVA);
+            tekstovi.writeInt(BinarnaArhivaRacuna.VERZIJA);
+            velicinaTekstova = BinarnaArhivaRacuna.ZAGLAVLJE_TEKSTOVA;
+            flush();
+        } else {
+            velicinaTekstova = Files.size(putanjaTekstova);
+        }
+        try {
+            postojeca = new BinarnaArhivaRacuna(folder);
+        } catch (IOException e) {
+            tekstovi.close();
+            zapisi.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks the header of an existing records file and cuts the file back to a whole number of records,
+     * dropping trailing records that refer to strings missing from the strings file.
+     *
+     * @param putanjaZapisa Path of the records file.
+     * @param putanjaTekstova Path of the strings file.
+     * @throws IOException If the file cannot be written or is not a receipt archive.
+     */
+    private static void odreziNepotpunZapis(Path putanjaZapisa, Path putanjaTekstova) throws IOException {
+        try (FileChannel kanal = FileChannel.open(putanjaZapisa, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileChannel kanalTekstova = FileChannel.open(putanjaTekstova, StandardOpenOption.READ)) {
+            ByteBuffer zaglavlje = ByteBuffer.allocate(BinarnaArhivaRacuna.ZAGLAVLJE_ZAPISA);
+            kanal.read(zaglavlje, 0);
+            if (zaglavlje.getInt(0) != BinarnaArhivaRacuna.MAGIC_ZAPISA || zaglavlje.getInt(4) != BinarnaArhivaRacuna.VERZIJA
+                    || zaglavlje.getInt(8) != BinarnaArhivaRacuna.VELICINA_ZAPISA) {
+                throw new IOException("Neispravna arhiva racuna: " + putanjaZapisa);
+            }
+            long velicina = kanal.size();
+            int broj = (int) ((velicina - BinarnaArhivaRacuna.ZAGLAVLJE_ZAPISA) / BinarnaArhivaRacuna.VELICINA_ZAPISA);
+            while (broj > 0 && !tekstoviPostoje(kanal, kanalTekstova, BinarnaArhivaRacuna.pozicijaZapisa(broj - 1))) {
+                broj--;
+            }
+            if (BinarnaArhivaRacuna.pozicijaZapisa(broj) != velicina) {
+                kanal.truncate(BinarnaArhivaRacuna.pozicijaZapisa(broj));
+            }
+        }
+    }
+
+    /**
+     * Checks that every string a record refers to lies within the strings file.
+     */
+    private static boolean tekstoviPostoje(FileChannel zapisi, FileChannel tekstovi, long pozicija) throws IOException {
+        ByteBuffer zapis = ByteBuffer.allocate(BinarnaArhivaRacuna.VELICINA_ZAPISA);
+        zapisi.read(zapis, pozicija);
+        long velicinaTekstova = tekstovi.size();
+        ByteBuffer duzina = ByteBuffer.allocate(4);
+        for (int polje : BinarnaArhivaRacuna.POLJA_TEKSTOVA) {
+            long p = zapis.getLong(polje);
+            if (p < BinarnaArhivaRacuna.ZAGLAVLJE_TEKSTOVA || p + 4 > velicinaTekstova) {
+                return false;
+            }
+            duzina.clear();
+            tekstovi.read(duzina, p);
+            if (duzina.getInt(0) < 0 || p + 4 + duzina.getInt(0) > velicinaTekstova) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends a receipt to the archive, unless a receipt of the same rental is already archived.
+     *
+     * @param racun The receipt.
+     * @return {@code true} if the receipt was appended.
+     * @throws IOException If the archive cannot be written, or a coordinate or string does not fit its field.
+     */
+    boolean upisi(Racun racun) throws IOException {
+        Iznajmljivanje iznajmljivanje = racun.getIznajmljivanje();
+        long vrijeme = iznajmljivanje.getDatumVrijemeIznajmljivanja().toEpochSecond(ZoneOffset.UTC);
+        String idVozila = iznajmljivanje.getIDPrevoznogSredstva();
+        if (postojeca.sadrzi(vrijeme, idVozila) || !kljuceviNovih.add(vrijeme + " " + idVozila)) {
+            brojPreskocenih++;
+            return false;
+        }
+        short xPreuzimanja = koordinata(iznajmljivanje.getXPreuzimanja());
+        short yPreuzimanja = koordinata(iznajmljivanje.getYPreuzimanja());
+        short xVracanja = koordinata(iznajmljivanje.getXVracanja());
+        short yVracanja = koordinata(iznajmljivanje.getYVracanja());
+        int zastavice = (iznajmljivanje.isKvar() ? BinarnaArhivaRacuna.ZASTAVICA_KVAR : 0)
+                | (iznajmljivanje.isPromocija() ? BinarnaArhivaRacuna.ZASTAVICA_PROMOCIJA : 0)
+                | (iznajmljivanje.isPopust() ? BinarnaArhivaRacuna.ZASTAVICA_POPUST : 0)
+                | ("automobil".equals(iznajmljivanje.getVrstaVozila()) ? BinarnaArhivaRacuna.ZASTAVICA_DOKUMENTACIJA : 0);
+
+        zapis.clear();
+        zapis.putLong(vrijeme)
+                .putLong(tekst(iznajmljivanje.getImeKorisnika()))
+                .putLong(tekst(iznajmljivanje.getIdentifikacioniDokument()))
+                .putLong(tekst(iznajmljivanje.getBrojVozackeDozvole()))
+                .putLong(tekst(idVozila))
+                .putInt(iznajmljivanje.getTrajanjeSekunde())
+                .putShort(xPreuzimanja).putShort(yPreuzimanja).putShort(xVracanja).putShort(yVracanja)
+                .put((byte) zastavice).put((byte) 0).put((byte) 0).put((byte) 0)
+                .putDouble(racun.getOsnovnaCijena()).putDouble(racun.getUdaljenost())
+                .putDouble(racun.getUkupnaCijena()).putDouble(racun.getCijenaPopusta())
+                .putDouble(racun.getCijenaPromocije()).putDouble(racun.getCijenaUdaljenosti())
+                .putDouble(racun.getCijenaOdrzavanja()).putDouble(racun.getCijenaPopravke());
+        if (!baferZapisa.hasRemaining()) {
+            flush();
+        }
+        baferZapisa.put(zapis.array());
+
+        if (brojNovih == vremenaNovih.length) {
+            vremenaNovih = Arrays.copyOf(vremenaNovih, brojNovih * 2);
+            idVozilaNovih = Arrays.copyOf(idVozilaNovih, brojNovih * 2);
+        }
+        vremenaNovih[brojNovih] = vrijeme;
+        idVozilaNovih[brojNovih] = idVozila;
+        brojNovih++;
+        return true;
+    }
+
+    /**
+     * Returns the number of receipts that were not appended because they were already archived.
+     *
+     * @return The number of skipped duplicates.
+     */
+    long getBrojPreskocenih() {
+        return brojPreskocenih;
+    }
+
+    /**
+     * Checks that a coordinate fits the short field of a record.
+     *
+     * @param koordinata The coordinate.
+     * @return The coordinate as a short.
+     * @throws IOException If the coordinate does not fit.
+     */
+    private static short koordinata(int koordinata) throws IOException {
+        if (koordinata < Short.MIN_VALUE || koordinata > Short.MAX_VALUE) {
+            throw new IOException("Koordinata je van opsega arhive racuna: " + koordinata);
+        }
+        return (short) koordinata;
+    }
+
+    /**
+     * Returns the position of a string in the strings file, appending the string if it was not written in this run.
+     *
+     * @param tekst The string.
+     * @return The position of the string.
+     * @throws IOException If the string cannot be written.
+     */
+    private long tekst(String tekst) throws IOException {
+        Long pozicija = upisaniTekstovi.get(tekst);
+        if (pozicija != null) {
+            return pozicija;
+        }
+        byte[] bajtovi = tekst.getBytes(StandardCharsets.UTF_8);
+        if (bajtovi.length > MapiraniFajl.PREKLAPANJE - 4) {
+            throw new IOException("Tekst je predugacak za arhivu racuna: " + bajtovi.length + " bajtova");
+        }
+        long nova = velicinaTekstova;
+        tekstovi.writeInt(bajtovi.length);
+        tekstovi.write(bajtovi);
+        velicinaTekstova += 4 + bajtovi.length;
+        upisaniTekstovi.put(tekst, nova);
+        return nova;
+    }
+
+    /**
+     * Writes buffered records and strings to the archive files.
+     * Strings are written first so a record never refers to a string that is not on disk.
+     *
+     * @throws IOException If the archive cannot be written.
+     */
+    void flush() throws IOException {
+        tekstovi.flush();
+        if (baferZapisa.position() > 0) {
+            zapisi.write(baferZapisa.array(), 0, baferZapisa.position());
+            baferZapisa.clear();
+        }
+    }
+
+    /**
+     * Closes the archive files and merges the receipts appended in this run into the sorted index.
+     *
+     * @throws IOException If the archive cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            try {
+                tekstovi.close();
+            } finally {
+                zapisi.close();
+            }
+        }
+        postojeca.dopuniIndeks(folder, vremenaNovih, idVozilaNovih, brojNovih);
+    }
+}
@@ -0,0 +1,403 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.racuni;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Metrike;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Racun;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes receipts on a dedicated thread, in batches.
+ *
+ * Rental threads only put receipts into a bounded queue; the writer thread takes everything that is
+ * queued and writes it at once. The output is selected with the {@code RECEIPT_MODE} property:
+ * {@code FILES} writes one text file per receipt under {@code RECEIPT_PATH}, {@code ARCHIVE}
+ * appends receipts to segment files of at most {@code RECEIPT_SEGMENT_SIZE} bytes and records the name,
+ * segment, offset and length of each receipt in an index file, and {@code BINARY} appends them to the
+ * {@link BinarnaArhivaRacuna binary receipt archive}. Text receipts are rendered on the rental thread.
+ * A batch that fails with an unexpected exception is counted as failed and the writer keeps draining the queue,
+ * so rental threads never block on a queue nobody takes from.
+ */
+public class PisacRacuna implements AutoCloseable {
+    public static final String INDEKS_ARHIVE = "racuni.idx"; // Name of the archive index file
+    private static final int KAPACITET_REDA = 10_000;        // Receipts that can wait before rental threads block
+    private static final int MAKS_PAKET = 512;               // Receipts written in one batch at most
+    private static final Stavka KRAJ = new Stavka(null, null, null, 0); // Marks the end of the queue
+
+    /**
+     * Where receipts are written.
+     */
+    public enum Nacin {
+        FILES, ARCHIVE, BINARY
+    }
+
+    private final String folder;           // Folder receiving the receipts
+    private final Nacin nacin;             // Where receipts are written
+    private final long velicinaSegmenta;   // Maximum size of one archive segment in bytes
+    private final BlockingQueue<Stavka> red = new ArrayBlockingQueue<>(KAPACITET_REDA); // Receipts waiting to be written
+    private final Thread nit;              // Writer thread
+    private volatile boolean zatvoren;     // Whether new receipts are rejected
+
+    private int brojSegmenta;              // Number of the current archive segment
+    private long velicinaTrenutnog;        // Size of the current archive segment
+    private OutputStream segment;          // Current archive segment
+    private Writer indeks;                 // Archive index
+    private PisacBinarneArhive binarna;    // Binary archive
+
+    private final LongAdder brojRacuna = new LongAdder();         // Number of written receipts
+    private final LongAdder brojPaketa = new LongAdder();         // Number of written batches
+    private final LongAdder brojNeuspjelih = new LongAdder();     // Number of receipts in batches that failed
+    private final LongAdder ukupnoPisanjeNano = new LongAdder();  // Total time spent writing batches
+    private final AtomicLong maksPisanjeNano = new AtomicLong();  // Longest time spent writing one batch
+    private final AtomicLong maksDubinaReda = new AtomicLong();   // Largest number of receipts waiting at once
+    private final Metrike.Histogram pisanjePaketa = Metrike.getInstance().histogram("racuni.pisanje_paketa"); // Time spent writing each batch
+    private final Metrike.Histogram kasnjenjeRacuna = Metrike.getInstance().histogram("racuni.kasnjenje");   // Time from handing over a receipt until it is written
+    private final Metrike.Brojac neuspjeliRacuni = Metrike.getInstance().brojac("racuni.neuspjeli");         // Receipts in batches that failed
+
+    /**
+     * One receipt waiting to be written.
+     */
+    private static final class Stavka {
+        private final String naziv; // File name of the receipt
+        private final String tekst; // Rendered receipt, for text modes
+        private final Racun racun;  // The receipt, for the binary archive
+        private final long predato; // The System.nanoTime() at which the receipt was handed over
+
+        private Stavka(String naziv, String tekst, Racun racun, long predato) {
+            this.naziv = naziv;
+            this.tekst = tekst;
+            this.racun = racun;
+            this.predato = predato;
+        }
+    }
+
+    /**
+     * Constructs a PisacRacuna object and starts its writer thread.
+     *
+     * @param folder Folder receiving the receipts.
+     * @param nacin Where receipts are written.
+     * @param velicinaSegmenta Maximum size of one archive segment in bytes.
+     */
+    public PisacRacuna(String folder, Nacin nacin, long velicinaSegmenta) {
+        this.folder = folder;
+        this.nacin = nacin;
+        this.velicinaSegmenta = velicinaSegmenta;
+        this.nit = new Thread(this::pisi, "pisac-racuna");
+        this.nit.setDaemon(true);
+        this.nit.start();
+    }
+
+    /**
+     * Creates a writer as configured by the {@code RECEIPT_PATH}, {@code RECEIPT_MODE} and
+     * {@code RECEIPT_SEGMENT_SIZE} properties.
+     *
+     * @param appProps The application properties.
+     * @return The configured writer.
+     */
+    public static PisacRacuna izKonfiguracije(Properties appProps) {
+        String folder = appProps.getProperty("RECEIPT_PATH").replace("/", File.separator);
+        String nacin = appProps.getProperty("RECEIPT_MODE", "FILES").trim().toUpperCase();
+        long velicinaSegmenta = Long.parseLong(appProps.getProperty("RECEIPT_SEGMENT_SIZE", "67108864").trim());
+
+        try {
+            return new PisacRacuna(folder, Nacin.valueOf(nacin), velicinaSegmenta);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nepoznat nacin pisanja racuna: " + nacin);
+        }
+    }
+
+    /**
+     * Queues a receipt for writing. Blocks while the queue is full.
+     *
+     * @param naziv File name of the receipt.
+     * @param racun The receipt.
+     */
+    public void predaj(String naziv, Racun racun) {
+        if (zatvoren) {
+            throw new IllegalStateException("Pisac racuna je zatvoren");
+        }
+        long predato = System.nanoTime();
+        Stavka stavka = nacin == Nacin.BINARY ? new Stavka(naziv, null, racun, predato) : new Stavka(naziv, racun.toString(), null, predato);
+        try {
+            red.put(stavka);
+            maksDubinaReda.accumulateAndGet(red.size(), Math::max);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes batches of receipts from the queue and writes them until the end of the queue is reached.
+     */
+    private void pisi() {
+        List<Stavka> paket = new ArrayList<>(MAKS_PAKET);
+        boolean kraj = false;
+        try {
+            while (!kraj) {
+                paket.add(red.take());
+                red.drainTo(paket, MAKS_PAKET - 1);
+                kraj = paket.remove(KRAJ);
+
+                if (!paket.isEmpty()) {
+                    try {
+                        upisiPaket(paket);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                        brojNeuspjelih.add(paket.size());
+                        neuspjeliRacuni.dodaj(paket.size());
+                    }
+                }
+                paket.clear();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } finally {
+            zatvoriArhivu();
+        }
+    }
+
+    /**
+     * Writes one batch of receipts and records its timing.
+     *
+     * @param paket The receipts to write.
+     */
+    private void upisiPaket(List<Stavka> paket) {
+        long pocetak = System.nanoTime();
+        switch (nacin) {
+            case FILES:
+                upisiFajlove(paket);
+                break;
+            case ARCHIVE:
+                upisiUArhivu(paket);
+                break;
+            case BINARY:
+                upisiUBinarnuArhivu(paket);
+                break;
+        }
+        long zavrseno = System.nanoTime();
+        long trajanje = zavrseno - pocetak;
+        brojRacuna.add(paket.size());
+        brojPaketa.increment();
+        ukupnoPisanjeNano.add(trajanje);
+        maksPisanjeNano.accumulateAndGet(trajanje, Math::max);
+        pisanjePaketa.zabiljezi(trajanje);
+        for (Stavka stavka : paket) {
+            kasnjenjeRacuna.zabiljezi(zavrseno - stavka.predato);
+        }
+    }
+
+    /**
+     * Writes every receipt of a batch to its own text file.
+     *
+     * @param paket The receipts to write.
+     */
+    private void upisiFajlove(List<Stavka> paket) {
+        for (Stavka stavka : paket) {
+            try (BufferedWriter bw = new BufferedWriter(new FileWriter(folder + File.separator + stavka.naziv))) {
+                bw.write(stavka.tekst);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Appends every receipt of a batch to the archive and records it in the index.
+     * Receipts are encoded as UTF-8; a receipt that does not fit into the current segment starts a new one.
+     *
+     * @param paket The receipts to write.
+     */
+    private void upisiUArhivu(List<Stavka> paket) {
+        try {
+            if (segment == null) {
+                otvoriArhivu();
+            }
+            for (Stavka stavka : paket) {
+                byte[] bajtovi = stavka.tekst.getBytes(StandardCharsets.UTF_8);
+                if (velicinaTrenutnog > 0 && velicinaTrenutnog + bajtovi.length > velicinaSegmenta) {
+                    segment.close();
+                    brojSegmenta++;
+                    velicinaTrenutnog = 0;
+                    segment = new FileOutputStream(nazivSegmenta(brojSegmenta), true);
+                }
+                segment.write(bajtovi);
+                indeks.write(stavka.naziv + ";" + brojSegmenta + ";" + velicinaTrenutnog + ";" + bajtovi.length + "\n");
+                velicinaTrenutnog += bajtovi.length;
+            }
+            segment.flush();
+            indeks.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Appends every receipt of a batch to the binary archive.
+     *
+     * @param paket The receipts to write.
+     */
+    private void upisiUBinarnuArhivu(List<Stavka> paket) {
+        try {
+            if (binarna == null) {
+                binarna = new PisacBinarneArhive(Path.of(folder));
+            }
+            for (Stavka stavka : paket) {
+                binarna.upisi(stavka.racun);
+            }
+            binarna.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Opens the last archive segment and the index for appending.
+     *
+     * @throws IOException If the archive cannot be opened.
+     */
+    private void otvoriArhivu() throws IOException {
+        brojSegmenta = 0;
+        while (Files.exists(Path.of(nazivSegmenta(brojSegmenta + 1)))) {
+            brojSegmenta++;
+        }
+        File trenutni = new File(nazivSegmenta(brojSegmenta));
+        velicinaTrenutnog = trenutni.length();
+        segment = new FileOutputStream(trenutni, true);
+        indeks = new BufferedWriter(new FileWriter(folder + File.separator + INDEKS_ARHIVE, StandardCharsets.UTF_8, true));
+    }
+
+    /**
+     * Closes the archive segment, the index and the binary archive, if they are open.
+     */
+    private void zatvoriArhivu() {
+        try {
+            if (segment != null) {
+                segment.close();
+            }
+            if (indeks != null) {
+                indeks.close();
+            }
+            if (binarna != null) {
+                binarna.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the path of an archive segment.
+     *
+     * @param broj Number of the segment.
+     * @return The path of the segment file.
+     */
+    private String nazivSegmenta(int broj) {
+        return folder + File.separator + String.format("racuni-%06d.seg", broj);
+    }
+
+    /**
+     * Writes all queued receipts and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        if (zatvoren) {
+            return;
+        }
+        zatvoren = true;
+        try {
+            red.put(KRAJ);
+            nit.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the description of the writer.
+     *
+     * @return The writing mode.
+     */
+    public String getOpis() {
+        return nacin.name();
+    }
+
+    /**
+     * Gets the number of receipts waiting to be written.
+     *
+     * @return The current queue depth.
+     */
+    public int getDubinaReda() {
+        return red.size();
+    }
+
+    /**
+     * Gets the largest number of receipts that were waiting to be written at once.
+     *
+     * @return The largest queue depth.
+     */
+    public long getMaksDubinaReda() {
+        return maksDubinaReda.get();
+    }
+
+    /**
+     * Gets the number of written receipts.
+     *
+     * @return The number of receipts.
+     */
+    public long getBrojRacuna() {
+        return brojRacuna.sum();
+    }
+
+    /**
+     * Gets the number of written batches.
+     *
+     * @return The number of batches.
+     */
+    public long getBrojPaketa() {
+        return brojPaketa.sum();
+    }
+
+    /**
+     * Gets the number of receipts in batches that failed with an unexpected exception.
+     *
+     * @return The number of receipts that were not written.
+     */
+    public long getBrojNeuspjelih() {
+        return brojNeuspjelih.sum();
+    }
+
+    /**
+     * Gets the total time spent writing and flushing batches.
+     *
+     * @return The total write time in nanoseconds.
+     */
+    public long getUkupnoPisanjeNano() {
+        return ukupnoPisanjeNano.sum();
+    }
+
+    /**
+     * Gets the longest time spent writing and flushing one batch.
+     *
+     * @return The longest write time in nanoseconds.
+     */
+    public long getMaksPisanjeNano() {
+        return maksPisanjeNano.get();
+    }
+}
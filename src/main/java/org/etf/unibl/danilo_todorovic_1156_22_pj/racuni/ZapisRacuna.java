@@ -0,0 +1,161 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.racuni;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Racun;
+
+import java.time.LocalDateTime;
+
+/**
+ * A receipt read back from the binary receipt archive.
+ * It holds the rental keys and cost fields of a {@link Racun} and renders the same text receipt with
+ * {@link Racun#formatiraj}.
+ */
+public class ZapisRacuna {
+    private final LocalDateTime datumVrijemeIznajmljivanja; // Date and time of the rental
+    private final String imeKorisnika;                      // Name of the user
+    private final String identifikacioniDokument;           // Identification document of the user
+    private final String brojVozackeDozvole;                // Driver's license number of the user
+    private final String idPrevoznogSredstva;               // ID of the rented vehicle
+    private final int trajanjeSekunde;                      // Duration of the rental in seconds
+    private final int xPreuzimanja;                         // Pick-up X coordinate
+    private final int yPreuzimanja;                         // Pick-up Y coordinate
+    private final int xVracanja;                            // Return X coordinate
+    private final int yVracanja;                            // Return Y coordinate
+    private final boolean kvar;                             // Whether the vehicle had a malfunction
+    private final boolean promocija;                        // Whether the user had a promotion
+    private final boolean popust;                           // Whether the user had a discount
+    private final boolean dokumentacija;                    // Whether the receipt lists the user's documents
+    private final double osnovnaCijena;                     // The base price before the distance factor
+    private final double udaljenost;                        // The distance factor
+    private final double ukupnaCijena;                      // The total price
+    private final double cijenaPopusta;                     // The discount
+    private final double cijenaPromocije;                   // The promotion discount
+    private final double cijenaUdaljenosti;                 // The distance-based price
+    private final double cijenaOdrzavanja;                  // The maintenance cost
+    private final double cijenaPopravke;                    // The repair cost
+
+    /**
+     * Constructs a ZapisRacuna from the fields of an archive record.
+     */
+    ZapisRacuna(LocalDateTime datumVrijemeIznajmljivanja, String imeKorisnika, String identifikacioniDokument,
+                String brojVozackeDozvole, String idPrevoznogSredstva, int trajanjeSekunde,
+                int xPreuzimanja, int yPreuzimanja, int xVracanja, int yVracanja,
+                boolean kvar, boolean promocija, boolean popust, boolean dokumentacija,
+                double osnovnaCijena, double udaljenost, double ukupnaCijena, double cijenaPopusta,
+                double cijenaPromocije, double cijenaUdaljenosti, double cijenaOdrzavanja, double cijenaPopravke) {
+        this.datumVrijemeIznajmljivanja = datumVrijemeIznajmljivanja;
+        this.imeKorisnika = imeKorisnika;
+        this.identifikacioniDokument = identifikacioniDokument;
+        this.brojVozackeDozvole = brojVozackeDozvole;
+        this.idPrevoznogSredstva = idPrevoznogSredstva;
+        this.trajanjeSekunde = trajanjeSekunde;
+        this.xPreuzimanja = xPreuzimanja;
+        this.yPreuzimanja = yPreuzimanja;
+        this.xVracanja = xVracanja;
+        this.yVracanja = yVracanja;
+        this.kvar = kvar;
+        this.promocija = promocija;
+        this.popust = popust;
+        this.dokumentacija = dokumentacija;
+        this.osnovnaCijena = osnovnaCijena;
+        this.udaljenost = udaljenost;
+        this.ukupnaCijena = ukupnaCijena;
+        this.cijenaPopusta = cijenaPopusta;
+        this.cijenaPromocije = cijenaPromocije;
+        this.cijenaUdaljenosti = cijenaUdaljenosti;
+        this.cijenaOdrzavanja = cijenaOdrzavanja;
+        this.cijenaPopravke = cijenaPopravke;
+    }
+
+    /**
+     * Returns the date and time of the rental.
+     *
+     * @return The date and time of the rental.
+     */
+    public LocalDateTime getDatumVrijemeIznajmljivanja() {
+        return datumVrijemeIznajmljivanja;
+    }
+
+    /**
+     * Returns the name of the user.
+     *
+     * @return The name of the user.
+     */
+    public String getImeKorisnika() {
+        return imeKorisnika;
+    }
+
+    /**
+     * Returns the ID of the rented vehicle.
+     *
+     * @return The vehicle ID.
+     */
+    public String getIDPrevoznogSredstva() {
+        return idPrevoznogSredstva;
+    }
+
+    /**
+     * Returns the total price of the rental.
+     *
+     * @return The total price as a double value.
+     */
+    public double getUkupnaCijena() {
+        return ukupnaCijena;
+    }
+
+    /**
+     * Returns the discount of the rental.
+     *
+     * @return The discount as a double value.
+     */
+    public double getCijenaPopusta() {
+        return cijenaPopusta;
+    }
+
+    /**
+     * Returns the promotion discount of the rental.
+     *
+     * @return The promotion discount as a double value.
+     */
+    public double getCijenaPromocije() {
+        return cijenaPromocije;
+    }
+
+    /**
+     * Returns the distance-based price of the rental.
+     *
+     * @return The distance-based price as a double value.
+     */
+    public double getCijenaUdaljenosti() {
+        return cijenaUdaljenosti;
+    }
+
+    /**
+     * Returns the maintenance cost of the rental.
+     *
+     * @return The maintenance cost as a double value.
+     */
+    public double getCijenaOdrzavanja() {
+        return cijenaOdrzavanja;
+    }
+
+    /**
+     * Returns the repair cost of the rental.
+     *
+     * @return The repair cost as a double value.
+     */
+    public double getCijenaPopravke() {
+        return cijenaPopravke;
+    }
+
+    /**
+     * Renders the text receipt, identical to the one written for the rental.
+     *
+     * @return The text receipt.
+     */
+    @Override
+    public String toString() {
+        return Racun.formatiraj(imeKorisnika, dokumentacija, identifikacioniDokument, brojVozackeDozvole, idPrevoznogSredstva,
+                datumVrijemeIznajmljivanja, trajanjeSekunde, xPreuzimanja, yPreuzimanja, xVracanja, yVracanja,
+                kvar, promocija, popust, osnovnaCijena, udaljenost, ukupnaCijena);
+    }
+}
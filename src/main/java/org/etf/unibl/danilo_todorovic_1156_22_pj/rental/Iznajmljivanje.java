@@ -1,15 +1,8 @@
 package org.etf.unibl.danilo_todorovic_1156_22_pj.rental;
 
-import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.Mapa;
-import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Utility;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.RegistarVozila;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 
 /**
  * Represents a rental transaction in the system.
@@ -74,116 +67,12 @@ public class Iznajmljivanje {
     }
 
     /**
-     * Retrieves the type of vehicle based on the vehicle ID.
+     * Retrieves the type of vehicle based on the vehicle ID from the in-memory vehicle registry.
      *
      * @return The type of vehicle, or an empty string if the vehicle ID is not found.
      */
     public String getVrstaVozila() {
-        try (BufferedReader br = new BufferedReader(new FileReader(Utility.DATA_BASE_PATH + File.separator + "PJ2 - projektni zadatak 2024 - Prevozna sredstva.csv"))) {
-            String line = br.readLine();
-            while ((line = br.readLine()) != null) {
-                String[] data = line.split(",");
-                if (iDPrevoznogSredstva.equals(data[0])) {
-                    return data[8];
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return "";
-    }
-
-    /**
-     * Validates rental data from an array of strings.
-     *
-     * @param data An array of strings representing rental data.
-     * @return {@code true} if the data is valid; {@code false} otherwise.
-     */
-    public static boolean validnoIznajmljivanje(String[] data) {
-        if (data.length != 10) {
-            return false;
-        }
-        for (int i = 1; i < data.length; i++) {
-            if (data[i].isEmpty() || data[i] == null) {
-                return false;
-            }
-        }
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d.M.yyyy HH:mm");
-            LocalDateTime dateTime = LocalDateTime.parse(data[0], formatter);
-        } catch (DateTimeParseException e) {
-            return false;
-        }
-        if (isInteger(data[3].substring(1))) {
-            try {
-                int x = Integer.parseInt(data[3].substring(1));
-                if (x < 0 || x >= Mapa.getVelicina()) {
-                    return false;
-                }
-            } catch (NumberFormatException e) {
-                return false;
-            }
-        }
-        if (isInteger(data[4].substring(0, data[4].length()-1))) {
-            try {
-                int x = Integer.parseInt(data[4].substring(0, data[4].length() - 1));
-                if (x < 0 || x >= Mapa.getVelicina()) {
-                    return false;
-                }
-            } catch (NumberFormatException e) {
-                return false;
-            }
-        }
-        if (isInteger(data[5].substring(1))) {
-            try {
-                int x = Integer.parseInt(data[5].substring(1));
-                if (x < 0 || x >= Mapa.getVelicina()) {
-                    return false;
-                }
-            } catch (NumberFormatException e) {
-                return false;
-            }
-        }
-        if (isInteger(data[6].substring(0, data[6].length()-1))) {
-            try {
-                int x = Integer.parseInt(data[6].substring(0, data[6].length() - 1));
-                if (x < 0 || x >= Mapa.getVelicina()) {
-                    return false;
-                }
-            } catch (NumberFormatException e) {
-                return false;
-            }
-        }
-        if (!data[3].startsWith("\"") || !data[4].endsWith("\"") || !data[5].startsWith("\"") || !data[6].endsWith("\"") ||
-                !isInteger(data[7]) || !isDaNe(data[8]) || !isDaNe(data[9])) {
-            return false;
-        }
-        return true;
-    }
-
-    /**
-     * Checks if a string represents a valid integer.
-     *
-     * @param s The string to check.
-     * @return {@code true} if the string represents a valid integer; {@code false} otherwise.
-     */
-    private static boolean isInteger(String s) {
-        try {
-            Integer.parseInt(s);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
-    /**
-     * Checks if a string is either "da" or "ne".
-     *
-     * @param s The string to check.
-     * @return {@code true} if the string is "da" or "ne"; {@code false} otherwise.
-     */
-    private static boolean isDaNe(String s) {
-        return "da".equals(s) || "ne".equals(s);
+        return RegistarVozila.getInstance().getVrsta(iDPrevoznogSredstva);
     }
 
     // Getters i Setters
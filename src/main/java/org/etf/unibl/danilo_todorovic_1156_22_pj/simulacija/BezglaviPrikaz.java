@@ -0,0 +1,20 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+/**
+ * Position display used when the simulation runs without a graphical interface.
+ * All position changes are ignored, so no JavaFX classes are ever loaded.
+ */
+public class BezglaviPrikaz implements PrikazPozicija {
+
+    @Override
+    public void azurirajPoziciju(int x, int y, String vrsta, String id, int baterija) {
+    }
+
+    @Override
+    public void resetujPoziciju(int x, int y, String id) {
+    }
+
+    @Override
+    public void resetujPozicijuNaDefault(int x, int y) {
+    }
+}
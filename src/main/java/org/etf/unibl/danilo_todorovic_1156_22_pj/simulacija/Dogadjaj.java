@@ -0,0 +1,61 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+/**
+ * A single event scheduled on the virtual clock.
+ * Events are ordered by their virtual time; events with the same time keep the order
+ * in which they were scheduled.
+ */
+public class Dogadjaj implements Comparable<Dogadjaj> {
+    private final double vrijeme;         // Virtual time of the event in seconds
+    private final long redniBroj;         // Scheduling order, used to break ties
+    private final VrstaDogadjaja vrsta;   // Type of the event
+    private final Runnable akcija;        // Action executed when the event occurs
+
+    /**
+     * Constructs a Dogadjaj object.
+     *
+     * @param vrijeme Virtual time of the event in seconds.
+     * @param redniBroj Scheduling order of the event.
+     * @param vrsta Type of the event.
+     * @param akcija Action executed when the event occurs.
+     */
+    public Dogadjaj(double vrijeme, long redniBroj, VrstaDogadjaja vrsta, Runnable akcija) {
+        this.vrijeme = vrijeme;
+        this.redniBroj = redniBroj;
+        this.vrsta = vrsta;
+        this.akcija = akcija;
+    }
+
+    @Override
+    public int compareTo(Dogadjaj drugi) {
+        int poredjenje = Double.compare(vrijeme, drugi.vrijeme);
+        return poredjenje != 0 ? poredjenje : Long.compare(redniBroj, drugi.redniBroj);
+    }
+
+    /**
+     * Gets the virtual time of the event.
+     *
+     * @return The virtual time in seconds.
+     */
+    public double getVrijeme() {
+        return vrijeme;
+    }
+
+    /**
+     * Gets the type of the event.
+     *
+     * @return The type of the event.
+     */
+    public VrstaDogadjaja getVrsta() {
+        return vrsta;
+    }
+
+    /**
+     * Gets the action executed when the event occurs.
+     *
+     * @return The action of the event.
+     */
+    public Runnable getAkcija() {
+        return akcija;
+    }
+}
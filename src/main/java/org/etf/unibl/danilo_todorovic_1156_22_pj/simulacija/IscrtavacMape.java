@@ -0,0 +1,56 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+/**
+ * Draws the vehicles of the map.
+ * {@link OsvjezavanjeMape} calls the methods on the JavaFX application thread, once per frame for every
+ * tile or vehicle that changed since the previous frame, and then calls {@link #zavrsiSliku()}.
+ */
+public interface IscrtavacMape {
+
+    /**
+     * Removes all vehicles from a tile.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     */
+    void ocistiPolje(int x, int y);
+
+    /**
+     * Shows a vehicle on its tile, moving it if it is shown elsewhere.
+     *
+     * @param promjena The latest state of the vehicle.
+     */
+    void prikaziVozilo(PromjenaVozila promjena);
+
+    /**
+     * Removes a vehicle from the map if it is shown.
+     *
+     * @param id The ID of the vehicle.
+     */
+    void sakrijVozilo(String id);
+
+    /**
+     * Called after all changes of a frame are applied.
+     */
+    default void zavrsiSliku() {
+    }
+
+    /**
+     * Returns the color associated with a vehicle type.
+     *
+     * @param vrsta The type of vehicle.
+     * @return The color associated with the vehicle type.
+     */
+    static String getBojaVrste(String vrsta) {
+        switch (vrsta) {
+            case "automobil":
+                return "red";
+            case "bicikl":
+                return "green";
+            case "trotinet":
+                return "blue";
+            default:
+                return "white"; // Default color
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Metrike;
+
+/**
+ * Draws vehicles as labels in the HBox cells of a GridPane.
+ * Labels of removed vehicles are kept in a pool and reused for the next vehicles shown.
+ */
+public class IscrtavacMreze implements IscrtavacMape {
+    private final GridPane gridPane;                            // GridPane whose cells hold the labels
+    private final Mapa mapa = Mapa.getInstance();               // Map indexing the cells of the GridPane
+    private final HashMap<String, Label> oznake = new HashMap<>(); // Label shown for each vehicle ID
+    private final ArrayDeque<Label> bazen = new ArrayDeque<>(); // Labels not shown at the moment
+    private final HashMap<String, String> stilovi = new HashMap<>(); // Label style per vehicle type
+    private volatile int brojOznaka;                            // Number of labels created
+
+    /**
+     * Constructs an IscrtavacMreze for the given GridPane.
+     *
+     * @param gridPane GridPane with one HBox cell per map tile.
+     */
+    public IscrtavacMreze(GridPane gridPane) {
+        this.gridPane = gridPane;
+        Metrike.getInstance().mjerac("mapa.oznake", this::getBrojOznaka);
+    }
+
+    @Override
+    public void ocistiPolje(int x, int y) {
+        HBox polje = mapa.getNodeByRowColumnIndex(x, y, gridPane);
+        if (polje == null) {
+            return;
+        }
+        for (Node node : polje.getChildren()) {
+            if (node instanceof Label) {
+                Label label = (Label) node;
+                oznake.remove((String) label.getUserData(), label);
+                bazen.push(label);
+            }
+        }
+        polje.getChildren().clear();
+    }
+
+    @Override
+    public void prikaziVozilo(PromjenaVozila promjena) {
+        HBox polje = mapa.getNodeByRowColumnIndex(promjena.getX(), promjena.getY(), gridPane);
+        if (polje == null) {
+            sakrijVozilo(promjena.getId());
+            return;
+        }
+        Label label = oznake.get(promjena.getId());
+        if (label == null) {
+            label = bazen.poll();
+            if (label == null) {
+                label = new Label();
+                label.setPadding(new Insets(3));
+                brojOznaka++;
+            }
+            label.setUserData(promjena.getId());
+            oznake.put(promjena.getId(), label);
+        }
+        label.setText(promjena.getId() + "\n" + promjena.getBaterija() + "%");
+        label.setStyle(stilovi.computeIfAbsent(promjena.getVrsta(), vrsta -> "-fx-font-size: 8px; -fx-text-fill: white; -fx-font-weight: 600;"
+                + "-fx-background-color: " + IscrtavacMape.getBojaVrste(vrsta) + ";" + "-fx-background-radius: 5;"));
+        if (label.getParent() != polje) {
+            if (label.getParent() instanceof Pane) {
+                ((Pane) label.getParent()).getChildren().remove(label);
+            }
+            polje.getChildren().add(label);
+        }
+    }
+
+    @Override
+    public void sakrijVozilo(String id) {
+        Label label = oznake.remove(id);
+        if (label != null) {
+            if (label.getParent() instanceof Pane) {
+                ((Pane) label.getParent()).getChildren().remove(label);
+            }
+            bazen.push(label);
+        }
+    }
+
+    /**
+     * Returns the number of labels created, shown or pooled.
+     *
+     * @return The number of labels created.
+     */
+    public int getBrojOznaka() {
+        return brojOznaka;
+    }
+}
@@ -0,0 +1,173 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Metrike;
+
+/**
+ * Draws the whole map and all vehicles onto a single Canvas.
+ * Only the tiles changed in a frame are repainted, so the cost of a frame depends on the number of changes
+ * and not on the size of the map or the fleet. Only tiles holding vehicles keep a set of vehicle IDs.
+ */
+public class IscrtavacPlatna implements IscrtavacMape {
+    private static final double SIRINA_OZNAKE = 30;  // Width of a vehicle label in pixels
+    private static final double VISINA_OZNAKE = 22;  // Height of a vehicle label in pixels
+    private static final double RAZMAK = 1;          // Space between vehicle labels in pixels
+    private static final Font FONT = Font.font(null, FontWeight.SEMI_BOLD, 8); // Font of the vehicle labels
+
+    private final GraphicsContext gc;                // Graphics context of the canvas
+    private final int velicina;                      // Number of tiles along each side of the map
+    private final double sirinaPolja;                // Width of a tile in pixels
+    private final double visinaPolja;                // Height of a tile in pixels
+    private final HashMap<String, PromjenaVozila> vozila = new HashMap<>(); // Shown state per vehicle ID
+    private final HashMap<Integer, LinkedHashSet<String>> naPolju = new HashMap<>(); // IDs of the vehicles on each occupied tile, in the order they arrived
+    private final BitSet prljavaPolja = new BitSet(); // Tiles to repaint at the end of the frame
+    private final HashMap<String, Color> boje = new HashMap<>(); // Label color per vehicle type
+    private volatile long iscrtanaPolja;             // Number of tiles repainted
+
+    /**
+     * Constructs an IscrtavacPlatna and draws the empty map.
+     *
+     * @param platno Canvas covering the whole map.
+     * @param velicina Number of tiles along each side of the map.
+     */
+    public IscrtavacPlatna(Canvas platno, int velicina) {
+        this.gc = platno.getGraphicsContext2D();
+        this.velicina = velicina;
+        this.sirinaPolja = platno.getWidth() / velicina;
+        this.visinaPolja = platno.getHeight() / velicina;
+        Metrike.getInstance().mjerac("mapa.iscrtana_polja", this::getIscrtanaPolja);
+
+        gc.setFont(FONT);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.TOP);
+        gc.setLineWidth(1);
+        prljavaPolja.set(0, velicina * velicina);
+        zavrsiSliku();
+    }
+
+    @Override
+    public void ocistiPolje(int x, int y) {
+        int polje = x * velicina + y;
+        LinkedHashSet<String> ids = naPolju.remove(polje);
+        if (ids != null) {
+            for (String id : ids) {
+                vozila.remove(id);
+            }
+        }
+        prljavaPolja.set(polje);
+    }
+
+    @Override
+    public void prikaziVozilo(PromjenaVozila promjena) {
+        int polje = promjena.getX() * velicina + promjena.getY();
+        PromjenaVozila stara = vozila.put(promjena.getId(), promjena);
+        if (stara != null) {
+            int staroPolje = stara.getX() * velicina + stara.getY();
+            if (staroPolje != polje) {
+                ukloniSaPolja(staroPolje, promjena.getId());
+                prljavaPolja.set(staroPolje);
+            }
+        }
+        naPolju.computeIfAbsent(polje, p -> new LinkedHashSet<>()).add(promjena.getId());
+        prljavaPolja.set(polje);
+    }
+
+    @Override
+    public void sakrijVozilo(String id) {
+        PromjenaVozila stara = vozila.remove(id);
+        if (stara != null) {
+            int polje = stara.getX() * velicina + stara.getY();
+            ukloniSaPolja(polje, id);
+            prljavaPolja.set(polje);
+        }
+    }
+
+    /**
+     * Removes a vehicle from a tile, dropping the set of the tile once it is empty.
+     *
+     * @param polje Index of the tile ({@code x * size + y}).
+     * @param id ID of the vehicle.
+     */
+    private void ukloniSaPolja(int polje, String id) {
+        LinkedHashSet<String> ids = naPolju.get(polje);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            naPolju.remove(polje);
+        }
+    }
+
+    /**
+     * Repaints the tiles changed in this frame.
+     */
+    @Override
+    public void zavrsiSliku() {
+        for (int polje = prljavaPolja.nextSetBit(0); polje >= 0; polje = prljavaPolja.nextSetBit(polje + 1)) {
+            iscrtajPolje(polje);
+        }
+        prljavaPolja.clear();
+    }
+
+    /**
+     * Repaints one tile: its background, its border and the labels of its vehicles.
+     * Labels are centered in rows like in a cell of the grid renderer and clipped to the tile.
+     *
+     * @param polje Index of the tile ({@code x * size + y}).
+     */
+    private void iscrtajPolje(int polje) {
+        double lijevo = (polje % velicina) * sirinaPolja;
+        double vrh = (polje / velicina) * visinaPolja;
+        gc.clearRect(lijevo, vrh, sirinaPolja, visinaPolja);
+        gc.setStroke(Color.LIGHTGRAY);
+        gc.strokeRect(lijevo + 0.5, vrh + 0.5, sirinaPolja - 1, visinaPolja - 1);
+
+        LinkedHashSet<String> ids = naPolju.get(polje);
+        if (ids == null) {
+            iscrtanaPolja++;
+            return;
+        }
+        int uRedu = Math.max(1, (int) ((sirinaPolja + RAZMAK) / (SIRINA_OZNAKE + RAZMAK)));
+        int redova = (ids.size() + uRedu - 1) / uRedu;
+        double pocetakY = vrh + Math.max(0, (visinaPolja - redova * (VISINA_OZNAKE + RAZMAK) + RAZMAK) / 2);
+
+        gc.save();
+        gc.beginPath();
+        gc.rect(lijevo, vrh, sirinaPolja, visinaPolja);
+        gc.clip();
+        int i = 0;
+        for (String id : ids) {
+            PromjenaVozila vozilo = vozila.get(id);
+            int red = i / uRedu;
+            int uOvomRedu = Math.min(uRedu, ids.size() - red * uRedu);
+            double pocetakX = lijevo + (sirinaPolja - uOvomRedu * (SIRINA_OZNAKE + RAZMAK) + RAZMAK) / 2;
+            double ox = pocetakX + (i % uRedu) * (SIRINA_OZNAKE + RAZMAK);
+            double oy = pocetakY + red * (VISINA_OZNAKE + RAZMAK);
+
+            gc.setFill(boje.computeIfAbsent(vozilo.getVrsta(), vrsta -> Color.web(IscrtavacMape.getBojaVrste(vrsta))));
+            gc.fillRoundRect(ox, oy, SIRINA_OZNAKE, VISINA_OZNAKE, 10, 10);
+            gc.setFill(Color.WHITE);
+            gc.fillText(id, ox + SIRINA_OZNAKE / 2, oy + 2);
+            gc.fillText(vozilo.getBaterija() + "%", ox + SIRINA_OZNAKE / 2, oy + 11);
+            i++;
+        }
+        gc.restore();
+        iscrtanaPolja++;
+    }
+
+    /**
+     * Returns the number of tiles repainted so far.
+     *
+     * @return The number of repainted tiles.
+     */
+    public long getIscrtanaPolja() {
+        return iscrtanaPolja;
+    }
+}
@@ -0,0 +1,249 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Metrike;
+
+/**
+ * Executes simulation tasks on a configurable executor and records how long tasks wait and run.
+ *
+ * The executor is selected with the {@code EXECUTOR} property: {@code FIXED} for a bounded pool of
+ * platform threads, {@code WORK_STEALING} for a fork/join pool, or {@code VIRTUAL} for one virtual
+ * thread per task where the JDK supports it. {@code EXECUTOR_POOL_SIZE} sets the number of threads
+ * of the first two; 0 uses one thread per available processor.
+ *
+ * A task that throws is reported and counted, and never stops the other tasks of its batch,
+ * whether the batch runs on the calling thread or on the executor.
+ */
+public class IzvrsilacZadataka implements AutoCloseable {
+    private final ExecutorService izvrsilac; // Executor running the tasks
+    private final String opis;               // Human readable description of the executor
+
+    private final LongAdder brojZadataka = new LongAdder();          // Number of executed tasks
+    private final LongAdder brojNeuspjelih = new LongAdder();        // Number of tasks that threw an exception
+    private final LongAdder ukupnoCekanjeNano = new LongAdder();     // Total time tasks waited in the queue
+    private final LongAdder ukupnoIzvrsavanjeNano = new LongAdder(); // Total time tasks were running
+    private final AtomicLong maksCekanjeNano = new AtomicLong();     // Longest time a task waited in the queue
+    private final AtomicLong maksIzvrsavanjeNano = new AtomicLong(); // Longest time a task was running
+    private final Metrike.Histogram cekanjeZadataka = Metrike.getInstance().histogram("izvrsilac.cekanje");         // Queue wait per task
+    private final Metrike.Histogram izvrsavanjeZadataka = Metrike.getInstance().histogram("izvrsilac.izvrsavanje"); // Run time per task
+
+    /**
+     * Constructs an IzvrsilacZadataka object.
+     *
+     * @param izvrsilac Executor running the tasks.
+     * @param opis Human readable description of the executor.
+     */
+    private IzvrsilacZadataka(ExecutorService izvrsilac, String opis) {
+        this.izvrsilac = izvrsilac;
+        this.opis = opis;
+    }
+
+    /**
+     * Creates an executor as configured by the {@code EXECUTOR} and {@code EXECUTOR_POOL_SIZE} properties.
+     *
+     * @param appProps The application properties.
+     * @return The configured executor.
+     */
+    public static IzvrsilacZadataka izKonfiguracije(Properties appProps) {
+        String vrsta = appProps.getProperty("EXECUTOR", "FIXED").trim().toUpperCase();
+        int velicina = Integer.parseInt(appProps.getProperty("EXECUTOR_POOL_SIZE", "0").trim());
+        if (velicina <= 0) {
+            velicina = Runtime.getRuntime().availableProcessors();
+        }
+
+        switch (vrsta) {
+            case "WORK_STEALING":
+                return new IzvrsilacZadataka(new ForkJoinPool(velicina), "WORK_STEALING(" + velicina + ")");
+            case "VIRTUAL":
+                ExecutorService virtuelni = virtuelneNiti();
+                if (virtuelni != null) {
+                    return new IzvrsilacZadataka(virtuelni, "VIRTUAL");
+                }
+                System.out.println("Virtuelne niti nisu podrzane, koristi se FIXED(" + velicina + ")");
+                return fiksni(velicina);
+            case "FIXED":
+                return fiksni(velicina);
+            default:
+                throw new IllegalArgumentException("Nepoznata vrsta izvrsioca: " + vrsta);
+        }
+    }
+
+    /**
+     * Creates a bounded pool of daemon platform threads.
+     *
+     * @param velicina Number of threads in the pool.
+     * @return The executor.
+     */
+    private static IzvrsilacZadataka fiksni(int velicina) {
+        AtomicInteger brojac = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(velicina, r -> {
+            Thread thread = new Thread(r, "simulacija-" + brojac.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new IzvrsilacZadataka(pool, "FIXED(" + velicina + ")");
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor if the running JDK provides one.
+     *
+     * @return The executor, or {@code null} if virtual threads are not supported.
+     */
+    private static ExecutorService virtuelneNiti() {
+        try {
+            Method metoda = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) metoda.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Executes all tasks and waits until every one of them has finished.
+     * A single task is run directly on the calling thread.
+     *
+     * If the calling thread is interrupted while waiting, it still waits for the running tasks
+     * and then returns with its interrupt status set.
+     *
+     * @param zadaci The tasks to execute.
+     */
+    public void izvrsiSve(List<Runnable> zadaci) {
+        if (zadaci.size() == 1) {
+            izmjeri(zadaci.get(0), System.nanoTime());
+            return;
+        }
+
+        List<Future<?>> rezultati = new ArrayList<>(zadaci.size());
+        for (Runnable zadatak : zadaci) {
+            long predato = System.nanoTime();
+            rezultati.add(izvrsilac.submit(() -> izmjeri(zadatak, predato)));
+        }
+        boolean prekinuto = false;
+        for (Future<?> rezultat : rezultati) {
+            while (true) {
+                try {
+                    rezultat.get();
+                    break;
+                } catch (InterruptedException e) {
+                    prekinuto = true;
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace(); // Not thrown by izmjeri, only by a broken executor
+                    break;
+                }
+            }
+        }
+        if (prekinuto) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a task and records its queue wait and run time. An exception thrown by the task is reported
+     * and counted instead of being passed on, so one failing task never affects the others.
+     *
+     * @param zadatak The task to run.
+     * @param predato The {@link System#nanoTime()} at which the task was submitted.
+     */
+    private void izmjeri(Runnable zadatak, long predato) {
+        long pocetak = System.nanoTime();
+        try {
+            zadatak.run();
+        } catch (RuntimeException e) {
+            brojNeuspjelih.increment();
+            e.printStackTrace();
+        } finally {
+            long cekanje = pocetak - predato;
+            long izvrsavanje = System.nanoTime() - pocetak;
+            brojZadataka.increment();
+            ukupnoCekanjeNano.add(cekanje);
+            ukupnoIzvrsavanjeNano.add(izvrsavanje);
+            maksCekanjeNano.accumulateAndGet(cekanje, Math::max);
+            maksIzvrsavanjeNano.accumulateAndGet(izvrsavanje, Math::max);
+            cekanjeZadataka.zabiljezi(cekanje);
+            izvrsavanjeZadataka.zabiljezi(izvrsavanje);
+        }
+    }
+
+    /**
+     * Shuts the executor down. Tasks already submitted are completed.
+     */
+    @Override
+    public void close() {
+        izvrsilac.shutdown();
+    }
+
+    /**
+     * Gets the description of the executor.
+     *
+     * @return The executor type and size.
+     */
+    public String getOpis() {
+        return opis;
+    }
+
+    /**
+     * Gets the number of executed tasks.
+     *
+     * @return The number of tasks.
+     */
+    public long getBrojZadataka() {
+        return brojZadataka.sum();
+    }
+
+    /**
+     * Gets the number of tasks that threw an exception.
+     *
+     * @return The number of failed tasks.
+     */
+    public long getBrojNeuspjelih() {
+        return brojNeuspjelih.sum();
+    }
+
+    /**
+     * Gets the total time tasks waited in the queue before they started.
+     *
+     * @return The total queue wait in nanoseconds.
+     */
+    public long getUkupnoCekanjeNano() {
+        return ukupnoCekanjeNano.sum();
+    }
+
+    /**
+     * Gets the total time tasks were running.
+     *
+     * @return The total run time in nanoseconds.
+     */
+    public long getUkupnoIzvrsavanjeNano() {
+        return ukupnoIzvrsavanjeNano.sum();
+    }
+
+    /**
+     * Gets the longest time a task waited in the queue.
+     *
+     * @return The longest queue wait in nanoseconds.
+     */
+    public long getMaksCekanjeNano() {
+        return maksCekanjeNano.get();
+    }
+
+    /**
+     * Gets the longest time a task was running.
+     *
+     * @return The longest run time in nanoseconds.
+     */
+    public long getMaksIzvrsavanjeNano() {
+        return maksIzvrsavanjeNano.get();
+    }
+}
@@ -1,42 +1,59 @@
 package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
 
-import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
-import javafx.application.Platform;
-import javafx.geometry.Insets;
+import javafx.collections.ListChangeListener;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
-import javafx.util.Pair;
-import javafx.scene.control.Label;
-import javafx.geometry.Pos;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Metrike;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Utility;
 
 /**
  * Singleton class that represents a map for vehicle placement and management.
+ *
+ * Simulation threads publish position changes without locking: every vehicle keeps only its latest
+ * unrendered state, and every tile only its latest reset. {@link OsvjezavanjeMape} collects them once per
+ * frame and hands them to an {@link IscrtavacMape}, so changes made between two frames are coalesced.
+ *
+ * The vehicle count and the sequence number of every tile share one long that is updated with a single
+ * compare-and-set, so threads only contend when they change the same tile at the same time. Retried
+ * updates and the time spent publishing are counted to show how the update path scales with threads.
  */
-public class Mapa {
-    private static final int VELICINA = 20; // The size of the map grid (20x20)
-    private final HashMap<Pair<Integer, Integer>, Integer> tileVehicleCount; // Map to keep track of vehicle counts per grid tile
+public class Mapa implements PrikazPozicija {
+    private static final int VELICINA = Utility.VELICINA_MAPE; // The size of the map grid (MAP_SIZE x MAP_SIZE)
+    private final AtomicLongArray stanjaPolja = new AtomicLongArray(VELICINA * VELICINA); // Per tile, row by row: sequence number of the last change (high 32 bits) and vehicle count (low 32 bits)
+    private final ConcurrentHashMap<String, AtomicReference<PromjenaVozila>> stanjaVozila = new ConcurrentHashMap<>(); // Uncollected state per vehicle ID, null once collected
+    private final ConcurrentLinkedQueue<AtomicReference<PromjenaVozila>> prljavaVozila = new ConcurrentLinkedQueue<>(); // Vehicles with an uncollected state
+    private final AtomicLongArray ciscenjaPolja = new AtomicLongArray(VELICINA * VELICINA); // Sequence number of the uncollected reset per tile, 0 if none
+    private final ConcurrentLinkedQueue<Integer> prljavaPolja = new ConcurrentLinkedQueue<>(); // Tiles with an uncollected reset
+    private final LongAdder objavljeno = new LongAdder(); // Number of published changes
+    private final LongAdder spojeno = new LongAdder(); // Number of changes replaced before they were collected
+    private final LongAdder odbaceno = new LongAdder(); // Number of changes outside the map
+    private final LongAdder neuspjeliCas = new LongAdder(); // Number of tile updates retried because another thread changed the tile first
+    private final LongAdder vrijemeAzuriranja = new LongAdder(); // Total time spent publishing changes in nanoseconds
+    private final AtomicLong maksAzuriranja = new AtomicLong(); // Longest time spent publishing a change in nanoseconds
+    private final Metrike.Histogram azuriranja = Metrike.getInstance().histogram("mapa.azuriranje"); // Time spent publishing each change
 
     private static Mapa instanca = null; // Singleton instance
     private GridPane gridPane; // GridPane for rendering the map
+    private volatile HBox[][] polja; // Cells of the GridPane by row and column, or null until they are looked up again
+    private final ListChangeListener<javafx.scene.Node> ponistavanjePolja = promjena -> polja = null; // Drops the cells when the grid changes
 
     /**
      * Private constructor to prevent instantiation from outside the class.
      */
     private Mapa() {
-        this.tileVehicleCount = new HashMap<>();
-        inicijalizujMapu();
-    }
-
-    /**
-     * Initializes the map with zero vehicle counts on all tiles.
-     */
-    private void inicijalizujMapu() {
-        for (int i = 0; i < VELICINA; i++) {
-            for (int j = 0; j < VELICINA; j++) {
-                tileVehicleCount.put(new Pair<>(i, j), 0);
-            }
-        }
+        Metrike metrike = Metrike.getInstance();
+        metrike.mjerac("mapa.neuspjeli_cas", neuspjeliCas::sum);
+        metrike.mjerac("mapa.spojeno", spojeno::sum);
+        metrike.mjerac("mapa.odbaceno", odbaceno::sum);
     }
 
     /**
@@ -52,12 +69,21 @@ public class Mapa {
     }
 
     /**
-     * Sets the GridPane for rendering the map.
+     * Sets the GridPane for rendering the map and indexes its cells by row and column.
+     * The index is rebuilt on the next lookup whenever cells are added to or removed from the GridPane.
      *
      * @param gridPane The GridPane to set.
      */
-    public void setGridPane(GridPane gridPane) {
+    public synchronized void setGridPane(GridPane gridPane) {
+        if (this.gridPane != null) {
+            this.gridPane.getChildren().removeListener(ponistavanjePolja);
+        }
         this.gridPane = gridPane;
+        this.polja = null;
+        if (gridPane != null) {
+            gridPane.getChildren().addListener(ponistavanjePolja);
+            this.polja = indeksirajPolja(gridPane);
+        }
     }
 
     /**
@@ -70,92 +96,212 @@ public class Mapa {
     }
 
     /**
-     * Updates the position on the map with a new vehicle label.
+     * Publishes a vehicle shown on a tile.
      *
      * @param x The x-coordinate of the position.
      * @param y The y-coordinate of the position.
      * @param vrsta The type of vehicle.
      * @param id The ID of the vehicle.
      * @param baterija The battery percentage of the vehicle.
-     * @return The Label representing the vehicle, or {@code null} if the position is invalid.
      */
-    public synchronized Label azurirajPoziciju(int x, int y, String vrsta, String id, int baterija) {
+    @Override
+    public void azurirajPoziciju(int x, int y, String vrsta, String id, int baterija) {
+        long pocetak = System.nanoTime();
         if (x >= 0 && x < VELICINA && y >= 0 && y < VELICINA) {
-            if (gridPane != null) {
-                HBox pane = (HBox) getNodeByRowColumnIndex(x, y, gridPane);
-                pane.setAlignment(Pos.CENTER);
-                pane.setSpacing(1);
-                pane.setPadding(new Insets(0));
-
-                Pair<Integer, Integer> tile = new Pair<>(x, y);
-                tileVehicleCount.put(tile, tileVehicleCount.get(tile) + 1);
-
-                Label label = new Label(id + "\n" + baterija + "%");
-                label.setStyle("-fx-font-size: 8px; -fx-text-fill: white; -fx-font-weight: 600;" + "-fx-background-color: " + getColorForChar(vrsta) + ";" +  "-fx-background-radius: 5;");
-                label.setPadding(new Insets(3));
-                Platform.runLater(() -> {
-                    pane.getChildren().add(label);
-                });
-                return label;
-            }
+            objavi(new PromjenaVozila(id, x, y, vrsta, baterija, true, promijeniPolje(indeksPolja(x, y), 1)));
+        } else {
+            odbaceno.increment();
         }
-        return null;
+        zabiljeziAzuriranje(pocetak);
     }
 
     /**
-     * Resets the position on the map by removing the specified label.
+     * Publishes a vehicle removed from a tile.
      *
      * @param x The x-coordinate of the position.
      * @param y The y-coordinate of the position.
-     * @param label The label to remove.
+     * @param id The ID of the vehicle whose label is removed.
      */
-    public synchronized void resetujPoziciju(int x, int y, Label label) {
+    @Override
+    public void resetujPoziciju(int x, int y, String id) {
+        long pocetak = System.nanoTime();
         if (x >= 0 && x < VELICINA && y >= 0 && y < VELICINA) {
-            if (gridPane != null) {
-                HBox pane = (HBox) getNodeByRowColumnIndex(x, y, gridPane);
-                if (pane != null) {
-                    Pair<Integer, Integer> tile = new Pair<>(x, y);
-                    int count = tileVehicleCount.get(tile) - 1;
-                    tileVehicleCount.put(tile, count);
-
-                    if (count == 0) {
-                        Platform.runLater(() -> {
-                            pane.getChildren().clear();
-                        });
-                    } else {
-                        Platform.runLater(() -> {
-                            pane.getChildren().remove(label);
-                        });
-                    }
-                }
-            }
+            objavi(new PromjenaVozila(id, x, y, null, 0, false, promijeniPolje(indeksPolja(x, y), -1)));
+        } else {
+            odbaceno.increment();
         }
+        zabiljeziAzuriranje(pocetak);
     }
 
     /**
-     * Resets the position on the map to its default state by clearing all labels.
+     * Publishes a tile reset to its default state, which removes all vehicles shown on it.
      *
      * @param x The x-coordinate of the position.
      * @param y The y-coordinate of the position.
      */
-    public synchronized void resetujPozicijuNaDefault(int x, int y) {
+    @Override
+    public void resetujPozicijuNaDefault(int x, int y) {
+        long pocetak = System.nanoTime();
         if (x >= 0 && x < VELICINA && y >= 0 && y < VELICINA) {
-            if (gridPane != null) {
-                HBox pane = (HBox) getNodeByRowColumnIndex(x, y, gridPane);
-                if (pane != null) {
-                    Pair<Integer, Integer> tile = new Pair<>(x, y);
-                    int count = tileVehicleCount.get(tile) - 1;
-                    tileVehicleCount.put(tile, count);
-                    Platform.runLater(() -> {
-                        pane.getChildren().clear();
-                    });
-                }
+            int polje = indeksPolja(x, y);
+            long redniBroj = promijeniPolje(polje, -1);
+            objavljeno.increment();
+            long staro;
+            do {
+                staro = ciscenjaPolja.get(polje);
+            } while (staro < redniBroj && !ciscenjaPolja.compareAndSet(polje, staro, redniBroj));
+            if (staro == 0) {
+                prljavaPolja.offer(polje);
+            } else {
+                spojeno.increment();
+            }
+        } else {
+            odbaceno.increment();
+        }
+        zabiljeziAzuriranje(pocetak);
+    }
+
+    /**
+     * Changes the vehicle count of a tile and assigns the change the next sequence number of the tile.
+     * Both are updated with one compare-and-set, which is retried if another thread changed the tile first.
+     *
+     * @param polje The index of the tile.
+     * @param razlika The change of the vehicle count.
+     * @return The sequence number of the change within the tile.
+     */
+    private long promijeniPolje(int polje, int razlika) {
+        while (true) {
+            long staro = stanjaPolja.get(polje);
+            long redniBroj = (staro >>> 32) + 1;
+            long novo = (redniBroj << 32) | (((int) staro + razlika) & 0xFFFFFFFFL);
+            if (stanjaPolja.compareAndSet(polje, staro, novo)) {
+                return redniBroj;
+            }
+            neuspjeliCas.increment();
+        }
+    }
+
+    /**
+     * Adds the time since the start of an update to the update time statistics.
+     *
+     * @param pocetak The {@link System#nanoTime()} at the start of the update.
+     */
+    private void zabiljeziAzuriranje(long pocetak) {
+        long trajanje = System.nanoTime() - pocetak;
+        vrijemeAzuriranja.add(trajanje);
+        azuriranja.zabiljezi(trajanje);
+        if (trajanje > maksAzuriranja.get()) {
+            maksAzuriranja.accumulateAndGet(trajanje, Math::max);
+        }
+    }
+
+    /**
+     * Makes a change the latest state of its vehicle.
+     * A change that is not collected yet is replaced and counted as coalesced.
+     *
+     * @param promjena The change to publish.
+     */
+    private void objavi(PromjenaVozila promjena) {
+        objavljeno.increment();
+        AtomicReference<PromjenaVozila> stanje = stanjaVozila.get(promjena.getId());
+        if (stanje == null) {
+            stanje = stanjaVozila.computeIfAbsent(promjena.getId(), id -> new AtomicReference<>());
+        }
+        if (stanje.getAndSet(promjena) == null) {
+            prljavaVozila.offer(stanje);
+        } else {
+            spojeno.increment();
+        }
+    }
+
+    /**
+     * Collects the changes published since the previous call.
+     * Every changed vehicle is collected with its latest state only, and every reset tile with the
+     * sequence number of its latest reset. Changes published while collecting may be left for the next call.
+     *
+     * @param vozila Receives the latest state of every changed vehicle.
+     * @param polja Receives the index of every reset tile ({@code x * size + y}) with the sequence number of its latest reset.
+     */
+    public void preuzmiPromjene(List<PromjenaVozila> vozila, Map<Integer, Long> polja) {
+        for (int i = VELICINA * VELICINA; i > 0; i--) {
+            Integer polje = prljavaPolja.poll();
+            if (polje == null) {
+                break;
+            }
+            long ciscenje = ciscenjaPolja.getAndSet(polje, 0);
+            if (ciscenje != 0) {
+                polja.put(polje, ciscenje);
+            }
+        }
+        for (int i = stanjaVozila.size(); i > 0; i--) {
+            AtomicReference<PromjenaVozila> stanje = prljavaVozila.poll();
+            if (stanje == null) {
+                break;
+            }
+            PromjenaVozila promjena = stanje.getAndSet(null);
+            if (promjena != null) {
+                vozila.add(promjena);
             }
         }
     }
 
+    /**
+     * Returns the number of changes published to the map.
+     *
+     * @return The number of published changes.
+     */
+    public long getObjavljeno() {
+        return objavljeno.sum();
+    }
+
+    /**
+     * Returns the number of changes replaced by a later change of the same vehicle or tile before they were collected.
+     *
+     * @return The number of coalesced changes.
+     */
+    public long getSpojeno() {
+        return spojeno.sum();
+    }
+
+    /**
+     * Returns the number of changes dropped because they were outside the map.
+     *
+     * @return The number of dropped changes.
+     */
+    public long getOdbaceno() {
+        return odbaceno.sum();
+    }
+
+    /**
+     * Returns the number of tile updates that had to be retried because another thread changed the same tile first.
+     *
+     * @return The number of failed compare-and-set attempts.
+     */
+    public long getNeuspjeliCas() {
+        return neuspjeliCas.sum();
+    }
+
+    /**
+     * Returns the total time spent publishing changes, including dropped ones.
+     *
+     * @return The total update time in nanoseconds.
+     */
+    public long getUkupnoAzuriranjeNano() {
+        return vrijemeAzuriranja.sum();
+    }
+
+    /**
+     * Returns the longest time spent publishing a single change.
+     *
+     * @return The longest update time in nanoseconds.
+     */
+    public long getMaksAzuriranjeNano() {
+        return maksAzuriranja.get();
+    }
+
     /**
      * Retrieves the node at the specified row and column index in the GridPane.
+     * Cells of the map's own GridPane are found in constant time.
      *
      * @param row The row index.
      * @param column The column index.
@@ -163,40 +309,67 @@ public class Mapa {
      * @return The HBox node at the specified location, or {@code null} if not found.
      */
     public HBox getNodeByRowColumnIndex(final int row, final int column, GridPane gridPane) {
+        if (row < 0 || row >= VELICINA || column < 0 || column >= VELICINA) {
+            return null;
+        }
+        if (gridPane != this.gridPane) {
+            return indeksirajPolja(gridPane)[row][column];
+        }
+        HBox[][] trenutna = polja;
+        if (trenutna == null) {
+            trenutna = indeksirajPolja(gridPane);
+            polja = trenutna;
+        }
+        return trenutna[row][column];
+    }
+
+    /**
+     * Indexes the HBox cells of a GridPane by row and column.
+     *
+     * @param gridPane The GridPane to index.
+     * @return The cells by row and column; tiles without a cell are {@code null}.
+     */
+    private static HBox[][] indeksirajPolja(GridPane gridPane) {
+        HBox[][] indeks = new HBox[VELICINA][VELICINA];
         for (javafx.scene.Node node : gridPane.getChildren()) {
-            if (GridPane.getRowIndex(node) != null && GridPane.getRowIndex(node) == row &&
-                    GridPane.getColumnIndex(node) != null && GridPane.getColumnIndex(node) == column) {
-                return (HBox) node;
+            Integer row = GridPane.getRowIndex(node);
+            Integer column = GridPane.getColumnIndex(node);
+            if (node instanceof HBox && row != null && column != null && row >= 0 && row < VELICINA && column >= 0 && column < VELICINA
+                    && indeks[row][column] == null) {
+                indeks[row][column] = (HBox) node;
             }
         }
-        return null;
+        return indeks;
     }
 
     /**
-     * Returns the size of the map grid.
+     * Returns the number of vehicles on a tile.
      *
-     * @return The size of the map grid.
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     * @return The number of vehicles on the tile.
      */
-    public static int getVelicina() {
-        return VELICINA;
+    public int getBrojVozila(int x, int y) {
+        return (int) stanjaPolja.get(indeksPolja(x, y));
     }
 
     /**
-     * Returns the color associated with a vehicle type.
+     * Returns the position of a tile in the vehicle count array.
      *
-     * @param vrsta The type of vehicle.
-     * @return The color associated with the vehicle type.
-     */
-    private String getColorForChar(String vrsta) {
-        switch (vrsta) {
-            case "automobil":
-                return "red";
-            case "bicikl":
-                return "green";
-            case "trotinet":
-                return "blue";
-            default:
-                return "white"; // Default color
-        }
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     * @return The index of the tile.
+     */
+    private static int indeksPolja(int x, int y) {
+        return x * VELICINA + y;
+    }
+
+    /**
+     * Returns the size of the map grid.
+     *
+     * @return The size of the map grid.
+     */
+    public static int getVelicina() {
+        return VELICINA;
     }
 }
@@ -0,0 +1,87 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+
+/**
+ * Applies the changes published to the {@link Mapa} once per JavaFX pulse.
+ *
+ * Tile resets are applied first. A vehicle is then shown on its latest tile only if its state was published
+ * after the latest reset of that tile (sequence numbers are counted per tile), otherwise it is removed, so the result does not depend on how the
+ * changes of a frame are ordered. The counts of published, coalesced and dropped changes are written to a label.
+ */
+public class OsvjezavanjeMape extends AnimationTimer {
+    private static final long PERIOD_STATISTIKE = 250_000_000L; // Nanoseconds between updates of the statistics label
+
+    private final Mapa mapa;                      // Map the changes are collected from
+    private final IscrtavacMape iscrtavac;        // Renderer the changes are applied to
+    private final Label statistika;               // Label showing the update counts, or null
+    private final ArrayList<PromjenaVozila> vozila = new ArrayList<>(); // Vehicle changes of the current frame
+    private final HashMap<Integer, Long> polja = new HashMap<>(); // Tile resets of the current frame
+    private long brojSlika;                       // Number of frames that applied changes
+    private long primijenjeno;                    // Number of vehicle changes applied
+    private long zastarjelo;                      // Number of vehicle placements dropped because their tile was reset later
+    private long posljednjaStatistika;            // Time of the last statistics update
+
+    /**
+     * Constructs an OsvjezavanjeMape.
+     *
+     * @param mapa Map the changes are collected from.
+     * @param iscrtavac Renderer the changes are applied to.
+     * @param statistika Label showing the update counts, or {@code null}.
+     */
+    public OsvjezavanjeMape(Mapa mapa, IscrtavacMape iscrtavac, Label statistika) {
+        this.mapa = mapa;
+        this.iscrtavac = iscrtavac;
+        this.statistika = statistika;
+    }
+
+    @Override
+    public void handle(long sada) {
+        mapa.preuzmiPromjene(vozila, polja);
+        if (!vozila.isEmpty() || !polja.isEmpty()) {
+            int velicina = Mapa.getVelicina();
+            for (Integer polje : polja.keySet()) {
+                iscrtavac.ocistiPolje(polje / velicina, polje % velicina);
+            }
+            for (PromjenaVozila promjena : vozila) {
+                Long ciscenje = polja.get(promjena.getX() * velicina + promjena.getY());
+                if (promjena.isPrikazano() && (ciscenje == null || ciscenje < promjena.getRedniBroj())) {
+                    iscrtavac.prikaziVozilo(promjena);
+                } else {
+                    iscrtavac.sakrijVozilo(promjena.getId());
+                    if (promjena.isPrikazano()) {
+                        zastarjelo++;
+                    }
+                }
+            }
+            iscrtavac.zavrsiSliku();
+            primijenjeno += vozila.size();
+            brojSlika++;
+            vozila.clear();
+            polja.clear();
+        }
+        if (statistika != null && sada - posljednjaStatistika >= PERIOD_STATISTIKE) {
+            statistika.setText(getOpis());
+            posljednjaStatistika = sada;
+        }
+    }
+
+    /**
+     * Describes the update counts of the map.
+     *
+     * @return The description of the update counts.
+     */
+    public String getOpis() {
+        return "Promjene: objavljeno " + mapa.getObjavljeno()
+                + ", spojeno " + mapa.getSpojeno()
+                + ", odbaceno " + (mapa.getOdbaceno() + zastarjelo)
+                + ", primijenjeno " + primijenjeno
+                + ", slika " + brojSlika
+                + " | azuriranje(prosj/maks) " + mapa.getUkupnoAzuriranjeNano() / Math.max(1, mapa.getObjavljeno() + mapa.getOdbaceno())
+                + "/" + mapa.getMaksAzuriranjeNano() + " ns, ponovljenih CAS " + mapa.getNeuspjeliCas();
+    }
+}
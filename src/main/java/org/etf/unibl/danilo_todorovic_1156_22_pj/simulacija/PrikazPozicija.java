@@ -0,0 +1,37 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+/**
+ * Receives vehicle position changes produced by the rental simulation.
+ * Implementations decide how (and whether) the positions are displayed, so the
+ * simulation itself does not depend on any user interface classes.
+ */
+public interface PrikazPozicija {
+
+    /**
+     * Places a vehicle on the given tile.
+     *
+     * @param x The x-coordinate of the position.
+     * @param y The y-coordinate of the position.
+     * @param vrsta The type of vehicle.
+     * @param id The ID of the vehicle.
+     * @param baterija The battery percentage of the vehicle.
+     */
+    void azurirajPoziciju(int x, int y, String vrsta, String id, int baterija);
+
+    /**
+     * Removes a vehicle from the given tile.
+     *
+     * @param x The x-coordinate of the position.
+     * @param y The y-coordinate of the position.
+     * @param id The ID of the vehicle.
+     */
+    void resetujPoziciju(int x, int y, String id);
+
+    /**
+     * Resets the given tile to its default, empty state.
+     *
+     * @param x The x-coordinate of the position.
+     * @param y The y-coordinate of the position.
+     */
+    void resetujPozicijuNaDefault(int x, int y);
+}
@@ -0,0 +1,99 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+/**
+ * The latest published map state of one vehicle.
+ * Instances are immutable, so they can be handed from simulation threads to the renderer without locking.
+ */
+public class PromjenaVozila {
+    private final String id;        // ID of the vehicle
+    private final int x;            // The x-coordinate of the tile
+    private final int y;            // The y-coordinate of the tile
+    private final String vrsta;     // The type of vehicle
+    private final int baterija;     // The battery percentage of the vehicle
+    private final boolean prikazano; // Whether the vehicle is shown on the tile or removed from the map
+    private final long redniBroj;   // Order of the change among the changes of its tile
+
+    /**
+     * Constructs a PromjenaVozila.
+     *
+     * @param id ID of the vehicle.
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     * @param vrsta The type of vehicle, or {@code null} if the vehicle is removed.
+     * @param baterija The battery percentage of the vehicle.
+     * @param prikazano Whether the vehicle is shown on the tile.
+     * @param redniBroj Order of the change among the changes of its tile.
+     */
+    PromjenaVozila(String id, int x, int y, String vrsta, int baterija, boolean prikazano, long redniBroj) {
+        this.id = id;
+        this.x = x;
+        this.y = y;
+        this.vrsta = vrsta;
+        this.baterija = baterija;
+        this.prikazano = prikazano;
+        this.redniBroj = redniBroj;
+    }
+
+    /**
+     * Returns the ID of the vehicle.
+     *
+     * @return The vehicle ID.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the x-coordinate of the tile.
+     *
+     * @return The x-coordinate.
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Returns the y-coordinate of the tile.
+     *
+     * @return The y-coordinate.
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Returns the type of vehicle.
+     *
+     * @return The type of vehicle, or {@code null} if the vehicle is removed.
+     */
+    public String getVrsta() {
+        return vrsta;
+    }
+
+    /**
+     * Returns the battery percentage of the vehicle.
+     *
+     * @return The battery percentage.
+     */
+    public int getBaterija() {
+        return baterija;
+    }
+
+    /**
+     * Returns whether the vehicle is shown on the tile or removed from the map.
+     *
+     * @return {@code true} if the vehicle is shown.
+     */
+    public boolean isPrikazano() {
+        return prikazano;
+    }
+
+    /**
+     * Returns the order of the change among the changes of its tile.
+     *
+     * @return The sequence number of the change within its tile.
+     */
+    public long getRedniBroj() {
+        return redniBroj;
+    }
+}
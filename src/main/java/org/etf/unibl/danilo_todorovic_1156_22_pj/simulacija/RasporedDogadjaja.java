@@ -0,0 +1,97 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Discrete-event scheduler that executes events in virtual time order.
+ * Events sharing the same virtual time belong to different vehicles, so they are executed
+ * concurrently on the given {@link IzvrsilacZadataka}.
+ */
+public class RasporedDogadjaja {
+    private final PriorityQueue<Dogadjaj> red = new PriorityQueue<>(); // Pending events ordered by virtual time
+    private final VirtuelniSat sat;              // Virtual clock advanced by the scheduler
+    private final IzvrsilacZadataka izvrsilac;   // Executor running events of the same virtual time
+    private long brojac;                         // Number of events scheduled so far
+
+    /**
+     * Constructs a RasporedDogadjaja object.
+     *
+     * @param sat The virtual clock advanced by the scheduler.
+     * @param izvrsilac The executor running events of the same virtual time.
+     */
+    public RasporedDogadjaja(VirtuelniSat sat, IzvrsilacZadataka izvrsilac) {
+        this.sat = sat;
+        this.izvrsilac = izvrsilac;
+    }
+
+    /**
+     * Schedules an event relative to the current virtual time.
+     *
+     * @param kasnjenje Delay in virtual seconds; negative delays are treated as zero.
+     * @param vrsta Type of the event.
+     * @param akcija Action executed when the event occurs.
+     */
+    public synchronized void zakazi(double kasnjenje, VrstaDogadjaja vrsta, Runnable akcija) {
+        red.add(new Dogadjaj(sat.getVrijeme() + Math.max(0, kasnjenje), brojac++, vrsta, akcija));
+    }
+
+    /**
+     * Executes events until none are left.
+     */
+    public void pokreni() {
+        List<Runnable> akcije;
+        while (!(akcije = sljedeci()).isEmpty()) {
+            izvrsilac.izvrsiSve(akcije);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes all events sharing the earliest virtual time from the queue and advances the clock to that time.
+     *
+     * @return Actions of the removed events, or an empty list if the queue is empty or the thread was interrupted.
+     */
+    private List<Runnable> sljedeci() {
+        List<Runnable> akcije = new ArrayList<>();
+        double vrijeme;
+        synchronized (this) {
+            if (red.isEmpty()) {
+                return akcije;
+            }
+            vrijeme = red.peek().getVrijeme();
+            while (!red.isEmpty() && red.peek().getVrijeme() == vrijeme) {
+                akcije.add(red.poll().getAkcija());
+            }
+        }
+        try {
+            sat.pomjeriNa(vrijeme);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+            akcije.clear();
+        }
+        return akcije;
+    }
+
+    /**
+     * Gets the virtual clock of the scheduler.
+     *
+     * @return The virtual clock.
+     */
+    public VirtuelniSat getSat() {
+        return sat;
+    }
+
+    /**
+     * Returns the number of events waiting for their virtual time.
+     *
+     * @return The number of pending events.
+     */
+    public synchronized int getBrojNaCekanju() {
+        return red.size();
+    }
+}
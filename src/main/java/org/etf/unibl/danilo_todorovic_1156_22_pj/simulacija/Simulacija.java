@@ -1,93 +1,168 @@
 package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
 
+import org.etf.unibl.danilo_todorovic_1156_22_pj.racuni.PisacRacuna;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.*;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.rental.Iznajmljivanje;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.CitacPrevoznihSredstava;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.ParalelniCitacIznajmljivanja;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.util.*;
 
-import java.io.BufferedReader;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.io.*;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
-
-import static java.lang.Thread.sleep;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Singleton class that handles the simulation of vehicle rentals and operations.
  */
 public class Simulacija {
+    private static final int PAUZA_IZMEDJU_TERMINA = 5; // Virtual seconds between two groups of rentals
+    private static final Metrike.Brojac KVAROVI = Metrike.getInstance().brojac("kvarovi"); // Malfunctions recorded
     private static final HashMap<String, PrevoznoSredstvo> vozila = new HashMap<>(); // Map of vehicles identified by their ID
     private static Simulacija instance; // Singleton instance
 
+    private final PrikazPozicija prikaz; // Display receiving vehicle position updates
     private final ArrayList<SimulacijaIznajmljivanja> iznajmljivanja = new ArrayList<>(); // List of rentals
-    private final ArrayList<Kvar> malfunctions = new ArrayList<>(); // List of malfunctions
+    private final HashMap<String, HashSet<LocalDateTime>> zauzetostVozila = new HashMap<>(); // Start times of loaded rentals per vehicle ID
+    private final DnevnikKvarova dnevnikKvarova; // Journal of the malfunctions of all runs, or null if it cannot be opened
     private final String pathIznajmljivanja; // Path to rental data file
     private final String pathPrevoznaSredstva; // Path to vehicle data file
-    private final HashMap<LocalDate, ArrayList<Racun>> racuni = new HashMap<>(); // Map of invoices per date
+    private final AgregatorPoslovanja agregator = new AgregatorPoslovanja(); // Running business totals per day and overall
     private final ArrayList<DnevniRezultatPoslovanja> dnevniRezultati = new ArrayList<>(); // List of daily business results
-    private SumarniRezultatPoslovanja sumarniRezultat; // Summary of business results
+    private final CopyOnWriteArrayList<SlusalacRezultata> slusaociRezultata = new CopyOnWriteArrayList<>(); // Listeners notified of business results
+    private volatile SumarniRezultatPoslovanja sumarniRezultat; // Summary of business results
+    private IzvrsilacZadataka izvrsilac; // Executor of the last simulation run
+    private PisacRacuna pisacRacuna; // Receipt writer of the last simulation run
 
     /**
      * Returns the singleton instance of the Simulacija class.
+     * Vehicle positions are shown on the graphical {@link Mapa}.
      *
      * @return The singleton instance of Simulacija.
      */
     public static synchronized Simulacija getInstance() {
         if (instance == null) {
-            instance = new Simulacija();
+            instance = new Simulacija(Mapa.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the singleton instance of the Simulacija class, creating it with the given
+     * position display if it does not exist yet.
+     *
+     * @param prikaz The display receiving vehicle position updates.
+     * @return The singleton instance of Simulacija.
+     */
+    public static synchronized Simulacija getInstance(PrikazPozicija prikaz) {
+        if (instance == null) {
+            instance = new Simulacija(prikaz);
         }
         return instance;
     }
 
     /**
      * Private constructor to initialize paths and load data.
+     *
+     * @param prikaz The display receiving vehicle position updates.
      */
-    private Simulacija() {
+    private Simulacija(PrikazPozicija prikaz) {
+        this.prikaz = prikaz;
         this.pathIznajmljivanja = Utility.DATA_BASE_PATH + File.separator + "PJ2 - projektni zadatak 2024 - Iznajmljivanja.csv";
         this.pathPrevoznaSredstva = Utility.DATA_BASE_PATH + File.separator + "PJ2 - projektni zadatak 2024 - Prevozna sredstva.csv";
 
+        this.dnevnikKvarova = otvaranjeDnevnikaKvarova();
+
         ucitavanjeVozila();
+        registracijaVozila();
+        pracenjeCjenovnika();
         ucitavanjeIznajmljivanja();
-        iznajmljivanja.sort(Comparator.comparing(s -> s.getIznajmljivanje().getDatumVrijemeIznajmljivanja()));
     }
 
     /**
-     * Loads vehicles from the data file into the vozila map.
+     * Opens the malfunction journal in the folder given by the {@code MALFUNCTION_JOURNAL_PATH} property.
+     *
+     * @return The journal, or {@code null} if it cannot be opened.
      */
-    private void ucitavanjeVozila() {
-        try (BufferedReader br = new BufferedReader(new FileReader(pathPrevoznaSredstva))) {
+    private DnevnikKvarova otvaranjeDnevnikaKvarova() {
+        try {
+            return DnevnikKvarova.izKonfiguracije(Utility.getProperties());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Builds the vehicle registry from the loaded vehicles. If the {@code FLEET_WATCH} property is
+     * enabled, the registry is also reloaded whenever the vehicle data file changes.
+     */
+    private void registracijaVozila() {
+        RegistarVozila registar = RegistarVozila.getInstance();
+        registar.izgradi(vozila);
+        if (Boolean.parseBoolean(Utility.getProperties().getProperty("FLEET_WATCH", "false").trim())) {
+            try {
+                registar.pratiPromjene(Path.of(pathPrevoznaSredstva));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
-            String line = "";
-            br.readLine(); // Skip header line
-            while ((line = br.readLine()) != null) {
-                String[] data = line.split(",");
+    /**
+     * Starts reloading the pricing configuration whenever the properties file changes,
+     * if the {@code PRICING_WATCH} property is enabled.
+     */
+    private void pracenjeCjenovnika() {
+        if (Boolean.parseBoolean(Utility.getProperties().getProperty("PRICING_WATCH", "false").trim())) {
+            try {
+                CjenovnaKonfiguracija.pratiPromjene();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
-                if (!PrevoznoSredstvo.validacijaVozila(data)) {
-                    System.out.println("Prevozno sredstvo nije validno: " + data[0]);
+    /**
+     * Loads vehicles from the data file into the vozila map.
+     */
+    private void ucitavanjeVozila() {
+        Metrike metrike = Metrike.getInstance();
+        DnevnikDogadjaja dogadjaji = DnevnikDogadjaja.getInstance();
+        try (CitacPrevoznihSredstava citac = new CitacPrevoznihSredstava(Path.of(pathPrevoznaSredstva))) {
+            while (citac.sljedeci()) {
+                String id = citac.getId();
+
+                if (!citac.isValidan()) {
+                    metrike.brojac("odbijeno.vozilo.nevalidno").povecaj();
+                    dogadjaji.zabiljezi(KodDogadjaja.VOZILO_NEVALIDNO, id);
                     continue;
                 }
 
-                if (vozila.containsKey(data[0])) {
-                    System.out.println("Prevozno sredstvo vec postoji: " + data[0]);
+                if (vozila.containsKey(id)) {
+                    metrike.brojac("odbijeno.vozilo.duplikat").povecaj();
+                    dogadjaji.zabiljezi(KodDogadjaja.VOZILO_DUPLIKAT, id);
                     continue;
                 }
 
-                if ("automobil".equals(data[8])) {
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d.M.yyyy.");
-                    LocalDate date = LocalDate.parse(data[3], formatter);
-                    vozila.put(data[0], new Automobil(data[0], data[1], data[2], Double.parseDouble(data[4]), 100, date, data[7], 4));
+                String vrsta = citac.getVrsta();
+                if ("automobil".equals(vrsta)) {
+                    vozila.put(id, new Automobil(id, citac.getProizvodjac(), citac.getModel(), citac.getCijenaNabavke(), 100, citac.getDatumNabavke(), citac.getOpis(), 4));
 
-                } else if ("bicikl".equals(data[8])) {
-                    vozila.put(data[0], new ElektricniBicikl(data[0], data[1], data[2], Double.parseDouble(data[4]), 100, Double.parseDouble(data[5])));
+                } else if ("bicikl".equals(vrsta)) {
+                    vozila.put(id, new ElektricniBicikl(id, citac.getProizvodjac(), citac.getModel(), citac.getCijenaNabavke(), 100, citac.getDomet()));
 
-                } else if ("trotinet".equals(data[8])) {
-                    vozila.put(data[0], new ElektricniTrotinet(data[0], data[1], data[2], Double.parseDouble(data[4]), 100, Double.parseDouble(data[6])));
-
-                } else {
-                    System.out.println("Ne postojeca vrsta: " + line);
+                } else if ("trotinet".equals(vrsta)) {
+                    vozila.put(id, new ElektricniTrotinet(id, citac.getProizvodjac(), citac.getModel(), citac.getCijenaNabavke(), 100, citac.getMaksimalnaBrzina()));
                 }
             }
         } catch (IOException e) {
@@ -97,138 +172,279 @@ public class Simulacija {
 
     /**
      * Loads rentals from the data file and processes them.
+     *
+     * The file is validated and parsed in parallel by a {@link ParalelniCitacIznajmljivanja}. Its rows are then
+     * processed in file order, so unknown and busy vehicles are rejected and every tenth rental of a user gets a
+     * discount exactly as if the file was read sequentially. Finally the accepted rentals of all parts are merged
+     * by date and time, keeping rentals with the same date and time in file order.
      */
     private void ucitavanjeIznajmljivanja() {
-        try (BufferedReader br = new BufferedReader(new FileReader(pathIznajmljivanja))) {
-            Mapa mapa = Mapa.getInstance();
-            HashMap<String, Integer> brIznajmljivanja = new HashMap<>();
+        List<ParalelniCitacIznajmljivanja.Dio> dijelovi;
+        try {
+            dijelovi = ParalelniCitacIznajmljivanja.izKonfiguracije(Path.of(pathIznajmljivanja), Utility.getProperties()).procitaj();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
 
-            String line = br.readLine(); // Skip header line
-            while ((line = br.readLine()) != null) {
-                String[] data = line.split(",");
+        List<List<Iznajmljivanje>> prihvaceni = prihvatanjeUFajlRedu(dijelovi, zauzetostVozila);
+        Comparator<Iznajmljivanje> poVremenu = Comparator.comparing(Iznajmljivanje::getDatumVrijemeIznajmljivanja);
+        prihvaceni.parallelStream().forEach(prihvaceniDio -> prihvaceniDio.sort(poVremenu));
+        ArrayList<Iznajmljivanje> spojeno = new ArrayList<>();
+        spajanjePoVremenu(prihvaceni, poVremenu, spojeno);
 
-                if (!Iznajmljivanje.validnoIznajmljivanje(data)) {
-                    System.out.println("Iznajmljivanje nije validno");
-                    continue;
-                }
+        iznajmljivanja.ensureCapacity(iznajmljivanja.size() + spojeno.size());
+        for (Iznajmljivanje iznajmljivanje : spojeno) {
+            iznajmljivanja.add(new SimulacijaIznajmljivanja(iznajmljivanje, prikaz));
+        }
+    }
 
-                if (!vozila.containsKey(data[2])) {
-                    System.out.println("Vozilo ne postoji: " + data[2]);
-                    continue;
-                }
+    /**
+     * Processes the rows of the parts in file order: rentals of unknown vehicles and of vehicles already rented
+     * at the same date and time are rejected, and a user's tenth rental gets a discount. A rental of a busy vehicle
+     * still counts towards the user's rentals, as when the file was read sequentially.
+     *
+     * @param dijelovi The parts of the rental file, in file order.
+     * @param zauzetost Start times of accepted rentals per vehicle ID, updated with the accepted rentals.
+     * @return The accepted rentals of every part, in file order.
+     */
+    static List<List<Iznajmljivanje>> prihvatanjeUFajlRedu(List<ParalelniCitacIznajmljivanja.Dio> dijelovi,
+                                                            HashMap<String, HashSet<LocalDateTime>> zauzetost) {
+        Metrike metrike = Metrike.getInstance();
+        DnevnikDogadjaja dogadjaji = DnevnikDogadjaja.getInstance();
+        HashMap<String, Integer> brIznajmljivanja = new HashMap<>();
+        ArrayList<List<Iznajmljivanje>> prihvaceni = new ArrayList<>();
+        for (ParalelniCitacIznajmljivanja.Dio dio : dijelovi) {
+            metrike.brojac("odbijeno.iznajmljivanje.nevalidno").dodaj(dio.getBrojNevalidnih());
+            for (int i = 0; i < dio.getBrojNevalidnih(); i++) {
+                dogadjaji.zabiljezi(KodDogadjaja.IZNAJMLJIVANJE_NEVALIDNO);
+            }
 
-                if (!brIznajmljivanja.containsKey(data[1])) {
-                    brIznajmljivanja.put(data[1], 1);
-                } else {
-                    brIznajmljivanja.put(data[1], brIznajmljivanja.get(data[1]) + 1);
+            ArrayList<Iznajmljivanje> prihvaceniDio = new ArrayList<>(dio.getIznajmljivanja().size());
+            for (Iznajmljivanje procitano : dio.getIznajmljivanja()) {
+                String id = procitano.getIDPrevoznogSredstva();
+                if (!vozila.containsKey(id)) {
+                    metrike.brojac("odbijeno.iznajmljivanje.nepoznato_vozilo").povecaj();
+                    dogadjaji.zabiljezi(KodDogadjaja.VOZILO_NE_POSTOJI, id);
+                    continue;
                 }
 
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d.M.yyyy HH:mm");
-                LocalDateTime dateTime = LocalDateTime.parse(data[0], formatter);
+                String korisnik = procitano.getImeKorisnika();
+                int brojKorisnika = brIznajmljivanja.merge(korisnik, 1, Integer::sum);
 
-                if (voziloSeKoristi(dateTime, data)) continue;
+                LocalDateTime dateTime = procitano.getDatumVrijemeIznajmljivanja();
 
-                Iznajmljivanje novoIznajmljivanje = new Iznajmljivanje(dateTime, data[1], "123456", "654321", data[2],
-                        Integer.parseInt(data[3].substring(1)), Integer.parseInt(data[4].substring(0, data[4].length() - 1)),
-                        Integer.parseInt(data[5].substring(1)), Integer.parseInt(data[6].substring(0, data[6].length() - 1)),
-                        Integer.parseInt(data[7]), ("da".equals(data[8])), ("da".equals(data[9])), brIznajmljivanja.get(data[1]) == 10);
-
-                if (!racuni.containsKey(dateTime.toLocalDate())) {
-                    racuni.put(dateTime.toLocalDate(), new ArrayList<Racun>());
+                if (!zauzetost.computeIfAbsent(id, k -> new HashSet<>()).add(dateTime)) {
+                    metrike.brojac("odbijeno.iznajmljivanje.vozilo_zauzeto").povecaj();
+                    dogadjaji.zabiljezi(KodDogadjaja.VOZILO_ZAUZETO);
+                    continue;
                 }
-                racuni.get(dateTime.toLocalDate()).add(new Racun(novoIznajmljivanje));
 
-                iznajmljivanja.add(new SimulacijaIznajmljivanja(novoIznajmljivanje, mapa));
+                prihvaceniDio.add(brojKorisnika == 10 ? saPopustom(procitano) : procitano);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            prihvaceni.add(prihvaceniDio);
         }
+        return prihvaceni;
+    }
+
+    /**
+     * Returns a copy of a rental with the discount for a user's tenth rental.
+     *
+     * @param iznajmljivanje The rental.
+     * @return The rental with a discount.
+     */
+    private static Iznajmljivanje saPopustom(Iznajmljivanje iznajmljivanje) {
+        return new Iznajmljivanje(iznajmljivanje.getDatumVrijemeIznajmljivanja(), iznajmljivanje.getImeKorisnika(),
+                iznajmljivanje.getIdentifikacioniDokument(), iznajmljivanje.getBrojVozackeDozvole(), iznajmljivanje.getIDPrevoznogSredstva(),
+                iznajmljivanje.getXPreuzimanja(), iznajmljivanje.getYPreuzimanja(), iznajmljivanje.getXVracanja(), iznajmljivanje.getYVracanja(),
+                iznajmljivanje.getTrajanjeSekunde(), iznajmljivanje.isKvar(), iznajmljivanje.isPromocija(), true);
     }
 
     /**
-     * Checks if a vehicle is already in use at a given date and time.
+     * Merges sorted lists of rentals into one list. Rentals with the same date and time are taken
+     * from the earlier list first, so the result equals a stable sort of the lists concatenated in order.
      *
-     * @param dateTime The date and time to check.
-     * @param data The rental data.
-     * @return {@code true} if the vehicle is in use; {@code false} otherwise.
+     * @param liste The sorted lists, in file order.
+     * @param poVremenu Order of the rentals by date and time.
+     * @param izlaz The list the merged rentals are appended to.
+     * @param <T> Type of the rentals.
      */
-    private boolean voziloSeKoristi(LocalDateTime dateTime, String[] data) {
-        for (SimulacijaIznajmljivanja si : iznajmljivanja) {
-            if (si.equalsByDateTimeId(dateTime, data[2])) {
-                System.out.println("Vozilo se trenutno koristi");
-                return true;
+    static <T> void spajanjePoVremenu(List<? extends List<T>> liste, Comparator<? super T> poVremenu, ArrayList<T> izlaz) {
+        int[] pozicije = new int[liste.size()];
+        PriorityQueue<Integer> red = new PriorityQueue<>((a, b) -> {
+            int poredjenje = poVremenu.compare(liste.get(a).get(pozicije[a]), liste.get(b).get(pozicije[b]));
+            return poredjenje != 0 ? poredjenje : Integer.compare(a, b);
+        });
+        for (int i = 0; i < liste.size(); i++) {
+            if (!liste.get(i).isEmpty()) {
+                red.add(i);
+            }
+        }
+        izlaz.ensureCapacity(izlaz.size() + liste.stream().mapToInt(List::size).sum());
+        while (!red.isEmpty()) {
+            int i = red.poll();
+            izlaz.add(liste.get(i).get(pozicije[i]++));
+            if (pozicije[i] < liste.get(i).size()) {
+                red.add(i);
             }
         }
-        return false;
     }
 
     /**
-     * Starts threads for processing rentals and handles their results.
+     * Runs the rental simulation on a virtual clock using the time scale configured in the properties file.
      */
     public void pokretanjeNiti() {
-        int i = 0;
-        while (i < iznajmljivanja.size()) {
-            ArrayList<Thread> threads = new ArrayList<>();
-
-            LocalDateTime currentDateTime = iznajmljivanja.get(i).getIznajmljivanje().getDatumVrijemeIznajmljivanja();
-
-            while (i < iznajmljivanja.size() && iznajmljivanja.get(i).getIznajmljivanje().getDatumVrijemeIznajmljivanja().equals(currentDateTime)) {
-                if (iznajmljivanja.get(i).getIznajmljivanje().isKvar()) {
-                    evidentiranjeKvara(i);
-                    i++;
-                } else {
-                    Thread thread = iznajmljivanja.get(i);
-                    threads.add(thread);
-                    thread.start();
-                    i++;
-                }
-            }
-
-            for (Thread thread : threads) {
-                try {
-                    thread.join();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
+        pokretanjeNiti(Double.parseDouble(Utility.getProperties().getProperty("TIME_SCALE", "1")));
+    }
 
-            dodavanjeDnevnogRezultata(currentDateTime);
+    /**
+     * Runs the rental simulation on a virtual clock.
+     *
+     * Rentals sharing the same date and time form a group that runs concurrently in virtual time,
+     * with events of the same virtual time executed in parallel on the configured {@link IzvrsilacZadataka}.
+     * Every invoice is added to the running totals as soon as its rental finishes. Once every rental
+     * of a group is returned, the daily result is recorded if it was the last group of the day, and the
+     * next group starts after a pause of {@value #PAUZA_IZMEDJU_TERMINA} virtual seconds.
+     * While the simulation runs, {@link Metrike} snapshots are written to the file given by {@code METRICS_PATH}.
+     *
+     * @param tempo Virtual seconds per wall-clock second, or 0 to run as fast as possible.
+     */
+    public void pokretanjeNiti(double tempo) {
+        Properties appProps = Utility.getProperties();
+        Metrike metrike = Metrike.getInstance();
+        metrike.pokreniSnimanje(appProps);
+        try (IzvrsilacZadataka izvrsilac = IzvrsilacZadataka.izKonfiguracije(appProps);
+             PisacRacuna pisacRacuna = PisacRacuna.izKonfiguracije(appProps)) {
+            this.izvrsilac = izvrsilac;
+            this.pisacRacuna = pisacRacuna;
+            RasporedDogadjaja raspored = new RasporedDogadjaja(new VirtuelniSat(tempo), izvrsilac);
+            metrike.mjerac("racuni.red", pisacRacuna::getDubinaReda);
+            metrike.mjerac("raspored.na_cekanju", raspored::getBrojNaCekanju);
+            raspored.zakazi(0, VrstaDogadjaja.POCETAK_TERMINA, () -> pocetakTermina(raspored, 0, new ArrayList<>()));
+            raspored.pokreni();
+        }
 
+        synchronized (dnevniRezultati) {
+            sumarniRezultat = agregator.getSumarniRezultat();
+            for (SlusalacRezultata slusalac : slusaociRezultata) {
+                slusalac.simulacijaZavrsena(sumarniRezultat);
+            }
+        }
+        if (dnevnikKvarova != null) {
             try {
-                sleep(5000);
-            } catch (InterruptedException e) {
+                dnevnikKvarova.sacuvajIndeks();
+            } catch (IOException e) {
                 e.printStackTrace();
             }
-
-            Mapa mapa = Mapa.getInstance();
-            for (Thread thread : threads) {
-                int x = ((SimulacijaIznajmljivanja)thread).getPrevoznoSredstvo().getX();
-                int y = ((SimulacijaIznajmljivanja)thread).getPrevoznoSredstvo().getY();
-                mapa.resetujPozicijuNaDefault(x, y);
-            }
         }
-        sumarniRezultat = new SumarniRezultatPoslovanja(dnevniRezultati);
+        metrike.zaustaviSnimanje();
+        DnevnikDogadjaja.getInstance().isprazni();
         System.out.println(sumarniRezultat.getUkupniPorez());
     }
 
     /**
-     * Adds daily business results based on invoices.
+     * Clears the positions of the previous group and starts all rentals sharing the date and time
+     * of the rental at the given index.
      *
-     * @param currentDateTime The current date and time.
+     * @param raspored The scheduler driving the simulation.
+     * @param pocetak Index of the first rental of the group.
+     * @param prethodniTermin Rentals of the previous group.
      */
-    private void dodavanjeDnevnogRezultata(LocalDateTime currentDateTime) {
-        LocalDate date = currentDateTime.toLocalDate();
+    private void pocetakTermina(RasporedDogadjaja raspored, int pocetak, List<SimulacijaIznajmljivanja> prethodniTermin) {
+        for (SimulacijaIznajmljivanja si : prethodniTermin) {
+            prikaz.resetujPozicijuNaDefault(si.getPrevoznoSredstvo().getX(), si.getPrevoznoSredstvo().getY());
+        }
+        if (pocetak >= iznajmljivanja.size()) {
+            return;
+        }
+
+        LocalDateTime currentDateTime = iznajmljivanja.get(pocetak).getIznajmljivanje().getDatumVrijemeIznajmljivanja();
+        ArrayList<SimulacijaIznajmljivanja> termin = new ArrayList<>();
+
+        int i = pocetak;
+        while (i < iznajmljivanja.size() && iznajmljivanja.get(i).getIznajmljivanje().getDatumVrijemeIznajmljivanja().equals(currentDateTime)) {
+            if (iznajmljivanja.get(i).getIznajmljivanje().isKvar()) {
+                evidentiranjeKvara(i);
+            } else {
+                termin.add(iznajmljivanja.get(i));
+            }
+            i++;
+        }
+        int sljedeci = i;
 
-        if (dnevniRezultati.isEmpty()) {
-            dnevniRezultati.add(new DnevniRezultatPoslovanja(racuni.get(date), date));
+        Runnable zatvaranje = () -> raspored.zakazi(0, VrstaDogadjaja.ZATVARANJE_DANA, () -> {
+            zatvaranjeDana(currentDateTime.toLocalDate(), sljedeci);
+            raspored.zakazi(PAUZA_IZMEDJU_TERMINA, VrstaDogadjaja.POCETAK_TERMINA, () -> pocetakTermina(raspored, sljedeci, termin));
+        });
 
-        } else if (!date.equals(dnevniRezultati.get(dnevniRezultati.size()-1).getDatum())){
-            dnevniRezultati.add(new DnevniRezultatPoslovanja(racuni.get(date), date));
+        if (termin.isEmpty()) {
+            zatvaranje.run();
+            return;
+        }
+        AtomicInteger preostalo = new AtomicInteger(termin.size());
+        for (SimulacijaIznajmljivanja si : termin) {
+            si.zapocni(raspored, pisacRacuna, racun -> {
+                if (racun != null) {
+                    agregator.dodaj(currentDateTime.toLocalDate(), racun);
+                }
+                if (preostalo.decrementAndGet() == 0) {
+                    zatvaranje.run();
+                }
+            });
         }
     }
 
     /**
-     * Records a malfunction and saves the vehicle state to a file.
+     * Records the daily business results once the last group of rentals of a day has finished
+     * and passes them to the registered {@link SlusalacRezultata listeners}.
+     *
+     * @param datum The date of the group that has finished.
+     * @param sljedeci Index of the first rental of the next group.
+     */
+    private void zatvaranjeDana(LocalDate datum, int sljedeci) {
+        if (sljedeci < iznajmljivanja.size()
+                && iznajmljivanja.get(sljedeci).getIznajmljivanje().getDatumVrijemeIznajmljivanja().toLocalDate().equals(datum)) {
+            return;
+        }
+        synchronized (dnevniRezultati) {
+            DnevniRezultatPoslovanja rezultat = agregator.zatvoriDan(datum);
+            dnevniRezultati.add(rezultat);
+            for (SlusalacRezultata slusalac : slusaociRezultata) {
+                slusalac.danZatvoren(rezultat);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener for business results. The listener first receives the days closed so far and the
+     * summary if the simulation has already finished, then every later result, so no result is missed or repeated.
+     *
+     * @param slusalac The listener to register.
+     */
+    public void dodajSlusaoca(SlusalacRezultata slusalac) {
+        synchronized (dnevniRezultati) {
+            for (DnevniRezultatPoslovanja rezultat : dnevniRezultati) {
+                slusalac.danZatvoren(rezultat);
+            }
+            if (sumarniRezultat != null) {
+                slusalac.simulacijaZavrsena(sumarniRezultat);
+            }
+            slusaociRezultata.add(slusalac);
+        }
+    }
+
+    /**
+     * Removes a registered listener for business results.
+     *
+     * @param slusalac The listener to remove.
+     */
+    public void ukloniSlusaoca(SlusalacRezultata slusalac) {
+        slusaociRezultata.remove(slusalac);
+    }
+
+    /**
+     * Records a malfunction, appends it to the malfunction journal and appends a snapshot of the vehicle
+     * to its snapshot history.
      *
      * @param i The index of the rental with the malfunction.
      */
@@ -236,11 +452,15 @@ public class Simulacija {
         LocalDateTime dateTime = iznajmljivanja.get(i).getIznajmljivanje().getDatumVrijemeIznajmljivanja();
         String id = iznajmljivanja.get(i).getIznajmljivanje().getIDPrevoznogSredstva();
 
-        malfunctions.add(new Kvar(vozila.get(id).getVrsta(), id, dateTime, "Opis kvara"));
-
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(Utility.DATA_BASE_PATH + File.separator + "kvarovi" + File.separator + id + ".ser"))) {
-            out.writeObject(vozila.get(id));
+        Kvar kvar = new Kvar(vozila.get(id).getVrsta(), id, dateTime, "Opis kvara");
+        KVAROVI.povecaj();
+        agregator.dodaj(dateTime.toLocalDate(), new Racun(iznajmljivanja.get(i).getIznajmljivanje()));
 
+        try {
+            if (dnevnikKvarova != null) {
+                dnevnikKvarova.dodaj(kvar);
+            }
+            IstorijaSnimaka.dodaj(Path.of(Utility.DATA_BASE_PATH, "kvarovi"), vozila.get(id), dateTime);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -256,12 +476,12 @@ public class Simulacija {
     }
 
     /**
-     * Returns the list of malfunctions.
+     * Returns the journal of the malfunctions of all runs.
      *
-     * @return The list of malfunctions.
+     * @return The malfunction journal, or {@code null} if it could not be opened.
      */
-    public ArrayList<Kvar> getMalfunctions() {
-        return malfunctions;
+    public DnevnikKvarova getDnevnikKvarova() {
+        return dnevnikKvarova;
     }
 
     /**
@@ -273,6 +493,33 @@ public class Simulacija {
         return sumarniRezultat;
     }
 
+    /**
+     * Returns the executor used by the simulation, including its task wait and run time statistics.
+     *
+     * @return The executor, or {@code null} if the simulation has not been started.
+     */
+    public IzvrsilacZadataka getIzvrsilac() {
+        return izvrsilac;
+    }
+
+    /**
+     * Returns the running business totals, which can be read while the simulation is running.
+     *
+     * @return The business totals aggregator.
+     */
+    public AgregatorPoslovanja getAgregator() {
+        return agregator;
+    }
+
+    /**
+     * Returns the receipt writer of the last simulation run.
+     *
+     * @return The receipt writer, or {@code null} if the simulation has not been run.
+     */
+    public PisacRacuna getPisacRacuna() {
+        return pisacRacuna;
+    }
+
     /**
      * Returns the list of daily business results.
      *
@@ -1,41 +1,134 @@
 package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
 
-import javafx.scene.control.Label;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.racuni.PisacRacuna;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.rental.Iznajmljivanje;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.PrevoznoSredstvo;
 import org.etf.unibl.danilo_todorovic_1156_22_pj.util.*;
 
-import java.io.*;
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.Properties;
+import java.util.function.Consumer;
 import java.time.format.DateTimeFormatter;
 
 /**
  * Class responsible for simulating the rental of a vehicle.
- * Extends the Thread class to handle the simulation in a separate thread.
+ * The rental is driven by events on a {@link RasporedDogadjaja}: the vehicle is picked up,
+ * moves one tile per event and is returned once it reaches its destination.
+ * Rentals started, completed and cancelled, battery recharges and the time of every tile move are recorded in {@link Metrike}.
+ *
+ * If a step of the rental throws, the rental is abandoned and its completion action receives {@code null},
+ * so whoever waits for the rental is still notified.
  */
-public class SimulacijaIznajmljivanja extends Thread {
+public class SimulacijaIznajmljivanja {
+    private static final DateTimeFormatter FORMAT_NAZIVA = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"); // Date format of receipt file names
+    private static final Metrike.Brojac ZAPOCETA = Metrike.getInstance().brojac("iznajmljivanja.zapoceta");   // Rentals picked up
+    private static final Metrike.Brojac ZAVRSENA = Metrike.getInstance().brojac("iznajmljivanja.zavrsena");   // Rentals returned
+    private static final Metrike.Brojac PREKINUTA = Metrike.getInstance().brojac("iznajmljivanja.prekinuta"); // Rentals cancelled for a too small battery
+    private static final Metrike.Brojac NEUSPJELA = Metrike.getInstance().brojac("iznajmljivanja.neuspjela"); // Rentals abandoned after an exception
+    private static final Metrike.Brojac PUNJENJA = Metrike.getInstance().brojac("baterija.punjenja");         // Battery recharges
+    private static final DnevnikDogadjaja DOGADJAJI = DnevnikDogadjaja.getInstance();                       // Diagnostic events
+    private static final Metrike.Histogram POMJERANJE = Metrike.getInstance().histogram("mapa.pomjeranje");   // Time to move a vehicle one tile
     private final Iznajmljivanje iznajmljivanje; // Rental information
-    private final Mapa mapa; // Map for updating vehicle position
+    private final PrikazPozicija mapa; // Display receiving vehicle position updates
     private final PrevoznoSredstvo prevoznoSredstvo; // Vehicle being rented
+    private double timeOnOneTile; // Virtual time spent on one tile
+    private boolean zavrseno; // Whether the completion action was called; steps of one rental never run concurrently
 
     /**
      * Constructs a SimulacijaIznajmljivanja object.
      *
      * @param iznajmljivanje Rental information.
-     * @param mapa Map for updating vehicle position.
+     * @param mapa Display receiving vehicle position updates.
      */
-    public SimulacijaIznajmljivanja(Iznajmljivanje iznajmljivanje, Mapa mapa) {
+    public SimulacijaIznajmljivanja(Iznajmljivanje iznajmljivanje, PrikazPozicija mapa) {
         this.iznajmljivanje = iznajmljivanje;
         this.mapa = mapa;
         HashMap<String, PrevoznoSredstvo> vozila = Simulacija.getVozila();
         this.prevoznoSredstvo = vozila.get(iznajmljivanje.getIDPrevoznogSredstva());
-        setDaemon(true); // Set as a daemon thread
     }
 
-    @Override
-    public void run() {
+    /**
+     * Schedules the rental on the given scheduler, starting at the current virtual time.
+     *
+     * @param raspored The scheduler driving the rental.
+     * @param pisacRacuna Writer receiving the receipt once the vehicle is returned.
+     * @param poZavrsetku Action receiving the invoice once the rental is returned or cancelled.
+     *                    A cancelled rental is still invoiced, but no receipt is written for it.
+     *                    The action is called exactly once, with {@code null} if the rental failed.
+     */
+    public void zapocni(RasporedDogadjaja raspored, PisacRacuna pisacRacuna, Consumer<Racun> poZavrsetku) {
+        zavrseno = false;
+        raspored.zakazi(0, VrstaDogadjaja.PREUZIMANJE, korak(poZavrsetku, () -> {
+            if (preuzmi()) {
+                ZAPOCETA.povecaj();
+                zakaziSljedeciKorak(raspored, pisacRacuna, poZavrsetku);
+            } else {
+                PREKINUTA.povecaj();
+                zavrsi(poZavrsetku, new Racun(iznajmljivanje));
+            }
+        }));
+    }
+
+    /**
+     * Schedules either the next tile move or, at the destination, the return of the vehicle.
+     *
+     * @param raspored The scheduler driving the rental.
+     * @param pisacRacuna Writer receiving the receipt once the vehicle is returned.
+     * @param poZavrsetku Action receiving the invoice once the rental is returned.
+     */
+    private void zakaziSljedeciKorak(RasporedDogadjaja raspored, PisacRacuna pisacRacuna, Consumer<Racun> poZavrsetku) {
+        if (naOdredistu()) {
+            raspored.zakazi(0, VrstaDogadjaja.VRACANJE, korak(poZavrsetku, () -> {
+                Racun racun = generisiFajlRacuna(pisacRacuna);
+                ZAVRSENA.povecaj();
+                zavrsi(poZavrsetku, racun);
+            }));
+        } else {
+            raspored.zakazi(timeOnOneTile, VrstaDogadjaja.POMJERANJE, korak(poZavrsetku, () -> {
+                pomjeri();
+                zakaziSljedeciKorak(raspored, pisacRacuna, poZavrsetku);
+            }));
+        }
+    }
+
+    /**
+     * Wraps a step of the rental so that an exception abandons the rental instead of losing its completion.
+     *
+     * @param poZavrsetku Action receiving the invoice once the rental is finished.
+     * @param akcija The step.
+     * @return The wrapped step.
+     */
+    private Runnable korak(Consumer<Racun> poZavrsetku, Runnable akcija) {
+        return () -> {
+            try {
+                akcija.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                NEUSPJELA.povecaj();
+                if (!zavrseno) {
+                    zavrsi(poZavrsetku, null);
+                }
+            }
+        };
+    }
+
+    /**
+     * Calls the completion action of the rental.
+     *
+     * @param poZavrsetku Action receiving the invoice.
+     * @param racun The invoice, or {@code null} if the rental failed.
+     */
+    private void zavrsi(Consumer<Racun> poZavrsetku, Racun racun) {
+        zavrseno = true;
+        poZavrsetku.accept(racun);
+    }
+
+    /**
+     * Places the vehicle on its starting tile, charging the battery if needed.
+     *
+     * @return {@code true} if the rental can proceed; {@code false} if the battery is too small for the trip.
+     */
+    private boolean preuzmi() {
         int xStart = iznajmljivanje.getXPreuzimanja();
         int yStart = iznajmljivanje.getYPreuzimanja();
         int xEnd = iznajmljivanje.getXVracanja();
@@ -45,69 +138,54 @@ public class SimulacijaIznajmljivanja extends Thread {
         prevoznoSredstvo.setY(yStart);
 
         int numOfTiles = Math.abs(xStart - xEnd) + 1 + Math.abs(yStart - yEnd);
-        double timeOnOneTile = (double) iznajmljivanje.getTrajanjeSekunde() / numOfTiles;
+        timeOnOneTile = (double) iznajmljivanje.getTrajanjeSekunde() / numOfTiles;
 
         // Check battery level
         if (prevoznoSredstvo.getTrenutniNivoBaterije() < numOfTiles * PrevoznoSredstvo.BATTERY_DRAIN) {
-            System.out.println("Baterija napunjena");
+            DOGADJAJI.zabiljezi(KodDogadjaja.BATERIJA_NAPUNJENA);
             prevoznoSredstvo.napuniBateriju();
+            PUNJENJA.povecaj();
         }
 
         if (numOfTiles * PrevoznoSredstvo.BATTERY_DRAIN > 100) {
-            System.out.println("Vozilo " + prevoznoSredstvo.getId() + " nema dovoljno veliku bateriju za taj put");
-            return;
+            DOGADJAJI.zabiljezi(KodDogadjaja.BATERIJA_PREMALA, prevoznoSredstvo.getId());
+            return false;
         }
 
-        String vrsta = prevoznoSredstvo.getVrsta();
-        String id = prevoznoSredstvo.getId();
-
         // Update the position on the map
-        Label label = mapa.azurirajPoziciju(prevoznoSredstvo.getX(), prevoznoSredstvo.getY(), vrsta, id, prevoznoSredstvo.getTrenutniNivoBaterije());
-
-        // Move the vehicle to the end position
-        while (prevoznoSredstvo.getX() != xEnd) {
-            resetujPozicijuSaPauzom(timeOnOneTile, label);
-            if (xStart > xEnd) {
-                prevoznoSredstvo.setX(prevoznoSredstvo.getX() - 1);
-                prevoznoSredstvo.setTrenutniNivoBaterije(prevoznoSredstvo.getTrenutniNivoBaterije() - PrevoznoSredstvo.BATTERY_DRAIN);
-            } else if (xStart < xEnd) {
-                prevoznoSredstvo.setX(prevoznoSredstvo.getX() + 1);
-                prevoznoSredstvo.setTrenutniNivoBaterije(prevoznoSredstvo.getTrenutniNivoBaterije() - PrevoznoSredstvo.BATTERY_DRAIN);
-            }
-            label = mapa.azurirajPoziciju(prevoznoSredstvo.getX(), prevoznoSredstvo.getY(), vrsta, id, prevoznoSredstvo.getTrenutniNivoBaterije());
-        }
-
-        while (prevoznoSredstvo.getY() != yEnd) {
-            resetujPozicijuSaPauzom(timeOnOneTile, label);
-            if (yStart > yEnd) {
-                prevoznoSredstvo.setY(prevoznoSredstvo.getY() - 1);
-                prevoznoSredstvo.setTrenutniNivoBaterije(prevoznoSredstvo.getTrenutniNivoBaterije() - PrevoznoSredstvo.BATTERY_DRAIN);
-            } else if (yStart < yEnd) {
-                prevoznoSredstvo.setY(prevoznoSredstvo.getY() + 1);
-                prevoznoSredstvo.setTrenutniNivoBaterije(prevoznoSredstvo.getTrenutniNivoBaterije() - PrevoznoSredstvo.BATTERY_DRAIN);
-            }
-            label = mapa.azurirajPoziciju(prevoznoSredstvo.getX(), prevoznoSredstvo.getY(), vrsta, id, prevoznoSredstvo.getTrenutniNivoBaterije());
-        }
-
-        // Generate receipt file
-        generisiFajlRacuna();
+        mapa.azurirajPoziciju(prevoznoSredstvo.getX(), prevoznoSredstvo.getY(), prevoznoSredstvo.getVrsta(),
+                prevoznoSredstvo.getId(), prevoznoSredstvo.getTrenutniNivoBaterije());
+        return true;
     }
 
     /**
-     * Updates the position of the vehicle on the map with a pause.
+     * Checks whether the vehicle has reached its return location.
      *
-     * @param timeOnOneTile Time taken to move between tiles.
-     * @param label The label to update on the map.
+     * @return {@code true} if the vehicle is at the return location; {@code false} otherwise.
      */
-    private synchronized void resetujPozicijuSaPauzom(double timeOnOneTile, Label label) {
-        try {
-            if (timeOnOneTile > 0) {
-                Thread.sleep((long) (timeOnOneTile * 1000)); // Sleep for the time on one tile
-            }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    private boolean naOdredistu() {
+        return prevoznoSredstvo.getX() == iznajmljivanje.getXVracanja() &&
+                prevoznoSredstvo.getY() == iznajmljivanje.getYVracanja();
+    }
+
+    /**
+     * Moves the vehicle one tile towards the return location, first along the x-axis and then along the y-axis.
+     */
+    private void pomjeri() {
+        long pocetak = System.nanoTime();
+        int xEnd = iznajmljivanje.getXVracanja();
+        int yEnd = iznajmljivanje.getYVracanja();
+
+        mapa.resetujPoziciju(prevoznoSredstvo.getX(), prevoznoSredstvo.getY(), prevoznoSredstvo.getId());
+        if (prevoznoSredstvo.getX() != xEnd) {
+            prevoznoSredstvo.setX(prevoznoSredstvo.getX() + (prevoznoSredstvo.getX() > xEnd ? -1 : 1));
+        } else {
+            prevoznoSredstvo.setY(prevoznoSredstvo.getY() + (prevoznoSredstvo.getY() > yEnd ? -1 : 1));
         }
-        mapa.resetujPoziciju(prevoznoSredstvo.getX(), prevoznoSredstvo.getY(), label);
+        prevoznoSredstvo.setTrenutniNivoBaterije(prevoznoSredstvo.getTrenutniNivoBaterije() - PrevoznoSredstvo.BATTERY_DRAIN);
+        mapa.azurirajPoziciju(prevoznoSredstvo.getX(), prevoznoSredstvo.getY(), prevoznoSredstvo.getVrsta(),
+                prevoznoSredstvo.getId(), prevoznoSredstvo.getTrenutniNivoBaterije());
+        POMJERANJE.zabiljeziOd(pocetak);
     }
 
     /**
@@ -123,22 +201,17 @@ public class SimulacijaIznajmljivanja extends Thread {
     }
 
     /**
-     * Generates a receipt file for the rental.
+     * Creates the receipt for the rental and hands it to the receipt writer.
+     *
+     * @param pisacRacuna Writer receiving the receipt.
+     * @return The invoice of the rental.
      */
-    public synchronized void generisiFajlRacuna() {
-        Properties appProps = Utility.getProperties();
-        String billFolderPath = appProps.getProperty("RECEIPT_PATH").replace("/", File.separator);
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
-
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(billFolderPath + File.separator +
-                iznajmljivanje.getDatumVrijemeIznajmljivanja().format(formatter) + "-" +
-                iznajmljivanje.getIDPrevoznogSredstva() + ".txt"))) {
-            bw.write(new Racun(iznajmljivanje).toString());
-
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    public Racun generisiFajlRacuna(PisacRacuna pisacRacuna) {
+        String naziv = iznajmljivanje.getDatumVrijemeIznajmljivanja().format(FORMAT_NAZIVA) + "-" +
+                iznajmljivanje.getIDPrevoznogSredstva() + ".txt";
+        Racun racun = new Racun(iznajmljivanje);
+        pisacRacuna.predaj(naziv, racun);
+        return racun;
     }
 
     // Getters and Setters
@@ -0,0 +1,25 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.DnevniRezultatPoslovanja;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.SumarniRezultatPoslovanja;
+
+/**
+ * Receives business results as the simulation produces them.
+ * Listeners are called on simulation threads, so they should only record or hand off the results.
+ */
+public interface SlusalacRezultata {
+
+    /**
+     * Called once for every closed day, in the order the days are closed.
+     *
+     * @param rezultat The results of the closed day.
+     */
+    void danZatvoren(DnevniRezultatPoslovanja rezultat);
+
+    /**
+     * Called once when the simulation has finished.
+     *
+     * @param rezultat The summary results of the simulation.
+     */
+    void simulacijaZavrsena(SumarniRezultatPoslovanja rezultat);
+}
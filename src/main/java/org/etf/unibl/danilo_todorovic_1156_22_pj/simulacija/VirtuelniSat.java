@@ -0,0 +1,62 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+/**
+ * Virtual clock of the simulation.
+ *
+ * The clock can run as fast as possible (time scale 0), in real time (time scale 1)
+ * or N times faster than real time (time scale N). When a time scale is set, advancing
+ * the clock waits until the matching wall-clock moment is reached.
+ */
+public class VirtuelniSat {
+    private final double tempo;        // Virtual seconds per wall-clock second, 0 for as fast as possible
+    private final long pocetakNano;    // Wall-clock time at which the virtual time 0 started
+    private volatile double vrijeme;   // Current virtual time in seconds
+
+    /**
+     * Constructs a VirtuelniSat object starting at virtual time 0.
+     *
+     * @param tempo Virtual seconds per wall-clock second, or 0 to run as fast as possible.
+     */
+    public VirtuelniSat(double tempo) {
+        if (tempo < 0) {
+            throw new IllegalArgumentException("Tempo simulacije ne moze biti negativan: " + tempo);
+        }
+        this.tempo = tempo;
+        this.pocetakNano = System.nanoTime();
+    }
+
+    /**
+     * Advances the clock to the given virtual time, waiting for the wall clock if a time scale is set.
+     *
+     * @param novoVrijeme The new virtual time in seconds.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void pomjeriNa(double novoVrijeme) throws InterruptedException {
+        if (tempo > 0) {
+            long cilj = pocetakNano + (long) (novoVrijeme / tempo * 1_000_000_000L);
+            long preostalo = cilj - System.nanoTime();
+            if (preostalo > 0) {
+                Thread.sleep(preostalo / 1_000_000, (int) (preostalo % 1_000_000));
+            }
+        }
+        vrijeme = novoVrijeme;
+    }
+
+    /**
+     * Gets the current virtual time.
+     *
+     * @return The virtual time in seconds.
+     */
+    public double getVrijeme() {
+        return vrijeme;
+    }
+
+    /**
+     * Gets the time scale of the clock.
+     *
+     * @return Virtual seconds per wall-clock second, or 0 if the clock runs as fast as possible.
+     */
+    public double getTempo() {
+        return tempo;
+    }
+}
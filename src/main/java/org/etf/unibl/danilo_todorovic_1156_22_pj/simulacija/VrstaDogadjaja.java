@@ -0,0 +1,12 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+/**
+ * Types of events processed by the discrete-event simulation.
+ */
+public enum VrstaDogadjaja {
+    POCETAK_TERMINA,  // Start of a group of rentals sharing the same date and time
+    PREUZIMANJE,      // A vehicle is picked up at its starting tile
+    POMJERANJE,       // A vehicle moves to the next tile
+    VRACANJE,         // A vehicle is returned and its receipt is generated
+    ZATVARANJE_DANA   // All rentals of a group are finished; after the last group of a day its result is recorded
+}
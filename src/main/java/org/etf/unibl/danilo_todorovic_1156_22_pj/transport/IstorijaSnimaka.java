@@ -0,0 +1,287 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.transport;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-vehicle history of snapshots, stored in {@code <id>.kvs} files in the malfunctions folder.
+ *
+ * A file starts with an 8-byte header (magic, file version) followed by snapshots encoded with
+ * {@link KodekPrevoznogSredstva}. Every snapshot is framed by its length before and after it, so
+ * the latest snapshot can be read from the end of the file and an incomplete last snapshot is ignored.
+ * A frame whose lengths do not match or whose snapshot does not decode, such as a zero-filled tail,
+ * counts as incomplete. Snapshots are only ever appended; an incomplete last snapshot is cut off before
+ * the next one is appended.
+ * A snapshot with the same time as the latest one is not appended again, so replaying the same simulation
+ * does not duplicate the history.
+ *
+ * Vehicles saved by earlier versions with Java serialization in {@code <id>.ser} files can still be read.
+ * Those files are left unchanged.
+ */
+public final class IstorijaSnimaka {
+    public static final String EKSTENZIJA = ".kvs";       // Extension of snapshot history files
+    public static final String STARA_EKSTENZIJA = ".ser"; // Extension of files written with Java serialization
+
+    static final int MAGIC = 0x4B565331;  // "KVS1"
+    static final int VERZIJA_FAJLA = 1;   // Version of the file layout
+    static final int ZAGLAVLJE = 8;       // Size of the file header in bytes
+
+    /**
+     * Prevents instantiation.
+     */
+    private IstorijaSnimaka() {
+    }
+
+    /**
+     * Appends a snapshot of a vehicle to its history in the given folder,
+     * unless the latest snapshot of the history was taken at the same time.
+     *
+     * @param folder The malfunctions folder.
+     * @param vozilo The vehicle.
+     * @param vrijeme The time of the snapshot.
+     * @return {@code true} if the snapshot was appended.
+     * @throws IOException If the history cannot be written or is not a history file.
+     */
+    public static boolean dodaj(Path folder, PrevoznoSredstvo vozilo, LocalDateTime vrijeme) throws IOException {
+        byte[] snimak = uOkviru(vozilo, vrijeme);
+        Path fajl = folder.resolve(vozilo.getId() + EKSTENZIJA);
+        synchronized (IstorijaSnimaka.class) {
+            Files.createDirectories(folder);
+            try (FileChannel kanal = FileChannel.open(fajl, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long velicina = kanal.size();
+                if (velicina < ZAGLAVLJE) {
+                    ByteBuffer zaglavlje = ByteBuffer.allocate(ZAGLAVLJE).putInt(MAGIC).putInt(VERZIJA_FAJLA).flip();
+                    kanal.truncate(0);
+                    kanal.write(zaglavlje, 0);
+                    velicina = ZAGLAVLJE;
+                } else {
+                    ByteBuffer zaglavlje = ByteBuffer.allocate(ZAGLAVLJE);
+                    kanal.read(zaglavlje, 0);
+                    provjeriZaglavlje(zaglavlje.getInt(0), zaglavlje.getInt(4), fajl);
+                    SnimakVozila prethodni = posljednjiOkvir(kanal, velicina);
+                    if (prethodni == null && velicina > ZAGLAVLJE) {
+                        velicina = krajCijelihOkvira(kanal, velicina);
+                        kanal.truncate(velicina);
+                        prethodni = posljednjiOkvir(kanal, velicina);
+                    }
+                    if (prethodni != null && prethodni.getVrijeme().equals(vrijeme) && prethodni.getVozilo().getId().equals(vozilo.getId())) {
+                        return false;
+                    }
+                }
+                ByteBuffer bajtovi = ByteBuffer.wrap(snimak);
+                while (bajtovi.hasRemaining()) {
+                    kanal.write(bajtovi, velicina + bajtovi.position());
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads the last snapshot of a history file using the length after it.
+     *
+     * @param kanal The open history file.
+     * @param velicina Size of the file.
+     * @return The last snapshot, or {@code null} if the end of the file is not a complete snapshot.
+     * @throws IOException If the file cannot be read.
+     */
+    private static SnimakVozila posljednjiOkvir(FileChannel kanal, long velicina) throws IOException {
+        if (velicina < ZAGLAVLJE + 8) {
+            return null;
+        }
+        ByteBuffer duzinaNaKraju = ByteBuffer.allocate(4);
+        kanal.read(duzinaNaKraju, velicina - 4);
+        int duzina = duzinaNaKraju.getInt(0);
+        long pocetak = velicina - 8 - duzina;
+        if (duzina <= 0 || pocetak < ZAGLAVLJE) {
+            return null;
+        }
+        return procitajOkvir(kanal, pocetak, duzina);
+    }
+
+    /**
+     * Walks the snapshots of a history file from its start.
+     *
+     * @param kanal The open history file.
+     * @param velicina Size of the file.
+     * @return Position after the last complete snapshot before the first incomplete one.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long krajCijelihOkvira(FileChannel kanal, long velicina) throws IOException {
+        long pozicija = ZAGLAVLJE;
+        ByteBuffer duzinaOkvira = ByteBuffer.allocate(4);
+        while (pozicija + 8 <= velicina) {
+            duzinaOkvira.clear();
+            kanal.read(duzinaOkvira, pozicija);
+            int duzina = duzinaOkvira.getInt(0);
+            if (duzina <= 0 || pozicija + 8 + duzina > velicina || procitajOkvir(kanal, pozicija, duzina) == null) {
+                break;
+            }
+            pozicija += 8 + duzina;
+        }
+        return pozicija;
+    }
+
+    /**
+     * Reads the frame at the given position, expected to hold a snapshot of the given length.
+     *
+     * @return The snapshot, or {@code null} if the lengths of the frame do not match or the snapshot does not decode.
+     */
+    private static SnimakVozila procitajOkvir(FileChannel kanal, long pocetak, int duzina) throws IOException {
+        ByteBuffer okvir = ByteBuffer.allocate(duzina + 8);
+        while (okvir.hasRemaining()) {
+            if (kanal.read(okvir, pocetak + okvir.position()) < 0) {
+                return null;
+            }
+        }
+        if (okvir.getInt(0) != duzina || okvir.getInt(duzina + 4) != duzina) {
+            return null;
+        }
+        return dekodirajCijeli(okvir.array(), 4, duzina);
+    }
+
+    /**
+     * Decodes a snapshot that must take up the given bytes exactly.
+     *
+     * @return The snapshot, or {@code null} if the bytes are not one complete snapshot.
+     */
+    private static SnimakVozila dekodirajCijeli(byte[] bajtovi, int od, int duzina) {
+        ByteArrayInputStream ulaz = new ByteArrayInputStream(bajtovi, od, duzina);
+        try {
+            SnimakVozila snimak = KodekPrevoznogSredstva.dekodiraj(new DataInputStream(ulaz));
+            return ulaz.available() == 0 ? snimak : null;
+        } catch (IOException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Encodes a snapshot framed by its length.
+     */
+    private static byte[] uOkviru(PrevoznoSredstvo vozilo, LocalDateTime vrijeme) throws IOException {
+        ByteArrayOutputStream bajtovi = new ByteArrayOutputStream(128);
+        DataOutputStream izlaz = new DataOutputStream(bajtovi);
+        izlaz.writeInt(0);
+        KodekPrevoznogSredstva.kodiraj(vozilo, vrijeme, izlaz);
+        izlaz.writeInt(0);
+        byte[] okvir = bajtovi.toByteArray();
+        int duzina = okvir.length - 8;
+        ByteBuffer.wrap(okvir).putInt(0, duzina).putInt(okvir.length - 4, duzina);
+        return okvir;
+    }
+
+    /**
+     * Reads all complete snapshots of a history file, oldest first.
+     *
+     * @param fajl The history file.
+     * @return The snapshots.
+     * @throws IOException If the file cannot be read or is not a history file.
+     */
+    public static List<SnimakVozila> procitaj(Path fajl) throws IOException {
+        ArrayList<SnimakVozila> snimci = new ArrayList<>();
+        try (DataInputStream ulaz = new DataInputStream(new BufferedInputStream(Files.newInputStream(fajl)))) {
+            long preostalo = Files.size(fajl) - ZAGLAVLJE;
+            provjeriZaglavlje(ulaz.readInt(), ulaz.readInt(), fajl);
+            while (true) {
+                SnimakVozila snimak;
+                try {
+                    int duzina = ulaz.readInt();
+                    if (duzina <= 0 || duzina + 8L > preostalo) {
+                        break;
+                    }
+                    byte[] okvir = new byte[duzina];
+                    ulaz.readFully(okvir);
+                    if (ulaz.readInt() != duzina || (snimak = dekodirajCijeli(okvir, 0, duzina)) == null) {
+                        break;
+                    }
+                    preostalo -= duzina + 8L;
+                } catch (EOFException e) {
+                    break; // Incomplete last snapshot
+                }
+                snimci.add(snimak);
+            }
+        }
+        return snimci;
+    }
+
+    /**
+     * Reads the latest snapshot of a history file from its end.
+     * If the end of the file is not a complete snapshot, the file is read from the start.
+     *
+     * @param fajl The history file.
+     * @return The latest snapshot, or {@code null} if the file has none.
+     * @throws IOException If the file cannot be read or is not a history file.
+     */
+    public static SnimakVozila procitajPosljednji(Path fajl) throws IOException {
+        try (FileChannel kanal = FileChannel.open(fajl, StandardOpenOption.READ)) {
+            long velicina = kanal.size();
+            ByteBuffer zaglavlje = ByteBuffer.allocate(ZAGLAVLJE);
+            if (kanal.read(zaglavlje, 0) == ZAGLAVLJE) {
+                provjeriZaglavlje(zaglavlje.getInt(0), zaglavlje.getInt(4), fajl);
+            }
+            SnimakVozila posljednji = posljednjiOkvir(kanal, velicina);
+            if (posljednji != null) {
+                return posljednji;
+            }
+        }
+        List<SnimakVozila> snimci = procitaj(fajl);
+        return snimci.isEmpty() ? null : snimci.get(snimci.size() - 1);
+    }
+
+    /**
+     * Reads a vehicle saved with Java serialization.
+     *
+     * @param fajl The {@code .ser} file.
+     * @return The vehicle.
+     * @throws IOException If the file cannot be read or does not hold a vehicle.
+     */
+    public static PrevoznoSredstvo procitajSerijalizovano(Path fajl) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(fajl)))) {
+            return (PrevoznoSredstvo) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Fajl ne sadrzi prevozno sredstvo: " + fajl, e);
+        }
+    }
+
+    /**
+     * Reads the latest saved state of a vehicle from a history file or a Java serialization file.
+     *
+     * @param fajl The {@code .kvs} or {@code .ser} file.
+     * @return The vehicle, or {@code null} if the file holds no snapshot or has another extension.
+     * @throws IOException If the file cannot be read.
+     */
+    public static PrevoznoSredstvo procitajStanje(Path fajl) throws IOException {
+        String naziv = fajl.getFileName().toString();
+        if (naziv.endsWith(EKSTENZIJA)) {
+            SnimakVozila snimak = procitajPosljednji(fajl);
+            return snimak == null ? null : snimak.getVozilo();
+        } else if (naziv.endsWith(STARA_EKSTENZIJA)) {
+            return procitajSerijalizovano(fajl);
+        }
+        return null;
+    }
+
+    /**
+     * Checks the header of a history file.
+     */
+    private static void provjeriZaglavlje(int magic, int verzija, Path fajl) throws IOException {
+        if (magic != MAGIC || verzija != VERZIJA_FAJLA) {
+            throw new IOException("Nije fajl istorije snimaka: " + fajl);
+        }
+    }
+}
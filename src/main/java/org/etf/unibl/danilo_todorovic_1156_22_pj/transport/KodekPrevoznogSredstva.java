@@ -0,0 +1,146 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.transport;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary codec for vehicle snapshots.
+ *
+ * Every field is written explicitly in a fixed order, so the format does not depend on the class layout
+ * the way Java serialization does. A snapshot starts with the schema version and the vehicle type:
+ * <pre>
+ *   byte   schema version (1)
+ *   byte   type: 1 car, 2 bicycle, 3 scooter
+ *   long   snapshot time, epoch seconds (UTC)
+ *   text   id, manufacturer, model
+ *   double purchase price
+ *   int    battery level, x, y
+ *   car:      long purchase date (epoch day, Long.MIN_VALUE if none), text description, int capacity
+ *   bicycle:  double range
+ *   scooter:  double maximum speed
+ * </pre>
+ * A text is a presence flag followed by modified UTF-8, so {@code null} strings survive a round trip.
+ */
+public final class KodekPrevoznogSredstva {
+    public static final int VERZIJA = 1; // Schema version written by this codec
+
+    private static final byte AUTOMOBIL = 1; // Type code of cars
+    private static final byte BICIKL = 2;    // Type code of bicycles
+    private static final byte TROTINET = 3;  // Type code of scooters
+
+    /**
+     * Prevents instantiation.
+     */
+    private KodekPrevoznogSredstva() {
+    }
+
+    /**
+     * Writes a snapshot of a vehicle.
+     *
+     * @param vozilo The vehicle.
+     * @param vrijeme The time of the snapshot.
+     * @param izlaz The output to write to.
+     * @throws IOException If the output cannot be written or the vehicle type is not supported.
+     */
+    public static void kodiraj(PrevoznoSredstvo vozilo, LocalDateTime vrijeme, DataOutput izlaz) throws IOException {
+        byte vrsta;
+        if (vozilo instanceof Automobil) {
+            vrsta = AUTOMOBIL;
+        } else if (vozilo instanceof ElektricniBicikl) {
+            vrsta = BICIKL;
+        } else if (vozilo instanceof ElektricniTrotinet) {
+            vrsta = TROTINET;
+        } else {
+            throw new IOException("Nepodrzana vrsta vozila: " + vozilo.getClass().getName());
+        }
+
+        izlaz.writeByte(VERZIJA);
+        izlaz.writeByte(vrsta);
+        izlaz.writeLong(vrijeme.toEpochSecond(ZoneOffset.UTC));
+        pisiTekst(izlaz, vozilo.id);
+        pisiTekst(izlaz, vozilo.proizvodjac);
+        pisiTekst(izlaz, vozilo.model);
+        izlaz.writeDouble(vozilo.cijenaNabavke);
+        izlaz.writeInt(vozilo.trenutniNivoBaterije);
+        izlaz.writeInt(vozilo.x);
+        izlaz.writeInt(vozilo.y);
+
+        if (vozilo instanceof Automobil) {
+            Automobil automobil = (Automobil) vozilo;
+            izlaz.writeLong(automobil.getDatumNabavke() == null ? Long.MIN_VALUE : automobil.getDatumNabavke().toEpochDay());
+            pisiTekst(izlaz, automobil.getOpis());
+            izlaz.writeInt(automobil.getKapacitetOsoba());
+        } else if (vozilo instanceof ElektricniBicikl) {
+            izlaz.writeDouble(((ElektricniBicikl) vozilo).getAutonomija());
+        } else {
+            izlaz.writeDouble(((ElektricniTrotinet) vozilo).getMaksimalnaBrzina());
+        }
+    }
+
+    /**
+     * Reads a snapshot of a vehicle.
+     * The position is restored directly, so vehicle listeners are not notified.
+     *
+     * @param ulaz The input to read from.
+     * @return The snapshot.
+     * @throws IOException If the input cannot be read, or the schema version or vehicle type is unknown.
+     */
+    public static SnimakVozila dekodiraj(DataInput ulaz) throws IOException {
+        int verzija = ulaz.readUnsignedByte();
+        if (verzija != VERZIJA) {
+            throw new IOException("Nepoznata verzija snimka vozila: " + verzija);
+        }
+        byte vrsta = ulaz.readByte();
+        LocalDateTime vrijeme = LocalDateTime.ofEpochSecond(ulaz.readLong(), 0, ZoneOffset.UTC);
+        String id = citajTekst(ulaz);
+        String proizvodjac = citajTekst(ulaz);
+        String model = citajTekst(ulaz);
+        double cijenaNabavke = ulaz.readDouble();
+        int baterija = ulaz.readInt();
+        int x = ulaz.readInt();
+        int y = ulaz.readInt();
+
+        PrevoznoSredstvo vozilo;
+        switch (vrsta) {
+            case AUTOMOBIL:
+                long dan = ulaz.readLong();
+                String opis = citajTekst(ulaz);
+                int kapacitet = ulaz.readInt();
+                vozilo = new Automobil(id, proizvodjac, model, cijenaNabavke, baterija,
+                        dan == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(dan), opis, kapacitet);
+                break;
+            case BICIKL:
+                vozilo = new ElektricniBicikl(id, proizvodjac, model, cijenaNabavke, baterija, ulaz.readDouble());
+                break;
+            case TROTINET:
+                vozilo = new ElektricniTrotinet(id, proizvodjac, model, cijenaNabavke, baterija, ulaz.readDouble());
+                break;
+            default:
+                throw new IOException("Nepoznata vrsta vozila u snimku: " + vrsta);
+        }
+        vozilo.x = x;
+        vozilo.y = y;
+        return new SnimakVozila(vrijeme, vozilo);
+    }
+
+    /**
+     * Writes a string that may be {@code null}.
+     */
+    private static void pisiTekst(DataOutput izlaz, String tekst) throws IOException {
+        izlaz.writeBoolean(tekst != null);
+        if (tekst != null) {
+            izlaz.writeUTF(tekst);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #pisiTekst(DataOutput, String)}.
+     */
+    private static String citajTekst(DataInput ulaz) throws IOException {
+        return ulaz.readBoolean() ? ulaz.readUTF() : null;
+    }
+}
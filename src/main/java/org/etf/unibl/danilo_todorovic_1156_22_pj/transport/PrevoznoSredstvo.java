@@ -1,18 +1,19 @@
 package org.etf.unibl.danilo_todorovic_1156_22_pj.transport;
 
 import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Utility;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.io.Serializable;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a base class for various types of transport vehicles.
  * Implements Serializable to allow instances to be serialized.
+ *
+ * Changes of the battery level and position are published to the registered {@link SlusalacVozila listeners}.
  */
 public abstract class PrevoznoSredstvo implements Serializable {
     private static final long serialVersionUID = 1L;
     public static int BATTERY_DRAIN = 4; // Amount of battery drain per unit distance
+    private static final CopyOnWriteArrayList<SlusalacVozila> slusaoci = new CopyOnWriteArrayList<>(); // Listeners notified of battery and position changes
 
     protected String id; // Unique identifier for the vehicle
     protected String proizvodjac; // Manufacturer of the vehicle
@@ -43,61 +44,44 @@ public abstract class PrevoznoSredstvo implements Serializable {
      * Fills the battery of the vehicle to full capacity (100%).
      */
     public void napuniBateriju() {
-        this.trenutniNivoBaterije = 100;
+        setTrenutniNivoBaterije(100);
     }
 
     /**
-     * Abstract method to be implemented by subclasses to return the type of vehicle.
+     * Registers a listener notified whenever the battery level or position of any vehicle changes.
+     * A listener that is already registered is not added again.
      *
-     * @return A string representing the type of vehicle.
+     * @param slusalac The listener to register.
      */
-    public abstract String getVrsta();
+    public static void dodajSlusaoca(SlusalacVozila slusalac) {
+        slusaoci.addIfAbsent(slusalac);
+    }
 
     /**
-     * Validates vehicle data based on the vehicle type and attributes.
+     * Removes a registered listener.
      *
-     * @param data Array of strings representing vehicle data.
-     * @return True if the data is valid; false otherwise.
+     * @param slusalac The listener to remove.
      */
-    public static boolean validacijaVozila(String[] data) {
-        if (data.length != 9) {
-            return false;
-        }
-        if (data[0].isEmpty() || data[1].isEmpty() || data[2].isEmpty() || data[4].isEmpty() || data[8].isEmpty() || !isInteger(data[4])) {
-            return false;
-        }
-        if ("automobil".equals(data[8])) {
-            try {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d.M.yyyy.");
-                LocalDate dateTime = LocalDate.parse(data[3], formatter);
-            } catch (DateTimeParseException e) {
-                return false;
-            }
-            return !data[7].isEmpty();
-        } else if ("bicikl".equals(data[8])) {
-            return !data[5].isEmpty() && isInteger(data[5]);
-        } else if ("trotinet".equals(data[8])) {
-            return !data[6].isEmpty() && isInteger(data[6]);
-        } else {
-            return false;
-        }
+    public static void ukloniSlusaoca(SlusalacVozila slusalac) {
+        slusaoci.remove(slusalac);
     }
 
     /**
-     * Checks if a given string represents a valid integer.
-     *
-     * @param s The string to check.
-     * @return True if the string is a valid integer; false otherwise.
-     */
-    private static boolean isInteger(String s) {
-        try {
-            Integer.parseInt(s);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+     * Notifies the registered listeners that this vehicle changed.
+     */
+    private void obavijestiSlusaoce() {
+        for (SlusalacVozila slusalac : slusaoci) {
+            slusalac.voziloPromijenjeno(this);
         }
     }
 
+    /**
+     * Abstract method to be implemented by subclasses to return the type of vehicle.
+     *
+     * @return A string representing the type of vehicle.
+     */
+    public abstract String getVrsta();
+
     // Getters and Setters
     /**
      * Gets the unique identifier of the vehicle.
@@ -139,21 +123,36 @@ public abstract class PrevoznoSredstvo implements Serializable {
      *
      * @param trenutniNivoBaterije The new battery level of the vehicle.
      */
-    public void setTrenutniNivoBaterije(int trenutniNivoBaterije) { this.trenutniNivoBaterije = trenutniNivoBaterije; }
+    public void setTrenutniNivoBaterije(int trenutniNivoBaterije) {
+        if (this.trenutniNivoBaterije != trenutniNivoBaterije) {
+            this.trenutniNivoBaterije = trenutniNivoBaterije;
+            obavijestiSlusaoce();
+        }
+    }
 
     /**
      * Sets the x-coordinate of the vehicle's position.
      *
      * @param x The new x-coordinate of the vehicle.
      */
-    public void setX(int x) { this.x = x; }
+    public void setX(int x) {
+        if (this.x != x) {
+            this.x = x;
+            obavijestiSlusaoce();
+        }
+    }
 
     /**
      * Sets the y-coordinate of the vehicle's position.
      *
      * @param y The new y-coordinate of the vehicle.
      */
-    public void setY(int y) { this.y = y; }
+    public void setY(int y) {
+        if (this.y != y) {
+            this.y = y;
+            obavijestiSlusaoce();
+        }
+    }
 
     /**
      * Gets the x-coordinate of the vehicle's position.
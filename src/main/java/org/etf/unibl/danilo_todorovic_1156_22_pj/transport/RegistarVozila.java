@@ -0,0 +1,132 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.transport;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.CitacPrevoznihSredstava;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Singleton registry resolving vehicle IDs to vehicle types without touching the disk.
+ *
+ * The registry is built once from the loaded vehicles. Optionally it watches the fleet CSV file and
+ * rebuilds itself whenever the file changes. Every rebuild publishes a new immutable map, so lookups
+ * never block.
+ */
+public class RegistarVozila {
+    private static RegistarVozila instanca = null; // Singleton instance
+
+    private volatile Map<String, String> vrste = Collections.emptyMap(); // Vehicle type per vehicle ID
+    private Thread pracenje; // Thread watching the fleet file, if enabled
+
+    /**
+     * Private constructor to prevent instantiation from outside the class.
+     */
+    private RegistarVozila() {
+    }
+
+    /**
+     * Returns the singleton instance of the RegistarVozila class.
+     *
+     * @return The singleton instance of RegistarVozila.
+     */
+    public static synchronized RegistarVozila getInstance() {
+        if (instanca == null) {
+            instanca = new RegistarVozila();
+        }
+        return instanca;
+    }
+
+    /**
+     * Rebuilds the registry from the loaded vehicles.
+     *
+     * @param vozila Vehicles identified by their ID.
+     */
+    public void izgradi(Map<String, PrevoznoSredstvo> vozila) {
+        HashMap<String, String> nove = new HashMap<>();
+        for (PrevoznoSredstvo vozilo : vozila.values()) {
+            nove.put(vozilo.getId(), vozilo.getVrsta());
+        }
+        vrste = Collections.unmodifiableMap(nove);
+    }
+
+    /**
+     * Rebuilds the registry from the valid rows of a fleet CSV file. The first row of each ID wins.
+     *
+     * @param putanja Path of the fleet CSV file.
+     * @throws IOException If the file cannot be read.
+     */
+    public void ucitaj(Path putanja) throws IOException {
+        HashMap<String, String> nove = new HashMap<>();
+        try (CitacPrevoznihSredstava citac = new CitacPrevoznihSredstava(putanja)) {
+            while (citac.sljedeci()) {
+                if (citac.isValidan()) {
+                    nove.putIfAbsent(citac.getId(), citac.getVrsta());
+                }
+            }
+        }
+        vrste = Collections.unmodifiableMap(nove);
+    }
+
+    /**
+     * Starts watching the fleet CSV file and reloads the registry whenever the file is modified.
+     * Calling this method more than once has no effect.
+     *
+     * @param putanja Path of the fleet CSV file.
+     * @throws IOException If the directory of the file cannot be watched.
+     */
+    public synchronized void pratiPromjene(Path putanja) throws IOException {
+        if (pracenje != null) {
+            return;
+        }
+        Path apsolutna = putanja.toAbsolutePath();
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        apsolutna.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        pracenje = new Thread(() -> {
+            try (watchService) {
+                while (true) {
+                    WatchKey kljuc = watchService.take();
+                    boolean promijenjen = false;
+                    for (WatchEvent<?> dogadjaj : kljuc.pollEvents()) {
+                        if (apsolutna.getFileName().equals(dogadjaj.context())) {
+                            promijenjen = true;
+                        }
+                    }
+                    kljuc.reset();
+                    if (promijenjen) {
+                        try {
+                            ucitaj(apsolutna);
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "registar-vozila");
+        pracenje.setDaemon(true);
+        pracenje.start();
+    }
+
+    /**
+     * Gets the type of a vehicle.
+     *
+     * @param id The ID of the vehicle.
+     * @return The type of the vehicle, or an empty string if the ID is not registered.
+     */
+    public String getVrsta(String id) {
+        return vrste.getOrDefault(id, "");
+    }
+}
@@ -0,0 +1,15 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.transport;
+
+/**
+ * Receives changes of the battery level or position of vehicles.
+ * Listeners are called on the thread that changed the vehicle, so they should only record the change.
+ */
+public interface SlusalacVozila {
+
+    /**
+     * Called after the battery level or position of a vehicle changed.
+     *
+     * @param vozilo The changed vehicle.
+     */
+    void voziloPromijenjeno(PrevoznoSredstvo vozilo);
+}
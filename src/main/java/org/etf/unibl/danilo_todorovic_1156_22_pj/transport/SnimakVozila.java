@@ -0,0 +1,40 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.transport;
+
+import java.time.LocalDateTime;
+
+/**
+ * The state of a vehicle saved at a point in time, such as when it had a malfunction.
+ */
+public class SnimakVozila {
+    private final LocalDateTime vrijeme;          // Time of the snapshot
+    private final PrevoznoSredstvo vozilo;        // State of the vehicle
+
+    /**
+     * Constructs a SnimakVozila.
+     *
+     * @param vrijeme Time of the snapshot.
+     * @param vozilo State of the vehicle.
+     */
+    public SnimakVozila(LocalDateTime vrijeme, PrevoznoSredstvo vozilo) {
+        this.vrijeme = vrijeme;
+        this.vozilo = vozilo;
+    }
+
+    /**
+     * Returns the time of the snapshot.
+     *
+     * @return The time of the snapshot.
+     */
+    public LocalDateTime getVrijeme() {
+        return vrijeme;
+    }
+
+    /**
+     * Returns the state of the vehicle.
+     *
+     * @return The vehicle.
+     */
+    public PrevoznoSredstvo getVozilo() {
+        return vozilo;
+    }
+}
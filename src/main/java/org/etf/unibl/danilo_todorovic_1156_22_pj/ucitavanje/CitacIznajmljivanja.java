@@ -0,0 +1,280 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Utility;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streaming reader of the rental CSV file.
+ *
+ * Each row is split, validated and parsed in a single pass over the mapped bytes. A valid row has ten
+ * comma separated fields, where the quoted {@code "x,y"} locations span two fields each: a {@code d.M.yyyy HH:mm}
+ * date, non-empty user and vehicle ID, coordinates inside the map, an integer duration and "da"/"ne" flags.
+ *
+ * A reader may be limited to a line-aligned part of the file; {@link ParalelniCitacIznajmljivanja} uses this to
+ * parse the parts of a large file in parallel.
+ */
+public class CitacIznajmljivanja implements AutoCloseable {
+    private static final DateTimeFormatter FORMAT_DATUMA = DateTimeFormatter.ofPattern("d.M.yyyy HH:mm");
+
+    private final CsvCitac csv; // Reader of the underlying file
+
+    private boolean validan;            // Whether the current row is valid
+    private LocalDateTime datumVrijeme; // Date and time of the rental
+    private int xPreuzimanja;           // The x-coordinate of the pickup location
+    private int yPreuzimanja;           // The y-coordinate of the pickup location
+    private int xVracanja;              // The x-coordinate of the return location
+    private int yVracanja;              // The y-coordinate of the return location
+    private int trajanjeSekunde;        // Duration of the rental in seconds
+    private boolean kvar;               // Whether the vehicle had a malfunction
+    private boolean promocija;          // Whether a promotion applies
+
+    /**
+     * Opens the rental file and skips its header line.
+     *
+     * @param putanja Path of the rental file.
+     * @throws IOException If the file cannot be read.
+     */
+    public CitacIznajmljivanja(Path putanja) throws IOException {
+        this(new CsvCitac(putanja));
+        csv.sljedeciRed(); // Skip header line
+    }
+
+    /**
+     * Opens a part of the rental file that contains no header line.
+     *
+     * @param putanja Path of the rental file.
+     * @param od File offset of the first row of the part.
+     * @param doPozicije File offset after the last row of the part.
+     * @throws IOException If the file cannot be read.
+     * @see CsvCitac#granice(Path, long, int)
+     */
+    public CitacIznajmljivanja(Path putanja, long od, long doPozicije) throws IOException {
+        this(new CsvCitac(putanja, od, doPozicije));
+    }
+
+    /**
+     * Reads the rows of an already opened file, starting at its current position.
+     *
+     * @param csv Reader of the rental file.
+     */
+    CitacIznajmljivanja(CsvCitac csv) {
+        this.csv = csv;
+    }
+
+    /**
+     * Reads and parses the next row.
+     *
+     * @return {@code true} if a row was read; {@code false} at the end of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public boolean sljedeci() throws IOException {
+        if (!csv.sljedeciRed()) {
+            return false;
+        }
+        validan = parsiraj();
+        return true;
+    }
+
+    /**
+     * Validates and parses the current row.
+     *
+     * @return {@code true} if the row is valid; {@code false} otherwise.
+     */
+    private boolean parsiraj() {
+        if (csv.brojPolja() != 10) {
+            return false;
+        }
+        for (int i = 1; i < 10; i++) {
+            if (csv.duzina(i) == 0) {
+                return false;
+            }
+        }
+
+        datumVrijeme = csv.datumVrijeme(0);
+        if (datumVrijeme == null) {
+            try {
+                datumVrijeme = LocalDateTime.parse(csv.tekst(0), FORMAT_DATUMA);
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+
+        long x1 = otvorenaKoordinata(3);
+        long y1 = zatvorenaKoordinata(4);
+        long x2 = otvorenaKoordinata(5);
+        long y2 = zatvorenaKoordinata(6);
+        long trajanje = csv.cijeliBroj(7);
+        if (x1 < 0 || y1 < 0 || x2 < 0 || y2 < 0 || !CsvCitac.jeBroj(trajanje) || !daNe(8) || !daNe(9)) {
+            return false;
+        }
+
+        xPreuzimanja = (int) x1;
+        yPreuzimanja = (int) y1;
+        xVracanja = (int) x2;
+        yVracanja = (int) y2;
+        trajanjeSekunde = (int) trajanje;
+        kvar = csv.jednako(8, "da");
+        promocija = csv.jednako(9, "da");
+        return true;
+    }
+
+    /**
+     * Parses the first half of a quoted location, such as {@code "7} in {@code "7,8"}.
+     *
+     * @param polje Index of the field.
+     * @return The coordinate, or -1 if the field is not a quoted coordinate inside the map.
+     */
+    private long otvorenaKoordinata(int polje) {
+        if (csv.bajt(polje, 0) != '"') {
+            return -1;
+        }
+        return koordinata(csv.cijeliBroj(polje, 1, csv.duzina(polje)));
+    }
+
+    /**
+     * Parses the second half of a quoted location, such as {@code 8"} in {@code "7,8"}.
+     *
+     * @param polje Index of the field.
+     * @return The coordinate, or -1 if the field is not a quoted coordinate inside the map.
+     */
+    private long zatvorenaKoordinata(int polje) {
+        if (csv.bajt(polje, csv.duzina(polje) - 1) != '"') {
+            return -1;
+        }
+        return koordinata(csv.cijeliBroj(polje, 0, csv.duzina(polje) - 1));
+    }
+
+    /**
+     * Checks that a parsed value is a coordinate inside the map.
+     *
+     * @param vrijednost The parsed value.
+     * @return The coordinate, or -1 if it is not a number or lies outside the map.
+     */
+    private static long koordinata(long vrijednost) {
+        return CsvCitac.jeBroj(vrijednost) && vrijednost >= 0 && vrijednost < Utility.VELICINA_MAPE ? vrijednost : -1;
+    }
+
+    /**
+     * Checks whether a field is either "da" or "ne".
+     *
+     * @param polje Index of the field.
+     * @return {@code true} if the field is "da" or "ne"; {@code false} otherwise.
+     */
+    private boolean daNe(int polje) {
+        return csv.jednako(polje, "da") || csv.jednako(polje, "ne");
+    }
+
+    /**
+     * Checks whether the current row is valid. The remaining getters may only be used for valid rows.
+     *
+     * @return {@code true} if the row is valid; {@code false} otherwise.
+     */
+    public boolean isValidan() {
+        return validan;
+    }
+
+    /**
+     * Gets the name of the user.
+     *
+     * @return The user's name.
+     */
+    public String getImeKorisnika() {
+        return csv.tekst(1);
+    }
+
+    /**
+     * Gets the ID of the rented vehicle.
+     *
+     * @return The vehicle ID.
+     */
+    public String getIDPrevoznogSredstva() {
+        return csv.tekst(2);
+    }
+
+    /**
+     * Gets the date and time of the rental.
+     *
+     * @return The rental date and time.
+     */
+    public LocalDateTime getDatumVrijemeIznajmljivanja() {
+        return datumVrijeme;
+    }
+
+    /**
+     * Gets the x-coordinate for the pickup location.
+     *
+     * @return The x-coordinate of the pickup location.
+     */
+    public int getXPreuzimanja() {
+        return xPreuzimanja;
+    }
+
+    /**
+     * Gets the y-coordinate for the pickup location.
+     *
+     * @return The y-coordinate of the pickup location.
+     */
+    public int getYPreuzimanja() {
+        return yPreuzimanja;
+    }
+
+    /**
+     * Gets the x-coordinate for the return location.
+     *
+     * @return The x-coordinate of the return location.
+     */
+    public int getXVracanja() {
+        return xVracanja;
+    }
+
+    /**
+     * Gets the y-coordinate for the return location.
+     *
+     * @return The y-coordinate of the return location.
+     */
+    public int getYVracanja() {
+        return yVracanja;
+    }
+
+    /**
+     * Gets the duration of the rental in seconds.
+     *
+     * @return The rental duration in seconds.
+     */
+    public int getTrajanjeSekunde() {
+        return trajanjeSekunde;
+    }
+
+    /**
+     * Checks if the vehicle had a malfunction.
+     *
+     * @return {@code true} if the vehicle had a malfunction; {@code false} otherwise.
+     */
+    public boolean isKvar() {
+        return kvar;
+    }
+
+    /**
+     * Checks if a promotion applies to the rental.
+     *
+     * @return {@code true} if a promotion applies; {@code false} otherwise.
+     */
+    public boolean isPromocija() {
+        return promocija;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        csv.close();
+    }
+}
@@ -0,0 +1,200 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streaming reader of the vehicle CSV file.
+ *
+ * Each row is split, validated and parsed in a single pass over the mapped bytes. A valid row has nine
+ * comma separated fields with a non-empty ID, manufacturer, model and type, an integer price, and the
+ * attributes of its type: a {@code d.M.yyyy.} date and a description for cars, an integer range for bicycles
+ * and an integer maximum speed for scooters.
+ */
+public class CitacPrevoznihSredstava implements AutoCloseable {
+    private static final DateTimeFormatter FORMAT_DATUMA = DateTimeFormatter.ofPattern("d.M.yyyy.");
+
+    private final CsvCitac csv; // Reader of the underlying file
+
+    private boolean validan;        // Whether the current row is valid
+    private double cijenaNabavke;   // Purchase price of the vehicle
+    private LocalDate datumNabavke; // Date of purchase, only for cars
+    private double domet;           // Range, only for bicycles
+    private double maksimalnaBrzina; // Maximum speed, only for scooters
+
+    /**
+     * Opens the vehicle file and skips its header line.
+     *
+     * @param putanja Path of the vehicle file.
+     * @throws IOException If the file cannot be read.
+     */
+    public CitacPrevoznihSredstava(Path putanja) throws IOException {
+        this(new CsvCitac(putanja));
+    }
+
+    /**
+     * Reads an already opened vehicle file and skips its header line.
+     *
+     * @param csv Reader of the vehicle file.
+     * @throws IOException If the file cannot be read.
+     */
+    CitacPrevoznihSredstava(CsvCitac csv) throws IOException {
+        this.csv = csv;
+        csv.sljedeciRed(); // Skip header line
+    }
+
+    /**
+     * Reads and parses the next row.
+     *
+     * @return {@code true} if a row was read; {@code false} at the end of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public boolean sljedeci() throws IOException {
+        if (!csv.sljedeciRed()) {
+            return false;
+        }
+        validan = parsiraj();
+        return true;
+    }
+
+    /**
+     * Validates and parses the current row.
+     *
+     * @return {@code true} if the row is valid; {@code false} otherwise.
+     */
+    private boolean parsiraj() {
+        if (csv.brojPolja() != 9) {
+            return false;
+        }
+        long cijena = csv.cijeliBroj(4);
+        if (csv.duzina(0) == 0 || csv.duzina(1) == 0 || csv.duzina(2) == 0 || csv.duzina(8) == 0 || !CsvCitac.jeBroj(cijena)) {
+            return false;
+        }
+        cijenaNabavke = cijena;
+
+        if (csv.jednako(8, "automobil")) {
+            datumNabavke = csv.datum(3);
+            if (datumNabavke == null) {
+                try {
+                    datumNabavke = LocalDate.parse(csv.tekst(3), FORMAT_DATUMA);
+                } catch (DateTimeParseException e) {
+                    return false;
+                }
+            }
+            return csv.duzina(7) != 0;
+        } else if (csv.jednako(8, "bicikl")) {
+            long vrijednost = csv.cijeliBroj(5);
+            domet = vrijednost;
+            return CsvCitac.jeBroj(vrijednost);
+        } else if (csv.jednako(8, "trotinet")) {
+            long vrijednost = csv.cijeliBroj(6);
+            maksimalnaBrzina = vrijednost;
+            return CsvCitac.jeBroj(vrijednost);
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the current row is valid. The remaining getters, except {@link #getId()},
+     * may only be used for valid rows.
+     *
+     * @return {@code true} if the row is valid; {@code false} otherwise.
+     */
+    public boolean isValidan() {
+        return validan;
+    }
+
+    /**
+     * Gets the ID of the vehicle.
+     *
+     * @return The vehicle ID, or an empty string if the row has no fields.
+     */
+    public String getId() {
+        return csv.brojPolja() > 0 ? csv.tekst(0) : "";
+    }
+
+    /**
+     * Gets the manufacturer of the vehicle.
+     *
+     * @return The manufacturer.
+     */
+    public String getProizvodjac() {
+        return csv.tekst(1);
+    }
+
+    /**
+     * Gets the model of the vehicle.
+     *
+     * @return The model.
+     */
+    public String getModel() {
+        return csv.tekst(2);
+    }
+
+    /**
+     * Gets the purchase price of the vehicle.
+     *
+     * @return The purchase price.
+     */
+    public double getCijenaNabavke() {
+        return cijenaNabavke;
+    }
+
+    /**
+     * Gets the date of purchase of a car.
+     *
+     * @return The date of purchase.
+     */
+    public LocalDate getDatumNabavke() {
+        return datumNabavke;
+    }
+
+    /**
+     * Gets the range of a bicycle.
+     *
+     * @return The range.
+     */
+    public double getDomet() {
+        return domet;
+    }
+
+    /**
+     * Gets the maximum speed of a scooter.
+     *
+     * @return The maximum speed.
+     */
+    public double getMaksimalnaBrzina() {
+        return maksimalnaBrzina;
+    }
+
+    /**
+     * Gets the description of a car.
+     *
+     * @return The description.
+     */
+    public String getOpis() {
+        return csv.tekst(7);
+    }
+
+    /**
+     * Gets the type of the vehicle.
+     *
+     * @return The type of the vehicle.
+     */
+    public String getVrsta() {
+        return csv.tekst(8);
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        csv.close();
+    }
+}
@@ -0,0 +1,490 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Streaming reader of comma separated files backed by a memory-mapped window of the file.
+ *
+ * Lines are read one at a time and split into fields without creating strings, so numbers and
+ * flags can be parsed directly from the mapped bytes. Fields are split on every comma and trailing
+ * empty fields are dropped, exactly like {@code String.split(",")}. Only a window of the file is
+ * mapped at once, so files of any size are read with constant memory.
+ *
+ * A reader may also be limited to a line-aligned part of the file, as returned by {@link #granice(Path, long, int)},
+ * so that several readers can parse one file in parallel.
+ */
+public class CsvCitac implements AutoCloseable {
+    private static final int PROZOR = 64 * 1024 * 1024; // Default size of the mapped window in bytes
+    private static final long NIJE_BROJ = Long.MIN_VALUE; // Marks a field that is not a valid integer
+
+    private final FileChannel kanal; // Channel of the file being read
+    private final long velicina;     // End (exclusive) of the part being read; the size of the file unless only a part is read
+    private final int velicinaProzora; // Size of the mapped window in bytes
+
+    private MappedByteBuffer bafer;  // Currently mapped window of the file
+    private long pocetakProzora;     // File offset of the first byte of the window
+    private long pozicija;           // File offset of the next line
+
+    private int[] pocetakPolja = new int[16]; // Start of each field of the current line, relative to the window
+    private int[] krajPolja = new int[16];    // End (exclusive) of each field of the current line, relative to the window
+    private int brojPolja;                    // Number of fields of the current line
+    private int pocetakReda;                  // Start of the current line, relative to the window
+    private int krajReda;                     // End (exclusive) of the current line, relative to the window
+    private byte[] meduspremnik = new byte[256]; // Scratch buffer used to decode text fields
+    private int kursor;                          // Offset in the window while parsing dates
+
+    /**
+     * Opens a file for reading.
+     *
+     * @param putanja Path of the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public CsvCitac(Path putanja) throws IOException {
+        this(putanja, 0, Long.MAX_VALUE, PROZOR);
+    }
+
+    /**
+     * Opens a part of a file for reading. The part must start at the beginning of a line
+     * and end at the beginning of a line or at the end of the file.
+     *
+     * @param putanja Path of the file.
+     * @param od File offset of the first line of the part.
+     * @param doPozicije File offset after the last line of the part.
+     * @throws IOException If the file cannot be opened.
+     */
+    public CsvCitac(Path putanja, long od, long doPozicije) throws IOException {
+        this(putanja, od, doPozicije, PROZOR);
+    }
+
+    /**
+     * Opens a part of a file for reading with a mapped window of the given size. Small windows
+     * exercise lines that cross the end of the window.
+     *
+     * @param putanja Path of the file.
+     * @param od File offset of the first line of the part.
+     * @param doPozicije File offset after the last line of the part.
+     * @param velicinaProzora Size of the mapped window in bytes.
+     * @throws IOException If the file cannot be opened.
+     */
+    CsvCitac(Path putanja, long od, long doPozicije, int velicinaProzora) throws IOException {
+        this.kanal = FileChannel.open(putanja, StandardOpenOption.READ);
+        this.velicina = Math.min(doPozicije, kanal.size());
+        this.pozicija = od;
+        this.velicinaProzora = velicinaProzora;
+    }
+
+    /**
+     * Splits a file into parts of about equal size that start and end at line boundaries.
+     *
+     * @param putanja Path of the file.
+     * @param pocetak File offset of the first line to split, for example after a header line.
+     * @param brojDijelova Number of parts.
+     * @return File offsets of the parts: part {@code i} spans from element {@code i} to element {@code i + 1}.
+     *         Parts may be empty if the file has fewer lines than parts.
+     * @throws IOException If the file cannot be read.
+     */
+    public static long[] granice(Path putanja, long pocetak, int brojDijelova) throws IOException {
+        try (FileChannel kanal = FileChannel.open(putanja, StandardOpenOption.READ)) {
+            long velicina = kanal.size();
+            long[] granice = new long[brojDijelova + 1];
+            granice[0] = Math.min(pocetak, velicina);
+            granice[brojDijelova] = velicina;
+            ByteBuffer bafer = ByteBuffer.allocate(4096);
+            for (int i = 1; i < brojDijelova; i++) {
+                long cilj = granice[0] + (velicina - granice[0]) * i / brojDijelova;
+                granice[i] = krajReda(kanal, Math.max(cilj, granice[i - 1]), velicina, bafer);
+            }
+            return granice;
+        }
+    }
+
+    /**
+     * Finds the end of the line containing the given offset, using the same line terminators as {@link #sljedeciRed()}.
+     *
+     * @param kanal Channel of the file.
+     * @param od File offset to start searching from.
+     * @param velicina Size of the file in bytes.
+     * @param bafer Scratch buffer.
+     * @return File offset after the line terminator, or the size of the file if the line is the last one.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long krajReda(FileChannel kanal, long od, long velicina, ByteBuffer bafer) throws IOException {
+        long pozicija = od;
+        while (pozicija < velicina) {
+            bafer.clear();
+            int procitano = kanal.read(bafer, pozicija);
+            if (procitano <= 0) {
+                break;
+            }
+            for (int i = 0; i < procitano; i++) {
+                byte b = bafer.get(i);
+                if (b == '\n') {
+                    return pozicija + i + 1;
+                }
+                if (b == '\r') {
+                    long sljedeci = pozicija + i + 1;
+                    // A '\r' directly followed by '\n' ends the line together with it
+                    if (i + 1 < procitano) {
+                        return bafer.get(i + 1) == '\n' ? sljedeci + 1 : sljedeci;
+                    }
+                    ByteBuffer jedan = ByteBuffer.allocate(1);
+                    return kanal.read(jedan, sljedeci) == 1 && jedan.get(0) == '\n' ? sljedeci + 1 : sljedeci;
+                }
+            }
+            pozicija += procitano;
+        }
+        return velicina;
+    }
+
+    /**
+     * Gets the file offset of the next line.
+     *
+     * @return The file offset of the next line.
+     */
+    public long getPozicija() {
+        return pozicija;
+    }
+
+    /**
+     * Reads the next line and splits it into fields.
+     *
+     * @return {@code true} if a line was read; {@code false} at the end of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public boolean sljedeciRed() throws IOException {
+        if (pozicija >= velicina) {
+            return false;
+        }
+        int prozor = velicinaProzora;
+        while (true) {
+            if (bafer == null || pozicija < pocetakProzora || pozicija >= pocetakProzora + bafer.limit()) {
+                mapiraj(prozor);
+            }
+            int pocetak = (int) (pozicija - pocetakProzora);
+            int granica = bafer.limit();
+            boolean krajFajla = pocetakProzora + granica == velicina;
+
+            int i = pocetak;
+            while (i < granica) {
+                byte b = bafer.get(i);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                i++;
+            }
+
+            if (i < granica) {
+                if (bafer.get(i) == '\r' && i + 1 == granica && !krajFajla) {
+                    // A '\r' at the end of the window may be followed by '\n' in the next one
+                    prozor = Math.max(prozor, granica - pocetak + 1);
+                    mapiraj(prozor);
+                    continue;
+                }
+                int sljedeci = i + 1;
+                if (bafer.get(i) == '\r' && sljedeci < granica && bafer.get(sljedeci) == '\n') {
+                    sljedeci++;
+                }
+                podijeli(pocetak, i);
+                pozicija = pocetakProzora + sljedeci;
+                return true;
+            }
+            if (krajFajla) {
+                podijeli(pocetak, granica);
+                pozicija = velicina;
+                return true;
+            }
+            // The line does not fit into the rest of the window, map a window starting at the line
+            if (pocetak == 0) {
+                prozor = (int) Math.min(Integer.MAX_VALUE - 8, (long) prozor * 2);
+            }
+            mapiraj(prozor);
+        }
+    }
+
+    /**
+     * Maps a window of the file starting at the current position.
+     *
+     * @param prozor Requested size of the window in bytes.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private void mapiraj(int prozor) throws IOException {
+        pocetakProzora = pozicija;
+        long duzina = Math.min(prozor, velicina - pozicija);
+        bafer = kanal.map(FileChannel.MapMode.READ_ONLY, pocetakProzora, duzina);
+    }
+
+    /**
+     * Splits the line between the given offsets into fields.
+     *
+     * @param pocetak Start of the line, relative to the window.
+     * @param kraj End (exclusive) of the line, relative to the window.
+     */
+    private void podijeli(int pocetak, int kraj) {
+        pocetakReda = pocetak;
+        krajReda = kraj;
+        brojPolja = 0;
+        int pocetakTrenutnog = pocetak;
+        for (int i = pocetak; i <= kraj; i++) {
+            if (i == kraj || bafer.get(i) == ',') {
+                if (brojPolja == pocetakPolja.length) {
+                    pocetakPolja = Arrays.copyOf(pocetakPolja, brojPolja * 2);
+                    krajPolja = Arrays.copyOf(krajPolja, brojPolja * 2);
+                }
+                pocetakPolja[brojPolja] = pocetakTrenutnog;
+                krajPolja[brojPolja] = i;
+                brojPolja++;
+                pocetakTrenutnog = i + 1;
+            }
+        }
+        // Like String.split, drop trailing empty fields unless the whole line is empty
+        while (brojPolja > 0 && pocetakPolja[brojPolja - 1] == krajPolja[brojPolja - 1] && kraj > pocetak) {
+            brojPolja--;
+        }
+    }
+
+    /**
+     * Gets the number of fields of the current line.
+     *
+     * @return The number of fields.
+     */
+    public int brojPolja() {
+        return brojPolja;
+    }
+
+    /**
+     * Gets the length of a field in bytes.
+     *
+     * @param polje Index of the field.
+     * @return The length of the field.
+     */
+    public int duzina(int polje) {
+        return krajPolja[polje] - pocetakPolja[polje];
+    }
+
+    /**
+     * Gets a byte of a field.
+     *
+     * @param polje Index of the field.
+     * @param indeks Index of the byte within the field.
+     * @return The byte.
+     */
+    public byte bajt(int polje, int indeks) {
+        return bafer.get(pocetakPolja[polje] + indeks);
+    }
+
+    /**
+     * Checks whether a field equals the given ASCII text, without creating a string.
+     *
+     * @param polje Index of the field.
+     * @param tekst The ASCII text.
+     * @return {@code true} if the field equals the text; {@code false} otherwise.
+     */
+    public boolean jednako(int polje, String tekst) {
+        int duzina = duzina(polje);
+        if (duzina != tekst.length()) {
+            return false;
+        }
+        int pocetak = pocetakPolja[polje];
+        for (int i = 0; i < duzina; i++) {
+            if (bafer.get(pocetak + i) != tekst.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a field as UTF-8 text.
+     *
+     * @param polje Index of the field.
+     * @return The text of the field.
+     */
+    public String tekst(int polje) {
+        return dekodiraj(pocetakPolja[polje], krajPolja[polje]);
+    }
+
+    /**
+     * Decodes the whole current line as UTF-8 text.
+     *
+     * @return The text of the line.
+     */
+    public String red() {
+        return dekodiraj(pocetakReda, krajReda);
+    }
+
+    /**
+     * Decodes a part of the window as UTF-8 text.
+     *
+     * @param pocetak Start of the text, relative to the window.
+     * @param kraj End (exclusive) of the text, relative to the window.
+     * @return The decoded text.
+     */
+    private String dekodiraj(int pocetak, int kraj) {
+        int duzina = kraj - pocetak;
+        if (duzina > meduspremnik.length) {
+            meduspremnik = new byte[Math.max(duzina, meduspremnik.length * 2)];
+        }
+        bafer.get(pocetak, meduspremnik, 0, duzina);
+        return new String(meduspremnik, 0, duzina, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a part of a field as an integer with the rules of {@link Integer#parseInt(String)}.
+     *
+     * @param polje Index of the field.
+     * @param od Index of the first byte within the field.
+     * @param doIndeksa Index after the last byte within the field.
+     * @return The parsed value, or {@link Long#MIN_VALUE} if the bytes are not a valid integer.
+     */
+    public long cijeliBroj(int polje, int od, int doIndeksa) {
+        int pocetak = pocetakPolja[polje] + od;
+        int kraj = pocetakPolja[polje] + doIndeksa;
+        if (pocetak >= kraj) {
+            return NIJE_BROJ;
+        }
+        boolean negativan = false;
+        byte prvi = bafer.get(pocetak);
+        if (prvi == '-' || prvi == '+') {
+            negativan = prvi == '-';
+            pocetak++;
+            if (pocetak == kraj) {
+                return NIJE_BROJ;
+            }
+        }
+        long vrijednost = 0;
+        for (int i = pocetak; i < kraj; i++) {
+            byte b = bafer.get(i);
+            if (b < '0' || b > '9') {
+                return NIJE_BROJ;
+            }
+            vrijednost = vrijednost * 10 + (b - '0');
+            if (vrijednost > (long) Integer.MAX_VALUE + 1) {
+                return NIJE_BROJ;
+            }
+        }
+        vrijednost = negativan ? -vrijednost : vrijednost;
+        return vrijednost < Integer.MIN_VALUE || vrijednost > Integer.MAX_VALUE ? NIJE_BROJ : vrijednost;
+    }
+
+    /**
+     * Parses a whole field as an integer with the rules of {@link Integer#parseInt(String)}.
+     *
+     * @param polje Index of the field.
+     * @return The parsed value, or {@link Long#MIN_VALUE} if the field is not a valid integer.
+     */
+    public long cijeliBroj(int polje) {
+        return cijeliBroj(polje, 0, duzina(polje));
+    }
+
+    /**
+     * Checks whether a value returned by {@link #cijeliBroj(int)} is a valid integer.
+     *
+     * @param vrijednost The value to check.
+     * @return {@code true} if the value is a valid integer; {@code false} otherwise.
+     */
+    public static boolean jeBroj(long vrijednost) {
+        return vrijednost != NIJE_BROJ;
+    }
+
+    /**
+     * Parses a field in the {@code d.M.yyyy HH:mm} format.
+     *
+     * @param polje Index of the field.
+     * @return The parsed date and time, or {@code null} if the field does not have the usual shape
+     *         and must be parsed with a {@link java.time.format.DateTimeFormatter}.
+     */
+    public LocalDateTime datumVrijeme(int polje) {
+        kursor = pocetakPolja[polje];
+        int kraj = krajPolja[polje];
+        int dan = cifre(kraj, 1, 2, '.');
+        int mjesec = cifre(kraj, 1, 2, '.');
+        int godina = cifre(kraj, 4, 4, ' ');
+        int sat = cifre(kraj, 2, 2, ':');
+        int minut = cifre(kraj, 2, 2, -1);
+        if (dan < 0 || mjesec < 0 || godina < 1 || sat < 0 || minut < 0 || kursor != kraj) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(godina, mjesec, dan, sat, minut);
+        } catch (java.time.DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a field in the {@code d.M.yyyy.} format.
+     *
+     * @param polje Index of the field.
+     * @return The parsed date, or {@code null} if the field does not have the usual shape
+     *         and must be parsed with a {@link java.time.format.DateTimeFormatter}.
+     */
+    public LocalDate datum(int polje) {
+        kursor = pocetakPolja[polje];
+        int kraj = krajPolja[polje];
+        int dan = cifre(kraj, 1, 2, '.');
+        int mjesec = cifre(kraj, 1, 2, '.');
+        int godina = cifre(kraj, 4, 4, '.');
+        if (dan < 0 || mjesec < 0 || godina < 1 || kursor != kraj) {
+            return null;
+        }
+        try {
+            return LocalDate.of(godina, mjesec, dan);
+        } catch (java.time.DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a run of digits at the cursor, optionally followed by a separator, and advances the cursor past them.
+     *
+     * @param kraj End (exclusive) of the field.
+     * @param min Minimum number of digits.
+     * @param max Maximum number of digits.
+     * @param separator Expected separator after the digits, or -1 if none.
+     * @return The value of the digits, or -1 if they do not have the expected shape.
+     */
+    private int cifre(int kraj, int min, int max, int separator) {
+        int vrijednost = 0;
+        int broj = 0;
+        int i = kursor;
+        while (i < kraj && broj < max) {
+            byte b = bafer.get(i);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            vrijednost = vrijednost * 10 + (b - '0');
+            broj++;
+            i++;
+        }
+        if (broj < min) {
+            return -1;
+        }
+        if (separator >= 0) {
+            if (i >= kraj || bafer.get(i) != separator) {
+                return -1;
+            }
+            i++;
+        }
+        kursor = i;
+        return vrijednost;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        kanal.close();
+    }
+}
@@ -0,0 +1,315 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of synthetic vehicle and rental files in the formats read by
+ * {@link CitacPrevoznihSredstava} and {@link CitacIznajmljivanja}.
+ *
+ * Rows are written one at a time, so files of hundreds of millions of rows can be generated in constant memory.
+ * The same settings and seed always produce the same files; the vehicle and rental files use separate
+ * random streams derived from the seed, so either can be regenerated alone.
+ *
+ * Rentals are grouped into timestamps one hour apart. The rentals of a timestamp use distinct vehicles, so valid
+ * rows are not rejected as a vehicle already in use. Users are assigned to valid rows in turn; since only the tenth
+ * rental of a user gets the discount, the number of users is chosen so that the requested share of rentals is
+ * discounted, which is why the discount rate cannot exceed 0.1. Invalid rows break one rule each, in turn:
+ * a coordinate outside the map, a location without quotes, a duration that is not a number, a flag other than
+ * da/ne, a malformed date, an empty field, or an unknown vehicle ID.
+ */
+public class GeneratorPodataka {
+    public static final String FAJL_VOZILA = "PJ2 - projektni zadatak 2024 - Prevozna sredstva.csv";  // Name of the vehicle file
+    public static final String FAJL_IZNAJMLJIVANJA = "PJ2 - projektni zadatak 2024 - Iznajmljivanja.csv"; // Name of the rental file
+
+    private static final LocalDateTime POCETAK = LocalDateTime.of(2024, 6, 1, 8, 0); // Time of the first timestamp
+    private static final int VRSTE_NEVALIDNIH = 7;   // Number of ways a row is made invalid
+    private static final int BAFER = 1 << 16;        // Size of the output buffer in characters
+
+    private final long seme;                  // Seed of the random streams
+    private final int brojVozila;             // Number of vehicles
+    private final int brojAutomobila;         // Number of cars, the first vehicles
+    private final int brojBicikala;           // Number of bicycles, after the cars; the rest are scooters
+    private final long brojIznajmljivanja;    // Number of rental rows, valid and invalid
+    private final int poTerminu;              // Rental rows per timestamp
+    private final double udioKvarova;         // Share of valid rentals with a malfunction
+    private final double udioPromocija;       // Share of valid rentals with a promotion
+    private final double udioPopusta;         // Share of valid rentals with a discount
+    private final double udioNevalidnih;      // Share of invalid rental rows
+    private final int velicinaMape;           // Coordinates lie in [0, velicinaMape)
+
+    /**
+     * Constructs a GeneratorPodataka.
+     *
+     * @param seme Seed of the random streams.
+     * @param brojVozila Number of vehicles.
+     * @param udioAutomobila Share of cars in the fleet.
+     * @param udioBicikala Share of bicycles in the fleet; the rest are scooters.
+     * @param brojIznajmljivanja Number of rental rows, valid and invalid.
+     * @param poTerminu Rental rows per timestamp, at most the number of vehicles.
+     * @param udioKvarova Share of valid rentals with a malfunction.
+     * @param udioPromocija Share of valid rentals with a promotion.
+     * @param udioPopusta Share of valid rentals with a discount, at most 0.1.
+     * @param udioNevalidnih Share of invalid rental rows.
+     * @param velicinaMape Size of the map; coordinates of valid rows lie inside it.
+     * @throws IllegalArgumentException If a count or share is out of range.
+     */
+    public GeneratorPodataka(long seme, int brojVozila, double udioAutomobila, double udioBicikala, long brojIznajmljivanja,
+                             int poTerminu, double udioKvarova, double udioPromocija, double udioPopusta, double udioNevalidnih,
+                             int velicinaMape) {
+        if (brojVozila < 1 || brojIznajmljivanja < 0 || poTerminu < 1 || poTerminu > brojVozila || velicinaMape < 1) {
+            throw new IllegalArgumentException("Neispravan broj vozila, iznajmljivanja ili velicina mape");
+        }
+        if (!udio(udioAutomobila) || !udio(udioBicikala) || udioAutomobila + udioBicikala > 1 || !udio(udioKvarova)
+                || !udio(udioPromocija) || !udio(udioNevalidnih) || udioPopusta < 0 || udioPopusta > 0.1) {
+            throw new IllegalArgumentException("Neispravan udio");
+        }
+        this.seme = seme;
+        this.brojVozila = brojVozila;
+        this.brojAutomobila = (int) Math.round(brojVozila * udioAutomobila);
+        this.brojBicikala = Math.min(brojVozila - brojAutomobila, (int) Math.round(brojVozila * udioBicikala));
+        this.brojIznajmljivanja = brojIznajmljivanja;
+        this.poTerminu = poTerminu;
+        this.udioKvarova = udioKvarova;
+        this.udioPromocija = udioPromocija;
+        this.udioPopusta = udioPopusta;
+        this.udioNevalidnih = udioNevalidnih;
+        this.velicinaMape = velicinaMape;
+    }
+
+    /**
+     * Creates a generator from the {@code GENERATOR_*} properties and {@code MAP_SIZE}.
+     *
+     * @param appProps Application properties.
+     * @return The generator.
+     * @throws IllegalArgumentException If a property is out of range.
+     */
+    public static GeneratorPodataka izKonfiguracije(Properties appProps) {
+        return new GeneratorPodataka(
+                Long.parseLong(appProps.getProperty("GENERATOR_SEED", "1156").trim()),
+                Integer.parseInt(appProps.getProperty("GENERATOR_VEHICLES", "1000").trim()),
+                Double.parseDouble(appProps.getProperty("GENERATOR_CAR_SHARE", "0.3").trim()),
+                Double.parseDouble(appProps.getProperty("GENERATOR_BIKE_SHARE", "0.3").trim()),
+                Long.parseLong(appProps.getProperty("GENERATOR_RENTALS", "1000000").trim()),
+                Integer.parseInt(appProps.getProperty("GENERATOR_RENTALS_PER_TIMESTAMP", "10").trim()),
+                Double.parseDouble(appProps.getProperty("GENERATOR_MALFUNCTION_RATE", "0.05").trim()),
+                Double.parseDouble(appProps.getProperty("GENERATOR_PROMOTION_RATE", "0.2").trim()),
+                Double.parseDouble(appProps.getProperty("GENERATOR_DISCOUNT_RATE", "0.05").trim()),
+                Double.parseDouble(appProps.getProperty("GENERATOR_INVALID_RATE", "0.01").trim()),
+                Integer.parseInt(appProps.getProperty("MAP_SIZE", "20").trim()));
+    }
+
+    /**
+     * Writes the vehicle and rental files into a folder, under the names {@code Simulacija} reads.
+     *
+     * @param folder The folder, created if it does not exist.
+     * @throws IOException If a file cannot be written.
+     */
+    public void generisi(Path folder) throws IOException {
+        Files.createDirectories(folder);
+        try (Writer izlaz = otvori(folder.resolve(FAJL_VOZILA))) {
+            pisiVozila(izlaz);
+        }
+        try (Writer izlaz = otvori(folder.resolve(FAJL_IZNAJMLJIVANJA))) {
+            pisiIznajmljivanja(izlaz);
+        }
+    }
+
+    /**
+     * Opens a buffered file writer.
+     */
+    private static Writer otvori(Path fajl) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(fajl), StandardCharsets.UTF_8), BAFER);
+    }
+
+    /**
+     * Writes the vehicle file: the header, then the cars, bicycles and scooters.
+     *
+     * @param izlaz The output.
+     * @throws IOException If the output cannot be written.
+     */
+    public void pisiVozila(Writer izlaz) throws IOException {
+        SplittableRandom random = new SplittableRandom(seme);
+        StringBuilder red = new StringBuilder(96);
+        izlaz.write("ID,Proizvodjac,Model,Datum nabavke,Cijena,Domet,Max Brzina,Opis,Vrsta\n");
+        for (int i = 0; i < brojVozila; i++) {
+            red.setLength(0);
+            String id = idVozila(i);
+            red.append(id).append(',').append(id.charAt(0)).append(',').append(id.charAt(0)).append('M').append(random.nextInt(10) + 1).append(',');
+            if (i < brojAutomobila) {
+                red.append(random.nextInt(28) + 1).append('.').append(random.nextInt(12) + 1).append(".2024.,")
+                        .append(20000 + random.nextInt(40001)).append(",,,opis ").append(id).append(",automobil");
+            } else if (i < brojAutomobila + brojBicikala) {
+                red.append(',').append(1000 + random.nextInt(4001)).append(',').append(30 + random.nextInt(121)).append(",,,bicikl");
+            } else {
+                red.append(',').append(300 + random.nextInt(1701)).append(",,").append(20 + random.nextInt(41)).append(",,trotinet");
+            }
+            izlaz.append(red).append('\n');
+        }
+    }
+
+    /**
+     * Writes the rental file: the header, then the rental rows in timestamp order.
+     *
+     * @param izlaz The output.
+     * @throws IOException If the output cannot be written.
+     */
+    public void pisiIznajmljivanja(Writer izlaz) throws IOException {
+        SplittableRandom random = new SplittableRandom(seme).split().split();
+        StringBuilder red = new StringBuilder(96);
+        long brojKorisnika = brojKorisnika();
+        long validnih = 0;
+        int nevalidnih = 0;
+        int korak = korak(random);
+        izlaz.write("Datum,Korisnik,ID prevoznog sredstva,Pocetna lokacija,Odrediste,Trajanje,Kvar,Promocija\n");
+
+        for (long termin = 0; termin * poTerminu < brojIznajmljivanja; termin++) {
+            String datum = datum(POCETAK.plusHours(termin));
+            int prvoVozilo = random.nextInt(brojVozila);
+            int uTerminu = (int) Math.min(poTerminu, brojIznajmljivanja - termin * poTerminu);
+            for (int j = 0; j < uTerminu; j++) {
+                int vozilo = (int) ((prvoVozilo + (long) j * korak) % brojVozila);
+                int xPreuzimanja = random.nextInt(velicinaMape);
+                int yPreuzimanja = random.nextInt(velicinaMape);
+                int xVracanja = random.nextInt(velicinaMape);
+                int yVracanja = random.nextInt(velicinaMape);
+                int trajanje = random.nextInt(20) + 1;
+                boolean kvar = random.nextDouble() < udioKvarova;
+                boolean promocija = random.nextDouble() < udioPromocija;
+
+                red.setLength(0);
+                if (random.nextDouble() < udioNevalidnih) {
+                    nevalidanRed(red, nevalidnih++ % VRSTE_NEVALIDNIH, datum, idVozila(vozilo),
+                            xPreuzimanja, yPreuzimanja, xVracanja, yVracanja, trajanje);
+                } else {
+                    red.append(datum).append(",K").append(validnih++ % brojKorisnika + 1).append(',').append(idVozila(vozilo))
+                            .append(",\"").append(xPreuzimanja).append(',').append(yPreuzimanja)
+                            .append("\",\"").append(xVracanja).append(',').append(yVracanja).append("\",")
+                            .append(trajanje).append(',').append(kvar ? "da" : "ne").append(',').append(promocija ? "da" : "ne");
+                }
+                izlaz.append(red).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes a rental row that breaks one rule, with the user of an invalid row so users of valid rows keep their turns.
+     */
+    private void nevalidanRed(StringBuilder red, int vrsta, String datum, String id, int xPreuzimanja, int yPreuzimanja,
+                              int xVracanja, int yVracanja, int trajanje) {
+        String lokacija = "\"" + xPreuzimanja + "," + yPreuzimanja + "\"";
+        String odrediste = "\"" + xVracanja + "," + yVracanja + "\"";
+        String trajanjeTekst = Integer.toString(trajanje);
+        String kvar = "ne";
+        switch (vrsta) {
+            case 0:
+                odrediste = "\"" + xVracanja + "," + velicinaMape + "\"";
+                break;
+            case 1:
+                lokacija = xPreuzimanja + "," + yPreuzimanja;
+                break;
+            case 2:
+                trajanjeTekst = trajanje + "s";
+                break;
+            case 3:
+                kvar = "mozda";
+                break;
+            case 4:
+                datum = datum.replace(' ', 'T');
+                break;
+            case 5:
+                id = "";
+                break;
+            default:
+                id = "X" + id;
+                break;
+        }
+        red.append(datum).append(",N,").append(id).append(',').append(lokacija).append(',').append(odrediste).append(',')
+                .append(trajanjeTekst).append(',').append(kvar).append(",ne");
+    }
+
+    /**
+     * Returns the number of users, so that the tenth rental of every user makes up the requested share of discounts.
+     * Without discounts, every user has at most nine rentals.
+     */
+    private long brojKorisnika() {
+        if (udioPopusta == 0) {
+            return Math.max(1, (brojIznajmljivanja + 8) / 9);
+        }
+        return Math.max(1, Math.round(brojIznajmljivanja * (1 - udioNevalidnih) * udioPopusta));
+    }
+
+    /**
+     * Picks a step coprime with the number of vehicles, so the vehicles of a timestamp are distinct.
+     */
+    private int korak(SplittableRandom random) {
+        int korak = random.nextInt(brojVozila) + 1;
+        while (nzd(korak, brojVozila) != 1) {
+            korak++;
+        }
+        return korak;
+    }
+
+    /**
+     * Returns the greatest common divisor.
+     */
+    private static int nzd(int a, int b) {
+        return b == 0 ? a : nzd(b, a % b);
+    }
+
+    /**
+     * Returns the ID of a vehicle: A for cars, B for bicycles and T for scooters, followed by its number.
+     *
+     * @param i Index of the vehicle.
+     * @return The vehicle ID.
+     */
+    public String idVozila(int i) {
+        if (i < brojAutomobila) {
+            return "A" + (i + 1);
+        } else if (i < brojAutomobila + brojBicikala) {
+            return "B" + (i - brojAutomobila + 1);
+        }
+        return "T" + (i - brojAutomobila - brojBicikala + 1);
+    }
+
+    /**
+     * Formats a date and time the way rental files do, such as {@code 1.6.2024 09:00}.
+     */
+    private static String datum(LocalDateTime vrijeme) {
+        return vrijeme.getDayOfMonth() + "." + vrijeme.getMonthValue() + "." + vrijeme.getYear() + " "
+                + (vrijeme.getHour() < 10 ? "0" : "") + vrijeme.getHour() + ":" + (vrijeme.getMinute() < 10 ? "0" : "") + vrijeme.getMinute();
+    }
+
+    /**
+     * Checks that a share lies in [0, 1].
+     */
+    private static boolean udio(double udio) {
+        return udio >= 0 && udio <= 1;
+    }
+
+    /**
+     * Returns the number of vehicles.
+     *
+     * @return The number of vehicles.
+     */
+    public int getBrojVozila() {
+        return brojVozila;
+    }
+
+    /**
+     * Returns the number of rental rows.
+     *
+     * @return The number of rental rows, valid and invalid.
+     */
+    public long getBrojIznajmljivanja() {
+        return brojIznajmljivanja;
+    }
+}
@@ -0,0 +1,169 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.rental.Iznajmljivanje;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reads the rental CSV file in parallel on a {@link ForkJoinPool}.
+ *
+ * The rows after the header line are split into line-aligned parts, and each part is validated and parsed by its own
+ * {@link CitacIznajmljivanja}. The parts are returned in file order, each with its valid rows in file order, so the
+ * caller can apply rules that depend on the order of the rows, such as the discount for every tenth rental of a user.
+ * Files smaller than the minimum part size, {@value #MIN_DIO} bytes by default, are read on the calling thread.
+ */
+public class ParalelniCitacIznajmljivanja {
+    private static final long MIN_DIO = 1024 * 1024; // Minimum size of a part in bytes
+    private static final int DIJELOVA_PO_NITI = 4;    // Parts per thread, so threads finishing early can take more
+
+    private final Path putanja;     // Path of the rental file
+    private final int paralelnost;  // Number of threads reading the parts
+    private final long minDio;      // Minimum size of a part in bytes
+
+    /**
+     * Rows of one part of the file.
+     */
+    public static final class Dio {
+        private final ArrayList<Iznajmljivanje> iznajmljivanja = new ArrayList<>(); // Valid rows in file order, without discounts
+        private int brojNevalidnih; // Number of invalid rows
+
+        private Dio() {
+        }
+
+        /**
+         * Returns the rentals of the valid rows in file order. Discounts are not set,
+         * because they depend on the rows of the preceding parts.
+         *
+         * @return The rentals of the part.
+         */
+        public List<Iznajmljivanje> getIznajmljivanja() {
+            return iznajmljivanja;
+        }
+
+        /**
+         * Returns the number of invalid rows of the part.
+         *
+         * @return The number of invalid rows.
+         */
+        public int getBrojNevalidnih() {
+            return brojNevalidnih;
+        }
+    }
+
+    /**
+     * Constructs a ParalelniCitacIznajmljivanja.
+     *
+     * @param putanja Path of the rental file.
+     * @param paralelnost Number of threads, or 0 for one per available processor.
+     */
+    public ParalelniCitacIznajmljivanja(Path putanja, int paralelnost) {
+        this(putanja, paralelnost, MIN_DIO);
+    }
+
+    /**
+     * Constructs a ParalelniCitacIznajmljivanja with a given minimum part size.
+     *
+     * @param putanja Path of the rental file.
+     * @param paralelnost Number of threads, or 0 for one per available processor.
+     * @param minDio Minimum size of a part in bytes.
+     */
+    public ParalelniCitacIznajmljivanja(Path putanja, int paralelnost, long minDio) {
+        this.putanja = putanja;
+        this.paralelnost = paralelnost > 0 ? paralelnost : Runtime.getRuntime().availableProcessors();
+        this.minDio = Math.max(1, minDio);
+    }
+
+    /**
+     * Creates a reader using the number of threads given by {@code LOAD_PARALLELISM}.
+     *
+     * @param putanja Path of the rental file.
+     * @param appProps Application properties.
+     * @return The reader.
+     */
+    public static ParalelniCitacIznajmljivanja izKonfiguracije(Path putanja, Properties appProps) {
+        return new ParalelniCitacIznajmljivanja(putanja, Integer.parseInt(appProps.getProperty("LOAD_PARALLELISM", "0").trim()));
+    }
+
+    /**
+     * Reads the whole file.
+     *
+     * @return The parts of the file in file order.
+     * @throws IOException If the file cannot be read.
+     */
+    public List<Dio> procitaj() throws IOException {
+        long pocetak;
+        try (CsvCitac csv = new CsvCitac(putanja)) {
+            csv.sljedeciRed(); // Skip header line
+            pocetak = csv.getPozicija();
+        }
+        long velicina = Files.size(putanja);
+        int brojDijelova = (int) Math.max(1, Math.min((long) paralelnost * DIJELOVA_PO_NITI, (velicina - pocetak) / minDio));
+        long[] granice = CsvCitac.granice(putanja, pocetak, brojDijelova);
+        if (brojDijelova == 1 || paralelnost == 1) {
+            ArrayList<Dio> dijelovi = new ArrayList<>();
+            for (int i = 0; i < brojDijelova; i++) {
+                dijelovi.add(procitajDio(granice[i], granice[i + 1]));
+            }
+            return dijelovi;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(paralelnost);
+        try {
+            ArrayList<ForkJoinTask<Dio>> zadaci = new ArrayList<>();
+            for (int i = 0; i < brojDijelova; i++) {
+                long od = granice[i];
+                long doPozicije = granice[i + 1];
+                zadaci.add(pool.submit(() -> procitajDio(od, doPozicije)));
+            }
+            ArrayList<Dio> dijelovi = new ArrayList<>();
+            for (ForkJoinTask<Dio> zadatak : zadaci) {
+                dijelovi.add(zadatak.get());
+            }
+            return dijelovi;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ucitavanje iznajmljivanja je prekinuto");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads one part of the file.
+     *
+     * @param od File offset of the first row of the part.
+     * @param doPozicije File offset after the last row of the part.
+     * @return The rows of the part.
+     * @throws IOException If the file cannot be read.
+     */
+    private Dio procitajDio(long od, long doPozicije) throws IOException {
+        Dio dio = new Dio();
+        try (CitacIznajmljivanja citac = new CitacIznajmljivanja(putanja, od, doPozicije)) {
+            while (citac.sljedeci()) {
+                if (!citac.isValidan()) {
+                    dio.brojNevalidnih++;
+                    continue;
+                }
+                dio.iznajmljivanja.add(new Iznajmljivanje(citac.getDatumVrijemeIznajmljivanja(), citac.getImeKorisnika(),
+                        "123456", "654321", citac.getIDPrevoznogSredstva(),
+                        citac.getXPreuzimanja(), citac.getYPreuzimanja(), citac.getXVracanja(), citac.getYVracanja(),
+                        citac.getTrajanjeSekunde(), citac.isKvar(), citac.isPromocija(), false));
+            }
+        }
+        return dio;
+    }
+}
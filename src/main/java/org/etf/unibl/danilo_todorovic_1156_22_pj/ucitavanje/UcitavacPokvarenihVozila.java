@@ -0,0 +1,217 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.IstorijaSnimaka;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.PrevoznoSredstvo;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Loads the vehicles saved in the malfunctions folder and keeps them up to date on a background thread.
+ * Each snapshot history file ({@code .kvs}) shows its latest snapshot; Java serialization files ({@code .ser})
+ * written by earlier versions are read as well, unless the vehicle also has a snapshot history.
+ *
+ * Decoded vehicles are cached by file together with the file key and modification time, so a file is only
+ * deserialized again when it is replaced or modified. The folder is watched with a {@link WatchService}; after
+ * every burst of changes the changed files are reported to the consumer as a map from file to vehicle, where
+ * a {@code null} vehicle means the file was deleted.
+ */
+public class UcitavacPokvarenihVozila implements AutoCloseable {
+    private static final long SMIRIVANJE_MS = 100; // Time without further changes before the folder is scanned again
+
+    private final Path folder;                                      // Folder holding the saved vehicles
+    private final Consumer<Map<Path, PrevoznoSredstvo>> potrosac;   // Receives the changed files
+    private final HashMap<Path, Zapis> kes = new HashMap<>();      // Decoded vehicle per file
+    private WatchService watchService;                              // Watches the folder, or null before start
+    private Thread nit;                                             // Background thread, or null before start
+    private volatile long brojDeserijalizacija;                     // Number of files deserialized
+
+    /**
+     * A vehicle decoded from a file, with the attributes the file had when it was read.
+     */
+    private static final class Zapis {
+        private final Object kljuc;             // File key, or null if the file system has none
+        private final long vrijemeIzmjene;      // Modification time in milliseconds
+        private final long velicina;            // Size in bytes
+        private final PrevoznoSredstvo vozilo;  // Decoded vehicle
+
+        private Zapis(BasicFileAttributes atributi, PrevoznoSredstvo vozilo) {
+            this.kljuc = atributi.fileKey();
+            this.vrijemeIzmjene = atributi.lastModifiedTime().toMillis();
+            this.velicina = atributi.size();
+            this.vozilo = vozilo;
+        }
+
+        private boolean isAktuelan(BasicFileAttributes atributi) {
+            return Objects.equals(kljuc, atributi.fileKey())
+                    && vrijemeIzmjene == atributi.lastModifiedTime().toMillis()
+                    && velicina == atributi.size();
+        }
+    }
+
+    /**
+     * Constructs an UcitavacPokvarenihVozila.
+     *
+     * @param folder Folder holding the saved vehicles.
+     * @param potrosac Receives the changed files, called on the background thread.
+     */
+    public UcitavacPokvarenihVozila(Path folder, Consumer<Map<Path, PrevoznoSredstvo>> potrosac) {
+        this.folder = folder;
+        this.potrosac = potrosac;
+    }
+
+    /**
+     * Starts the background thread, which loads all saved vehicles and then reloads changed files.
+     * Calling this method more than once has no effect.
+     *
+     * @throws IOException If the folder cannot be watched.
+     */
+    public synchronized void pokreni() throws IOException {
+        if (nit != null) {
+            return;
+        }
+        Files.createDirectories(folder);
+        watchService = FileSystems.getDefault().newWatchService();
+        folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+
+        WatchService ws = watchService;
+        nit = new Thread(() -> {
+            try (ws) {
+                objavi(skeniraj());
+                while (true) {
+                    WatchKey kljuc = ws.take();
+                    while (kljuc != null) {
+                        kljuc.pollEvents();
+                        kljuc.reset();
+                        kljuc = ws.poll(SMIRIVANJE_MS, TimeUnit.MILLISECONDS);
+                    }
+                    objavi(skeniraj());
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "kvarovi");
+        nit.setDaemon(true);
+        nit.start();
+    }
+
+    /**
+     * Lists the folder and deserializes the files that are new or changed since the last scan.
+     * Files that cannot be read yet, for example while they are still being written, are retried on the next scan.
+     *
+     * @return The changed files with their vehicles; deleted files map to {@code null}.
+     * @throws IOException If the folder cannot be listed.
+     */
+    private Map<Path, PrevoznoSredstvo> skeniraj() throws IOException {
+        LinkedHashMap<Path, PrevoznoSredstvo> promjene = new LinkedHashMap<>();
+        HashSet<Path> postojeci = new HashSet<>();
+        try (DirectoryStream<Path> fajlovi = Files.newDirectoryStream(folder)) {
+            for (Path fajl : fajlovi) {
+                BasicFileAttributes atributi;
+                try {
+                    atributi = Files.readAttributes(fajl, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    continue; // Deleted while listing
+                }
+                String naziv = fajl.getFileName().toString();
+                if (!atributi.isRegularFile()
+                        || !(naziv.endsWith(IstorijaSnimaka.EKSTENZIJA) || naziv.endsWith(IstorijaSnimaka.STARA_EKSTENZIJA))) {
+                    continue;
+                }
+                if (naziv.endsWith(IstorijaSnimaka.STARA_EKSTENZIJA) && Files.exists(fajl.resolveSibling(
+                        naziv.substring(0, naziv.length() - IstorijaSnimaka.STARA_EKSTENZIJA.length()) + IstorijaSnimaka.EKSTENZIJA))) {
+                    continue; // The snapshot history of the vehicle replaces its old file
+                }
+                postojeci.add(fajl);
+                Zapis zapis = kes.get(fajl);
+                if (zapis != null && zapis.isAktuelan(atributi)) {
+                    continue;
+                }
+                PrevoznoSredstvo vozilo = deserijalizuj(fajl);
+                if (vozilo != null) {
+                    kes.put(fajl, new Zapis(atributi, vozilo));
+                    promjene.put(fajl, vozilo);
+                }
+            }
+        }
+        kes.keySet().removeIf(fajl -> {
+            if (!postojeci.contains(fajl)) {
+                promjene.put(fajl, null);
+                return true;
+            }
+            return false;
+        });
+        return promjene;
+    }
+
+    /**
+     * Reads the latest state of the vehicle saved in a file.
+     *
+     * @param fajl The snapshot history or Java serialization file.
+     * @return The vehicle, or {@code null} if the file cannot be read.
+     */
+    private PrevoznoSredstvo deserijalizuj(Path fajl) {
+        try {
+            brojDeserijalizacija++;
+            return IstorijaSnimaka.procitajStanje(fajl);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Hands the changed files to the consumer if there are any.
+     *
+     * @param promjene The changed files.
+     */
+    private void objavi(Map<Path, PrevoznoSredstvo> promjene) {
+        if (!promjene.isEmpty()) {
+            potrosac.accept(promjene);
+        }
+    }
+
+    /**
+     * Returns the number of files deserialized so far.
+     *
+     * @return The number of deserialized files.
+     */
+    public long getBrojDeserijalizacija() {
+        return brojDeserijalizacija;
+    }
+
+    /**
+     * Stops watching the folder. The background thread ends after its current scan.
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if (nit != null) {
+            nit.interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+
+/**
+ * Folds invoices into running per-day and overall business totals as rentals complete.
+ *
+ * Each invoice is added once, so reading the current totals does not depend on the number of rentals,
+ * and invoices do not have to be kept after they are added. Sums are compensated to stay accurate
+ * regardless of the order in which concurrent rentals complete.
+ */
+public class AgregatorPoslovanja {
+    private final HashMap<LocalDate, Zbirovi> otvoreniDani = new HashMap<>(); // Totals of days that are not closed yet
+    private final Zbirovi ukupno = new Zbirovi(); // Totals over all days
+
+    /**
+     * Running totals of the cost components of invoices.
+     */
+    private static final class Zbirovi {
+        private final KompenzovaniZbir ukupnaCijena = new KompenzovaniZbir();
+        private final KompenzovaniZbir cijenaPopusta = new KompenzovaniZbir();
+        private final KompenzovaniZbir cijenaPromocije = new KompenzovaniZbir();
+        private final KompenzovaniZbir cijenaUdaljenosti = new KompenzovaniZbir();
+        private final KompenzovaniZbir cijenaPopravki = new KompenzovaniZbir();
+
+        private void dodaj(Racun racun) {
+            ukupnaCijena.dodaj(racun.getUkupnaCijena());
+            cijenaPopusta.dodaj(racun.getCijenaPopusta());
+            cijenaPromocije.dodaj(racun.getCijenaPromocije());
+            cijenaUdaljenosti.dodaj(racun.getCijenaUdaljenosti());
+            cijenaPopravki.dodaj(racun.getCijenaPopravke());
+        }
+    }
+
+    /**
+     * Adds an invoice to the totals of its day and to the overall totals.
+     *
+     * @param datum The date of the rental.
+     * @param racun The invoice.
+     */
+    public synchronized void dodaj(LocalDate datum, Racun racun) {
+        otvoreniDani.computeIfAbsent(datum, d -> new Zbirovi()).dodaj(racun);
+        ukupno.dodaj(racun);
+    }
+
+    /**
+     * Closes a day and returns its results. Invoices added for the day afterwards start a new total.
+     *
+     * @param datum The date to close.
+     * @return The results of the day.
+     */
+    public synchronized DnevniRezultatPoslovanja zatvoriDan(LocalDate datum) {
+        Zbirovi dan = otvoreniDani.remove(datum);
+        if (dan == null) {
+            dan = new Zbirovi();
+        }
+        return new DnevniRezultatPoslovanja(datum, dan.ukupnaCijena.getVrijednost(), dan.cijenaPopusta.getVrijednost(),
+                dan.cijenaPromocije.getVrijednost(), dan.cijenaUdaljenosti.getVrijednost(), dan.cijenaPopravki.getVrijednost());
+    }
+
+    /**
+     * Returns the results over all invoices added so far.
+     *
+     * @return The summary results.
+     */
+    public synchronized SumarniRezultatPoslovanja getSumarniRezultat() {
+        return new SumarniRezultatPoslovanja(ukupno.ukupnaCijena.getVrijednost(), ukupno.cijenaPopusta.getVrijednost(),
+                ukupno.cijenaPromocije.getVrijednost(), ukupno.cijenaUdaljenosti.getVrijednost(), ukupno.cijenaPopravki.getVrijednost());
+    }
+}
@@ -0,0 +1,189 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable snapshot of the pricing and discount parameters from the properties file.
+ *
+ * The current snapshot is loaded once and shared by all threads, so pricing never reads the properties
+ * file. A reload builds a complete new snapshot and replaces the current one atomically; a receipt that
+ * already holds a snapshot keeps using it.
+ */
+public final class CjenovnaKonfiguracija {
+    private static final String PROPERTIES_PATH = "app.properties";
+    private static final AtomicReference<CjenovnaKonfiguracija> trenutna = new AtomicReference<>(); // Current snapshot
+    private static Thread pracenje; // Thread watching the properties file, if enabled
+
+    private final double distance_narrow;
+    private final double distance_wide;
+    private final double discount;
+    private final double discount_prom;
+    private final double car_unit_price;
+    private final double bike_unit_price;
+    private final double scooter_unit_price;
+
+    /**
+     * Constructs a snapshot from the application properties.
+     *
+     * @param appProps The application properties.
+     */
+    private CjenovnaKonfiguracija(Properties appProps) {
+        this.distance_narrow = Double.parseDouble(appProps.getProperty("DISTANCE_NARROW"));
+        this.distance_wide = Double.parseDouble(appProps.getProperty("DISTANCE_WIDE"));
+        this.discount = Double.parseDouble(appProps.getProperty("DISCOUNT"));
+        this.discount_prom = Double.parseDouble(appProps.getProperty("DISCOUNT_PROM"));
+        this.car_unit_price = Double.parseDouble(appProps.getProperty("CAR_UNIT_PRICE"));
+        this.bike_unit_price = Double.parseDouble(appProps.getProperty("BIKE_UNIT_PRICE"));
+        this.scooter_unit_price = Double.parseDouble(appProps.getProperty("SCOOTER_UNIT_PRICE"));
+    }
+
+    /**
+     * Returns the current snapshot, loading it from the properties file on first use.
+     *
+     * @return The current pricing configuration.
+     */
+    public static CjenovnaKonfiguracija getTrenutna() {
+        CjenovnaKonfiguracija konfiguracija = trenutna.get();
+        if (konfiguracija == null) {
+            trenutna.compareAndSet(null, new CjenovnaKonfiguracija(Utility.getProperties()));
+            konfiguracija = trenutna.get();
+        }
+        return konfiguracija;
+    }
+
+    /**
+     * Loads a new snapshot from the properties file and makes it current.
+     * If the file cannot be parsed, the current snapshot is kept.
+     */
+    public static void ponovoUcitaj() {
+        try {
+            trenutna.set(new CjenovnaKonfiguracija(Utility.getProperties()));
+        } catch (RuntimeException e) {
+            System.out.println("Cjenovnik nije ponovo ucitan, zadrzava se postojeci");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Starts watching the properties file and reloads the snapshot whenever it is modified.
+     * Only a properties file on the file system can be watched. Calling this method more than once has no effect.
+     *
+     * @throws IOException If the directory of the properties file cannot be watched.
+     */
+    public static synchronized void pratiPromjene() throws IOException {
+        if (pracenje != null) {
+            return;
+        }
+        URL url = Thread.currentThread().getContextClassLoader().getResource(PROPERTIES_PATH);
+        if (url == null || !"file".equals(url.getProtocol())) {
+            System.out.println("Promjene cjenovnika se ne mogu pratiti: " + url);
+            return;
+        }
+        Path putanja;
+        try {
+            putanja = Path.of(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        putanja.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        pracenje = new Thread(() -> {
+            try (watchService) {
+                while (true) {
+                    WatchKey kljuc = watchService.take();
+                    boolean promijenjen = false;
+                    for (WatchEvent<?> dogadjaj : kljuc.pollEvents()) {
+                        if (putanja.getFileName().equals(dogadjaj.context())) {
+                            promijenjen = true;
+                        }
+                    }
+                    kljuc.reset();
+                    if (promijenjen) {
+                        ponovoUcitaj();
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "cjenovnik");
+        pracenje.setDaemon(true);
+        pracenje.start();
+    }
+
+    /**
+     * Returns the distance coefficient inside the narrow zone.
+     *
+     * @return the distance coefficient inside the narrow zone as a double.
+     */
+    public double getDistanceNarrow() {
+        return distance_narrow;
+    }
+
+    /**
+     * Returns the distance coefficient outside the narrow zone.
+     *
+     * @return the distance coefficient outside the narrow zone as a double.
+     */
+    public double getDistanceWide() {
+        return distance_wide;
+    }
+
+    /**
+     * Returns the discount rate for every tenth rental.
+     *
+     * @return the discount rate for every tenth rental as a double.
+     */
+    public double getDiscount() {
+        return discount;
+    }
+
+    /**
+     * Returns the promotional discount rate.
+     *
+     * @return the promotional discount rate as a double.
+     */
+    public double getDiscountProm() {
+        return discount_prom;
+    }
+
+    /**
+     * Returns the price per second for cars.
+     *
+     * @return the price per second for cars as a double.
+     */
+    public double getCarUnitPrice() {
+        return car_unit_price;
+    }
+
+    /**
+     * Returns the price per second for bikes.
+     *
+     * @return the price per second for bikes as a double.
+     */
+    public double getBikeUnitPrice() {
+        return bike_unit_price;
+    }
+
+    /**
+     * Returns the price per second for scooters.
+     *
+     * @return the price per second for scooters as a double.
+     */
+    public double getScooterUnitPrice() {
+        return scooter_unit_price;
+    }
+}
@@ -1,7 +1,6 @@
 package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 
 /**
  * Represents the daily financial results of a business.
@@ -16,38 +15,23 @@ public class DnevniRezultatPoslovanja {
     private final LocalDate datum;            // Date of the results
 
     /**
-     * Constructs a DnevniRezultatPoslovanja object by calculating the financial results
-     * based on a list of invoices (racuni) and a specific date.
+     * Constructs a DnevniRezultatPoslovanja object from the totals of the invoices of a specific date.
      *
-     * @param racuni List of Racun objects representing invoices for the day.
      * @param datum The date for which the financial results are calculated.
+     * @param ukupnaCijena Total price of the invoices.
+     * @param cijenaPopusta Total discount of the invoices.
+     * @param cijenaPromocije Total promotion discount of the invoices.
+     * @param cijenaUdaljenosti Total distance-based price of the invoices.
+     * @param cijenaPopravki Total repair cost of the invoices.
      */
-    public DnevniRezultatPoslovanja(ArrayList<Racun> racuni, LocalDate datum) {
-        double ukupnaCijena = 0.0;
-        double cijenaPopusta = 0.0;
-        double cijenaPromocije = 0.0;
-        double cijenaUdaljenosti = 0.0;
-        double cijenaOdrzavanja = 0.0;
-        double cijenaPopravki = 0.0;
-
-        // Calculating totals for each category based on the provided invoices
-        for (Racun racun : racuni) {
-            ukupnaCijena += racun.getUkupnaCijena();
-            cijenaPopusta += racun.getCijenaPopusta();
-            cijenaPromocije += racun.getCijenaPromocije();
-            cijenaUdaljenosti += racun.getCijenaUdaljenosti();
-            cijenaPopravki += racun.getCijenaPopravke();
-        }
-
-        // Maintenance cost is set as 20% of the total cost
-        cijenaOdrzavanja = ukupnaCijena * 0.2;
-
-        // Initializing instance variables with calculated values
+    public DnevniRezultatPoslovanja(LocalDate datum, double ukupnaCijena, double cijenaPopusta, double cijenaPromocije,
+                                    double cijenaUdaljenosti, double cijenaPopravki) {
         this.ukupnaCijena = ukupnaCijena;
         this.cijenaPopusta = cijenaPopusta;
         this.cijenaPromocije = cijenaPromocije;
         this.cijenaUdaljenosti = cijenaUdaljenosti;
-        this.cijenaOdrzavanja = cijenaOdrzavanja;
+        // Maintenance cost is set as 20% of the total cost
+        this.cijenaOdrzavanja = ukupnaCijena * 0.2;
         this.cijenaPopravki = cijenaPopravki;
         this.datum = datum;
     }
@@ -0,0 +1,283 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
+
+import java.io.PrintStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Singleton asynchronous log of diagnostic events, such as invalid input rows or recharged batteries.
+ *
+ * Simulation threads only claim a slot of a ring buffer and store the {@link KodDogadjaja} and its argument there;
+ * the message is formatted and printed to standard output by a background thread, so writing an event never waits
+ * for the output stream. If the buffer is full the event is dropped instead of blocking the caller.
+ * While the buffer is empty the background thread is parked, and the next writer wakes it up.
+ *
+ * Every code may be written at most {@code LOG_RATE_LIMIT} times per second. Further events of that code are counted
+ * and reported once per second as a single line, so a file with many invalid rows does not flood the output.
+ */
+public class DnevnikDogadjaja {
+    private static final long PAUZA_NANO = TimeUnit.MILLISECONDS.toNanos(1); // Wait between checks while emptying the log
+    private static final long SEKUNDA_NANO = TimeUnit.SECONDS.toNanos(1);    // Length of a rate limiting window
+    private static DnevnikDogadjaja instance; // Singleton instance
+
+    private final int maska;                        // Capacity of the buffer minus one; the capacity is a power of two
+    private final KodDogadjaja[] kodovi;            // Code of the event in each slot
+    private final Object[] argumenti;               // Argument of the event in each slot
+    private final AtomicLongArray objavljeno;       // Sequence number plus one of the event published in each slot
+    private final AtomicLong rep = new AtomicLong(); // Sequence number of the next claimed slot
+    private volatile long glava;                    // Sequence number of the next event to print
+    private final int ogranicenje;                  // Events per code and second, 0 = unlimited
+    private final AtomicLongArray prozori;          // Rate limiting window of each code, in seconds
+    private final AtomicLongArray brojUProzoru;     // Events of each code in its current window
+    private final LongAdder[] izostavljeno;         // Events of each code suppressed since the last report
+    private final LongAdder ukupnoIzostavljeno = new LongAdder(); // Events suppressed by rate limiting
+    private final LongAdder odbaceno = new LongAdder();           // Events dropped because the buffer was full
+    private final PrintStream izlaz;                // Stream the messages are printed to
+    private final Thread nit;                       // Background thread printing the messages
+    private volatile boolean ceka;                  // Whether the background thread is parked or about to park
+    private final AtomicLong zahtjeviPraznjenja = new AtomicLong(); // Number of calls to isprazni
+    private volatile long ispraznjeno;              // Calls to isprazni whose suppressed events were reported
+
+    /**
+     * Constructs a DnevnikDogadjaja and starts its background thread.
+     *
+     * @param kapacitet Number of events the buffer can hold, rounded up to a power of two.
+     * @param ogranicenje Events per code and second, or 0 for no limit.
+     * @param izlaz Stream the messages are printed to.
+     */
+    public DnevnikDogadjaja(int kapacitet, int ogranicenje, PrintStream izlaz) {
+        int velicina = Integer.highestOneBit(Math.max(2, kapacitet) - 1) << 1;
+        this.maska = velicina - 1;
+        this.kodovi = new KodDogadjaja[velicina];
+        this.argumenti = new Object[velicina];
+        this.objavljeno = new AtomicLongArray(velicina);
+        this.ogranicenje = Math.max(0, ogranicenje);
+        int brojKodova = KodDogadjaja.values().length;
+        this.prozori = new AtomicLongArray(brojKodova);
+        this.brojUProzoru = new AtomicLongArray(brojKodova);
+        this.izostavljeno = new LongAdder[brojKodova];
+        for (int i = 0; i < brojKodova; i++) {
+            izostavljeno[i] = new LongAdder();
+        }
+        this.izlaz = izlaz;
+
+        this.nit = new Thread(this::pisanje, "dogadjaji");
+        nit.setDaemon(true);
+        nit.start();
+    }
+
+    /**
+     * Creates a log configured by {@code LOG_BUFFER_SIZE} and {@code LOG_RATE_LIMIT}, printing to standard output.
+     *
+     * @param appProps Application properties.
+     * @return The log.
+     */
+    public static DnevnikDogadjaja izKonfiguracije(Properties appProps) {
+        int kapacitet = Integer.parseInt(appProps.getProperty("LOG_BUFFER_SIZE", "8192").trim());
+        int ogranicenje = Integer.parseInt(appProps.getProperty("LOG_RATE_LIMIT", "100").trim());
+        return new DnevnikDogadjaja(kapacitet, ogranicenje, System.out);
+    }
+
+    /**
+     * Returns the singleton instance, configured from the properties file on first use.
+     *
+     * @return The event log.
+     */
+    public static synchronized DnevnikDogadjaja getInstance() {
+        if (instance == null) {
+            instance = izKonfiguracije(Utility.getProperties());
+            Metrike.getInstance().mjerac("dogadjaji.odbaceno", instance::getBrojOdbacenih);
+            Metrike.getInstance().mjerac("dogadjaji.izostavljeno", instance::getBrojIzostavljenih);
+        }
+        return instance;
+    }
+
+    /**
+     * Writes an event without an argument.
+     *
+     * @param kod Code of the event.
+     */
+    public void zabiljezi(KodDogadjaja kod) {
+        zabiljezi(kod, null);
+    }
+
+    /**
+     * Writes an event. The call never blocks: the event is suppressed if its code exceeded the rate limit,
+     * and dropped if the buffer is full.
+     *
+     * @param kod Code of the event.
+     * @param argument Argument completing the message, formatted on the background thread.
+     */
+    public void zabiljezi(KodDogadjaja kod, Object argument) {
+        if (!dozvoljeno(kod)) {
+            return;
+        }
+        long sekvenca;
+        do {
+            sekvenca = rep.get();
+            if (sekvenca - glava > maska) {
+                odbaceno.increment();
+                return;
+            }
+        } while (!rep.compareAndSet(sekvenca, sekvenca + 1));
+
+        int i = (int) sekvenca & maska;
+        kodovi[i] = kod;
+        argumenti[i] = argument;
+        objavljeno.set(i, sekvenca + 1); // Publishes the slot to the background thread
+        probudi();
+    }
+
+    /**
+     * Waits until every event written before this call is printed, and the events suppressed
+     * by rate limiting until then are reported.
+     */
+    public void isprazni() {
+        long zahtjev = zahtjeviPraznjenja.incrementAndGet();
+        long cilj = rep.get();
+        LockSupport.unpark(nit);
+        while (glava < cilj || ispraznjeno < zahtjev) {
+            LockSupport.parkNanos(PAUZA_NANO);
+        }
+    }
+
+    /**
+     * Returns the number of events dropped because the buffer was full.
+     *
+     * @return The number of dropped events.
+     */
+    public long getBrojOdbacenih() {
+        return odbaceno.sum();
+    }
+
+    /**
+     * Returns the number of events suppressed by rate limiting.
+     *
+     * @return The number of suppressed events.
+     */
+    public long getBrojIzostavljenih() {
+        return ukupnoIzostavljeno.sum();
+    }
+
+    /**
+     * Counts an event in the current one second window of its code.
+     *
+     * @param kod Code of the event.
+     * @return {@code true} if the event is within the rate limit; {@code false} if it is suppressed.
+     */
+    private boolean dozvoljeno(KodDogadjaja kod) {
+        if (ogranicenje == 0) {
+            return true;
+        }
+        int k = kod.ordinal();
+        long prozor = System.nanoTime() / SEKUNDA_NANO;
+        long prethodni = prozori.get(k);
+        if (prethodni != prozor && prozori.compareAndSet(k, prethodni, prozor)) {
+            brojUProzoru.set(k, 0);
+        }
+        if (brojUProzoru.incrementAndGet(k) <= ogranicenje) {
+            return true;
+        }
+        izostavljeno[k].increment();
+        ukupnoIzostavljeno.increment();
+        probudi(); // The background thread reports suppressed events once per second, even when idle
+        return false;
+    }
+
+    /**
+     * Wakes the background thread if it is parked. Only the flag is read when it is running.
+     */
+    private void probudi() {
+        if (ceka) {
+            ceka = false;
+            LockSupport.unpark(nit);
+        }
+    }
+
+    /**
+     * Checks whether any suppressed events are waiting to be reported.
+     *
+     * @return {@code true} if an event was suppressed since the last report.
+     */
+    private boolean imaIzostavljenih() {
+        for (LongAdder broj : izostavljeno) {
+            if (broj.sum() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Body of the background thread: prints published events in order, and once per second, or when
+     * {@link #isprazni()} asks for it, reports the events suppressed by rate limiting.
+     */
+    private void pisanje() {
+        StringBuilder sb = new StringBuilder();
+        long izvjestaj = System.nanoTime();
+        while (true) {
+            long zahtjev = zahtjeviPraznjenja.get();
+            long g = glava;
+            int i = (int) g & maska;
+            while (objavljeno.get(i) == g + 1) {
+                sb.append(kodovi[i].poruka(argumenti[i])).append(System.lineSeparator());
+                argumenti[i] = null;
+                g++;
+                i = (int) g & maska;
+                if (sb.length() >= 8192) {
+                    break;
+                }
+            }
+            boolean prazno = objavljeno.get(i) != g + 1;
+
+            long sada = System.nanoTime();
+            if (sada - izvjestaj >= SEKUNDA_NANO || (prazno && zahtjev != ispraznjeno)) {
+                izvjestaj = sada;
+                for (KodDogadjaja kod : KodDogadjaja.values()) {
+                    long broj = izostavljeno[kod.ordinal()].sumThenReset();
+                    if (broj > 0) {
+                        sb.append(kod).append(": izostavljeno ").append(broj).append(" poruka").append(System.lineSeparator());
+                    }
+                }
+            }
+
+            if (sb.length() > 0) {
+                izlaz.print(sb);
+                izlaz.flush();
+                sb.setLength(0);
+            }
+            if (g != glava) {
+                glava = g; // Frees the printed slots for writers
+            }
+            if (prazno) {
+                ispraznjeno = zahtjev;
+                cekaj(izvjestaj);
+            }
+        }
+    }
+
+    /**
+     * Parks the background thread until an event is published or {@link #isprazni()} is called.
+     * While suppressed events wait to be reported, it wakes up at the end of the reporting second.
+     *
+     * @param izvjestaj Time of the last report of suppressed events, from {@link System#nanoTime()}.
+     */
+    private void cekaj(long izvjestaj) {
+        ceka = true;
+        // Checked after setting the flag, so an event published before a writer saw the flag is not missed
+        if (objavljeno.get((int) glava & maska) == glava + 1 || zahtjeviPraznjenja.get() != ispraznjeno) {
+            ceka = false;
+            return;
+        }
+        if (imaIzostavljenih()) {
+            LockSupport.parkNanos(this, izvjestaj + SEKUNDA_NANO - System.nanoTime());
+        } else {
+            LockSupport.park(this);
+        }
+        ceka = false;
+    }
+}
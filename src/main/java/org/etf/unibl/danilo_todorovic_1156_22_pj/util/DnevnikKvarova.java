@@ -0,0 +1,625 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only journal of malfunctions with an index by vehicle ID and time.
+ *
+ * The journal consists of two files in its folder:
+ * <ul>
+ *     <li>{@value #ZAPISI} - an 8-byte header (magic, version) followed by one record per malfunction:
+ *     the payload length, the CRC32 of the payload, and the payload itself (time as epoch seconds (UTC)
+ *     and nanoseconds, then type, vehicle ID and description as modified UTF-8);</li>
+ *     <li>{@value #INDEKS} - a header (magic, version, journal length covered, number of vehicles, number of
+ *     records), the vehicle IDs, and one 20-byte entry per record (time, record position, vehicle number)
+ *     sorted by time.</li>
+ * </ul>
+ * When the journal is opened, the index is loaded and any records appended after it was written are
+ * replayed from the journal; an index that does not match the journal is ignored and the whole journal is
+ * replayed. A torn or damaged last record, left by a crash during an append, is cut off.
+ * A malfunction with the same vehicle ID and time as a journaled one is not appended again, so replaying
+ * the same simulation does not duplicate the journal.
+ *
+ * Every append is forced to disk before {@link #dodaj(Kvar)} returns.
+ *
+ * Queries return lazily read streams; a record is only read from disk when the stream reaches it.
+ * A journal opened with {@link #zaCitanje(Path)} is never written: an incomplete last record, which may still
+ * be written by a running simulation, is skipped instead of cut off.
+ */
+public class DnevnikKvarova implements AutoCloseable {
+    public static final String ZAPISI = "kvarovi.jnl";  // Journal file
+    public static final String INDEKS = "kvarovi.jdx";  // Index file
+
+    static final int MAGIC_ZAPISA = 0x4B4A4E4C;  // "KJNL"
+    static final int MAGIC_INDEKSA = 0x4B4A4458; // "KJDX"
+    static final int VERZIJA = 1;                // Version of the file formats
+    static final int ZAGLAVLJE_ZAPISA = 8;       // Magic, version
+    static final int OKVIR = 8;                  // Payload length and CRC32 before every record
+    static final int MIN_ZAPIS = 18;             // Smallest payload: time (12 bytes) and three empty strings
+
+    private final Path folder;                   // Folder holding the journal files
+    private final FileChannel kanal;             // Journal opened for reading and appending
+    private final boolean samoCitanje;           // Whether the journal is opened only for queries
+    private long duzina = ZAGLAVLJE_ZAPISA;      // Length of the valid part of the journal
+    private long duzinaUIndeksu = ZAGLAVLJE_ZAPISA; // Journal length covered by the index file on disk
+
+    private final ArrayList<String> vozila = new ArrayList<>();            // Vehicle IDs by vehicle number
+    private final HashMap<String, Integer> brojeviVozila = new HashMap<>(); // Vehicle number by vehicle ID
+    private final Niz poVremenu = new Niz();                                // All records sorted by time
+    private final HashMap<String, Niz> poVozilu = new HashMap<>();          // Records of each vehicle sorted by time
+    private long brojPreskocenih;                                           // Number of duplicate malfunctions not appended
+
+    /**
+     * Record positions sorted by time, then by position. Appends in time order cost O(1).
+     */
+    private static final class Niz {
+        private long[] vremena = new long[16];    // Times in nanoseconds since the epoch
+        private long[] pozicije = new long[16];   // Record positions in the journal
+        private int[] brojeviVozila = new int[16]; // Vehicle numbers, only used for the index by time
+        private int velicina;                     // Number of records
+
+        private void dodaj(long vrijeme, long pozicija, int vozilo) {
+            if (velicina == vremena.length) {
+                vremena = Arrays.copyOf(vremena, velicina * 2);
+                pozicije = Arrays.copyOf(pozicije, velicina * 2);
+                brojeviVozila = Arrays.copyOf(brojeviVozila, velicina * 2);
+            }
+            int mjesto = velicina;
+            while (mjesto > 0 && (vremena[mjesto - 1] > vrijeme || (vremena[mjesto - 1] == vrijeme && pozicije[mjesto - 1] > pozicija))) {
+                mjesto--;
+            }
+            System.arraycopy(vremena, mjesto, vremena, mjesto + 1, velicina - mjesto);
+            System.arraycopy(pozicije, mjesto, pozicije, mjesto + 1, velicina - mjesto);
+            System.arraycopy(brojeviVozila, mjesto, brojeviVozila, mjesto + 1, velicina - mjesto);
+            vremena[mjesto] = vrijeme;
+            pozicije[mjesto] = pozicija;
+            brojeviVozila[mjesto] = vozilo;
+            velicina++;
+        }
+
+        /**
+         * Returns the first index whose time is not before the given time.
+         */
+        private int prvi(long vrijeme) {
+            int lo = 0;
+            int hi = velicina;
+            while (lo < hi) {
+                int sredina = (lo + hi) >>> 1;
+                if (vremena[sredina] < vrijeme) {
+                    lo = sredina + 1;
+                } else {
+                    hi = sredina;
+                }
+            }
+            return lo;
+        }
+
+        private long[] pozicije(int od, int doIskljucivo) {
+            return Arrays.copyOfRange(pozicije, od, Math.max(od, doIskljucivo));
+        }
+    }
+
+    /**
+     * Opens the journal in the given folder, creating it if it does not exist, and replays it.
+     *
+     * @param folder Folder holding the journal files.
+     * @throws IOException If the journal cannot be opened or is not a malfunction journal.
+     */
+    public DnevnikKvarova(Path folder) throws IOException {
+        this(folder, false);
+    }
+
+    /**
+     * Opens the journal in the given folder.
+     *
+     * @param folder Folder holding the journal files.
+     * @param samoCitanje Whether the journal is only queried; it is then neither created nor written.
+     * @throws IOException If the journal cannot be opened or is not a malfunction journal.
+     */
+    private DnevnikKvarova(Path folder, boolean samoCitanje) throws IOException {
+        this.folder = folder;
+        this.samoCitanje = samoCitanje;
+        if (samoCitanje) {
+            kanal = FileChannel.open(folder.resolve(ZAPISI), StandardOpenOption.READ);
+        } else {
+            Files.createDirectories(folder);
+            kanal = FileChannel.open(folder.resolve(ZAPISI), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        if (kanal.size() < ZAGLAVLJE_ZAPISA) {
+            if (samoCitanje) {
+                return; // The header is not written yet, so there are no records
+            }
+            ByteBuffer zaglavlje = ByteBuffer.allocate(ZAGLAVLJE_ZAPISA).putInt(MAGIC_ZAPISA).putInt(VERZIJA).flip();
+            kanal.truncate(0);
+            kanal.write(zaglavlje, 0);
+        } else {
+            ByteBuffer zaglavlje = ByteBuffer.allocate(ZAGLAVLJE_ZAPISA);
+            kanal.read(zaglavlje, 0);
+            if (zaglavlje.getInt(0) != MAGIC_ZAPISA || zaglavlje.getInt(4) != VERZIJA) {
+                kanal.close();
+                throw new IOException("Nije dnevnik kvarova: " + folder.resolve(ZAPISI));
+            }
+        }
+        duzina = ucitajIndeks();
+        duzinaUIndeksu = duzina;
+        reprodukuj();
+    }
+
+    /**
+     * Opens an existing journal only for queries. Nothing is written to its folder, so it can be queried
+     * while a simulation appends to it.
+     *
+     * @param folder Folder holding the journal files.
+     * @return The opened journal.
+     * @throws IOException If the journal does not exist, cannot be opened or is not a malfunction journal.
+     */
+    public static DnevnikKvarova zaCitanje(Path folder) throws IOException {
+        return new DnevnikKvarova(folder, true);
+    }
+
+    /**
+     * Opens the journal in the folder given by the {@code MALFUNCTION_JOURNAL_PATH} property.
+     *
+     * @param appProps Application properties.
+     * @return The opened journal.
+     * @throws IOException If the journal cannot be opened.
+     */
+    public static DnevnikKvarova izKonfiguracije(Properties appProps) throws IOException {
+        return new DnevnikKvarova(folder(appProps));
+    }
+
+    /**
+     * Opens the journal in the folder given by the {@code MALFUNCTION_JOURNAL_PATH} property only for queries.
+     *
+     * @param appProps Application properties.
+     * @return The opened journal.
+     * @throws IOException If the journal does not exist or cannot be opened.
+     */
+    public static DnevnikKvarova izKonfiguracijeZaCitanje(Properties appProps) throws IOException {
+        return zaCitanje(folder(appProps));
+    }
+
+    /**
+     * Returns the folder given by the {@code MALFUNCTION_JOURNAL_PATH} property.
+     */
+    private static Path folder(Properties appProps) {
+        String folder = appProps.getProperty("MALFUNCTION_JOURNAL_PATH", "target/dnevnik").trim();
+        return Path.of(folder.replace("/", File.separator));
+    }
+
+    /**
+     * Loads the index file if it matches the journal. The index is only used if the journal is at least as long
+     * as the part it covers and that part ends with the intact record of the last indexed position, so an index
+     * left from another journal or a damaged index is ignored and the journal is replayed instead.
+     *
+     * @return The journal length covered by the loaded index, or the header size if there is no usable index.
+     */
+    private long ucitajIndeks() {
+        Path putanja = folder.resolve(INDEKS);
+        if (!Files.isRegularFile(putanja)) {
+            return ZAGLAVLJE_ZAPISA;
+        }
+        try (DataInputStream ulaz = new DataInputStream(new BufferedInputStream(Files.newInputStream(putanja)))) {
+            long pokriveno;
+            if (ulaz.readInt() != MAGIC_INDEKSA || ulaz.readInt() != VERZIJA || (pokriveno = ulaz.readLong()) > kanal.size()
+                    || pokriveno < ZAGLAVLJE_ZAPISA) {
+                return ZAGLAVLJE_ZAPISA;
+            }
+            int brojVozila = ulaz.readInt();
+            int brojZapisa = ulaz.readInt();
+            for (int i = 0; i < brojVozila; i++) {
+                brojVozila(ulaz.readUTF());
+            }
+            long posljednja = -1;       // Position of the last indexed record
+            long vrijemePosljednjeg = 0; // Time of the last indexed record
+            int voziloPosljednjeg = 0;   // Vehicle number of the last indexed record
+            for (int i = 0; i < brojZapisa; i++) {
+                long vrijeme = ulaz.readLong();
+                long pozicija = ulaz.readLong();
+                int vozilo = ulaz.readInt();
+                if (pozicija < ZAGLAVLJE_ZAPISA || pozicija + OKVIR > pokriveno) {
+                    odbaciIndeks();
+                    return ZAGLAVLJE_ZAPISA;
+                }
+                dodajUIndeks(vrijeme, pozicija, vozilo);
+                if (pozicija > posljednja) {
+                    posljednja = pozicija;
+                    vrijemePosljednjeg = vrijeme;
+                    voziloPosljednjeg = vozilo;
+                }
+            }
+            boolean odgovara = posljednja < 0 ? pokriveno == ZAGLAVLJE_ZAPISA
+                    : posljednjiOdgovara(posljednja, pokriveno, vrijemePosljednjeg, vozila.get(voziloPosljednjeg));
+            if (!odgovara) {
+                odbaciIndeks();
+                return ZAGLAVLJE_ZAPISA;
+            }
+            return pokriveno;
+        } catch (IOException | IndexOutOfBoundsException e) {
+            e.printStackTrace();
+            odbaciIndeks();
+            return ZAGLAVLJE_ZAPISA;
+        }
+    }
+
+    /**
+     * Checks that the journal holds an intact record of the given time and vehicle at the given position,
+     * ending exactly where the part covered by the index ends.
+     */
+    private boolean posljednjiOdgovara(long pozicija, long pokriveno, long vrijeme, String id) throws IOException {
+        ByteBuffer okvir = ByteBuffer.allocate(OKVIR);
+        kanal.read(okvir, pozicija);
+        int velicina = okvir.getInt(0);
+        if (velicina < MIN_ZAPIS || pozicija + OKVIR + velicina != pokriveno) {
+            return false;
+        }
+        ByteBuffer podaci = ByteBuffer.allocate(velicina);
+        kanal.read(podaci, pozicija + OKVIR);
+        CRC32 crc = new CRC32();
+        crc.update(podaci.array());
+        if ((int) crc.getValue() != okvir.getInt(4)) {
+            return false;
+        }
+        Kvar kvar = dekodirajCijeli(podaci.array());
+        return kvar != null && vrijeme(kvar.getDateTime()) == vrijeme && kvar.getId().equals(id);
+    }
+
+    /**
+     * Forgets a partly loaded index, so the whole journal is replayed.
+     */
+    private void odbaciIndeks() {
+        vozila.clear();
+        brojeviVozila.clear();
+        poVremenu.velicina = 0;
+        poVozilu.clear();
+    }
+
+    /**
+     * Reads the records after the indexed part of the journal and adds them to the index.
+     * Reading stops at the first incomplete or damaged record, including a zero-filled tail or a payload
+     * that does not decode, and the journal is cut off there unless it is opened only for queries.
+     *
+     * @throws IOException If the journal cannot be read.
+     */
+    private void reprodukuj() throws IOException {
+        long kraj = kanal.size();
+        ByteBuffer okvir = ByteBuffer.allocate(OKVIR);
+        while (duzina + OKVIR <= kraj) {
+            okvir.clear();
+            kanal.read(okvir, duzina);
+            int velicina = okvir.getInt(0);
+            if (velicina < MIN_ZAPIS || duzina + OKVIR + velicina > kraj) {
+                break;
+            }
+            ByteBuffer podaci = ByteBuffer.allocate(velicina);
+            kanal.read(podaci, duzina + OKVIR);
+            CRC32 crc = new CRC32();
+            crc.update(podaci.array());
+            if ((int) crc.getValue() != okvir.getInt(4)) {
+                break;
+            }
+            Kvar kvar = dekodirajCijeli(podaci.array());
+            if (kvar == null) {
+                break;
+            }
+            dodajUIndeks(vrijeme(kvar.getDateTime()), duzina, brojVozila(kvar.getId()));
+            duzina += OKVIR + velicina;
+        }
+        if (duzina < kraj && !samoCitanje) {
+            kanal.truncate(duzina);
+        }
+    }
+
+    /**
+     * Appends a malfunction to the journal, unless one with the same vehicle ID and time is already journaled.
+     * The record is on disk when the method returns.
+     *
+     * @param kvar The malfunction.
+     * @return {@code true} if the malfunction was appended.
+     * @throws IOException If the journal cannot be written or is opened only for queries.
+     */
+    public synchronized boolean dodaj(Kvar kvar) throws IOException {
+        if (samoCitanje) {
+            throw new IOException("Dnevnik kvarova je otvoren samo za citanje: " + folder.resolve(ZAPISI));
+        }
+        long vrijeme = vrijeme(kvar.getDateTime());
+        Niz zapisiVozila = poVozilu.get(kvar.getId());
+        if (zapisiVozila != null) {
+            int i = zapisiVozila.prvi(vrijeme);
+            if (i < zapisiVozila.velicina && zapisiVozila.vremena[i] == vrijeme) {
+                brojPreskocenih++;
+                return false;
+            }
+        }
+
+        ByteBuffer zapis = ByteBuffer.wrap(kodiraj(kvar));
+        CRC32 crc = new CRC32();
+        crc.update(zapis.array(), OKVIR, zapis.capacity() - OKVIR);
+        zapis.putInt(0, zapis.capacity() - OKVIR).putInt(4, (int) crc.getValue());
+
+        long pozicija = duzina;
+        while (zapis.hasRemaining()) {
+            kanal.write(zapis, pozicija + zapis.position());
+        }
+        kanal.force(false);
+        duzina += zapis.capacity();
+        dodajUIndeks(vrijeme, pozicija, brojVozila(kvar.getId()));
+        return true;
+    }
+
+    /**
+     * Encodes a malfunction as a record with room for its frame, which is filled in by the caller.
+     */
+    private static byte[] kodiraj(Kvar kvar) throws IOException {
+        ByteArrayOutputStream bajtovi = new ByteArrayOutputStream(64);
+        DataOutputStream izlaz = new DataOutputStream(bajtovi);
+        izlaz.writeLong(0);
+        izlaz.writeLong(kvar.getDateTime().toEpochSecond(ZoneOffset.UTC));
+        izlaz.writeInt(kvar.getDateTime().getNano());
+        izlaz.writeUTF(kvar.getType());
+        izlaz.writeUTF(kvar.getId());
+        izlaz.writeUTF(kvar.getDescription());
+        return bajtovi.toByteArray();
+    }
+
+    /**
+     * Returns the number of journaled malfunctions.
+     *
+     * @return The number of records.
+     */
+    public synchronized int getBrojZapisa() {
+        return poVremenu.velicina;
+    }
+
+    /**
+     * Returns the number of malfunctions that were not appended because they were already journaled.
+     *
+     * @return The number of skipped duplicates.
+     */
+    public synchronized long getBrojPreskocenih() {
+        return brojPreskocenih;
+    }
+
+    /**
+     * Returns a page of malfunctions in time order.
+     *
+     * @param pocetak Index of the first malfunction of the page.
+     * @param broj Maximum number of malfunctions on the page.
+     * @return The malfunctions of the page.
+     */
+    public List<Kvar> stranica(int pocetak, int broj) {
+        long[] pozicije;
+        synchronized (this) {
+            int od = Math.max(0, Math.min(pocetak, poVremenu.velicina));
+            pozicije = poVremenu.pozicije(od, (int) Math.min((long) od + broj, poVremenu.velicina));
+        }
+        return citaj(pozicije).toList();
+    }
+
+    /**
+     * Streams the malfunctions in a time range, in time order.
+     *
+     * @param od Start of the range, inclusive.
+     * @param doIskljucivo End of the range, exclusive.
+     * @return The malfunctions, read lazily from the journal.
+     */
+    public Stream<Kvar> uIntervalu(LocalDateTime od, LocalDateTime doIskljucivo) {
+        long[] pozicije;
+        synchronized (this) {
+            pozicije = poVremenu.pozicije(poVremenu.prvi(vrijeme(od)), poVremenu.prvi(vrijeme(doIskljucivo)));
+        }
+        return citaj(pozicije);
+    }
+
+    /**
+     * Streams the malfunctions of a day, in time order.
+     *
+     * @param datum The day.
+     * @return The malfunctions, read lazily from the journal.
+     */
+    public Stream<Kvar> zaDatum(LocalDate datum) {
+        return uIntervalu(datum.atStartOfDay(), datum.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Streams the malfunctions of a vehicle in a time range, in time order.
+     *
+     * @param id The vehicle ID.
+     * @param od Start of the range, inclusive.
+     * @param doIskljucivo End of the range, exclusive.
+     * @return The malfunctions, read lazily from the journal.
+     */
+    public Stream<Kvar> zaVozilo(String id, LocalDateTime od, LocalDateTime doIskljucivo) {
+        long[] pozicije;
+        synchronized (this) {
+            Niz zapisiVozila = poVozilu.get(id);
+            if (zapisiVozila == null) {
+                return Stream.empty();
+            }
+            pozicije = zapisiVozila.pozicije(zapisiVozila.prvi(vrijeme(od)), zapisiVozila.prvi(vrijeme(doIskljucivo)));
+        }
+        return citaj(pozicije);
+    }
+
+    /**
+     * Streams all malfunctions of a vehicle, in time order.
+     *
+     * @param id The vehicle ID.
+     * @return The malfunctions, read lazily from the journal.
+     */
+    public Stream<Kvar> zaVozilo(String id) {
+        return zaVozilo(id, LocalDateTime.MIN, LocalDateTime.MAX);
+    }
+
+    /**
+     * Writes the index file, so the next opening does not have to replay the journal.
+     * Nothing is written if the journal is opened only for queries.
+     * The index is written to a temporary file first and then moved over the old one.
+     *
+     * @throws IOException If the index cannot be written.
+     */
+    public synchronized void sacuvajIndeks() throws IOException {
+        if (duzinaUIndeksu == duzina || samoCitanje) {
+            return;
+        }
+        kanal.force(false);
+        Path privremeni = folder.resolve(INDEKS + ".tmp");
+        try (DataOutputStream izlaz = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(privremeni)))) {
+            izlaz.writeInt(MAGIC_INDEKSA);
+            izlaz.writeInt(VERZIJA);
+            izlaz.writeLong(duzina);
+            izlaz.writeInt(vozila.size());
+            izlaz.writeInt(poVremenu.velicina);
+            for (String id : vozila) {
+                izlaz.writeUTF(id);
+            }
+            for (int i = 0; i < poVremenu.velicina; i++) {
+                izlaz.writeLong(poVremenu.vremena[i]);
+                izlaz.writeLong(poVremenu.pozicije[i]);
+                izlaz.writeInt(poVremenu.brojeviVozila[i]);
+            }
+        }
+        Files.move(privremeni, folder.resolve(INDEKS), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        duzinaUIndeksu = duzina;
+    }
+
+    /**
+     * Writes the index and closes the journal.
+     *
+     * @throws IOException If the index cannot be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sacuvajIndeks();
+        } finally {
+            kanal.close();
+        }
+    }
+
+    /**
+     * Adds a record to the index by time and to the index of its vehicle.
+     */
+    private void dodajUIndeks(long vrijeme, long pozicija, int vozilo) {
+        poVremenu.dodaj(vrijeme, pozicija, vozilo);
+        poVozilu.computeIfAbsent(vozila.get(vozilo), id -> new Niz()).dodaj(vrijeme, pozicija, vozilo);
+    }
+
+    /**
+     * Returns the number of a vehicle ID, assigning the next number to a new ID.
+     */
+    private int brojVozila(String id) {
+        Integer broj = brojeviVozila.get(id);
+        if (broj == null) {
+            broj = vozila.size();
+            vozila.add(id);
+            brojeviVozila.put(id, broj);
+        }
+        return broj;
+    }
+
+    /**
+     * Streams the records at the given positions, reading each one when the stream reaches it.
+     */
+    private Stream<Kvar> citaj(long[] pozicije) {
+        return IntStream.range(0, pozicije.length).mapToObj(i -> {
+            try {
+                return procitaj(pozicije[i]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Reads the record at a position in the journal.
+     */
+    private Kvar procitaj(long pozicija) throws IOException {
+        ByteBuffer okvir = ByteBuffer.allocate(OKVIR);
+        kanal.read(okvir, pozicija);
+        int velicina = okvir.getInt(0);
+        if (velicina < MIN_ZAPIS || pozicija + OKVIR + velicina > kanal.size()) {
+            throw new IOException("Zapis dnevnika kvarova je nepotpun na poziciji " + pozicija);
+        }
+        ByteBuffer podaci = ByteBuffer.allocate(velicina);
+        while (podaci.hasRemaining()) {
+            if (kanal.read(podaci, pozicija + OKVIR + podaci.position()) < 0) {
+                throw new IOException("Zapis dnevnika kvarova je nepotpun na poziciji " + pozicija);
+            }
+        }
+        return dekodiraj(podaci.array());
+    }
+
+    /**
+     * Decodes the payload of a record that passed the CRC check while the journal is opened.
+     *
+     * @return The malfunction, or {@code null} if the payload does not decode or has bytes left over.
+     */
+    private static Kvar dekodirajCijeli(byte[] podaci) {
+        ByteArrayInputStream ulaz = new ByteArrayInputStream(podaci);
+        try {
+            Kvar kvar = dekodiraj(new DataInputStream(ulaz));
+            return ulaz.available() == 0 ? kvar : null;
+        } catch (IOException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Decodes the payload of a record.
+     */
+    private static Kvar dekodiraj(byte[] podaci) throws IOException {
+        return dekodiraj(new DataInputStream(new ByteArrayInputStream(podaci)));
+    }
+
+    /**
+     * Decodes the payload of a record from a stream.
+     */
+    private static Kvar dekodiraj(DataInputStream ulaz) throws IOException {
+        LocalDateTime vrijeme = LocalDateTime.ofEpochSecond(ulaz.readLong(), ulaz.readInt(), ZoneOffset.UTC);
+        String vrsta = ulaz.readUTF();
+        String id = ulaz.readUTF();
+        String opis = ulaz.readUTF();
+        return new Kvar(vrsta, id, vrijeme, opis);
+    }
+
+    /**
+     * Converts a date and time to nanoseconds since the epoch (UTC), clamped to the range of a long.
+     */
+    private static long vrijeme(LocalDateTime datumVrijeme) {
+        long sekunde = datumVrijeme.toEpochSecond(ZoneOffset.UTC);
+        if (sekunde >= Long.MAX_VALUE / 1_000_000_000L) {
+            return Long.MAX_VALUE;
+        }
+        if (sekunde <= Long.MIN_VALUE / 1_000_000_000L) {
+            return Long.MIN_VALUE;
+        }
+        return sekunde * 1_000_000_000L + datumVrijeme.getNano();
+    }
+}
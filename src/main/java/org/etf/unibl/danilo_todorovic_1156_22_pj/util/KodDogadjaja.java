@@ -0,0 +1,33 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
+
+/**
+ * Codes of the diagnostic events written to the {@link DnevnikDogadjaja}, each with the message printed for it.
+ * A message containing {@code %s} is completed with the argument of the event, usually a vehicle ID.
+ */
+public enum KodDogadjaja {
+    VOZILO_NEVALIDNO("Prevozno sredstvo nije validno: %s"),                       // A vehicle row could not be parsed
+    VOZILO_DUPLIKAT("Prevozno sredstvo vec postoji: %s"),                          // A vehicle row repeats an ID
+    IZNAJMLJIVANJE_NEVALIDNO("Iznajmljivanje nije validno"),                       // A rental row could not be parsed
+    VOZILO_NE_POSTOJI("Vozilo ne postoji: %s"),                                    // A rental names an unknown vehicle
+    VOZILO_ZAUZETO("Vozilo se trenutno koristi"),                                  // A rental uses a vehicle already rented at that time
+    BATERIJA_NAPUNJENA("Baterija napunjena"),                                      // A battery was recharged before a trip
+    BATERIJA_PREMALA("Vozilo %s nema dovoljno veliku bateriju za taj put"),        // A trip needs more than a full battery
+    NEPOZNATA_VRSTA_CIJENA("Greska u odredjivanju vrste vozila tokom racunanja cijene"), // No unit price for the vehicle type
+    NEPOZNATA_VRSTA_POPRAVKA("Greska pri citanju vrste vozila");                   // No repair coefficient for the vehicle type
+
+    private final String poruka; // Message template
+
+    KodDogadjaja(String poruka) {
+        this.poruka = poruka;
+    }
+
+    /**
+     * Returns the message of an event with this code.
+     *
+     * @param argument The argument of the event, or {@code null}.
+     * @return The message.
+     */
+    public String poruka(Object argument) {
+        return poruka.contains("%s") ? String.format(poruka, argument) : poruka;
+    }
+}
@@ -0,0 +1,36 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
+
+/**
+ * Running sum of doubles using Neumaier's compensated summation.
+ *
+ * The rounding error of every addition is kept in a separate compensation term, so the sum stays
+ * accurate no matter how many values are added or in which order. The class is not thread-safe.
+ */
+public class KompenzovaniZbir {
+    private double zbir;         // Running sum
+    private double kompenzacija; // Accumulated rounding error of the running sum
+
+    /**
+     * Adds a value to the sum.
+     *
+     * @param vrijednost The value to add.
+     */
+    public void dodaj(double vrijednost) {
+        double novi = zbir + vrijednost;
+        if (Math.abs(zbir) >= Math.abs(vrijednost)) {
+            kompenzacija += (zbir - novi) + vrijednost;
+        } else {
+            kompenzacija += (vrijednost - novi) + zbir;
+        }
+        zbir = novi;
+    }
+
+    /**
+     * Returns the sum of all added values.
+     *
+     * @return The compensated sum.
+     */
+    public double getVrijednost() {
+        return zbir + kompenzacija;
+    }
+}
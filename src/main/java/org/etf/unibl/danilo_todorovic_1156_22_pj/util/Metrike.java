@@ -0,0 +1,358 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Singleton registry of simulation metrics: counters, latency histograms and gauges, identified by name.
+ *
+ * Recording is lock-free and cheap enough for simulation threads: a counter is a {@link LongAdder}, and a histogram
+ * increments one bucket of an {@link AtomicLongArray}. Histogram buckets are log-linear, as in HDR histograms:
+ * every power of two is split into {@value #PODJELA} buckets, so a percentile is accurate to about 6% at any scale.
+ * Gauges read a value, such as a queue depth, only when a snapshot is taken.
+ *
+ * A snapshot lists every metric with counter rates per second since the previous snapshot. It can be taken in-process
+ * with {@link #snimak()}, or written periodically to the file given by {@code METRICS_PATH} every
+ * {@code METRICS_INTERVAL_MS} milliseconds while the simulation runs.
+ */
+public class Metrike {
+    private static final int BITA_PODJELE = 4;               // Bits of a value kept below its highest set bit
+    private static final int PODJELA = 1 << BITA_PODJELE;    // Buckets per power of two
+    private static final Metrike instance = new Metrike();   // Singleton instance
+
+    private final ConcurrentHashMap<String, Brojac> brojaci = new ConcurrentHashMap<>();       // Counters by name
+    private final ConcurrentHashMap<String, Histogram> histogrami = new ConcurrentHashMap<>(); // Histograms by name
+    private final ConcurrentHashMap<String, LongSupplier> mjeraci = new ConcurrentHashMap<>(); // Gauges by name
+    private final HashMap<String, Long> prethodneVrijednosti = new HashMap<>(); // Counter values at the previous snapshot
+    private long prethodniSnimakNano = System.nanoTime();                       // Time of the previous snapshot
+    private Thread snimanje;                                                    // Thread writing snapshots, or null
+    private CountDownLatch zaustavljanje;                                       // Released to stop writing snapshots
+
+    /**
+     * A monotonically increasing count of events.
+     */
+    public static final class Brojac {
+        private final LongAdder vrijednost = new LongAdder(); // Number of events
+
+        private Brojac() {
+        }
+
+        /**
+         * Counts one event.
+         */
+        public void povecaj() {
+            vrijednost.increment();
+        }
+
+        /**
+         * Counts the given number of events.
+         *
+         * @param broj Number of events.
+         */
+        public void dodaj(long broj) {
+            vrijednost.add(broj);
+        }
+
+        /**
+         * Returns the number of events counted so far.
+         *
+         * @return The count.
+         */
+        public long getVrijednost() {
+            return vrijednost.sum();
+        }
+    }
+
+    /**
+     * Distribution of latencies in nanoseconds with log-linear buckets.
+     */
+    public static final class Histogram {
+        private final AtomicLongArray korpe = new AtomicLongArray((64 - BITA_PODJELE + 1) * PODJELA); // Count per bucket
+        private final LongAdder broj = new LongAdder();   // Number of recorded values
+        private final LongAdder zbir = new LongAdder();   // Sum of recorded values
+        private final AtomicLong maks = new AtomicLong(); // Largest recorded value
+
+        private Histogram() {
+        }
+
+        /**
+         * Records a value; negative values are recorded as 0.
+         *
+         * @param vrijednost The value, usually nanoseconds.
+         */
+        public void zabiljezi(long vrijednost) {
+            long v = Math.max(0, vrijednost);
+            korpe.incrementAndGet(korpa(v));
+            broj.increment();
+            zbir.add(v);
+            if (v > maks.get()) {
+                maks.accumulateAndGet(v, Math::max);
+            }
+        }
+
+        /**
+         * Records the time elapsed since the given {@link System#nanoTime()}.
+         *
+         * @param pocetakNano The start of the measured interval.
+         */
+        public void zabiljeziOd(long pocetakNano) {
+            zabiljezi(System.nanoTime() - pocetakNano);
+        }
+
+        /**
+         * Returns the number of recorded values.
+         *
+         * @return The count.
+         */
+        public long getBroj() {
+            return broj.sum();
+        }
+
+        /**
+         * Returns the mean of the recorded values.
+         *
+         * @return The mean, or 0 if nothing was recorded.
+         */
+        public double getProsjek() {
+            long n = broj.sum();
+            return n == 0 ? 0 : (double) zbir.sum() / n;
+        }
+
+        /**
+         * Returns the largest recorded value.
+         *
+         * @return The maximum, or 0 if nothing was recorded.
+         */
+        public long getMaks() {
+            return maks.get();
+        }
+
+        /**
+         * Returns the value below or at which the given share of recorded values lie.
+         * The result is the upper end of the bucket holding that value.
+         *
+         * @param udio The share, from 0 to 1.
+         * @return The percentile, or 0 if nothing was recorded.
+         */
+        public long getPercentil(double udio) {
+            long[] brojevi = new long[korpe.length()];
+            long ukupno = 0;
+            for (int i = 0; i < brojevi.length; i++) {
+                brojevi[i] = korpe.get(i);
+                ukupno += brojevi[i];
+            }
+            if (ukupno == 0) {
+                return 0;
+            }
+            long cilj = Math.max(1, (long) Math.ceil(udio * ukupno));
+            long zbirBrojeva = 0;
+            for (int i = 0; i < brojevi.length; i++) {
+                zbirBrojeva += brojevi[i];
+                if (zbirBrojeva >= cilj) {
+                    return Math.min(gornjaGranica(i), maks.get());
+                }
+            }
+            return maks.get();
+        }
+
+        /**
+         * Returns the bucket of a non-negative value. Values below {@value #PODJELA} have a bucket each;
+         * larger values share a bucket with values having the same highest {@value #BITA_PODJELE} bits after the first.
+         */
+        private static int korpa(long v) {
+            if (v < PODJELA) {
+                return (int) v;
+            }
+            int eksponent = 63 - Long.numberOfLeadingZeros(v);
+            int podjela = (int) (v >>> (eksponent - BITA_PODJELE)) & (PODJELA - 1);
+            return (eksponent - BITA_PODJELE + 1) * PODJELA + podjela;
+        }
+
+        /**
+         * Returns the largest value of a bucket.
+         */
+        private static long gornjaGranica(int korpa) {
+            if (korpa < PODJELA) {
+                return korpa;
+            }
+            int eksponent = korpa / PODJELA + BITA_PODJELE - 1;
+            long donja = (long) (PODJELA + korpa % PODJELA) << (eksponent - BITA_PODJELE);
+            return donja + (1L << (eksponent - BITA_PODJELE)) - 1;
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation from outside the class.
+     */
+    private Metrike() {
+    }
+
+    /**
+     * Returns the singleton instance of the Metrike class.
+     *
+     * @return The metrics registry.
+     */
+    public static Metrike getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the counter with the given name, creating it on first use.
+     * Callers on hot paths should keep the returned counter instead of looking it up every time.
+     *
+     * @param ime Name of the counter.
+     * @return The counter.
+     */
+    public Brojac brojac(String ime) {
+        return brojaci.computeIfAbsent(ime, i -> new Brojac());
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it on first use.
+     * Callers on hot paths should keep the returned histogram instead of looking it up every time.
+     *
+     * @param ime Name of the histogram.
+     * @return The histogram.
+     */
+    public Histogram histogram(String ime) {
+        return histogrami.computeIfAbsent(ime, i -> new Histogram());
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge with the same name.
+     *
+     * @param ime Name of the gauge.
+     * @param vrijednost Reads the current value when a snapshot is taken.
+     */
+    public void mjerac(String ime, LongSupplier vrijednost) {
+        mjeraci.put(ime, vrijednost);
+    }
+
+    /**
+     * Removes a gauge if it is still the one registered under the name, so the registry no longer
+     * references its owner. A gauge registered later under the same name is kept.
+     *
+     * @param ime Name of the gauge.
+     * @param vrijednost The gauge that was registered.
+     */
+    public void ukloniMjerac(String ime, LongSupplier vrijednost) {
+        mjeraci.remove(ime, vrijednost);
+    }
+
+    /**
+     * Takes a snapshot of all metrics, one line per metric sorted by name. Counter rates are per second
+     * since the previous snapshot; histogram values are in microseconds.
+     *
+     * @return The snapshot.
+     */
+    public synchronized String snimak() {
+        long sada = System.nanoTime();
+        double sekunde = Math.max(1e-9, (sada - prethodniSnimakNano) / 1e9);
+        prethodniSnimakNano = sada;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(LocalDateTime.now()).append('\n');
+        for (Map.Entry<String, Brojac> e : new TreeMap<>(brojaci).entrySet()) {
+            long vrijednost = e.getValue().getVrijednost();
+            Long prethodna = prethodneVrijednosti.put(e.getKey(), vrijednost);
+            sb.append(String.format("brojac %s ukupno=%d u_sekundi=%.1f%n", e.getKey(), vrijednost,
+                    (vrijednost - (prethodna == null ? 0 : prethodna)) / sekunde));
+        }
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(histogrami).entrySet()) {
+            Histogram h = e.getValue();
+            sb.append(String.format("histogram %s broj=%d prosjek_us=%.2f p50_us=%.2f p90_us=%.2f p99_us=%.2f p999_us=%.2f maks_us=%.2f%n",
+                    e.getKey(), h.getBroj(), h.getProsjek() / 1000, h.getPercentil(0.5) / 1000.0, h.getPercentil(0.9) / 1000.0,
+                    h.getPercentil(0.99) / 1000.0, h.getPercentil(0.999) / 1000.0, h.getMaks() / 1000.0));
+        }
+        for (Map.Entry<String, LongSupplier> e : new TreeMap<>(mjeraci).entrySet()) {
+            sb.append("mjerac ").append(e.getKey()).append(' ').append(e.getValue().getAsLong()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes a snapshot to a file. The snapshot is written to a temporary file first and then moved over the old one,
+     * so readers never see a partial snapshot.
+     *
+     * @param fajl The snapshot file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void upisiSnimak(Path fajl) throws IOException {
+        Path folder = fajl.toAbsolutePath().getParent();
+        if (folder != null) {
+            Files.createDirectories(folder);
+        }
+        Path privremeni = fajl.resolveSibling(fajl.getFileName() + ".tmp");
+        Files.writeString(privremeni, snimak(), StandardCharsets.UTF_8);
+        Files.move(privremeni, fajl, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Starts writing snapshots to the file given by {@code METRICS_PATH} every {@code METRICS_INTERVAL_MS}
+     * milliseconds on a daemon thread. Nothing is written if the path is empty or the interval is not positive.
+     *
+     * @param appProps Application properties.
+     */
+    public synchronized void pokreniSnimanje(Properties appProps) {
+        String putanja = appProps.getProperty("METRICS_PATH", "").trim();
+        long interval = Long.parseLong(appProps.getProperty("METRICS_INTERVAL_MS", "1000").trim());
+        if (putanja.isEmpty() || interval <= 0 || snimanje != null) {
+            return;
+        }
+        Path fajl = Path.of(putanja.replace("/", File.separator));
+        CountDownLatch kraj = new CountDownLatch(1);
+        zaustavljanje = kraj;
+        snimanje = new Thread(() -> {
+            try {
+                boolean zaustavljeno = false;
+                while (!zaustavljeno) {
+                    zaustavljeno = kraj.await(interval, TimeUnit.MILLISECONDS);
+                    upisiSnimak(fajl); // The last snapshot is written after the stop
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "metrike");
+        snimanje.setDaemon(true);
+        snimanje.start();
+    }
+
+    /**
+     * Stops writing snapshots and waits until the final snapshot is written.
+     */
+    public void zaustaviSnimanje() {
+        Thread nit;
+        synchronized (this) {
+            nit = snimanje;
+            if (nit == null) {
+                return;
+            }
+            zaustavljanje.countDown();
+            snimanje = null;
+        }
+        try {
+            nit.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,11 +2,15 @@ package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
 
 import org.etf.unibl.danilo_todorovic_1156_22_pj.rental.Iznajmljivanje;
 
+import java.time.LocalDateTime;
+
 /**
  * Represents an invoice (Racun) for a rental transaction.
  */
 public class Racun {
     private final Iznajmljivanje iznajmljivanje; // The rental transaction associated with this invoice.
+    private final double osnovnaCijena;          // The base price before the distance factor.
+    private final double udaljenost;             // The distance factor for the part of the city.
     private final double ukupnaCijena;           // The total price of the rental.
     private final double cijenaPopusta;          // The discount applied to the total price.
     private final double cijenaPromocije;        // The promotion discount applied to the total price.
@@ -23,8 +27,8 @@ public class Racun {
         this.iznajmljivanje = iznajmljivanje;
 
         Utility utility = new Utility();
-        double osnovnaCijena = utility.getOsnovnaCijena(iznajmljivanje);
-        double udaljenost = utility.getUdaljenost(iznajmljivanje);
+        this.osnovnaCijena = utility.getOsnovnaCijena(iznajmljivanje);
+        this.udaljenost = utility.getUdaljenost(iznajmljivanje);
         this.ukupnaCijena = utility.getUkupnaCijena(iznajmljivanje, osnovnaCijena, udaljenost);
         this.cijenaPopusta = utility.getPopust(iznajmljivanje, osnovnaCijena * udaljenost);
         this.cijenaPromocije = utility.getPromocija(iznajmljivanje, osnovnaCijena * udaljenost);
@@ -38,6 +42,33 @@ public class Racun {
     }
 
     // Getter methods for retrieving different cost components of the rental.
+    /**
+     * Returns the rental transaction associated with this invoice.
+     *
+     * @return The rental transaction.
+     */
+    public Iznajmljivanje getIznajmljivanje() {
+        return iznajmljivanje;
+    }
+
+    /**
+     * Returns the base price of the rental before the distance factor.
+     *
+     * @return The base price as a double value.
+     */
+    public double getOsnovnaCijena() {
+        return osnovnaCijena;
+    }
+
+    /**
+     * Returns the distance factor for the part of the city.
+     *
+     * @return The distance factor as a double value.
+     */
+    public double getUdaljenost() {
+        return udaljenost;
+    }
+
     /**
      * Returns the total price of the vehicle.
      *
@@ -95,25 +126,56 @@ public class Racun {
 
     @Override
     public String toString() {
-        Utility utility = new Utility();
-        double osnovnaCijena = utility.getOsnovnaCijena(iznajmljivanje);
-        double udaljenost = utility.getUdaljenost(iznajmljivanje);
-        double ukupnaCijena = utility.getUkupnaCijena(iznajmljivanje, osnovnaCijena, udaljenost);
-        String dokumentacija = "";
-        if ("automobil".equals(iznajmljivanje.getVrstaVozila())) {
-            dokumentacija = "Identifikacioni dokument: " + iznajmljivanje.getIdentifikacioniDokument() + "\n" +
-                    "Broj vozacke dozvole: " + iznajmljivanje.getBrojVozackeDozvole() + "\n";
+        return formatiraj(iznajmljivanje.getImeKorisnika(), "automobil".equals(iznajmljivanje.getVrstaVozila()),
+                iznajmljivanje.getIdentifikacioniDokument(), iznajmljivanje.getBrojVozackeDozvole(),
+                iznajmljivanje.getIDPrevoznogSredstva(), iznajmljivanje.getDatumVrijemeIznajmljivanja(), iznajmljivanje.getTrajanjeSekunde(),
+                iznajmljivanje.getXPreuzimanja(), iznajmljivanje.getYPreuzimanja(), iznajmljivanje.getXVracanja(), iznajmljivanje.getYVracanja(),
+                iznajmljivanje.isKvar(), iznajmljivanje.isPromocija(), iznajmljivanje.isPopust(), osnovnaCijena, udaljenost, ukupnaCijena);
+    }
+
+    /**
+     * Renders the text of a receipt. Used both for receipts of finished rentals and for receipts read back
+     * from the binary archive, so both are identical.
+     *
+     * @param imeKorisnika Name of the user.
+     * @param dokumentacija Whether the user's documents are listed, which is the case for cars.
+     * @param identifikacioniDokument Identification document of the user.
+     * @param brojVozackeDozvole Driver's license number of the user.
+     * @param idPrevoznogSredstva ID of the rented vehicle.
+     * @param datumVrijeme Date and time of the rental.
+     * @param trajanjeSekunde Duration of the rental in seconds.
+     * @param xPreuzimanja Pick-up X coordinate.
+     * @param yPreuzimanja Pick-up Y coordinate.
+     * @param xVracanja Return X coordinate.
+     * @param yVracanja Return Y coordinate.
+     * @param kvar Whether the vehicle had a malfunction.
+     * @param promocija Whether the user had a promotion.
+     * @param popust Whether the user had a discount.
+     * @param osnovnaCijena The base price before the distance factor.
+     * @param udaljenost The distance factor.
+     * @param ukupnaCijena The total price.
+     * @return The text receipt.
+     */
+    public static String formatiraj(String imeKorisnika, boolean dokumentacija, String identifikacioniDokument,
+                                    String brojVozackeDozvole, String idPrevoznogSredstva, LocalDateTime datumVrijeme,
+                                    int trajanjeSekunde, int xPreuzimanja, int yPreuzimanja, int xVracanja, int yVracanja,
+                                    boolean kvar, boolean promocija, boolean popust,
+                                    double osnovnaCijena, double udaljenost, double ukupnaCijena) {
+        String dokumenti = "";
+        if (dokumentacija) {
+            dokumenti = "Identifikacioni dokument: " + identifikacioniDokument + "\n" +
+                    "Broj vozacke dozvole: " + brojVozackeDozvole + "\n";
         }
         return "Račun za iznajmljivanje:\n" +
-                "Korisnik: " + iznajmljivanje.getImeKorisnika() + "\n" + dokumentacija +
-                "Prevozno sredstvo: " + iznajmljivanje.getIDPrevoznogSredstva() + "\n" +
-                "Datum i vrijeme iznajmljivanja: " + iznajmljivanje.getDatumVrijemeIznajmljivanja() + "\n" +
-                "Trajanje (sekunde): " + iznajmljivanje.getTrajanjeSekunde() + "\n" +
-                "Pocetna lokacija: (" + iznajmljivanje.getXPreuzimanja() + "," + iznajmljivanje.getYPreuzimanja() + ")\n" +
-                "Krajnja lokacija: (" + iznajmljivanje.getXVracanja() + "," + iznajmljivanje.getYVracanja() + ")\n" +
-                "Kvar: " + (iznajmljivanje.isKvar() ? "Vozilo ima kvar" : "Nema kvara") + "\n" +
-                "Promocija: " + (iznajmljivanje.isPromocija() ? "Korisnik ima promociju" : "Korisnik nema promociju") + "\n" +
-                "Popust: " + (iznajmljivanje.isPopust() ? "Korisnik ima popust" : "Korisnik nema popust") + "\n" +
+                "Korisnik: " + imeKorisnika + "\n" + dokumenti +
+                "Prevozno sredstvo: " + idPrevoznogSredstva + "\n" +
+                "Datum i vrijeme iznajmljivanja: " + datumVrijeme + "\n" +
+                "Trajanje (sekunde): " + trajanjeSekunde + "\n" +
+                "Pocetna lokacija: (" + xPreuzimanja + "," + yPreuzimanja + ")\n" +
+                "Krajnja lokacija: (" + xVracanja + "," + yVracanja + ")\n" +
+                "Kvar: " + (kvar ? "Vozilo ima kvar" : "Nema kvara") + "\n" +
+                "Promocija: " + (promocija ? "Korisnik ima promociju" : "Korisnik nema promociju") + "\n" +
+                "Popust: " + (popust ? "Korisnik ima popust" : "Korisnik nema popust") + "\n" +
                 "Osnovna cijena: " + osnovnaCijena + "\n" +
                 "Skalar za dio grada: " + udaljenost + "\n" +
                 "Ukupna cijena: " + ukupnaCijena + "\n";
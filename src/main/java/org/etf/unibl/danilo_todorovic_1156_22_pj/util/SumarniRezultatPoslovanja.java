@@ -1,10 +1,8 @@
 package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
 
-import java.util.ArrayList;
-
 /**
  * Represents the summary result of the business for multiple days.
- * It aggregates the daily business results to provide an overall summary.
+ * It is built from the totals of all invoices to provide an overall summary.
  */
 public class SumarniRezultatPoslovanja {
     private final double ukupnaCijena;           // The total income from all days.
@@ -17,27 +15,17 @@ public class SumarniRezultatPoslovanja {
     private final double ukupniPorez;            // The total tax calculated based on business earnings.
 
     /**
-     * Constructs a summary result of the business based on daily results.
+     * Constructs a summary result of the business from the totals of all invoices.
      *
-     * @param dnevniRezultati The list of daily results (`DnevniRezultatPoslovanja`) for the business.
+     * @param ukupnaCijena Total price of all invoices.
+     * @param cijenaPopusta Total discount of all invoices.
+     * @param cijenaPromocije Total promotion discount of all invoices.
+     * @param cijenaUdaljenosti Total distance-based price of all invoices.
+     * @param cijenaPopravki Total repair cost of all invoices.
      */
-    public SumarniRezultatPoslovanja(ArrayList<DnevniRezultatPoslovanja> dnevniRezultati) {
-        double ukupnaCijena = 0.0;
-        double cijenaPopusta = 0.0;
-        double cijenaPromocije = 0.0;
-        double cijenaUdaljenosti = 0.0;
-        double cijenaOdrzavanja = 0.0;
-        double cijenaPopravki = 0.0;
-
-        // Sum up all relevant costs and earnings from the list of daily results.
-        for (DnevniRezultatPoslovanja rezultat : dnevniRezultati) {
-            ukupnaCijena += rezultat.getUkupnaCijena();
-            cijenaPopusta += rezultat.getCijenaPopusta();
-            cijenaPromocije += rezultat.getCijenaPromocije();
-            cijenaUdaljenosti += rezultat.getCijenaUdaljenosti();
-            cijenaPopravki += rezultat.getCijenaPopravki();
-        }
-        cijenaOdrzavanja = ukupnaCijena * 0.2; // Calculating maintenance costs as 20% of total income.
+    public SumarniRezultatPoslovanja(double ukupnaCijena, double cijenaPopusta, double cijenaPromocije,
+                                     double cijenaUdaljenosti, double cijenaPopravki) {
+        double cijenaOdrzavanja = ukupnaCijena * 0.2; // Calculating maintenance costs as 20% of total income.
 
         this.ukupnaCijena = ukupnaCijena;
         this.cijenaPopusta = cijenaPopusta;
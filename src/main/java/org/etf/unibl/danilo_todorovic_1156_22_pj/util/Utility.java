@@ -11,31 +11,21 @@ import java.util.Properties;
  */
 public class Utility {
     public static final String DATA_BASE_PATH = "src" + File.separator + "main" + File.separator + "resources" + File.separator + "data";
+    public static final int VELICINA_MAPE = Integer.parseInt(getProperties().getProperty("MAP_SIZE", "20").trim()); // The size of the city grid (MAP_SIZE x MAP_SIZE)
+    private static final int POCETAK_UZE_ZONE = VELICINA_MAPE / 4; // First coordinate of the narrow zone, the middle half of the map
+    private static final int KRAJ_UZE_ZONE = VELICINA_MAPE - VELICINA_MAPE / 4 - 1; // Last coordinate of the narrow zone
     private static final double KOEFICIJENT_POPRAVKE_AUTOMOBILA = 0.07; // Repair coefficient for cars
     private static final double KOEFICIJENT_POPRAVKE_BICIKLA = 0.04; // Repair coefficient for bikes
     private static final double KOEFICIJENT_POPRAVKE_TROTINETA = 0.02; // Repair coefficient for scooters
     private static final String PROPERTIES_PATH = "app.properties";
 
-    private final double distance_narrow;
-    private final double distance_wide;
-    private final double discount;
-    private final double discount_prom;
-    private final double car_unit_price;
-    private final double bike_unit_price;
-    private final double scooter_unit_price;
+    private final CjenovnaKonfiguracija cjenovnik; // Pricing snapshot used by this instance
 
     /**
-     * Constructor initializes all pricing and discount parameters from the properties file.
+     * Constructor takes the current pricing and discount parameters from the shared pricing snapshot.
      */
     public Utility() {
-        Properties appProps = getProperties();
-        this.distance_narrow = Double.parseDouble(appProps.getProperty("DISTANCE_NARROW"));
-        this.distance_wide = Double.parseDouble(appProps.getProperty("DISTANCE_WIDE"));
-        this.discount = Double.parseDouble(appProps.getProperty("DISCOUNT"));
-        this.discount_prom = Double.parseDouble(appProps.getProperty("DISCOUNT_PROM"));
-        this.car_unit_price = Double.parseDouble(appProps.getProperty("CAR_UNIT_PRICE"));
-        this.bike_unit_price = Double.parseDouble(appProps.getProperty("BIKE_UNIT_PRICE"));
-        this.scooter_unit_price = Double.parseDouble(appProps.getProperty("SCOOTER_UNIT_PRICE"));
+        this.cjenovnik = CjenovnaKonfiguracija.getTrenutna();
     }
 
     /**
@@ -68,16 +58,16 @@ public class Utility {
 
         switch (vrsta) {
             case "automobil":
-                osnovnaCijena = car_unit_price * iznajmljivanje.getTrajanjeSekunde();
+                osnovnaCijena = cjenovnik.getCarUnitPrice() * iznajmljivanje.getTrajanjeSekunde();
                 break;
             case "bicikl":
-                osnovnaCijena = bike_unit_price * iznajmljivanje.getTrajanjeSekunde();
+                osnovnaCijena = cjenovnik.getBikeUnitPrice() * iznajmljivanje.getTrajanjeSekunde();
                 break;
             case "trotinet":
-                osnovnaCijena = scooter_unit_price * iznajmljivanje.getTrajanjeSekunde();
+                osnovnaCijena = cjenovnik.getScooterUnitPrice() * iznajmljivanje.getTrajanjeSekunde();
                 break;
             default:
-                System.out.println("Greska u odredjivanju vrste vozila tokom racunanja cijene");
+                DnevnikDogadjaja.getInstance().zabiljezi(KodDogadjaja.NEPOZNATA_VRSTA_CIJENA);
                 osnovnaCijena = 0;
                 break;
         }
@@ -86,21 +76,30 @@ public class Utility {
 
     /**
      * Determines the distance coefficient for the rental based on the starting and ending locations.
+     * The narrow zone is the middle half of the map along each axis, (5,5) to (14,14) on a 20x20 map.
      *
      * @param iznajmljivanje The rental object.
      * @return The distance coefficient.
      */
     public double getUdaljenost(Iznajmljivanje iznajmljivanje) {
-        if (iznajmljivanje.getXPreuzimanja() >= 5 && iznajmljivanje.getXPreuzimanja() <= 14 &&
-                iznajmljivanje.getYPreuzimanja() >= 5 && iznajmljivanje.getYPreuzimanja() <= 14 &&
-                iznajmljivanje.getXVracanja() >= 5 && iznajmljivanje.getXVracanja() <= 14 &&
-                iznajmljivanje.getYVracanja() >= 5 && iznajmljivanje.getYVracanja() <= 14) {
-            return distance_narrow;
+        if (uUzojZoni(iznajmljivanje.getXPreuzimanja()) && uUzojZoni(iznajmljivanje.getYPreuzimanja()) &&
+                uUzojZoni(iznajmljivanje.getXVracanja()) && uUzojZoni(iznajmljivanje.getYVracanja())) {
+            return cjenovnik.getDistanceNarrow();
         } else {
-            return distance_wide;
+            return cjenovnik.getDistanceWide();
         }
     }
 
+    /**
+     * Checks whether a coordinate lies inside the narrow zone.
+     *
+     * @param koordinata The x- or y-coordinate.
+     * @return {@code true} if the coordinate is inside the narrow zone; {@code false} otherwise.
+     */
+    private static boolean uUzojZoni(int koordinata) {
+        return koordinata >= POCETAK_UZE_ZONE && koordinata <= KRAJ_UZE_ZONE;
+    }
+
     /**
      * Calculates the discount for the rental if applicable.
      *
@@ -109,7 +108,7 @@ public class Utility {
      * @return The discount amount.
      */
     public double getPopust(Iznajmljivanje iznajmljivanje, double iznos) {
-        return iznajmljivanje.isPopust() ? discount * iznos : 0;
+        return iznajmljivanje.isPopust() ? cjenovnik.getDiscount() * iznos : 0;
     }
 
     /**
@@ -120,7 +119,7 @@ public class Utility {
      * @return The promotional discount amount.
      */
     public double getPromocija(Iznajmljivanje iznajmljivanje, double iznos) {
-        return iznajmljivanje.isPromocija() ? discount_prom * iznos : 0;
+        return iznajmljivanje.isPromocija() ? cjenovnik.getDiscountProm() * iznos : 0;
     }
 
     /**
@@ -159,7 +158,7 @@ public class Utility {
             case "trotinet":
                 return cijenaNabavke * KOEFICIJENT_POPRAVKE_TROTINETA;
             default:
-                System.out.println("Greska pri citanju vrste vozila");
+                DnevnikDogadjaja.getInstance().zabiljezi(KodDogadjaja.NEPOZNATA_VRSTA_POPRAVKA);
                 return 0;
         }
     }
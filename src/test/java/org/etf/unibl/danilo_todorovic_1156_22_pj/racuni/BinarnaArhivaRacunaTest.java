@@ -0,0 +1,213 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.racuni;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.rental.Iznajmljivanje;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.Simulacija;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.Automobil;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.ElektricniBicikl;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.RegistarVozila;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Racun;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests reopening the binary receipt archive: duplicates are skipped, a torn last record and records whose
+ * strings did not reach the disk are cut off, the index merged on close equals a full sort of the archive, and
+ * receipts read back render the same text as the receipts they were written from.
+ */
+class BinarnaArhivaRacunaTest {
+    private static final LocalDateTime POCETAK = LocalDateTime.of(2024, 6, 1, 9, 0);
+
+    @TempDir
+    Path folder;
+
+    @BeforeAll
+    static void registrujVozila() {
+        for (String id : List.of("A1", "B1", "C1", "T1", "V0", "V1", "V2", "V3", "V4", "V5", "V6", "V7", "V8", "V9", "V10", "V11")) {
+            Simulacija.getVozila().putIfAbsent(id, new ElektricniBicikl(id, "B", "BM1", 3000, 100, 100));
+        }
+        Simulacija.getVozila().putIfAbsent("A9", new Automobil("A9", "A", "AM1", 30000, 100, LocalDate.of(2020, 1, 1), "opis", 4));
+        RegistarVozila.getInstance().izgradi(Simulacija.getVozila());
+    }
+
+    private static Racun racun(int minut, String idVozila) {
+        return new Racun(new Iznajmljivanje(POCETAK.plusMinutes(minut), "K" + minut, "123456", "654321", idVozila,
+                0, 0, 3, 4, 10, false, false, false));
+    }
+
+    private void upisi(List<Racun> racuni) throws IOException {
+        try (PisacBinarneArhive pisac = new PisacBinarneArhive(folder)) {
+            for (Racun racun : racuni) {
+                pisac.upisi(racun);
+            }
+        }
+    }
+
+    @Test
+    void ponovljeniRacuniSeNeDodaju() throws IOException {
+        upisi(List.of(racun(0, "A1"), racun(0, "B1"), racun(5, "T1")));
+        try (PisacBinarneArhive pisac = new PisacBinarneArhive(folder)) {
+            assertFalse(pisac.upisi(racun(0, "B1")));
+            assertTrue(pisac.upisi(racun(0, "C1")));
+            assertFalse(pisac.upisi(racun(0, "C1")));
+            assertEquals(2, pisac.getBrojPreskocenih());
+        }
+
+        BinarnaArhivaRacuna arhiva = new BinarnaArhivaRacuna(folder);
+        assertEquals(4, arhiva.getBrojRacuna());
+        List<String> vozila = arhiva.zaDatum(POCETAK.toLocalDate()).stream().map(ZapisRacuna::getIDPrevoznogSredstva).toList();
+        assertEquals(List.of("A1", "B1", "C1", "T1"), vozila);
+        provjeriIndeks();
+
+        Files.delete(folder.resolve(BinarnaArhivaRacuna.INDEKS)); // The index is rebuilt in memory
+        vozila = new BinarnaArhivaRacuna(folder).zaDatum(POCETAK.toLocalDate()).stream().map(ZapisRacuna::getIDPrevoznogSredstva).toList();
+        assertEquals(List.of("A1", "B1", "C1", "T1"), vozila);
+    }
+
+    @Test
+    void nepotpunZapisSeOdsijeca() throws IOException {
+        upisi(List.of(racun(0, "A1"), racun(1, "A1")));
+        Path zapisi = folder.resolve(BinarnaArhivaRacuna.ZAPISI);
+        long velicina = Files.size(zapisi);
+        Files.write(zapisi, new byte[BinarnaArhivaRacuna.VELICINA_ZAPISA / 2], StandardOpenOption.APPEND);
+
+        upisi(List.of(racun(2, "A1")));
+        assertEquals(velicina + BinarnaArhivaRacuna.VELICINA_ZAPISA, Files.size(zapisi));
+        BinarnaArhivaRacuna arhiva = new BinarnaArhivaRacuna(folder);
+        assertEquals(3, arhiva.getBrojRacuna());
+        ZapisRacuna racun = arhiva.pronadji(POCETAK.plusMinutes(2), "A1");
+        assertNotNull(racun);
+        assertEquals("K2", racun.getImeKorisnika());
+        provjeriIndeks();
+    }
+
+    @Test
+    void zapisiNaDiskuNePokazujuIzaTekstova() throws IOException {
+        Path zapisi = folder.resolve(BinarnaArhivaRacuna.ZAPISI);
+        try (PisacBinarneArhive pisac = new PisacBinarneArhive(folder)) {
+            for (int i = 0; i < 1000; i++) {
+                pisac.upisi(racun(i, "A1")); // Every receipt adds a new user name to the strings file
+                long naDisku = (Files.size(zapisi) - BinarnaArhivaRacuna.ZAGLAVLJE_ZAPISA) / BinarnaArhivaRacuna.VELICINA_ZAPISA;
+                if (i % 50 == 0 || naDisku % 64 == 0) {
+                    assertEquals(naDisku, new BinarnaArhivaRacuna(folder).getBrojRacuna(), "racun " + i);
+                }
+            }
+        }
+        assertEquals(1000, new BinarnaArhivaRacuna(folder).getBrojRacuna());
+    }
+
+    @Test
+    void zapisiBezTekstovaSeOdsijecaju() throws IOException {
+        upisi(List.of(racun(0, "A1"), racun(1, "A1"), racun(2, "A1")));
+        Path tekstovi = folder.resolve(BinarnaArhivaRacuna.TEKSTOVI);
+        byte[] sadrzaj = Files.readAllBytes(tekstovi);
+        Files.write(tekstovi, Arrays.copyOf(sadrzaj, sadrzaj.length - 1)); // Loses the end of the name "K2"
+
+        BinarnaArhivaRacuna arhiva = new BinarnaArhivaRacuna(folder);
+        assertEquals(2, arhiva.getBrojRacuna());
+        assertEquals("K1", arhiva.procitaj(1).getImeKorisnika());
+
+        upisi(List.of(racun(2, "A1"), racun(3, "A1")));
+        assertEquals(BinarnaArhivaRacuna.ZAGLAVLJE_ZAPISA + 4L * BinarnaArhivaRacuna.VELICINA_ZAPISA,
+                Files.size(folder.resolve(BinarnaArhivaRacuna.ZAPISI)));
+        arhiva = new BinarnaArhivaRacuna(folder);
+        assertEquals(4, arhiva.getBrojRacuna());
+        assertEquals("K2", arhiva.pronadji(POCETAK.plusMinutes(2), "A1").getImeKorisnika());
+        provjeriIndeks();
+    }
+
+    @Test
+    void koordinataVanOpsegaSeOdbija() throws IOException {
+        try (PisacBinarneArhive pisac = new PisacBinarneArhive(folder)) {
+            Racun racun = new Racun(new Iznajmljivanje(POCETAK, "K0", "123456", "654321", "A1",
+                    0, 0, 40000, 4, 10, false, false, false));
+            assertThrows(IOException.class, () -> pisac.upisi(racun));
+            assertTrue(pisac.upisi(racun(1, "A1")));
+        }
+        assertEquals(1, new BinarnaArhivaRacuna(folder).getBrojRacuna());
+    }
+
+    @Test
+    void procitaniRacunIspisujeIstiTekst() throws IOException {
+        List<Racun> racuni = List.of(
+                racun(0, "A1"),
+                new Racun(new Iznajmljivanje(POCETAK.plusMinutes(1), "K1", "123456", "654321", "A9",
+                        2, 3, 15, 18, 25, true, false, true)),
+                new Racun(new Iznajmljivanje(POCETAK.plusMinutes(2), "K2", "777777", "888888", "B1",
+                        19, 19, 0, 1, 7, false, true, false)));
+        upisi(racuni);
+
+        BinarnaArhivaRacuna arhiva = new BinarnaArhivaRacuna(folder);
+        for (Racun racun : racuni) {
+            Iznajmljivanje iznajmljivanje = racun.getIznajmljivanje();
+            ZapisRacuna zapis = arhiva.pronadji(iznajmljivanje.getDatumVrijemeIznajmljivanja(), iznajmljivanje.getIDPrevoznogSredstva());
+            assertNotNull(zapis);
+            assertEquals(racun.toString(), zapis.toString());
+        }
+        assertTrue(arhiva.pronadji(POCETAK.plusMinutes(1), "A9").toString().contains("Broj vozacke dozvole: 654321"));
+    }
+
+    @Test
+    void spojeniIndeksJednakJePunomSortiranju() throws IOException {
+        Random random = new Random(9);
+        for (int pokretanje = 0; pokretanje < 5; pokretanje++) {
+            List<Racun> racuni = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                racuni.add(racun(random.nextInt(60 * 24 * 3), "V" + random.nextInt(12)));
+            }
+            upisi(racuni);
+            provjeriIndeks();
+        }
+        BinarnaArhivaRacuna arhiva = new BinarnaArhivaRacuna(folder);
+        List<ZapisRacuna> dan = arhiva.zaDatum(LocalDate.of(2024, 6, 2));
+        for (int i = 1; i < dan.size(); i++) {
+            assertTrue(dan.get(i - 1).getDatumVrijemeIznajmljivanja().compareTo(dan.get(i).getDatumVrijemeIznajmljivanja()) <= 0);
+        }
+    }
+
+    /**
+     * Checks that the index file covers every record and lists the record numbers sorted by time and vehicle ID.
+     */
+    private void provjeriIndeks() throws IOException {
+        BinarnaArhivaRacuna arhiva = new BinarnaArhivaRacuna(folder);
+        int broj = arhiva.getBrojRacuna();
+        List<Integer> ocekivano = new ArrayList<>();
+        for (int i = 0; i < broj; i++) {
+            ocekivano.add(i);
+        }
+        ocekivano.sort(Comparator.<Integer, LocalDateTime>comparing(i -> arhiva.procitaj(i).getDatumVrijemeIznajmljivanja())
+                .thenComparing(i -> arhiva.procitaj(i).getIDPrevoznogSredstva()));
+
+        try (DataInputStream ulaz = new DataInputStream(Files.newInputStream(folder.resolve(BinarnaArhivaRacuna.INDEKS)))) {
+            assertEquals(BinarnaArhivaRacuna.MAGIC_INDEKSA, ulaz.readInt());
+            assertEquals(BinarnaArhivaRacuna.VERZIJA, ulaz.readInt());
+            assertEquals(broj, ulaz.readInt());
+            ulaz.readInt();
+            List<Integer> indeks = new ArrayList<>();
+            for (int i = 0; i < broj; i++) {
+                indeks.add(ulaz.readInt());
+            }
+            assertEquals(ocekivano, indeks);
+            assertEquals(-1, ulaz.read());
+        }
+    }
+}
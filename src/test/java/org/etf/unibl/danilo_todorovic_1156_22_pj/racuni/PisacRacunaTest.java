@@ -0,0 +1,54 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.racuni;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.rental.Iznajmljivanje;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija.Simulacija;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.ElektricniBicikl;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.RegistarVozila;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Racun;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Tests that a batch failing with an unexpected exception does not stop the receipt writer thread.
+ */
+class PisacRacunaTest {
+    private static final LocalDateTime POCETAK = LocalDateTime.of(2024, 6, 1, 9, 0);
+
+    @TempDir
+    Path folder;
+
+    @BeforeAll
+    static void registrujVozila() {
+        Simulacija.getVozila().putIfAbsent("P1", new ElektricniBicikl("P1", "B", "BM1", 3000, 100, 100));
+        RegistarVozila.getInstance().izgradi(Simulacija.getVozila());
+    }
+
+    @Test
+    void neuspjeliPaketNeZaustavljaPisca() throws IOException {
+        PisacRacuna pisac = new PisacRacuna(folder.toString(), PisacRacuna.Nacin.BINARY, 0);
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            pisac.predaj("neispravan", null); // The binary archive throws NullPointerException for this receipt
+            while (pisac.getBrojNeuspjelih() == 0) {
+                Thread.sleep(1);
+            }
+            for (int i = 0; i < 20_000; i++) { // More receipts than the queue holds
+                pisac.predaj("racun" + i, new Racun(new Iznajmljivanje(POCETAK.plusMinutes(i), "K" + i, "123456", "654321", "P1",
+                        0, 0, 3, 4, 10, false, false, false)));
+            }
+            pisac.close();
+        });
+
+        assertEquals(1, pisac.getBrojNeuspjelih());
+        assertEquals(20_000, pisac.getBrojRacuna());
+        assertEquals(20_000, new BinarnaArhivaRacuna(folder).getBrojRacuna());
+    }
+}
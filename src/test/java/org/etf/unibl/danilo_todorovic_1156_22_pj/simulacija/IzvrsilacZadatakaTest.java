@@ -0,0 +1,68 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a failing task is handled the same way whether its batch runs inline or on the executor.
+ */
+class IzvrsilacZadatakaTest {
+
+    private static IzvrsilacZadataka izvrsilac() {
+        Properties appProps = new Properties();
+        appProps.setProperty("EXECUTOR", "FIXED");
+        appProps.setProperty("EXECUTOR_POOL_SIZE", "4");
+        return IzvrsilacZadataka.izKonfiguracije(appProps);
+    }
+
+    private static Runnable greska() {
+        return () -> {
+            throw new IllegalStateException("Namjerna greska");
+        };
+    }
+
+    @Test
+    void greskaJedinogZadatkaSeNeProsljedjuje() {
+        try (IzvrsilacZadataka izvrsilac = izvrsilac()) {
+            izvrsilac.izvrsiSve(List.of(greska()));
+            assertEquals(1, izvrsilac.getBrojZadataka());
+            assertEquals(1, izvrsilac.getBrojNeuspjelih());
+        }
+    }
+
+    @Test
+    void greskaJednogZadatkaNeZaustavljaOstale() {
+        AtomicInteger izvrseno = new AtomicInteger();
+        try (IzvrsilacZadataka izvrsilac = izvrsilac()) {
+            izvrsilac.izvrsiSve(List.of(izvrseno::incrementAndGet, greska(), izvrseno::incrementAndGet));
+            assertEquals(2, izvrseno.get());
+            assertEquals(3, izvrsilac.getBrojZadataka());
+            assertEquals(1, izvrsilac.getBrojNeuspjelih());
+        }
+    }
+
+    @Test
+    void prekidCekaNaZadatkeKojiSeIzvrsavaju() {
+        AtomicInteger izvrseno = new AtomicInteger();
+        Runnable sporo = () -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            izvrseno.incrementAndGet();
+        };
+        try (IzvrsilacZadataka izvrsilac = izvrsilac()) {
+            Thread.currentThread().interrupt();
+            izvrsilac.izvrsiSve(List.of(sporo, sporo));
+            assertTrue(Thread.interrupted());
+            assertEquals(2, izvrseno.get());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.simulacija;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.rental.Iznajmljivanje;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.transport.ElektricniBicikl;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.CitacIznajmljivanja;
+import org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje.ParalelniCitacIznajmljivanja;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that reading the rental file in parallel parts, processing the parts in file order and merging them
+ * by time gives the same rentals, discounts and rejections as reading the file sequentially.
+ */
+class UcitavanjeIznajmljivanjaTest {
+    private static final LocalDateTime POCETAK = LocalDateTime.of(2024, 6, 1, 9, 0);
+    private static final int BROJ_VOZILA = 6;
+    private static final long[] MIN_DIJELOVI = {64, 1000, Long.MAX_VALUE}; // Minimum part sizes, down to a few rows per part
+
+    @TempDir
+    Path folder;
+
+    @BeforeAll
+    static void registrujVozila() {
+        for (int i = 0; i < BROJ_VOZILA; i++) {
+            Simulacija.getVozila().putIfAbsent("V" + i, new ElektricniBicikl("V" + i, "B", "BM1", 3000, 100, 100));
+        }
+    }
+
+    @Test
+    void paralelnoJednakoSekvencijalnom() throws IOException {
+        Random random = new Random(25);
+        StringBuilder sb = new StringBuilder("Datum,Korisnik,ID prevoznog sredstva,Pocetna lokacija,Odrediste,Trajanje,Kvar,Promocija\n");
+        for (int i = 0; i < 3000; i++) {
+            LocalDateTime vrijeme = POCETAK.plusHours(random.nextInt(600)); // Few times, so vehicles are often busy
+            String vozilo = random.nextInt(20) == 0 ? "X" + random.nextInt(3) : "V" + random.nextInt(BROJ_VOZILA);
+            String trajanje = random.nextInt(50) == 0 ? "x" : String.valueOf(1 + random.nextInt(10));
+            sb.append(vrijeme.getDayOfMonth()).append('.').append(vrijeme.getMonthValue()).append('.').append(vrijeme.getYear())
+                    .append(' ').append(String.format("%02d:%02d", vrijeme.getHour(), vrijeme.getMinute()))
+                    .append(",K").append(random.nextInt(30)).append(',').append(vozilo)
+                    .append(",\"").append(random.nextInt(20)).append(',').append(random.nextInt(20)).append("\",\"")
+                    .append(random.nextInt(20)).append(',').append(random.nextInt(20)).append("\",")
+                    .append(trajanje).append(',').append(random.nextBoolean() ? "da" : "ne").append(',')
+                    .append(random.nextBoolean() ? "da" : "ne").append('\n');
+        }
+        Path putanja = folder.resolve("iznajmljivanja.csv");
+        Files.writeString(putanja, sb, StandardCharsets.UTF_8);
+
+        List<String> ocekivano = sekvencijalno(putanja);
+        assertTrue(ocekivano.size() < 2700, "premalo zauzetih vozila");
+        assertTrue(ocekivano.stream().filter(red -> red.endsWith("|true")).count() >= 15, "premalo popusta");
+
+        for (int paralelnost : new int[]{1, 3}) {
+            for (long minDio : MIN_DIJELOVI) {
+                List<ParalelniCitacIznajmljivanja.Dio> dijelovi = new ParalelniCitacIznajmljivanja(putanja, paralelnost, minDio).procitaj();
+                List<List<Iznajmljivanje>> prihvaceni = Simulacija.prihvatanjeUFajlRedu(dijelovi, new HashMap<>());
+                Comparator<Iznajmljivanje> poVremenu = Comparator.comparing(Iznajmljivanje::getDatumVrijemeIznajmljivanja);
+                prihvaceni.forEach(dio -> dio.sort(poVremenu));
+                ArrayList<Iznajmljivanje> spojeno = new ArrayList<>();
+                Simulacija.spajanjePoVremenu(prihvaceni, poVremenu, spojeno);
+
+                String opis = "paralelnost " + paralelnost + ", dijelova " + dijelovi.size();
+                assertEquals(minDio == Long.MAX_VALUE ? 1 : paralelnost * 4, dijelovi.size(), opis);
+                assertEquals(ocekivano, spojeno.stream().map(UcitavanjeIznajmljivanjaTest::opis).toList(), opis);
+            }
+        }
+    }
+
+    /**
+     * Reads the file row by row with the rules of the sequential loader: unknown vehicles are rejected, every
+     * other row counts towards its user, busy vehicles are rejected and a user's tenth rental gets a discount.
+     * The accepted rentals are then sorted by time, keeping rentals with the same time in file order.
+     */
+    private static List<String> sekvencijalno(Path putanja) throws IOException {
+        HashMap<String, Integer> brIznajmljivanja = new HashMap<>();
+        HashSet<String> zauzeto = new HashSet<>();
+        ArrayList<Iznajmljivanje> prihvaceni = new ArrayList<>();
+        ArrayList<Boolean> popusti = new ArrayList<>();
+        try (CitacIznajmljivanja citac = new CitacIznajmljivanja(putanja)) {
+            while (citac.sljedeci()) {
+                if (!citac.isValidan() || !Simulacija.getVozila().containsKey(citac.getIDPrevoznogSredstva())) {
+                    continue;
+                }
+                int broj = brIznajmljivanja.merge(citac.getImeKorisnika(), 1, Integer::sum);
+                if (!zauzeto.add(citac.getDatumVrijemeIznajmljivanja() + " " + citac.getIDPrevoznogSredstva())) {
+                    continue;
+                }
+                prihvaceni.add(new Iznajmljivanje(citac.getDatumVrijemeIznajmljivanja(), citac.getImeKorisnika(),
+                        "123456", "654321", citac.getIDPrevoznogSredstva(),
+                        citac.getXPreuzimanja(), citac.getYPreuzimanja(), citac.getXVracanja(), citac.getYVracanja(),
+                        citac.getTrajanjeSekunde(), citac.isKvar(), citac.isPromocija(), broj == 10));
+            }
+        }
+        prihvaceni.sort(Comparator.comparing(Iznajmljivanje::getDatumVrijemeIznajmljivanja));
+        return prihvaceni.stream().map(UcitavanjeIznajmljivanjaTest::opis).toList();
+    }
+
+    private static String opis(Iznajmljivanje iznajmljivanje) {
+        return String.join("|", iznajmljivanje.getDatumVrijemeIznajmljivanja().toString(), iznajmljivanje.getImeKorisnika(),
+                iznajmljivanje.getIDPrevoznogSredstva(), iznajmljivanje.getXPreuzimanja() + "", iznajmljivanje.getYPreuzimanja() + "",
+                iznajmljivanje.getXVracanja() + "", iznajmljivanje.getYVracanja() + "", iznajmljivanje.getTrajanjeSekunde() + "",
+                iznajmljivanje.isKvar() + "", iznajmljivanje.isPromocija() + "", iznajmljivanje.isPopust() + "");
+    }
+}
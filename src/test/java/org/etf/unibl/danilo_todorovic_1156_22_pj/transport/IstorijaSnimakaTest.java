@@ -0,0 +1,101 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.transport;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the snapshot history files: reading the latest snapshot past a torn or undecodable last frame,
+ * cutting such a frame off on the next append, and skipping repeated snapshots.
+ */
+class IstorijaSnimakaTest {
+    private static final LocalDateTime POCETAK = LocalDateTime.of(2024, 6, 1, 9, 0);
+
+    @TempDir
+    Path folder;
+
+    private static ElektricniBicikl bicikl(int baterija) {
+        return new ElektricniBicikl("B1", "B", "BM1", 3000, baterija, 100);
+    }
+
+    @Test
+    void posljednjiSnimakNakonPrekinutogOkvira() throws IOException {
+        IstorijaSnimaka.dodaj(folder, bicikl(90), POCETAK);
+        IstorijaSnimaka.dodaj(folder, bicikl(80), POCETAK.plusHours(1));
+        Path fajl = folder.resolve("B1" + IstorijaSnimaka.EKSTENZIJA);
+        long cijeli = Files.size(fajl);
+
+        IstorijaSnimaka.dodaj(folder, bicikl(70), POCETAK.plusHours(2));
+        byte[] sadrzaj = Files.readAllBytes(fajl);
+        for (long duzina = cijeli + 1; duzina < sadrzaj.length; duzina += 7) {
+            Files.write(fajl, Arrays.copyOf(sadrzaj, (int) duzina));
+            SnimakVozila posljednji = IstorijaSnimaka.procitajPosljednji(fajl);
+            assertEquals(POCETAK.plusHours(1), posljednji.getVrijeme());
+            assertEquals(80, posljednji.getVozilo().getTrenutniNivoBaterije());
+            assertEquals(2, IstorijaSnimaka.procitaj(fajl).size());
+        }
+    }
+
+    @Test
+    void prekinutiOkvirSeOdsijecaPriDodavanju() throws IOException {
+        IstorijaSnimaka.dodaj(folder, bicikl(90), POCETAK);
+        Path fajl = folder.resolve("B1" + IstorijaSnimaka.EKSTENZIJA);
+        Files.write(fajl, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        assertTrue(IstorijaSnimaka.dodaj(folder, bicikl(60), POCETAK.plusHours(1)));
+        List<SnimakVozila> snimci = IstorijaSnimaka.procitaj(fajl);
+        assertEquals(2, snimci.size());
+        assertEquals(60, snimci.get(1).getVozilo().getTrenutniNivoBaterije());
+        assertEquals(POCETAK.plusHours(1), IstorijaSnimaka.procitajPosljednji(fajl).getVrijeme());
+    }
+
+    @Test
+    void okvirKojiSeNeDekodiraSeOdsijeca() throws IOException {
+        IstorijaSnimaka.dodaj(folder, bicikl(90), POCETAK);
+        IstorijaSnimaka.dodaj(folder, bicikl(80), POCETAK.plusHours(1));
+        Path fajl = folder.resolve("B1" + IstorijaSnimaka.EKSTENZIJA);
+        byte[] sadrzaj = Files.readAllBytes(fajl);
+        byte[] nepoznataVerzija = {0, 0, 0, 4, 0, 0, 0, 0, 0, 0, 0, 4}; // Matching lengths around a payload that does not decode
+
+        for (byte[] rep : List.of(new byte[8], new byte[13], nepoznataVerzija)) {
+            Files.write(fajl, sadrzaj);
+            Files.write(fajl, rep, StandardOpenOption.APPEND);
+            assertEquals(POCETAK.plusHours(1), IstorijaSnimaka.procitajPosljednji(fajl).getVrijeme());
+            assertEquals(2, IstorijaSnimaka.procitaj(fajl).size());
+
+            assertFalse(IstorijaSnimaka.dodaj(folder, bicikl(80), POCETAK.plusHours(1)));
+            assertEquals(sadrzaj.length, Files.size(fajl));
+            assertTrue(IstorijaSnimaka.dodaj(folder, bicikl(70), POCETAK.plusHours(2)));
+            assertEquals(3, IstorijaSnimaka.procitaj(fajl).size());
+            assertEquals(70, IstorijaSnimaka.procitajPosljednji(fajl).getVozilo().getTrenutniNivoBaterije());
+        }
+    }
+
+    @Test
+    void ponovljeniSnimakSeNeDodaje() throws IOException {
+        assertTrue(IstorijaSnimaka.dodaj(folder, bicikl(90), POCETAK));
+        assertTrue(IstorijaSnimaka.dodaj(folder, bicikl(80), POCETAK.plusHours(1)));
+        assertFalse(IstorijaSnimaka.dodaj(folder, bicikl(80), POCETAK.plusHours(1)));
+        assertEquals(2, IstorijaSnimaka.procitaj(folder.resolve("B1" + IstorijaSnimaka.EKSTENZIJA)).size());
+    }
+
+    @Test
+    void stariFajlOstajeNetaknut() throws IOException {
+        Path stari = folder.resolve("B1" + IstorijaSnimaka.STARA_EKSTENZIJA);
+        Files.write(stari, new byte[]{1, 2, 3});
+        IstorijaSnimaka.dodaj(folder, bicikl(90), POCETAK);
+        assertTrue(Files.exists(stari));
+        assertEquals(1, IstorijaSnimaka.procitaj(folder.resolve("B1" + IstorijaSnimaka.EKSTENZIJA)).size());
+    }
+}
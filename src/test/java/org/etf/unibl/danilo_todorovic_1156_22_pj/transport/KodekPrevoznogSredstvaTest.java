@@ -0,0 +1,90 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests that every vehicle type survives a round trip through the snapshot codec, including missing strings and dates.
+ */
+class KodekPrevoznogSredstvaTest {
+    private static final LocalDateTime VRIJEME = LocalDateTime.of(2024, 6, 1, 9, 30);
+
+    private static SnimakVozila krozKodek(PrevoznoSredstvo vozilo) throws IOException {
+        ByteArrayOutputStream bajtovi = new ByteArrayOutputStream();
+        KodekPrevoznogSredstva.kodiraj(vozilo, VRIJEME, new DataOutputStream(bajtovi));
+        DataInputStream ulaz = new DataInputStream(new ByteArrayInputStream(bajtovi.toByteArray()));
+        SnimakVozila snimak = KodekPrevoznogSredstva.dekodiraj(ulaz);
+        assertEquals(-1, ulaz.read()); // The whole snapshot is consumed
+        assertEquals(VRIJEME, snimak.getVrijeme());
+        return snimak;
+    }
+
+    private static void provjeriZajednicko(PrevoznoSredstvo ocekivano, PrevoznoSredstvo procitano) {
+        assertEquals(ocekivano.getId(), procitano.getId());
+        assertEquals(ocekivano.getProizvodjac(), procitano.getProizvodjac());
+        assertEquals(ocekivano.getModel(), procitano.getModel());
+        assertEquals(ocekivano.getCijenaNabavke(), procitano.getCijenaNabavke());
+        assertEquals(ocekivano.getTrenutniNivoBaterije(), procitano.getTrenutniNivoBaterije());
+        assertEquals(ocekivano.getX(), procitano.getX());
+        assertEquals(ocekivano.getY(), procitano.getY());
+    }
+
+    @Test
+    void automobil() throws IOException {
+        Automobil automobil = new Automobil("A1", "Škoda", "Octavia", 50000, 73, LocalDate.of(2024, 5, 1), "primjer 1", 5);
+        automobil.setX(4);
+        automobil.setY(17);
+        Automobil procitan = assertInstanceOf(Automobil.class, krozKodek(automobil).getVozilo());
+        provjeriZajednicko(automobil, procitan);
+        assertEquals(automobil.getDatumNabavke(), procitan.getDatumNabavke());
+        assertEquals(automobil.getOpis(), procitan.getOpis());
+        assertEquals(automobil.getKapacitetOsoba(), procitan.getKapacitetOsoba());
+    }
+
+    @Test
+    void automobilBezTekstovaIDatuma() throws IOException {
+        Automobil automobil = new Automobil("A2", null, null, 0, 0, null, null, 0);
+        Automobil procitan = assertInstanceOf(Automobil.class, krozKodek(automobil).getVozilo());
+        provjeriZajednicko(automobil, procitan);
+        assertNull(procitan.getProizvodjac());
+        assertNull(procitan.getModel());
+        assertNull(procitan.getDatumNabavke());
+        assertNull(procitan.getOpis());
+    }
+
+    @Test
+    void bicikl() throws IOException {
+        ElektricniBicikl bicikl = new ElektricniBicikl("B1", "B", null, 3000, 100, 42.5);
+        bicikl.setX(19);
+        ElektricniBicikl procitan = assertInstanceOf(ElektricniBicikl.class, krozKodek(bicikl).getVozilo());
+        provjeriZajednicko(bicikl, procitan);
+        assertEquals(bicikl.getAutonomija(), procitan.getAutonomija());
+    }
+
+    @Test
+    void trotinet() throws IOException {
+        ElektricniTrotinet trotinet = new ElektricniTrotinet("T1", null, "TM1", 1000, 12, 50);
+        trotinet.setY(3);
+        ElektricniTrotinet procitan = assertInstanceOf(ElektricniTrotinet.class, krozKodek(trotinet).getVozilo());
+        provjeriZajednicko(trotinet, procitan);
+        assertEquals(trotinet.getMaksimalnaBrzina(), procitan.getMaksimalnaBrzina());
+    }
+
+    @Test
+    void nepoznataVerzijaSeOdbija() {
+        byte[] bajtovi = {(byte) (KodekPrevoznogSredstva.VERZIJA + 1), 1};
+        assertThrows(IOException.class, () -> KodekPrevoznogSredstva.dekodiraj(new DataInputStream(new ByteArrayInputStream(bajtovi))));
+    }
+}
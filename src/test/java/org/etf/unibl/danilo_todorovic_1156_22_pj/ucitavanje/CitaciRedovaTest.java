@@ -0,0 +1,270 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.ucitavanje;
+
+import org.etf.unibl.danilo_todorovic_1156_22_pj.util.Utility;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fuzzes the streaming readers of the rental and vehicle files with random rows and compares every row
+ * with the split-based validation they replaced, for LF and CRLF line endings and for mapped windows
+ * smaller than a line.
+ */
+class CitaciRedovaTest {
+    private static final int BROJ_REDOVA = 3000;
+    private static final int[] PROZORI = {8, 61, 4096}; // Window sizes, in addition to the default one
+    private static final String[] ZAVRSECI = {"\n", "\r\n"};
+
+    private static final String[] DATUMI = {"1.6.2024 09:00", "15.12.2024 23:59", "01.06.2024 09:00", "31.2.2024 10:00",
+            "29.2.2023 10:00", "1.6.2024 9:00", "1.6.2024 24:00", "1.13.2024 09:00", "0.6.2024 09:00", "1.6.24 09:00",
+            "1.6.2024  09:00", "1.6.2024 09:00 ", "", "x"};
+    private static final String[] KORISNICI = {"K1", "Ćirić", " ", ""};
+    private static final String[] KOORDINATE = {"0", "7", "19", "20", "-1", "+3", "007", "x", "", "2147483648", "-"};
+    private static final String[] CIJELI_BROJEVI = {"5", "0", "-3", "+7", "50000", "abc", "", "-", "2147483647", "2147483648", "1.5"};
+    private static final String[] DA_NE = {"da", "ne", "Da", "NE", "", "x"};
+    private static final String[] DATUMI_NABAVKE = {"1.5.2024.", "01.05.2024.", "31.4.2024.", "1.5.2024", "1.5.24.", "0.5.2024.", "", "x"};
+    private static final String[] VRSTE = {"automobil", "bicikl", "trotinet", "auto", "Bicikl", ""};
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void iznajmljivanjaOdgovarajuReferentnimPravilima() throws IOException {
+        Random random = new Random(1156);
+        List<String> redovi = new ArrayList<>();
+        for (int i = 0; i < BROJ_REDOVA; i++) {
+            redovi.add(redIznajmljivanja(random));
+        }
+        for (String zavrsetak : ZAVRSECI) {
+            Path putanja = upisi("iznajmljivanja.csv", "Datum,Korisnik,ID prevoznog sredstva,Pocetna lokacija,Odrediste,Trajanje,Kvar,Promocija", redovi, zavrsetak);
+            try (CitacIznajmljivanja citac = new CitacIznajmljivanja(putanja)) {
+                provjeriIznajmljivanja(citac, redovi);
+            }
+            for (int prozor : PROZORI) {
+                CsvCitac csv = new CsvCitac(putanja, 0, Long.MAX_VALUE, prozor);
+                csv.sljedeciRed(); // Skip header line
+                try (CitacIznajmljivanja citac = new CitacIznajmljivanja(csv)) {
+                    provjeriIznajmljivanja(citac, redovi);
+                }
+            }
+        }
+    }
+
+    @Test
+    void vozilaOdgovarajuReferentnimPravilima() throws IOException {
+        Random random = new Random(2024);
+        List<String> redovi = new ArrayList<>();
+        for (int i = 0; i < BROJ_REDOVA; i++) {
+            redovi.add(redVozila(random));
+        }
+        for (String zavrsetak : ZAVRSECI) {
+            Path putanja = upisi("vozila.csv", "ID,Proizvodjac,Model,Datum nabavke,Cijena,Domet,Max Brzina,Opis,Vrsta", redovi, zavrsetak);
+            try (CitacPrevoznihSredstava citac = new CitacPrevoznihSredstava(putanja)) {
+                provjeriVozila(citac, redovi);
+            }
+            for (int prozor : PROZORI) {
+                try (CitacPrevoznihSredstava citac = new CitacPrevoznihSredstava(new CsvCitac(putanja, 0, Long.MAX_VALUE, prozor))) {
+                    provjeriVozila(citac, redovi);
+                }
+            }
+        }
+    }
+
+    private Path upisi(String ime, String zaglavlje, List<String> redovi, String zavrsetak) throws IOException {
+        StringBuilder sb = new StringBuilder(zaglavlje).append(zavrsetak);
+        for (int i = 0; i < redovi.size(); i++) {
+            sb.append(redovi.get(i));
+            if (i + 1 < redovi.size() || zavrsetak.length() == 1) { // The last line of the CRLF file has no terminator
+                sb.append(zavrsetak);
+            }
+        }
+        Path putanja = folder.resolve(ime);
+        Files.writeString(putanja, sb, StandardCharsets.UTF_8);
+        return putanja;
+    }
+
+    private static void provjeriIznajmljivanja(CitacIznajmljivanja citac, List<String> redovi) throws IOException {
+        for (String red : redovi) {
+            assertEquals(true, citac.sljedeci(), red);
+            String procitano = citac.isValidan() ? String.join("|", citac.getDatumVrijemeIznajmljivanja().toString(),
+                    citac.getImeKorisnika(), citac.getIDPrevoznogSredstva(),
+                    citac.getXPreuzimanja() + "", citac.getYPreuzimanja() + "", citac.getXVracanja() + "", citac.getYVracanja() + "",
+                    citac.getTrajanjeSekunde() + "", citac.isKvar() + "", citac.isPromocija() + "") : null;
+            assertEquals(referentnoIznajmljivanje(red.split(",")), procitano, red);
+        }
+        assertEquals(false, citac.sljedeci());
+    }
+
+    private static void provjeriVozila(CitacPrevoznihSredstava citac, List<String> redovi) throws IOException {
+        for (String red : redovi) {
+            assertEquals(true, citac.sljedeci(), red);
+            String procitano = null;
+            if (citac.isValidan()) {
+                String atribut = switch (citac.getVrsta()) {
+                    case "automobil" -> citac.getDatumNabavke() + "|" + citac.getOpis();
+                    case "bicikl" -> citac.getDomet() + "";
+                    default -> citac.getMaksimalnaBrzina() + "";
+                };
+                procitano = String.join("|", citac.getId(), citac.getProizvodjac(), citac.getModel(),
+                        citac.getCijenaNabavke() + "", citac.getVrsta(), atribut);
+            }
+            assertEquals(referentnoVozilo(red.split(",")), procitano, red);
+        }
+        assertEquals(false, citac.sljedeci());
+    }
+
+    private static String redIznajmljivanja(Random random) {
+        List<String> polja = new ArrayList<>();
+        polja.add(izaberi(random, DATUMI));
+        polja.add(izaberi(random, KORISNICI));
+        polja.add(izaberi(random, new String[]{"A1", "B1", "T1", ""}));
+        for (int i = 0; i < 2; i++) {
+            String lokacija = izaberi(random, KOORDINATE) + "," + izaberi(random, KOORDINATE);
+            int oblik = random.nextInt(8);
+            polja.add(oblik == 0 ? lokacija : oblik == 1 ? "\"" + lokacija : oblik == 2 ? lokacija + "\"" : "\"" + lokacija + "\"");
+        }
+        polja.add(izaberi(random, CIJELI_BROJEVI));
+        polja.add(izaberi(random, DA_NE));
+        polja.add(izaberi(random, DA_NE));
+        return promijeniBrojPolja(random, polja);
+    }
+
+    private static String redVozila(Random random) {
+        List<String> polja = new ArrayList<>();
+        polja.add(izaberi(random, new String[]{"A1", "B2", "T3", ""}));
+        polja.add(izaberi(random, new String[]{"A", "Škoda", ""}));
+        polja.add(izaberi(random, new String[]{"M1", ""}));
+        polja.add(izaberi(random, DATUMI_NABAVKE));
+        polja.add(izaberi(random, CIJELI_BROJEVI));
+        polja.add(izaberi(random, CIJELI_BROJEVI));
+        polja.add(izaberi(random, CIJELI_BROJEVI));
+        polja.add(izaberi(random, new String[]{"primjer 1", "opis", ""}));
+        polja.add(izaberi(random, VRSTE));
+        return promijeniBrojPolja(random, polja);
+    }
+
+    /**
+     * Occasionally drops a field or adds one, including empty trailing fields that {@code String.split} ignores.
+     */
+    private static String promijeniBrojPolja(Random random, List<String> polja) {
+        switch (random.nextInt(12)) {
+            case 0 -> polja.remove(random.nextInt(polja.size()));
+            case 1 -> polja.add(random.nextInt(polja.size() + 1), "x");
+            case 2 -> polja.add("");
+            default -> {
+            }
+        }
+        return String.join(",", polja);
+    }
+
+    private static String izaberi(Random random, String[] vrijednosti) {
+        return vrijednosti[random.nextInt(vrijednosti.length)];
+    }
+
+    /**
+     * The split-based rental validation the streaming reader replaced, plus its rule that coordinates must be numbers.
+     *
+     * @return The parsed fields joined by "|", or {@code null} if the row is invalid.
+     */
+    private static String referentnoIznajmljivanje(String[] data) {
+        if (data.length != 10) {
+            return null;
+        }
+        for (int i = 1; i < data.length; i++) {
+            if (data[i].isEmpty()) {
+                return null;
+            }
+        }
+        LocalDateTime datum;
+        try {
+            datum = LocalDateTime.parse(data[0], DateTimeFormatter.ofPattern("d.M.yyyy HH:mm"));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        if (!data[3].startsWith("\"") || !data[4].endsWith("\"") || !data[5].startsWith("\"") || !data[6].endsWith("\"") ||
+                !isInteger(data[7]) || !isDaNe(data[8]) || !isDaNe(data[9])) {
+            return null;
+        }
+        Integer x1 = koordinata(data[3].substring(1));
+        Integer y1 = koordinata(data[4].substring(0, data[4].length() - 1));
+        Integer x2 = koordinata(data[5].substring(1));
+        Integer y2 = koordinata(data[6].substring(0, data[6].length() - 1));
+        if (x1 == null || y1 == null || x2 == null || y2 == null) {
+            return null;
+        }
+        return String.join("|", datum.toString(), data[1], data[2], x1 + "", y1 + "", x2 + "", y2 + "",
+                Integer.parseInt(data[7]) + "", "da".equals(data[8]) + "", "da".equals(data[9]) + "");
+    }
+
+    /**
+     * The split-based vehicle validation the streaming reader replaced.
+     *
+     * @return The parsed fields joined by "|", or {@code null} if the row is invalid.
+     */
+    private static String referentnoVozilo(String[] data) {
+        if (data.length != 9) {
+            return null;
+        }
+        if (data[0].isEmpty() || data[1].isEmpty() || data[2].isEmpty() || data[4].isEmpty() || data[8].isEmpty() || !isInteger(data[4])) {
+            return null;
+        }
+        String atribut;
+        if ("automobil".equals(data[8])) {
+            try {
+                atribut = LocalDate.parse(data[3], DateTimeFormatter.ofPattern("d.M.yyyy.")) + "|" + data[7];
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+            if (data[7].isEmpty()) {
+                return null;
+            }
+        } else if ("bicikl".equals(data[8])) {
+            if (data[5].isEmpty() || !isInteger(data[5])) {
+                return null;
+            }
+            atribut = (double) Integer.parseInt(data[5]) + "";
+        } else if ("trotinet".equals(data[8])) {
+            if (data[6].isEmpty() || !isInteger(data[6])) {
+                return null;
+            }
+            atribut = (double) Integer.parseInt(data[6]) + "";
+        } else {
+            return null;
+        }
+        return String.join("|", data[0], data[1], data[2], (double) Integer.parseInt(data[4]) + "", data[8], atribut);
+    }
+
+    private static Integer koordinata(String s) {
+        if (!isInteger(s)) {
+            return null;
+        }
+        int x = Integer.parseInt(s);
+        return x < 0 || x >= Utility.VELICINA_MAPE ? null : x;
+    }
+
+    private static boolean isInteger(String s) {
+        try {
+            Integer.parseInt(s);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isDaNe(String s) {
+        return "da".equals(s) || "ne".equals(s);
+    }
+}
@@ -0,0 +1,55 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the event log wakes its parked background thread and that emptying it also reports suppressed events.
+ */
+class DnevnikDogadjajaTest {
+
+    private static List<String> redovi(ByteArrayOutputStream izlaz) {
+        return izlaz.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    @Test
+    void dogadjajNakonMirovanjaSeIspisuje() throws InterruptedException {
+        ByteArrayOutputStream izlaz = new ByteArrayOutputStream();
+        DnevnikDogadjaja dnevnik = new DnevnikDogadjaja(16, 0, new PrintStream(izlaz, true, StandardCharsets.UTF_8));
+        Thread.sleep(50); // Lets the background thread park on the empty buffer
+        dnevnik.zabiljezi(KodDogadjaja.VOZILO_NE_POSTOJI, "X1");
+
+        long rok = System.nanoTime() + 5_000_000_000L;
+        while (redovi(izlaz).isEmpty() && System.nanoTime() < rok) {
+            Thread.sleep(1);
+        }
+        assertEquals(List.of("Vozilo ne postoji: X1"), redovi(izlaz));
+    }
+
+    @Test
+    void praznjenjePrijavljujeIzostavljeneDogadjaje() {
+        ByteArrayOutputStream izlaz = new ByteArrayOutputStream();
+        DnevnikDogadjaja dnevnik = new DnevnikDogadjaja(16, 2, new PrintStream(izlaz, true, StandardCharsets.UTF_8));
+        for (int i = 0; i < 5; i++) {
+            dnevnik.zabiljezi(KodDogadjaja.BATERIJA_NAPUNJENA);
+        }
+        dnevnik.isprazni();
+
+        List<String> redovi = redovi(izlaz);
+        assertTrue(redovi.size() >= 2, redovi.toString());
+        long izostavljeno = redovi.stream().filter(red -> red.startsWith("BATERIJA_NAPUNJENA: izostavljeno ")).count();
+        long ispisano = redovi.stream().filter(red -> red.equals("Baterija napunjena")).count();
+        long prijavljeno = redovi.stream().filter(red -> red.startsWith("BATERIJA_NAPUNJENA: izostavljeno "))
+                .mapToLong(red -> Long.parseLong(red.split(" ")[2])).sum();
+        assertTrue(izostavljeno >= 1, redovi.toString());
+        assertEquals(5, ispisano + prijavljeno);
+        assertEquals(5 - ispisano, dnevnik.getBrojIzostavljenih());
+    }
+}
@@ -0,0 +1,166 @@
+package org.etf.unibl.danilo_todorovic_1156_22_pj.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests reopening the malfunction journal after a torn or damaged last record and with an index that does not
+ * match the journal, that a journal opened for queries is left unchanged, and that a malfunction already journaled
+ * for the same vehicle and time is not appended again.
+ */
+class DnevnikKvarovaTest {
+    private static final LocalDateTime POCETAK = LocalDateTime.of(2024, 6, 1, 9, 0);
+
+    @TempDir
+    Path folder;
+
+    private static Kvar kvar(int minut, String id, String opis) {
+        return new Kvar("bicikl", id, POCETAK.plusMinutes(minut), opis);
+    }
+
+    private static List<String> opisi(DnevnikKvarova dnevnik) {
+        return dnevnik.stranica(0, Integer.MAX_VALUE).stream().map(Kvar::getDescription).toList();
+    }
+
+    private void upisi(Path folder, Kvar... kvarovi) throws IOException {
+        try (DnevnikKvarova dnevnik = new DnevnikKvarova(folder)) {
+            for (Kvar kvar : kvarovi) {
+                dnevnik.dodaj(kvar);
+            }
+        }
+    }
+
+    @Test
+    void nepotpunZapisSeOdsijeca() throws IOException {
+        upisi(folder, kvar(0, "B1", "prvi"), kvar(1, "B2", "drugi"));
+        Path zapisi = folder.resolve(DnevnikKvarova.ZAPISI);
+        long velicina = Files.size(zapisi);
+        Files.write(zapisi, new byte[]{0, 0, 0, 30, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        try (DnevnikKvarova dnevnik = new DnevnikKvarova(folder)) {
+            assertEquals(velicina, Files.size(zapisi));
+            assertEquals(List.of("prvi", "drugi"), opisi(dnevnik));
+            assertTrue(dnevnik.dodaj(kvar(2, "B1", "treci")));
+        }
+        try (DnevnikKvarova dnevnik = new DnevnikKvarova(folder)) {
+            assertEquals(List.of("prvi", "drugi", "treci"), opisi(dnevnik));
+        }
+    }
+
+    @Test
+    void repSaNulamaSeOdsijeca() throws IOException {
+        upisi(folder, kvar(0, "B1", "prvi"), kvar(1, "B2", "drugi"));
+        Path zapisi = folder.resolve(DnevnikKvarova.ZAPISI);
+        byte[] sadrzaj = Files.readAllBytes(zapisi);
+        byte[] okvirBezZapisa = {0, 0, 0, 0, 0, 0, 0, 0}; // Empty payload, whose CRC32 is 0
+        // Intact frame whose payload declares a string longer than the payload
+        byte[] pogresanZapis = {0, 0, 0, 18, 7, (byte) 0xFB, 88, (byte) 0xCF, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 16, 0, 0, 0, 0};
+
+        for (byte[] rep : List.of(new byte[16], okvirBezZapisa, new byte[]{0, 0, 0, 40, 1, 2}, pogresanZapis)) {
+            Files.write(zapisi, sadrzaj);
+            Files.write(zapisi, rep, StandardOpenOption.APPEND);
+            try (DnevnikKvarova dnevnik = new DnevnikKvarova(folder)) {
+                assertEquals(sadrzaj.length, Files.size(zapisi));
+                assertEquals(List.of("prvi", "drugi"), opisi(dnevnik));
+                assertTrue(dnevnik.dodaj(kvar(2, "B1", "treci")));
+            }
+            try (DnevnikKvarova dnevnik = new DnevnikKvarova(folder)) {
+                assertEquals(List.of("prvi", "drugi", "treci"), opisi(dnevnik));
+            }
+        }
+    }
+
+    @Test
+    void citanjeNeMijenjaDnevnik() throws IOException {
+        try (DnevnikKvarova pisac = new DnevnikKvarova(folder)) {
+            pisac.dodaj(kvar(0, "B1", "prvi"));
+            pisac.dodaj(kvar(1, "B2", "drugi"));
+            Path zapisi = folder.resolve(DnevnikKvarova.ZAPISI);
+            Files.write(zapisi, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND); // A record still being written
+            long velicina = Files.size(zapisi);
+
+            try (DnevnikKvarova citac = DnevnikKvarova.zaCitanje(folder)) {
+                assertEquals(List.of("prvi", "drugi"), opisi(citac));
+                assertThrows(IOException.class, () -> citac.dodaj(kvar(2, "B3", "treci")));
+            }
+            assertEquals(velicina, Files.size(zapisi));
+            assertFalse(Files.exists(folder.resolve(DnevnikKvarova.INDEKS)));
+        }
+        assertThrows(IOException.class, () -> DnevnikKvarova.zaCitanje(folder.resolve("ne_postoji")));
+        assertFalse(Files.exists(folder.resolve("ne_postoji")));
+    }
+
+    @Test
+    void ostecenZapisSeOdsijeca() throws IOException {
+        upisi(folder, kvar(0, "B1", "prvi"), kvar(1, "B2", "drugi"), kvar(2, "B3", "treci"));
+        Path zapisi = folder.resolve(DnevnikKvarova.ZAPISI);
+        byte[] sadrzaj = Files.readAllBytes(zapisi);
+        sadrzaj[sadrzaj.length - 1] ^= 1; // Damages the description of the last record
+
+        for (boolean saIndeksom : new boolean[]{true, false}) {
+            Files.write(zapisi, sadrzaj);
+            if (!saIndeksom) {
+                Files.delete(folder.resolve(DnevnikKvarova.INDEKS));
+            }
+            try (DnevnikKvarova dnevnik = new DnevnikKvarova(folder)) {
+                assertEquals(List.of("prvi", "drugi"), opisi(dnevnik), "sa indeksom: " + saIndeksom);
+                assertEquals(0, dnevnik.zaVozilo("B3").count());
+            }
+        }
+    }
+
+    @Test
+    void indeksDrugogDnevnikaSeZanemaruje() throws IOException {
+        Path drugi = folder.resolve("drugi");
+        Path treci = folder.resolve("treci");
+        upisi(drugi, kvar(0, "A1", "a"), kvar(5, "A2", "b"));
+        upisi(treci, kvar(1, "B1", "dugacak opis"), kvar(2, "B2", "c"), kvar(3, "B3", "d"));
+        Files.copy(drugi.resolve(DnevnikKvarova.INDEKS), treci.resolve(DnevnikKvarova.INDEKS), StandardCopyOption.REPLACE_EXISTING);
+
+        try (DnevnikKvarova dnevnik = new DnevnikKvarova(treci)) {
+            assertEquals(List.of("dugacak opis", "c", "d"), opisi(dnevnik));
+            assertEquals(0, dnevnik.zaVozilo("A1").count());
+            assertEquals(1, dnevnik.zaVozilo("B2").count());
+        }
+
+        Files.write(treci.resolve(DnevnikKvarova.INDEKS), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+        try (DnevnikKvarova dnevnik = new DnevnikKvarova(treci)) {
+            assertEquals(List.of("dugacak opis", "c", "d"), opisi(dnevnik));
+        }
+    }
+
+    @Test
+    void ponovljeniKvaroviSeNeDodaju() throws IOException {
+        try (DnevnikKvarova dnevnik = new DnevnikKvarova(folder)) {
+            assertTrue(dnevnik.dodaj(kvar(0, "B1", "prvi")));
+            assertTrue(dnevnik.dodaj(kvar(0, "B2", "drugi")));
+            assertFalse(dnevnik.dodaj(kvar(0, "B1", "ponovljen")));
+            assertEquals(1, dnevnik.getBrojPreskocenih());
+        }
+        for (boolean saIndeksom : new boolean[]{true, false}) {
+            if (!saIndeksom) {
+                Files.delete(folder.resolve(DnevnikKvarova.INDEKS));
+            }
+            try (DnevnikKvarova dnevnik = new DnevnikKvarova(folder)) {
+                assertFalse(dnevnik.dodaj(kvar(0, "B2", "ponovljen")));
+                assertTrue(dnevnik.dodaj(kvar(saIndeksom ? 1 : 2, "B2", saIndeksom ? "treci" : "cetvrti")));
+            }
+        }
+        try (DnevnikKvarova dnevnik = new DnevnikKvarova(folder)) {
+            assertEquals(List.of("prvi", "drugi", "treci", "cetvrti"), opisi(dnevnik));
+        }
+    }
+}